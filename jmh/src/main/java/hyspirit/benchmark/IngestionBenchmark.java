@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hyspirit.application.indexing.IndexingObject;
+import hyspirit.application.indexing.SimpleHypertextFileIndex;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Ingests synthetic documents into a {@link SimpleHypertextFileIndex}, i.e.
+ * filters their full text with the Java text analyzer and collects the
+ * frequency statistics. Writing the index needs HySpirit and is not measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class IngestionBenchmark {
+
+    /** The number of documents */
+    @Param({ "1000", "10000" })
+    public int documents;
+
+    /** The number of ingestion threads */
+    @Param({ "1", "4" })
+    public int threads;
+
+    private IndexingObject[] objects;
+    private File indexDir;
+    private SimpleHypertextFileIndex index;
+
+    @Setup
+    public void setUp() throws IOException {
+	Random random = new Random(42);
+	objects = new IndexingObject[documents];
+	for (int d = 0; d < documents; d++) {
+	    objects[d] = new IndexingObject("doc" + d, "article");
+	    objects[d].setFulltext(
+		    MDSCorpus.text(50 + random.nextInt(400), random));
+	    objects[d].addAttribute("author", "a" + random.nextInt(100));
+	}
+	indexDir = Files.createTempDirectory("index").toFile();
+    }
+
+    @Setup(Level.Invocation)
+    public void newIndex() {
+	// the properties are not used unless the index is written
+	index = new SimpleHypertextFileIndex(
+		HySpiritProperties.withoutInstallation(indexDir.getAbsolutePath()),
+		indexDir.getAbsolutePath());
+	index.useTextAnalyzer(true);
+	index.useParallelIngestion(threads);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+	Files.walk(indexDir.toPath()).sorted(Comparator.reverseOrder())
+		.map(Path::toFile).forEach(File::delete);
+    }
+
+    @Benchmark
+    public SimpleHypertextFileIndex ingest() {
+	for (IndexingObject object : objects)
+	    index.addIndexingObject(object);
+	index.finishIngestion();
+	return index;
+    }
+}
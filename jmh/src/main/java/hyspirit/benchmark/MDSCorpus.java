@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import hyspirit.util.Util;
+
+/**
+ * Generates synthetic MDS data for the benchmarks. Terms and documents follow
+ * a skewed distribution, so some terms are frequent and most are rare. The
+ * benchmarks use the scales below, so regressions show up without a HySpirit
+ * installation.
+ */
+public class MDSCorpus {
+
+    /** Number of tuples of a small corpus */
+    public static final String SMALL = "10000";
+
+    /** Number of tuples of a medium corpus */
+    public static final String MEDIUM = "100000";
+
+    /** Number of tuples of a large corpus */
+    public static final String LARGE = "1000000";
+
+    /**
+     * Creates tuple lines with the given number of attributes. Every fourth
+     * attribute is a quoted string containing a comma.
+     *
+     * @param n
+     *            the number of lines
+     * @param arity
+     *            the number of attributes per line
+     * @param random
+     *            the random number generator
+     * @return the lines
+     */
+    public static String[] tupleLines(int n, int arity, Random random) {
+	String[] lines = new String[n];
+	StringBuilder line = new StringBuilder();
+	for (int i = 0; i < n; i++) {
+	    line.setLength(0);
+	    line.append(Util.floatToString(random.nextFloat())).append(" (");
+	    for (int a = 0; a < arity; a++) {
+		if (a > 0)
+		    line.append(", ");
+		if (a % 4 == 3)
+		    line.append("\"title ").append(random.nextInt(1000))
+			    .append(", part ").append(a).append('"');
+		else
+		    line.append(term(random, 50000));
+	    }
+	    line.append(')');
+	    lines[i] = line.toString();
+	}
+	return lines;
+    }
+
+    /**
+     * Returns a term drawn from a skewed distribution over the given number of
+     * distinct terms
+     *
+     * @param random
+     *            the random number generator
+     * @param vocabulary
+     *            the number of distinct terms
+     * @return the term
+     */
+    public static String term(Random random, int vocabulary) {
+	double u = random.nextDouble();
+	return "t" + (int) (vocabulary * u * u * u);
+    }
+
+    /**
+     * Creates frequency tuple lines ("&lt;freq&gt; (&lt;term&gt;,
+     * &lt;doc&gt;)") as in term_tf.freq
+     *
+     * @param n
+     *            the number of lines
+     * @param random
+     *            the random number generator
+     * @return the lines
+     */
+    public static String[] freqLines(int n, Random random) {
+	String[] lines = new String[n];
+	for (int i = 0; i < n; i++)
+	    lines[i] = (1 + random.nextInt(20)) + " (\"" + term(random, 50000)
+		    + "\",\"d" + random.nextInt(n / 10 + 1) + "\")";
+	return lines;
+    }
+
+    /**
+     * Creates docterm lines ("&lt;prob&gt; (&lt;term&gt;, &lt;doc&gt;)")
+     * grouped by document, i.e. an optimised stream in the sense of
+     * {@link hyspirit.application.indexing.MDSTools#convertDoctermToIDF(String, String, String, boolean)}
+     * . A document has termsPerDoc tuples on average; terms may occur more
+     * than once per document.
+     *
+     * @param n
+     *            the number of lines
+     * @param termsPerDoc
+     *            the average number of tuples per document
+     * @param random
+     *            the random number generator
+     * @return the lines
+     */
+    public static String[] doctermLines(int n, int termsPerDoc,
+	    Random random) {
+	String[] lines = new String[n];
+	int doc = 0;
+	int left = 0;
+	for (int i = 0; i < n; i++) {
+	    if (left-- == 0) {
+		doc++;
+		left = 1 + random.nextInt(2 * termsPerDoc);
+	    }
+	    lines[i] = Util.floatToString(random.nextFloat()) + " (\""
+		    + term(random, 50000) + "\",\"d" + doc + "\")";
+	}
+	return lines;
+    }
+
+    /**
+     * Creates a text of the given number of words. Words are drawn from a
+     * skewed distribution over a vocabulary of letter sequences, so they
+     * survive stemming and stopword removal mostly unchanged.
+     *
+     * @param words
+     *            the number of words
+     * @param random
+     *            the random number generator
+     * @return the text
+     */
+    public static String text(int words, Random random) {
+	StringBuilder text = new StringBuilder();
+	for (int i = 0; i < words; i++) {
+	    double u = random.nextDouble();
+	    int w = (int) (20000 * u * u * u);
+	    text.append('w');
+	    do {
+		text.append((char) ('a' + w % 26));
+		w /= 26;
+	    } while (w > 0);
+	    text.append(i % 12 == 11 ? ". " : " ");
+	}
+	return text.toString();
+    }
+
+    /**
+     * Writes lines to a temporary file which is deleted on exit
+     *
+     * @param prefix
+     *            the prefix of the file name
+     * @param lines
+     *            the lines
+     * @return the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static File write(String prefix, String[] lines)
+	    throws IOException {
+	File file = File.createTempFile(prefix, ".mds");
+	file.deleteOnExit();
+	BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+	for (String line : lines) {
+	    writer.write(line);
+	    writer.newLine();
+	}
+	writer.close();
+	return file;
+    }
+}
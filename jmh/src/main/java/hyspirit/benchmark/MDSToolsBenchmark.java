@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hyspirit.application.indexing.MDSTools;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.TupleBatch;
+
+/**
+ * Measures {@link MDSTools} on synthetic docterm files: the conversion into
+ * an IDF file and filtering by a column, on files and on a
+ * {@link TupleBatch}. One in hundred documents is filtered.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MDSToolsBenchmark {
+
+    /** The number of tuples of the docterm file */
+    @Param({ MDSCorpus.SMALL, MDSCorpus.MEDIUM, MDSCorpus.LARGE })
+    public int tuples;
+
+    private File doctermFile;
+    private File idfFile;
+    private Set<String> filterValues;
+    private TupleBatch batch;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() throws IOException, HyTupleFormatException {
+	String[] lines = MDSCorpus.doctermLines(tuples, 100, new Random(42));
+	doctermFile = MDSCorpus.write("docterm", lines);
+	idfFile = File.createTempFile("idf", ".mds");
+	filterValues = new HashSet<String>();
+	for (int doc = 1; doc <= tuples / 100; doc += 100)
+	    filterValues.add("\"d" + doc + "\"");
+	batch = new TupleBatch();
+	for (String line : lines)
+	    batch.addLine(line);
+
+	// convertDoctermToIDF reports its progress on System.out
+	stdout = System.out;
+	System.setOut(new PrintStream(new OutputStream() {
+	    @Override
+	    public void write(int b) {
+	    }
+
+	    @Override
+	    public void write(byte[] b, int off, int len) {
+	    }
+	}));
+    }
+
+    @TearDown
+    public void tearDown() {
+	System.setOut(stdout);
+	doctermFile.delete();
+	idfFile.delete();
+    }
+
+    @Benchmark
+    public long convertDoctermToIDF() {
+	MDSTools.convertDoctermToIDF(doctermFile.getAbsolutePath(),
+		idfFile.getAbsolutePath(), "max_idf", true);
+	return idfFile.length();
+    }
+
+    @Benchmark
+    public int filterByColumnFile() throws IOException,
+	    HyTupleFormatException {
+	Writer discard = new Writer() {
+	    @Override
+	    public void write(char[] cbuf, int off, int len) {
+	    }
+
+	    @Override
+	    public void flush() {
+	    }
+
+	    @Override
+	    public void close() {
+	    }
+	};
+	return MDSTools.filterByColumn(1, filterValues,
+		new FileReader(doctermFile), discard, true);
+    }
+
+    @Benchmark
+    public TupleBatch filterByColumnBatch() {
+	return MDSTools.filterByColumn(1, filterValues, batch);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hyspirit.application.retrieval.RankedList;
+import hyspirit.application.retrieval.ResultItem;
+import hyspirit.knowledgeBase.TupleBatch;
+
+/**
+ * Ranks a result and writes the top 1000 as a TREC result, as done for
+ * evaluation runs. k=0 keeps and sorts all items; k=1000 uses the bounded
+ * top-k mode of {@link RankedList}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RankedListBenchmark {
+
+    private static final int TREC_LIMIT = 1000;
+
+    /** The number of results */
+    @Param({ MDSCorpus.SMALL, MDSCorpus.MEDIUM, MDSCorpus.LARGE })
+    public int results;
+
+    /** The maximum size of the ranking; 0 for unbounded */
+    @Param({ "0", "1000" })
+    public int k;
+
+    private double[] rsvs;
+    private String[] uris;
+    private TupleBatch batch;
+    private File trecFile;
+
+    @Setup
+    public void setUp() throws IOException {
+	Random random = new Random(42);
+	rsvs = new double[results];
+	uris = new String[results];
+	batch = new TupleBatch();
+	for (int i = 0; i < results; i++) {
+	    rsvs[i] = random.nextDouble();
+	    uris[i] = "\"http://example.org/doc" + i + ".html\"";
+	    batch.add(rsvs[i], uris[i]);
+	}
+	trecFile = File.createTempFile("trec", ".res");
+    }
+
+    @TearDown
+    public void tearDown() {
+	trecFile.delete();
+    }
+
+    private RankedList newList() {
+	return k > 0 ? new RankedList(k) : new RankedList();
+    }
+
+    @Benchmark
+    public RankedList addAndSort() {
+	RankedList ranking = newList();
+	for (int i = 0; i < results; i++)
+	    ranking.add(new ResultItem(rsvs[i], uris[i]));
+	ranking.sort();
+	return ranking;
+    }
+
+    @Benchmark
+    public RankedList addBatchAndSort() {
+	RankedList ranking = newList();
+	ranking.add(batch);
+	ranking.sort();
+	return ranking;
+    }
+
+    @Benchmark
+    public RankedList writeTRECResult() throws IOException {
+	RankedList ranking = newList();
+	ranking.add(batch);
+	ranking.writeTRECResult(trecFile.getAbsolutePath(), "q1", "bench",
+		TREC_LIMIT, false, true);
+	return ranking;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+
+/**
+ * The regular expression based tuple parsing HyTuple used before 1.3.0, kept
+ * as the baseline for the parser benchmarks.
+ */
+public class RegexTupleParser {
+
+    /**
+     * Parses a line like HyTuple(String) did before 1.3.0
+     *
+     * @param line
+     *            the tuple line
+     * @return the tuple
+     * @throws HyTupleFormatException
+     *             if the line does not represent a tuple
+     */
+    public static HyTuple parse(String line) throws HyTupleFormatException {
+	double probability;
+	Matcher m = Pattern.compile("^([10](\\.[0-9]*)?)").matcher(line);
+	if (m.find()) {
+	    String probString = m.group();
+	    probability = Float.parseFloat(probString);
+	}
+	else {
+	    m = Pattern.compile("^\\s*\\((.*)\\)").matcher(line);
+	    if (m.find())
+		probability = 1;
+	    else
+		throw new HyTupleFormatException(
+			"Malformed probability in tuple!");
+	}
+
+	m = Pattern.compile("\\((.*)\\)").matcher(line);
+	if (m.find()) {
+	    String attributeString =
+		    m.group().substring(1, m.group().length() - 1);
+
+	    m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
+		    .matcher(attributeString);
+	    Vector<String> attValues = new Vector<String>();
+	    while (m.find() && !attributeString.equals("")) {
+		String attributeValue = m.group();
+		attributeString =
+			attributeString.substring(m.end(),
+				attributeString.length())
+				.trim();
+		if (attributeValue.endsWith(","))
+		    attributeValue =
+			    attributeValue.substring(0,
+				    attributeValue.length() - 1);
+		attValues.add(attributeValue.trim());
+		m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
+			.matcher(attributeString);
+	    }
+	    return new HyTuple(probability,
+		    attValues.toArray(new String[attValues.size()]));
+	}
+	else
+	    throw new HyTupleFormatException("Malformed attributes in tuple!");
+    }
+}
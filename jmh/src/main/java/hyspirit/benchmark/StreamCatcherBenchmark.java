@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hyspirit.util.StreamCatcher;
+
+/**
+ * Measures how fast engine output passes a {@link StreamCatcher}, buffered
+ * (the whole output is read before the first line is delivered) and in
+ * streaming mode (lines are handed over through a bounded queue).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamCatcherBenchmark {
+
+    private static final String DELIMITER = "_ENDQUERY_";
+
+    /** The number of lines of the output */
+    @Param({ MDSCorpus.SMALL, MDSCorpus.MEDIUM })
+    public int lines;
+
+    private String output;
+
+    @Setup
+    public void setUp() {
+	StringBuilder all = new StringBuilder();
+	for (String line : MDSCorpus.tupleLines(lines, 1, new Random(42)))
+	    all.append(line).append('\n');
+	all.append(DELIMITER).append('\n');
+	output = all.toString();
+    }
+
+    @Benchmark
+    public void buffered(Blackhole bh) {
+	StreamCatcher catcher = new StreamCatcher(
+		new BufferedReader(new StringReader(output)), DELIMITER);
+	catcher.start();
+	while (catcher.hasNext())
+	    bh.consume(catcher.next());
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) {
+	StreamCatcher catcher = new StreamCatcher(
+		new BufferedReader(new StringReader(output)), DELIMITER,
+		StreamCatcher.DEFAULT_STREAM_CAPACITY);
+	catcher.start();
+	while (catcher.hasNext())
+	    bh.consume(catcher.next());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hyspirit.application.indexing.DocFreqList;
+import hyspirit.application.indexing.DocTermList;
+
+/**
+ * Counts term frequencies per document with {@link DocTermList} and document
+ * frequencies with {@link DocFreqList}, the statistics built during indexing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TermStatisticsBenchmark {
+
+    private static final int TERMS_PER_DOC = 100;
+
+    /** The number of term occurrences */
+    @Param({ MDSCorpus.SMALL, MDSCorpus.MEDIUM, MDSCorpus.LARGE })
+    public int occurrences;
+
+    private String[] terms;
+    private String[] docs;
+
+    @Setup
+    public void setUp() {
+	Random random = new Random(42);
+	terms = new String[occurrences];
+	docs = new String[occurrences];
+	for (int i = 0; i < occurrences; i++) {
+	    terms[i] = MDSCorpus.term(random, 50000);
+	    docs[i] = "d" + (i / TERMS_PER_DOC);
+	}
+    }
+
+    @Benchmark
+    public int docTermLists() {
+	int distinct = 0;
+	DocTermList docTerms = null;
+	for (int i = 0; i < occurrences; i++) {
+	    if (i % TERMS_PER_DOC == 0)
+		docTerms = new DocTermList(docs[i]);
+	    if (docTerms.addTerm(terms[i]) == 1)
+		distinct++;
+	}
+	return distinct;
+    }
+
+    @Benchmark
+    public DocFreqList docFreqList() {
+	DocFreqList docFreqs = new DocFreqList();
+	for (int i = 0; i < occurrences; i++)
+	    docFreqs.addTermDoc(terms[i], docs[i]);
+	return docFreqs;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hyspirit.knowledgeBase.HyFreqTuple;
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+
+/**
+ * Compares the regular expression based tuple parsing with
+ * {@link HyTupleParser}, creating HyTuple objects from lines and parsing
+ * windows of a char buffer without creating strings. Frequency tuples (as in
+ * the .freq files of the index) are parsed into HyFreqTuple objects and with
+ * the parser directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TupleParserBenchmark {
+
+    /** The number of attributes per tuple */
+    @Param({ "2", "8" })
+    public int arity;
+
+    private static final int LINES = 1024;
+
+    private String[] lines;
+    private String[] freqLines;
+    private char[] buffer;
+    private int[] lineStarts;
+    private int next = 0;
+    private final HyTupleParser parser = new HyTupleParser();
+
+    @Setup
+    public void setUp() {
+	lines = MDSCorpus.tupleLines(LINES, arity, new Random(42));
+	freqLines = MDSCorpus.freqLines(LINES, new Random(42));
+	StringBuilder all = new StringBuilder();
+	lineStarts = new int[LINES + 1];
+	for (int i = 0; i < LINES; i++) {
+	    lineStarts[i] = all.length();
+	    all.append(lines[i]).append('\n');
+	}
+	lineStarts[LINES] = all.length();
+	buffer = all.toString().toCharArray();
+    }
+
+    private int nextLine() {
+	next = (next + 1) & (LINES - 1);
+	return next;
+    }
+
+    @Benchmark
+    public HyTuple regex() throws HyTupleFormatException {
+	return RegexTupleParser.parse(lines[nextLine()]);
+    }
+
+    @Benchmark
+    public HyTuple parser() throws HyTupleFormatException {
+	return new HyTuple(lines[nextLine()]);
+    }
+
+    @Benchmark
+    public void parserWindow(Blackhole bh) throws HyTupleFormatException {
+	int i = nextLine();
+	parser.parse(buffer, lineStarts[i], lineStarts[i + 1] - 1);
+	bh.consume(parser.probability());
+	bh.consume(parser.valueEnd(parser.size() - 1));
+    }
+
+    @Benchmark
+    public HyFreqTuple freqTuple() throws HyTupleFormatException {
+	return new HyFreqTuple(freqLines[nextLine()]);
+    }
+
+    @Benchmark
+    public int parserFrequency() throws HyTupleFormatException {
+	parser.parseFrequencyTuple(freqLines[nextLine()]);
+	return parser.frequency() + parser.valueEnd(1);
+    }
+}
@@ -21,12 +21,12 @@
  */
 package hyspirit.application.indexing;
 
+import hyspirit.util.LongHashSet;
+import hyspirit.util.StringIntMap;
 import hyspirit.util.Util;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 
 import org.apache.logging.log4j.LogManager;
@@ -57,7 +57,8 @@ public class DocFreqList {
      */
     public final static int SUM_IDF = 1;
 
-    private final HashMap<String, Integer> termIDF = new HashMap<String, Integer>();
+    // document frequencies; the index of a term is used as its id
+    private final StringIntMap termIDF = new StringIntMap();
     private int numberOfDocuments = 0;
     private float idfmax = -1;
     private float idfsum = -1;
@@ -73,14 +74,14 @@ public class DocFreqList {
     private String lastDoc = null;
 
     /**
-     * Keeps track of term-document pairs
+     * Keeps track of term-document pairs (term id and document id)
      */
-    private final HashSet<String> termdocs = new HashSet<String>();
+    private final LongHashSet termdocs = new LongHashSet();
 
     /**
-     * Keeps track of documents
+     * Keeps track of documents, assigning document ids
      */
-    private final HashSet<String> docs = new HashSet<String>();
+    private final StringIntMap docs = new StringIntMap();
 
     /**
      * Constructor of class.
@@ -145,17 +146,10 @@ public class DocFreqList {
      * @return the new document frequency for the term
      */
     public int inc(String term) {
-	Integer docFreq = termIDF.get(term);
-	if (docFreq == null) {
-	    docFreq = new Integer(1);
-	}
-	else
-	    docFreq =
-		    new Integer((docFreq.intValue()) + 1);
-	termIDF.put(term, docFreq);
+	int docFreq = termIDF.increment(term, 1);
 	idfmax = -1;
 	idfsum = -1;
-	return docFreq.intValue();
+	return docFreq;
     }
 
     /**
@@ -175,11 +169,7 @@ public class DocFreqList {
      * @return the term's document frequency
      */
     public int docFreq(String term) {
-	Integer docFreq = termIDF.get(term);
-	if (docFreq == null)
-	    return 0;
-	else
-	    return docFreq.intValue();
+	return termIDF.get(term);
     }
 
     /**
@@ -203,7 +193,7 @@ public class DocFreqList {
      * @return the terms of the document
      */
     public Iterator<String> terms() {
-	return termIDF.keySet().iterator();
+	return termIDF.keys();
     }
 
     /**
@@ -226,14 +216,13 @@ public class DocFreqList {
 	    inc(term);
 	}
 	else {
-	    String termdoc = term + "%%%" + doc;
-	    if (!termdocs.contains(termdoc)) {
+	    int numberOfDocs = docs.size();
+	    long termdoc = LongHashSet.pair(termIDF.add(term), docs.add(doc));
+	    if (termdocs.add(termdoc)) {
 		// a new document term pair
-		termdocs.add(termdoc);
 		inc(term);
-		if (!docs.contains(doc)) {
+		if (docs.size() > numberOfDocs) {
 		    // a new document
-		    docs.add(doc);
 		    incNumberOfDocuments();
 		}
 	    }
@@ -22,10 +22,10 @@
 package hyspirit.application.indexing;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+
+import hyspirit.util.StringIntMap;
 import hyspirit.util.Util;
 
 /**
@@ -38,8 +38,9 @@ import hyspirit.util.Util;
  */
 
 public class DocTermList {
-	  private HashMap termFreqs = new HashMap();
-	  private TermFreq maxTermFreq = null;
+	  // term frequencies; the term index is the position of the term
+	  private StringIntMap termFreqs = new StringIntMap();
+	  private int maxTerm = -1; // index of the most frequent term
 	  private int numberOfTerms = 0; // the number of terms in this document
 	  private int numberOfDistinctTerms = 0; // the number of distinct terms
 	  private String uri = null;
@@ -72,7 +73,7 @@ public class DocTermList {
 	  
 	  /**
 	   * Adds a term; if the term already exists, its frequency is incremented;
-	   * if not, a new TermFreq object is created with frequency 1. Returns the
+	   * if not, it is added with frequency 1. Returns the
 	   * frequency of this term in this list.
 	   * @param term the term to be added
        * @return the updated term frequency
@@ -80,23 +81,10 @@ public class DocTermList {
 	  public int addTerm(String term) {
 	      int frequency = 0;
 	      if (term != null) {
-	          if (maxTermFreq == null) {
-	              // the first term
-	              maxTermFreq = new TermFreq(term);
-	              frequency = 1;
-	              numberOfDistinctTerms++;
-	          }
-	          else {
-	              TermFreq termfreq = getTermFreq(term);
-	              if (termfreq == null) {
-	                  	// a new term
-	              		termfreq = new TermFreq(term);
-	              		numberOfDistinctTerms++;
-	              }
-	              else termfreq.inc();
-	              addTerm(termfreq);
-	              frequency = termfreq.frequency();
-	          }
+	          int index = termFreqs.add(term);
+	          frequency = termFreqs.valueAt(index) + 1;
+	          if (frequency == 1) numberOfDistinctTerms++;
+	          setFrequency(index, frequency);
 	          numberOfTerms++;
 	      }
 	      return frequency;
@@ -107,19 +95,19 @@ public class DocTermList {
 	   * @param termFreq the TermFreq object
 	   */
 	  public void addTerm (TermFreq termFreq) {
-	      if (termFreq != null) {
-	          if (maxTermFreq == null) maxTermFreq = termFreq;
-	          else if (termFreq.frequency() >= maxTermFreq.frequency()) {
-	              if (!maxTermFreq.term().equals(termFreq.term())) {
-	                  // termFreq is the new maxTermFreq, so insert former
-	                  // maxTermFreq and remove termFreq from list
-	                  termFreqs.put(maxTermFreq.term(), maxTermFreq);
-	                  termFreqs.remove(termFreq.term());
-	              }
-	              maxTermFreq = termFreq;
-	          }
-	          else termFreqs.put(termFreq.term(), termFreq);
-	      }
+	      if (termFreq != null)
+	          setFrequency(termFreqs.add(termFreq.term()),
+	                  termFreq.frequency());
+	  }
+	  
+	  /*
+	   * Sets the frequency of the term with the given index, checks if it is
+	   * the maximum one
+	   */
+	  private void setFrequency(int index, int frequency) {
+	      termFreqs.setValueAt(index, frequency);
+	      if (maxTerm < 0 || frequency >= termFreqs.valueAt(maxTerm))
+	          maxTerm = index;
 	  }
 	  
 	  /**
@@ -128,12 +116,23 @@ public class DocTermList {
 	   */
 	  public TermFreq getTermFreq(String term) {
 	      TermFreq termFreq = null;
-	      if (term != null && maxTermFreq != null) {
-	          if ((maxTermFreq.term()).equals(term)) termFreq = maxTermFreq;
-	          else termFreq = (TermFreq)termFreqs.get(term);
+	      if (term != null) {
+	          int index = termFreqs.indexOf(term);
+	          if (index >= 0)
+	              termFreq = new TermFreq(term, termFreqs.valueAt(index));
 	      }
 	      return termFreq;
 	  }
+	  
+	  /**
+	   * Returns the frequency of the term in this list
+	   * @param term the term
+	   * @return the term frequency, 0 if the term is not in the list
+	   * @since 1.3.0
+	   */
+	  public int frequency(String term) {
+	      return term == null ? 0 : termFreqs.get(term);
+	  }
 	 
 	  /**
 	   * Retruns the normalised term frequency of a term as used by the SMART
@@ -143,11 +142,10 @@ public class DocTermList {
 	   */
 	  public float smartNTF(String term) {
 	      float ntf = 0;
-	      if (maxTermFreq != null) {
-	          int maxtf = maxTermFreq.frequency();
-	          TermFreq termFreq = getTermFreq(term);
-	          if (termFreq != null) {
-	              int tf = termFreq.frequency();
+	      if (maxTerm >= 0) {
+	          int maxtf = termFreqs.valueAt(maxTerm);
+	          int tf = frequency(term);
+	          if (tf > 0) {
 	              ntf = (float) 0.5 * (1 + ((float) tf/maxtf));
 	          }
 	      }
@@ -162,11 +160,10 @@ public class DocTermList {
 	   */
 	  public float maxNTF(String term) {
 	      float ntf = 0;
-	      if (maxTermFreq != null) {
-	          int maxtf = maxTermFreq.frequency();
-	          TermFreq termFreq = getTermFreq(term);
-	          if (termFreq != null) {
-	              int tf = termFreq.frequency();
+	      if (maxTerm >= 0) {
+	          int maxtf = termFreqs.valueAt(maxTerm);
+	          int tf = frequency(term);
+	          if (tf > 0) {
 	              ntf = (float) tf/maxtf;
 	          }
 	      }
@@ -182,9 +179,9 @@ public class DocTermList {
 	   */
 	  public float APoissonWeight(String term, float lambda) {
 	      float weight = 0;
-          TermFreq termFreq = getTermFreq(term);
-          if (termFreq != null) {
-              float tf = (float)termFreq.frequency();
+          int frequency = frequency(term);
+          if (frequency > 0) {
+              float tf = (float)frequency;
               weight = (float) tf/(lambda + tf);
           }
           return weight;
@@ -209,11 +206,10 @@ public class DocTermList {
 	   */
 	  public float sumNTF(String term) {
 	      float ntf = 0;
-	      if (maxTermFreq != null) {
-	          int maxtf = maxTermFreq.frequency();
-	          TermFreq termFreq = getTermFreq(term);
-	          if (termFreq != null) {
-	              int tf = termFreq.frequency();
+	      if (maxTerm >= 0) {
+	          int maxtf = termFreqs.valueAt(maxTerm);
+	          int tf = frequency(term);
+	          if (tf > 0) {
 	              ntf = (float) tf/numberOfTerms;
 	          }
 	      }
@@ -227,13 +223,14 @@ public class DocTermList {
 	   * @return A list of docterms
 	   */
 	  public List docTerms() {
-	      ArrayList docterms = new ArrayList();
-	      Set keyset = termFreqs.keySet();
-	      if (maxTermFreq != null) {
-	          docterms.add(maxTermFreq);
-	          for (Iterator it = keyset.iterator(); it.hasNext();) {
-	              String keyTerm = (String)it.next();
-	              docterms.add((TermFreq) termFreqs.get(keyTerm));
+	      ArrayList docterms = new ArrayList(termFreqs.size());
+	      if (maxTerm >= 0) {
+	          docterms.add(new TermFreq(termFreqs.keyAt(maxTerm),
+	                  termFreqs.valueAt(maxTerm)));
+	          for (int i = 0; i < termFreqs.size(); i++) {
+	              if (i != maxTerm)
+	                  docterms.add(new TermFreq(termFreqs.keyAt(i),
+	                          termFreqs.valueAt(i)));
 	          }
 	      }
 	      return docterms;
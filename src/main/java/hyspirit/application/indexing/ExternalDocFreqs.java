@@ -0,0 +1,554 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.indexing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.util.Util;
+
+/**
+ * Converts a docterm file to an idf file in bounded memory, see
+ * {@link MDSTools#convertDoctermToIDF(String, String, String, int, long)}.
+ * <p>
+ * The lines are parsed in batches by a pool of threads. Each thread collects
+ * its (term, document) pairs and documents, partitioned by hash, until its
+ * share of the memory is used up, and then writes them sorted and without
+ * duplicates to run files. The runs of each partition are merged in
+ * parallel (in several passes if there are more than {@link #MAX_MERGE}
+ * runs), which yields the document frequencies of the terms of the partition
+ * and its number of distinct documents. The sorted document frequencies of
+ * all partitions are finally merged into the idf file, so the terms are
+ * written in their natural order. Temporary files are put into a directory
+ * next to the idf file and deleted afterwards.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+final class ExternalDocFreqs {
+    private static Logger LOG = LogManager.getLogger(ExternalDocFreqs.class);
+
+    /** The number of lines parsed by one task */
+    static final int BATCH_LINES = 8192;
+
+    /** The maximum number of runs merged at once */
+    static final int MAX_MERGE = 64;
+
+    /**
+     * Separates term and document (or document frequency) in run entries; it
+     * sorts before any character of a term
+     */
+    private static final char SEPARATOR = '\u0000';
+
+    /** Estimated bytes of a string in a buffer besides its characters */
+    private static final int STRING_OVERHEAD = 56;
+
+    private final int threads;
+    private final long memory;
+    private final List<List<File>> pairRuns = new ArrayList<List<File>>();
+    private final List<List<File>> docRuns = new ArrayList<List<File>>();
+    private final List<Spiller> spillers = new ArrayList<Spiller>();
+    private final AtomicReference<IOException> failure =
+	    new AtomicReference<IOException>();
+    private final AtomicInteger runCount = new AtomicInteger();
+    private File tmpDir = null;
+
+    /**
+     * @param threads
+     *            the number of threads, the available processors if &lt;= 0
+     * @param memory
+     *            the bytes of memory for buffering pairs, a quarter of the
+     *            maximum heap if &lt;= 0
+     */
+    ExternalDocFreqs(int threads, long memory) {
+	this.threads = threads > 0 ? threads : Runtime.getRuntime()
+		.availableProcessors();
+	this.memory = memory > 0 ? memory
+		: Runtime.getRuntime().maxMemory() / 4;
+	for (int i = 0; i < this.threads; i++) {
+	    pairRuns.add(new ArrayList<File>());
+	    docRuns.add(new ArrayList<File>());
+	}
+    }
+
+    /**
+     * Converts the docterm file to the idf file
+     *
+     * @param doctermFile
+     *            the docterm file
+     * @param idfFile
+     *            the idf file
+     * @param idfNorm
+     *            "max_idf" or "sum_idf"
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    void convert(File doctermFile, File idfFile, String idfNorm)
+	    throws IOException {
+	File dir = idfFile.getAbsoluteFile().getParentFile();
+	tmpDir = Files.createTempDirectory(dir.toPath(),
+		idfFile.getName() + ".runs").toFile();
+	try {
+	    spill(doctermFile);
+	    List<File> docFreqs = new ArrayList<File>();
+	    long documents = 0;
+	    int minDocFreq = 0;
+	    for (long[] result : mergePartitions(docFreqs)) {
+		documents += result[0];
+		if (result[1] > 0
+			&& (minDocFreq == 0 || result[1] < minDocFreq))
+		    minDocFreq = (int) result[1];
+	    }
+	    writeIDF(docFreqs, documents, minDocFreq, idfNorm, idfFile);
+	} finally {
+	    for (File f : tmpDir.listFiles())
+		f.delete();
+	    tmpDir.delete();
+	}
+    }
+
+    /*
+     * Reads the docterm file and lets the pool write the sorted runs
+     */
+    private void spill(File doctermFile) throws IOException {
+	ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0,
+		TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(threads),
+		new ThreadPoolExecutor.CallerRunsPolicy());
+	final ThreadLocal<Spiller> spiller = new ThreadLocal<Spiller>() {
+	    @Override
+	    protected Spiller initialValue() {
+		Spiller s = new Spiller(memory / (threads + 1));
+		synchronized (spillers) {
+		    spillers.add(s);
+		}
+		return s;
+	    }
+	};
+	long lines = 0;
+	BufferedReader in = new BufferedReader(new FileReader(doctermFile));
+	try {
+	    String[] batch = new String[BATCH_LINES];
+	    int size = 0;
+	    String line;
+	    while ((line = in.readLine()) != null && failure.get() == null) {
+		batch[size++] = line;
+		if (size == BATCH_LINES) {
+		    pool.execute(parse(spiller, batch, size));
+		    batch = new String[BATCH_LINES];
+		    size = 0;
+		}
+		if (++lines % 10000000 == 0)
+		    LOG.info("Read " + lines + " lines of " + doctermFile);
+	    }
+	    if (size > 0)
+		pool.execute(parse(spiller, batch, size));
+	} finally {
+	    in.close();
+	    pool.shutdown();
+	    try {
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+	    } catch (InterruptedException ie) {
+		pool.shutdownNow();
+		Thread.currentThread().interrupt();
+		throw new IOException("Interrupted while sorting "
+			+ doctermFile);
+	    }
+	}
+	if (failure.get() != null)
+	    throw failure.get();
+	for (Spiller s : spillers)
+	    s.spill();
+	LOG.debug("Wrote " + runCount + " runs for " + lines + " lines");
+    }
+
+    private Runnable parse(final ThreadLocal<Spiller> spiller,
+	    final String[] batch, final int size) {
+	return new Runnable() {
+	    public void run() {
+		try {
+		    spiller.get().add(batch, size);
+		} catch (IOException io) {
+		    failure.compareAndSet(null, io);
+		}
+	    }
+	};
+    }
+
+    /*
+     * Merges the runs of each partition in parallel. Returns the number of
+     * documents and the minimum document frequency of each partition, and
+     * adds the files with its sorted (term, df) entries to docFreqs.
+     */
+    private List<long[]> mergePartitions(List<File> docFreqs)
+	    throws IOException {
+	ExecutorService pool = Executors.newFixedThreadPool(threads);
+	List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+	for (int p = 0; p < threads; p++) {
+	    final int partition = p;
+	    final File out = new File(tmpDir, "df" + p);
+	    docFreqs.add(out);
+	    futures.add(pool.submit(new Callable<long[]>() {
+		public long[] call() throws IOException {
+		    return mergePartition(partition, out);
+		}
+	    }));
+	}
+	pool.shutdown();
+	List<long[]> results = new ArrayList<long[]>();
+	try {
+	    for (Future<long[]> f : futures)
+		results.add(f.get());
+	} catch (InterruptedException ie) {
+	    pool.shutdownNow();
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Interrupted while merging runs");
+	} catch (ExecutionException ee) {
+	    pool.shutdownNow();
+	    if (ee.getCause() instanceof IOException)
+		throw (IOException) ee.getCause();
+	    throw new IOException(ee.getCause());
+	}
+	return results;
+    }
+
+    private long[] mergePartition(int partition, File out)
+	    throws IOException {
+	long documents = 0;
+	Merger docs = new Merger(reduce(docRuns.get(partition)));
+	try {
+	    while (docs.next() != null)
+		documents++;
+	} finally {
+	    docs.close();
+	}
+
+	int minDocFreq = 0;
+	Merger pairs = new Merger(reduce(pairRuns.get(partition)));
+	DataOutputStream dfs = output(out);
+	try {
+	    String term = null;
+	    int docFreq = 0;
+	    String pair;
+	    while ((pair = pairs.next()) != null) {
+		String t = pair.substring(0, pair.indexOf(SEPARATOR));
+		if (!t.equals(term)) {
+		    if (term != null) {
+			write(dfs, term + SEPARATOR + docFreq);
+			if (minDocFreq == 0 || docFreq < minDocFreq)
+			    minDocFreq = docFreq;
+		    }
+		    term = t;
+		    docFreq = 0;
+		}
+		docFreq++;
+	    }
+	    if (term != null) {
+		write(dfs, term + SEPARATOR + docFreq);
+		if (minDocFreq == 0 || docFreq < minDocFreq)
+		    minDocFreq = docFreq;
+	    }
+	} finally {
+	    pairs.close();
+	    dfs.close();
+	}
+	return new long[] { documents, minDocFreq };
+    }
+
+    /*
+     * Merges runs until at most MAX_MERGE are left
+     */
+    private List<File> reduce(List<File> runs) throws IOException {
+	while (runs.size() > MAX_MERGE) {
+	    List<File> merged = new ArrayList<File>();
+	    for (int i = 0; i < runs.size(); i += MAX_MERGE) {
+		List<File> group = runs.subList(i,
+			Math.min(runs.size(), i + MAX_MERGE));
+		File run = newRun();
+		Merger merger = new Merger(group);
+		DataOutputStream out = output(run);
+		try {
+		    String s;
+		    while ((s = merger.next()) != null)
+			write(out, s);
+		} finally {
+		    merger.close();
+		    out.close();
+		}
+		for (File f : group)
+		    f.delete();
+		merged.add(run);
+	    }
+	    runs = merged;
+	}
+	return runs;
+    }
+
+    /*
+     * Writes the normalised idf values in the order of the terms
+     */
+    private void writeIDF(List<File> docFreqs, long documents,
+	    int minDocFreq, String idfNorm, File idfFile) throws IOException {
+	float norm;
+	if (idfNorm.equals("sum_idf")) {
+	    norm = 0;
+	    Merger merger = new Merger(docFreqs);
+	    try {
+		String entry;
+		while ((entry = merger.next()) != null)
+		    norm += idf(docFreq(entry), documents);
+	    } finally {
+		merger.close();
+	    }
+	} else
+	    norm = minDocFreq > 0 ? idf(minDocFreq, documents) : 0;
+
+	Merger merger = new Merger(docFreqs);
+	BufferedWriter out = new BufferedWriter(new FileWriter(idfFile));
+	try {
+	    String entry;
+	    while ((entry = merger.next()) != null) {
+		float weight = idf(docFreq(entry), documents) / norm;
+		out.write(Util.floatToString(weight) + " (\""
+			+ entry.substring(0, entry.indexOf(SEPARATOR))
+			+ "\")\n");
+	    }
+	} finally {
+	    merger.close();
+	    out.close();
+	}
+    }
+
+    private static int docFreq(String entry) {
+	return Integer.parseInt(entry.substring(entry.indexOf(SEPARATOR) + 1));
+    }
+
+    /*
+     * As DocFreqList.idf()
+     */
+    private static float idf(int docFreq, long documents) {
+	return (float) -Math.log((float) docFreq / (float) documents);
+    }
+
+    private File newRun() {
+	return new File(tmpDir, "run" + runCount.getAndIncrement());
+    }
+
+    private static DataOutputStream output(File file) throws IOException {
+	return new DataOutputStream(new BufferedOutputStream(
+		new FileOutputStream(file), 1 << 16));
+    }
+
+    private static void write(DataOutputStream out, String s)
+	    throws IOException {
+	byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+	out.writeInt(bytes.length);
+	out.write(bytes);
+    }
+
+    /*
+     * Collects the pairs and documents parsed by one thread and writes them
+     * to runs when its memory is used up
+     */
+    private final class Spiller {
+	private final long capacity;
+	private final List<List<String>> pairs = new ArrayList<List<String>>();
+	private final List<List<String>> docs = new ArrayList<List<String>>();
+	private final HyTupleParser parser = new HyTupleParser();
+	private long used = 0;
+
+	Spiller(long capacity) {
+	    this.capacity = capacity;
+	    for (int p = 0; p < threads; p++) {
+		pairs.add(new ArrayList<String>());
+		docs.add(new ArrayList<String>());
+	    }
+	}
+
+	void add(String[] batch, int size) throws IOException {
+	    for (int i = 0; i < size; i++) {
+		String line = batch[i].trim();
+		if (line.isEmpty() || line.startsWith("#"))
+		    continue;
+		String term;
+		String doc;
+		try {
+		    parser.parse(line);
+		    if (parser.size() < 2)
+			throw new HyTupleFormatException("Too few attributes");
+		    term = parser.valueAt(0).replace('"', ' ').trim();
+		    doc = parser.valueAt(1).replace('"', ' ').trim();
+		} catch (HyTupleFormatException e) {
+		    LOG.warn("Ignoring line\n\t" + line);
+		    continue;
+		}
+		String pair = term + SEPARATOR + doc;
+		pairs.get(partition(term)).add(pair);
+		docs.get(partition(doc)).add(doc);
+		used += 2 * STRING_OVERHEAD + 2 * (pair.length() + doc.length());
+		if (used >= capacity)
+		    spill();
+	    }
+	}
+
+	void spill() throws IOException {
+	    for (int p = 0; p < threads; p++) {
+		File run = spill(pairs.get(p));
+		if (run != null)
+		    synchronized (pairRuns) {
+			pairRuns.get(p).add(run);
+		    }
+		run = spill(docs.get(p));
+		if (run != null)
+		    synchronized (docRuns) {
+			docRuns.get(p).add(run);
+		    }
+	    }
+	    used = 0;
+	}
+
+	private File spill(List<String> strings) throws IOException {
+	    if (strings.isEmpty())
+		return null;
+	    Collections.sort(strings);
+	    File run = newRun();
+	    DataOutputStream out = output(run);
+	    try {
+		String last = null;
+		for (String s : strings)
+		    if (!s.equals(last)) {
+			write(out, s);
+			last = s;
+		    }
+	    } finally {
+		out.close();
+	    }
+	    strings.clear();
+	    return run;
+	}
+
+	private int partition(String s) {
+	    return (s.hashCode() & Integer.MAX_VALUE) % threads;
+	}
+    }
+
+    /*
+     * Merges sorted runs, returning each distinct string once
+     */
+    private static final class Merger {
+	private final PriorityQueue<Run> queue = new PriorityQueue<Run>();
+	private final List<Run> runs = new ArrayList<Run>();
+	private String last = null;
+
+	Merger(List<File> files) throws IOException {
+	    try {
+		for (File f : files) {
+		    Run run = new Run(f);
+		    runs.add(run);
+		    if (run.advance())
+			queue.add(run);
+		}
+	    } catch (IOException io) {
+		close();
+		throw io;
+	    }
+	}
+
+	String next() throws IOException {
+	    while (!queue.isEmpty()) {
+		Run run = queue.poll();
+		String s = run.current;
+		if (run.advance())
+		    queue.add(run);
+		if (!s.equals(last)) {
+		    last = s;
+		    return s;
+		}
+	    }
+	    return null;
+	}
+
+	void close() {
+	    for (Run run : runs)
+		try {
+		    run.in.close();
+		} catch (IOException io) {
+		    // nothing left to read
+		}
+	}
+    }
+
+    private static final class Run implements Comparable<Run> {
+	final DataInputStream in;
+	String current = null;
+
+	Run(File file) throws IOException {
+	    in = new DataInputStream(new BufferedInputStream(
+		    new FileInputStream(file), 1 << 16));
+	}
+
+	boolean advance() throws IOException {
+	    int length;
+	    try {
+		length = in.readInt();
+	    } catch (EOFException eof) {
+		current = null;
+		return false;
+	    }
+	    byte[] bytes = new byte[length];
+	    in.readFully(bytes);
+	    current = new String(bytes, StandardCharsets.UTF_8);
+	    return true;
+	}
+
+	public int compareTo(Run other) {
+	    return current.compareTo(other.current);
+	}
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.indexing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.util.Util;
+
+/**
+ * Estimates probabilities from frequencies like hy_freq2mds, but inside the
+ * JVM. The options are those of {@link hyspirit.engines.HyFreq2MDSEngine}.
+ * The input consists of "frequency (key)" lines, optionally preceded by the
+ * "#!" prefix written by {@link MDS2Freq} or {@link SimpleHypertextFileIndex}
+ * with the number of keys, the number N of tuples or values and the average
+ * frequency. Each such prefix starts a new group of frequencies; without
+ * prefix, N is the sum and the average is the mean of the frequencies of the
+ * group.
+ * <p>
+ * If a norm is set, the probability of a frequency f of a group is
+ * <ul>
+ * <li>max: f/max(f), sum: f/sum(f), maxmin: (f-min(f))/(max(f)-min(f))</li>
+ * <li>max_idf, sum_idf, maxmin_idf: the same with idf = -ln(f/N) instead of
+ * f, e.g. the normalised idf values of term_df.freq</li>
+ * <li>pivoted: as the pivoted distribution</li>
+ * </ul>
+ * Otherwise the probability is estimated with the distribution, given the
+ * lambda values (1 by default; the average frequency if
+ * {@link #setAvg(boolean)} is set):
+ * <ul>
+ * <li>disjoint (the default): f/N</li>
+ * <li>independent: 1-(1-1/N)^f</li>
+ * <li>poisson: 1-exp(-(f/lambda)^e) with the interval exponent e</li>
+ * <li>apoisson: f/(f+lambda)</li>
+ * <li>exponential: 1-exp(-f/lambda)</li>
+ * <li>pivoted: f/(f+(1-s)*avg+s*f) with slope s (the lambda if one was
+ * added, 0.2 otherwise) and the average frequency avg</li>
+ * </ul>
+ * With more than one lambda, the mean of the probabilities is taken. The
+ * probability is finally raised to the exponent ({@link #setExponent(float)}).
+ * Norms need the whole group; in stream mode the distributions are applied
+ * line by line, so N and the average must then be given in the prefix.
+ *
+ * <pre>
+ * Freq2MDS idf = new Freq2MDS();
+ * idf.useMaxIDFNorm();
+ * idf.run(new FileReader("term_df.freq"), new FileWriter("idf.mds"));
+ * </pre>
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class Freq2MDS {
+
+    /** The slope of the pivoted distribution if no lambda was added */
+    public static final float DEFAULT_SLOPE = 0.2f;
+
+    private final List<Integer> columns = new ArrayList<Integer>();
+    private String norm = null;
+    private String distribution = "disjoint";
+    private final List<Float> lambdas = new ArrayList<Float>();
+    private boolean avg = false;
+    private boolean stream = false;
+    private float exp = 1;
+    private float intervalExp = 1;
+
+    /**
+     * Adds a column forming the key of the output. Note that the order of
+     * adding columns does matter. Default: all columns.
+     *
+     * @param column
+     *            the column, starting with 1
+     */
+    public void addColumn(int column) {
+	if (column < 1)
+	    throw new IllegalArgumentException("Illegal column: " + column);
+	this.columns.add(column);
+    }
+
+    /**
+     * Use max norm.
+     */
+    public void useMaxNorm() {
+	this.norm = "max";
+    }
+
+    /**
+     * Use max_idf norm.
+     */
+    public void useMaxIDFNorm() {
+	this.norm = "max_idf";
+    }
+
+    /**
+     * Use sum norm.
+     */
+    public void useSumNorm() {
+	this.norm = "sum";
+    }
+
+    /**
+     * Use sum_idf norm.
+     */
+    public void useSumIDFNorm() {
+	this.norm = "sum_idf";
+    }
+
+    /**
+     * Use maxmin norm.
+     */
+    public void useMaxMinNorm() {
+	this.norm = "maxmin";
+    }
+
+    /**
+     * Use maxmin_idf norm.
+     */
+    public void useMaxMinIDFNorm() {
+	this.norm = "maxmin_idf";
+    }
+
+    /**
+     * Use pivoted norm.
+     */
+    public void usePivotedNorm() {
+	this.norm = "pivoted";
+    }
+
+    /**
+     * The exponent applied to the probability. Default: 1
+     *
+     * @param exponent
+     *            the exponent
+     */
+    public void setExponent(float exponent) {
+	this.exp = exponent;
+    }
+
+    /**
+     * Assume a disjoint distribution for the probability estimation (the
+     * default).
+     */
+    public void assumeDisjointDistribution() {
+	this.distribution = "disjoint";
+    }
+
+    /**
+     * Same as assumeDisjointDistribution.
+     */
+    public void assumeSumDistribution() {
+	this.distribution = "disjoint";
+    }
+
+    /**
+     * Assume an apoisson distribution for the probability estimation.
+     */
+    public void assumeApoissonDistribution() {
+	this.distribution = "apoisson";
+    }
+
+    /**
+     * Assume a pivoted distribution for the probability estimation.
+     */
+    public void assumePivotedDistribution() {
+	this.distribution = "pivoted";
+    }
+
+    /**
+     * Assume an independent distribution for the probability estimation.
+     */
+    public void assumeIndependentDistribution() {
+	this.distribution = "independent";
+    }
+
+    /**
+     * Assume an exponential distribution for the probability estimation.
+     */
+    public void assumeExponentialDistribution() {
+	this.distribution = "exponential";
+    }
+
+    /**
+     * Assume a poisson distribution for the probability estimation.
+     */
+    public void assumePoissonDistribution() {
+	this.distribution = "poisson";
+    }
+
+    /**
+     * Adds a lambda value.
+     *
+     * @param lambda
+     *            the lambda
+     */
+    public void addLambda(float lambda) {
+	this.lambdas.add(lambda);
+    }
+
+    /**
+     * Whether or not to use the average frequency of the input as lambda.
+     * Make sure that the average frequency is contained in the input, or
+     * that the input is not streamed.
+     *
+     * @param avg
+     *            true to use the average
+     */
+    public void setAvg(boolean avg) {
+	this.avg = avg;
+    }
+
+    /**
+     * Sets the interval exponent for Poisson distribution. Default: 1
+     *
+     * @param intervalExp
+     *            the interval exponent
+     */
+    public void setIntervalExponent(float intervalExp) {
+	this.intervalExp = intervalExp;
+    }
+
+    /**
+     * Sets or unsets the stream mode. Default: not set.
+     *
+     * @param stream
+     *            true if probabilities should be written line by line
+     */
+    public void setStream(boolean stream) {
+	this.stream = stream;
+    }
+
+    /**
+     * Reads frequencies from the input and writes the probabilities as MDS to
+     * the output. Other comments and empty lines are skipped. Closes the
+     * input, but not the output.
+     *
+     * @param input
+     *            the frequency input
+     * @param output
+     *            the MDS output
+     * @return the number of tuples written
+     * @throws IOException
+     *             if there is a problem with the streams, or a streamed
+     *             input lacks the statistics needed
+     * @throws HyTupleFormatException
+     *             if a line is not a frequency tuple, or lacks a key column
+     * @throws IllegalStateException
+     *             if a norm is used in stream mode
+     */
+    public int run(Reader input, Writer output) throws IOException,
+	    HyTupleFormatException {
+	if (stream && norm != null)
+	    throw new IllegalStateException("The " + norm
+		    + " norm needs the whole input and cannot be streamed");
+	BufferedReader in = input instanceof BufferedReader
+		? (BufferedReader) input : new BufferedReader(input);
+	HyTupleParser parser = HyTupleParser.threadParser();
+	Group group = new Group();
+	StringBuilder key = new StringBuilder();
+	int written = 0;
+	try {
+	    String line;
+	    while ((line = in.readLine()) != null) {
+		String trimmed = line.trim();
+		if (trimmed.startsWith("#!")) {
+		    if (group.size > 0) {
+			written += group.write(output);
+			group = new Group();
+		    }
+		    group.header(trimmed);
+		    continue;
+		}
+		if (trimmed.isEmpty() || trimmed.startsWith("#"))
+		    continue;
+		int space = 0;
+		while (space < trimmed.length()
+			&& !Character.isWhitespace(trimmed.charAt(space))
+			&& trimmed.charAt(space) != '(')
+		    space++;
+		double frequency;
+		try {
+		    frequency = Double.parseDouble(trimmed.substring(0, space));
+		} catch (NumberFormatException nf) {
+		    throw new HyTupleFormatException(
+			    "Malformed frequency in tuple!");
+		}
+		parser.parse(trimmed, space, trimmed.length());
+		key.setLength(0);
+		if (columns.isEmpty())
+		    for (int i = 0; i < parser.size(); i++)
+			append(key, trimmed, parser, i);
+		else
+		    for (int c : columns) {
+			if (c > parser.size())
+			    throw new HyTupleFormatException("No column " + c
+				    + " in tuple!");
+			append(key, trimmed, parser, c - 1);
+		    }
+		if (stream) {
+		    output.write(tuple(group.probability(frequency),
+			    key.toString()));
+		    written++;
+		} else
+		    group.add(frequency, key.toString());
+	    }
+	} finally {
+	    in.close();
+	}
+	if (group.size > 0)
+	    written += group.write(output);
+	return written;
+    }
+
+    private static void append(StringBuilder sb, String line,
+	    HyTupleParser parser, int index) {
+	if (sb.length() > 0)
+	    sb.append(',');
+	sb.append(line, parser.valueStart(index), parser.valueEnd(index));
+    }
+
+    private String tuple(double probability, String key) {
+	if (exp != 1)
+	    probability = Math.pow(probability, exp);
+	return Util.floatToString((float) probability) + " (" + key + ")\n";
+    }
+
+    /*
+     * The frequencies of a group and the statistics from its prefix
+     */
+    private final class Group {
+	double number = -1;
+	double average = -1;
+	double[] frequencies = new double[16];
+	List<String> keys = new ArrayList<String>();
+	int size = 0;
+
+	void header(String line) {
+	    int colon = line.lastIndexOf(':');
+	    if (colon < 0)
+		return;
+	    double value;
+	    try {
+		value = Double.parseDouble(line.substring(colon + 1).trim());
+	    } catch (NumberFormatException nf) {
+		return;
+	    }
+	    if (line.contains("average number of"))
+		average = value;
+	    else if (line.contains("number of tuples")
+		    || line.contains("number of values"))
+		number = value;
+	}
+
+	void add(double frequency, String key) {
+	    if (size == frequencies.length)
+		frequencies = Arrays.copyOf(frequencies, size + (size >> 1));
+	    frequencies[size++] = frequency;
+	    keys.add(key);
+	}
+
+	int write(Writer output) throws IOException {
+	    if (number < 0 || average < 0) {
+		double sum = 0;
+		for (int i = 0; i < size; i++)
+		    sum += frequencies[i];
+		if (number < 0)
+		    number = sum;
+		if (average < 0)
+		    average = sum / size;
+	    }
+	    double[] values = frequencies;
+	    double max = Double.NEGATIVE_INFINITY;
+	    double min = Double.POSITIVE_INFINITY;
+	    double sum = 0;
+	    if (norm != null && !norm.equals("pivoted")) {
+		if (norm.endsWith("_idf")) {
+		    values = new double[size];
+		    for (int i = 0; i < size; i++)
+			values[i] = idf(frequencies[i]);
+		}
+		for (int i = 0; i < size; i++) {
+		    max = Math.max(max, values[i]);
+		    min = Math.min(min, values[i]);
+		    sum += values[i];
+		}
+	    }
+	    for (int i = 0; i < size; i++) {
+		double p;
+		if (norm == null || norm.equals("pivoted"))
+		    p = probability(values[i]);
+		else if (norm.startsWith("maxmin"))
+		    p = max == min ? 1 : (values[i] - min) / (max - min);
+		else if (norm.startsWith("max"))
+		    p = max == 0 ? 0 : values[i] / max;
+		else
+		    p = sum == 0 ? 0 : values[i] / sum;
+		output.write(tuple(p, keys.get(i)));
+	    }
+	    return size;
+	}
+
+	double idf(double frequency) {
+	    return frequency > 0 ? Math.log(number / frequency) : 0;
+	}
+
+	/*
+	 * Estimates the probability of a frequency with the distribution
+	 */
+	double probability(double f) throws IOException {
+	    String d = norm != null ? norm : distribution;
+	    if (d.equals("disjoint") || d.equals("independent")) {
+		if (number < 0)
+		    throw new IOException("No number of tuples or values in "
+			    + "the prefix of the input");
+		if (d.equals("disjoint"))
+		    return f / number;
+		return 1 - Math.pow(1 - 1 / number, f);
+	    }
+	    if ((avg || d.equals("pivoted")) && average < 0)
+		throw new IOException("No average in the prefix of the input");
+	    if (d.equals("pivoted")) {
+		double s = lambdas.isEmpty() ? DEFAULT_SLOPE : lambdas.get(0);
+		return f / (f + (1 - s) * average + s * f);
+	    }
+	    if (avg)
+		return probability(d, f, average);
+	    if (lambdas.isEmpty())
+		return probability(d, f, 1);
+	    double p = 0;
+	    for (float lambda : lambdas)
+		p += probability(d, f, lambda);
+	    return p / lambdas.size();
+	}
+
+	double probability(String d, double f, double lambda) {
+	    if (d.equals("poisson"))
+		return 1 - Math.exp(-Math.pow(f / lambda, intervalExp));
+	    if (d.equals("apoisson"))
+		return f / (f + lambda);
+	    // exponential
+	    return 1 - Math.exp(-f / lambda);
+	}
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.indexing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.util.LongHashSet;
+import hyspirit.util.StringIntMap;
+import hyspirit.util.Util;
+
+/**
+ * Counts the frequencies of keys in an MDS stream like hyp_mds2freq, but
+ * inside the JVM. The options are those of
+ * {@link hyspirit.engines.HyMDS2FreqEngine}:
+ * <ul>
+ * <li>The key consists of the columns added with {@link #addColumn(int)}
+ * (starting with 1, in the order they were added), or of all columns except
+ * the group column if no column was added.</li>
+ * <li>With {@link #countTuples()} (the default) the frequency of a key is the
+ * number of tuples with this key; with {@link #countValues()} it is the
+ * number of distinct values of the remaining columns, e.g. the document
+ * frequency of a term in ("term", "doc") tuples.</li>
+ * <li>If the counting is probabilistic, the probabilities of the counted
+ * tuples are summed up instead of counting each tuple as 1.</li>
+ * <li>With a group column ({@link #setGroup(int)}), frequencies are counted
+ * per value of this column, which is appended to the key, e.g. the term
+ * frequencies of each document.</li>
+ * <li>With {@link #setAvg(boolean)}, each group (or the whole output if
+ * there is no group column) is preceded by the number of keys, the number of
+ * tuples or values and their average, as in the prefix of term_tf.freq and
+ * term_df.freq written by {@link SimpleHypertextFileIndex}. The number of
+ * values is the number of distinct values of the group.</li>
+ * <li>In stream mode, the input must be grouped: at most
+ * {@link #windowSize(long)} groups (1 by default) are kept open, and the
+ * oldest one is written as soon as another group starts. Otherwise all
+ * frequencies are written at the end of the input.</li>
+ * </ul>
+ * Keys are aggregated in primitive hash maps ({@link StringIntMap},
+ * {@link LongHashSet}) and written in the order they first occurred, one
+ * "frequency (key)" line each:
+ *
+ * <pre>
+ * MDS2Freq df = new MDS2Freq();
+ * df.addColumn(1);
+ * df.countValues();
+ * df.setAvg(true);
+ * df.run(new FileReader("term_doc.mds"), new FileWriter("term_df.freq"));
+ * </pre>
+ *
+ * A hyp_mds2freq PRI file is not needed in memory, so there is no such
+ * option.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class MDS2Freq {
+
+    private final List<Integer> columns = new ArrayList<Integer>();
+    private boolean countValues = false;
+    private boolean probabilistic = false;
+    private boolean avg = false;
+    private boolean stream = false;
+    private long windowSize = 1;
+    private int group = -1;
+
+    /**
+     * Adds a column forming the frequency key. Note that the order of adding
+     * columns does matter.
+     *
+     * @param column
+     *            the column, starting with 1
+     */
+    public void addColumn(int column) {
+	if (column < 1)
+	    throw new IllegalArgumentException("Illegal column: " + column);
+	this.columns.add(column);
+    }
+
+    /**
+     * Count values, i.e. the distinct values of the non-key columns
+     */
+    public void countValues() {
+	this.countValues = true;
+    }
+
+    /**
+     * Count tuples (the default)
+     */
+    public void countTuples() {
+	this.countValues = false;
+    }
+
+    /**
+     * Whether or not to take into account the tuple probabilities specified
+     * in the input. Default: don't.
+     *
+     * @param probabilistic
+     *            true to sum up probabilities
+     */
+    public void setProbabilistic(boolean probabilistic) {
+	this.probabilistic = probabilistic;
+    }
+
+    /**
+     * Whether or not to print the number of keys and the average frequency.
+     * Default: don't.
+     *
+     * @param avg
+     *            true to print the average
+     */
+    public void setAvg(boolean avg) {
+	this.avg = avg;
+    }
+
+    /**
+     * Sets or unsets the stream mode for grouped input. Default: not set.
+     *
+     * @param stream
+     *            true if groups should be written as soon as they are
+     *            complete
+     */
+    public void setStream(boolean stream) {
+	this.stream = stream;
+    }
+
+    /**
+     * Sets the number of groups kept open in stream mode
+     *
+     * @param windowSize
+     *            the window size (default: 1)
+     */
+    public void windowSize(long windowSize) {
+	this.windowSize = Math.max(1, windowSize);
+    }
+
+    /**
+     * Sets the group column
+     *
+     * @param group
+     *            the column, starting with 1, or -1 for no grouping (the
+     *            default)
+     */
+    public void setGroup(int group) {
+	if (group == 0 || group < -1)
+	    throw new IllegalArgumentException("Illegal group column: "
+		    + group);
+	this.group = group;
+    }
+
+    /**
+     * Reads MDS from the input and writes the frequencies to the output.
+     * Comments and empty lines are skipped. Closes the input, but not the
+     * output.
+     *
+     * @param input
+     *            the MDS input
+     * @param output
+     *            the frequency output
+     * @return the number of frequency lines written
+     * @throws IOException
+     *             if there is a problem with the streams
+     * @throws HyTupleFormatException
+     *             if a line is not a tuple, or lacks a key column
+     */
+    public int run(Reader input, Writer output) throws IOException,
+	    HyTupleFormatException {
+	BufferedReader in = input instanceof BufferedReader
+		? (BufferedReader) input : new BufferedReader(input);
+	HyTupleParser parser = HyTupleParser.threadParser();
+	LinkedHashMap<String, Group> open = new LinkedHashMap<String, Group>();
+	StringBuilder key = new StringBuilder();
+	StringBuilder value = new StringBuilder();
+	Group current = null;
+	int written = 0;
+	try {
+	    String line;
+	    while ((line = in.readLine()) != null) {
+		String trimmed = line.trim();
+		if (trimmed.isEmpty() || trimmed.startsWith("#"))
+		    continue;
+		parser.parse(line);
+		String groupValue = group > 0 ? parser.valueAt(column(parser,
+			group)) : "";
+		if (current == null || !current.value.equals(groupValue)) {
+		    current = open.get(groupValue);
+		    if (current == null) {
+			current = new Group(groupValue);
+			open.put(groupValue, current);
+			if (stream && open.size() > windowSize) {
+			    Iterator<Group> oldest = open.values().iterator();
+			    written += write(oldest.next(), output);
+			    oldest.remove();
+			}
+		    }
+		}
+		key.setLength(0);
+		value.setLength(0);
+		if (columns.isEmpty()) {
+		    for (int i = 0; i < parser.size(); i++)
+			if (i != group - 1)
+			    append(key, line, parser, i);
+		} else {
+		    for (int c : columns)
+			append(key, line, parser, column(parser, c));
+		    if (countValues)
+			for (int i = 0; i < parser.size(); i++)
+			    if (i != group - 1 && !columns.contains(i + 1))
+				append(value, line, parser, i);
+		}
+		current.count(key.toString(), value.toString(),
+			probabilistic ? parser.probability() : 1);
+	    }
+	} finally {
+	    in.close();
+	}
+	for (Group g : open.values())
+	    written += write(g, output);
+	return written;
+    }
+
+    /*
+     * Returns the index of a column (starting with 1) of the parsed tuple
+     */
+    private static int column(HyTupleParser parser, int column)
+	    throws HyTupleFormatException {
+	if (column > parser.size())
+	    throw new HyTupleFormatException("No column " + column
+		    + " in tuple!");
+	return column - 1;
+    }
+
+    private static void append(StringBuilder sb, String line,
+	    HyTupleParser parser, int index) {
+	if (sb.length() > 0)
+	    sb.append(',');
+	sb.append(line, parser.valueStart(index), parser.valueEnd(index));
+    }
+
+    /*
+     * Writes the frequencies of a group
+     */
+    private int write(Group g, Writer output) throws IOException {
+	int keys = g.keys.size();
+	if (avg) {
+	    String type = countValues ? "values" : "tuples";
+	    double number = countValues ? g.values.size() : g.tuples;
+	    output.write("#! number of keys: " + keys + "\n");
+	    output.write("#! number of " + type + ": " + format(number)
+		    + "\n");
+	    output.write("#! average number of " + type + ": "
+		    + (keys == 0 ? 0 : (float) number / (float) keys) + "\n");
+	}
+	StringBuilder line = new StringBuilder();
+	for (int i = 0; i < keys; i++) {
+	    line.setLength(0);
+	    line.append(format(g.frequencies[i])).append(" (")
+		    .append(g.keys.keyAt(i));
+	    if (group > 0)
+		line.append(',').append(g.value);
+	    line.append(")\n");
+	    output.write(line.toString());
+	}
+	return keys;
+    }
+
+    private String format(double number) {
+	return probabilistic ? Util.floatToString((float) number) : Long
+		.toString((long) number);
+    }
+
+    /*
+     * The frequencies of the keys of one group
+     */
+    private final class Group {
+	final String value;
+	final StringIntMap keys = new StringIntMap();
+	final StringIntMap values = new StringIntMap();
+	final LongHashSet keyValues = new LongHashSet();
+	double[] frequencies = new double[16];
+	double tuples = 0;
+
+	Group(String value) {
+	    this.value = value;
+	}
+
+	void count(String key, String rest, double weight) {
+	    int id = keys.add(key);
+	    if (id == frequencies.length)
+		frequencies = Arrays.copyOf(frequencies, id + (id >> 1));
+	    if (countValues
+		    && !keyValues.add(LongHashSet.pair(id, values.add(rest))))
+		return;
+	    frequencies[id] += weight;
+	    tuples += weight;
+	}
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.indexing;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+
+/**
+ * Rewrites an MDS file line by line with several threads, see
+ * {@link MDSTools#filterByColumn(int, java.util.Set, File, File, boolean, int)}
+ * and {@link MDSTools#compact(File, File[], hyspirit.engines.HyEngine...)}.
+ * <p>
+ * The file is read in chunks of about {@link #CHUNK_SIZE} bytes which end at
+ * a line break. The chunks are filtered in parallel, and the results are
+ * written in the order of the chunks. At most two chunks per thread are in
+ * memory at a time.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+final class MDSChunks {
+
+    /** The size of the chunks the input is split into */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Filters the lines of a chunk
+     */
+    interface LineFilter {
+	/**
+	 * Filters a line
+	 *
+	 * @param line
+	 *            the line without line terminator
+	 * @param parser
+	 *            a parser owned by the current thread
+	 * @param out
+	 *            where to append the remaining line and its line break
+	 * @return true if the line was modified or dropped
+	 * @throws HyTupleFormatException
+	 *             if the line is malformed
+	 */
+	boolean filter(String line, HyTupleParser parser, StringBuilder out)
+		throws HyTupleFormatException;
+    }
+
+    private MDSChunks() {
+    }
+
+    /**
+     * Filters the lines of the input into the output
+     *
+     * @param input
+     *            the input file
+     * @param output
+     *            the output file
+     * @param threads
+     *            the number of threads, the available processors if &lt;= 0
+     * @param filter
+     *            the line filter
+     * @return the number of lines modified or dropped
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @throws HyTupleFormatException
+     *             if a line is malformed
+     */
+    static int filter(File input, File output, int threads,
+	    final LineFilter filter) throws IOException,
+	    HyTupleFormatException {
+	int n = threads > 0 ? threads : Runtime.getRuntime()
+		.availableProcessors();
+	ExecutorService pool = Executors.newFixedThreadPool(n);
+	ArrayDeque<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>();
+	int modified = 0;
+	InputStream in = new FileInputStream(input);
+	OutputStream out = new BufferedOutputStream(new FileOutputStream(
+		output), 1 << 16);
+	try {
+	    byte[] buf = new byte[CHUNK_SIZE];
+	    int filled = 0;
+	    boolean eof = false;
+	    while (!eof) {
+		int read = in.read(buf, filled, buf.length - filled);
+		if (read < 0)
+		    eof = true;
+		else
+		    filled += read;
+		if (!eof && filled < buf.length)
+		    continue;
+		int end = filled;
+		if (!eof) {
+		    while (end > 0 && buf[end - 1] != '\n')
+			end--;
+		    if (end == 0) {
+			// a line longer than the chunk
+			buf = Arrays.copyOf(buf, buf.length * 2);
+			continue;
+		    }
+		}
+		if (end > 0) {
+		    final String text = new String(buf, 0, end,
+			    StandardCharsets.UTF_8);
+		    pending.add(pool.submit(new Callable<Chunk>() {
+			public Chunk call() throws HyTupleFormatException {
+			    return filter(text, filter);
+			}
+		    }));
+		    if (pending.size() >= 2 * n)
+			modified += write(pending.poll(), out);
+		}
+		byte[] next = new byte[Math.max(CHUNK_SIZE, filled - end)];
+		System.arraycopy(buf, end, next, 0, filled - end);
+		buf = next;
+		filled -= end;
+	    }
+	    while (!pending.isEmpty())
+		modified += write(pending.poll(), out);
+	} finally {
+	    pool.shutdownNow();
+	    in.close();
+	    out.close();
+	}
+	return modified;
+    }
+
+    /*
+     * Filters the lines of a chunk
+     */
+    private static Chunk filter(String text, LineFilter filter)
+	    throws HyTupleFormatException {
+	HyTupleParser parser = HyTupleParser.threadParser();
+	StringBuilder out = new StringBuilder(text.length() + 64);
+	int modified = 0;
+	int start = 0;
+	while (start < text.length()) {
+	    int newline = text.indexOf('\n', start);
+	    int next = newline < 0 ? text.length() : newline + 1;
+	    int end = newline < 0 ? text.length() : newline;
+	    if (end > start && text.charAt(end - 1) == '\r')
+		end--;
+	    if (filter.filter(text.substring(start, end), parser, out))
+		modified++;
+	    start = next;
+	}
+	return new Chunk(out.toString().getBytes(StandardCharsets.UTF_8),
+		modified);
+    }
+
+    private static int write(Future<Chunk> future, OutputStream out)
+	    throws IOException, HyTupleFormatException {
+	Chunk chunk;
+	try {
+	    chunk = future.get();
+	} catch (InterruptedException ie) {
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Interrupted while filtering");
+	} catch (ExecutionException ee) {
+	    Throwable cause = ee.getCause();
+	    if (cause instanceof HyTupleFormatException)
+		throw (HyTupleFormatException) cause;
+	    if (cause instanceof RuntimeException)
+		throw (RuntimeException) cause;
+	    throw new IOException(cause);
+	}
+	out.write(chunk.bytes);
+	return chunk.modified;
+    }
+
+    private static final class Chunk {
+	final byte[] bytes;
+	final int modified;
+
+	Chunk(byte[] bytes, int modified) {
+	    this.bytes = bytes;
+	    this.modified = modified;
+	}
+    }
+}
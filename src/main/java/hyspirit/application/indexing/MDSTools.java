@@ -26,21 +26,30 @@ package hyspirit.application.indexing;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import hyspirit.engines.EnginePipeline;
+import hyspirit.engines.HyEngine;
 import hyspirit.knowledgeBase.HyTuple;
 import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.knowledgeBase.StringDictionary;
+import hyspirit.knowledgeBase.TupleBatch;
 import hyspirit.util.Util;
 
 /**
@@ -52,6 +61,17 @@ import hyspirit.util.Util;
 public class MDSTools {
     private static Logger LOG = LogManager.getLogger(MDSTools.class);
 
+    /** A value of an MDS tuple, quoted or not */
+    private static final String VALUE = "(?:\"[^\"]*\"|[^\\s,\"()]+)";
+
+    /** An MDS tuple line with an optional probability */
+    private static final Pattern TUPLE = Pattern.compile(
+	    "\\s*(?:[01](?:\\.\\d*)?\\s*)?\\(\\s*(?:" + VALUE
+		    + "(?:\\s*,\\s*" + VALUE + ")*)?\\s*\\)\\s*");
+
+    /** The possible first characters of a tuple line marked as deleted */
+    private static final char[] MARKED_FIRST = { '(', '0', '1', ' ' };
+
     /**
      * Reads an mds file which is supposed to contain document-term relations.
      * Ignores any weight. The first column must contain the term, the second
@@ -186,6 +206,39 @@ public class MDSTools {
 	}
     }
 
+    /**
+     * Converts a docterm file like
+     * {@link #convertDoctermToIDF(String, String, String, boolean)}, but in
+     * bounded memory and with several threads, so the stream need not be
+     * optimised. The (term, document) pairs are written to sorted runs in
+     * parallel, and the runs are merged to count the document frequencies
+     * (an external sort). The memory only limits the pairs buffered before
+     * they are written to a run; temporary files are put next to the idf
+     * file. The terms of the idf file are sorted. Progress is logged instead
+     * of printed.
+     * 
+     * @param doctermFile
+     *            absolute name of the docterm file
+     * @param idfFile
+     *            absolute name of the idf file
+     * @param idfNorm
+     *            "max_idf" or "sum_idf"
+     * @param threads
+     *            the number of threads; the number of available processors
+     *            if not positive
+     * @param memory
+     *            the number of bytes used for buffering pairs; a quarter of
+     *            the maximum heap size if not positive
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @since 1.3.0
+     */
+    public static void convertDoctermToIDF(String doctermFile, String idfFile,
+	    String idfNorm, int threads, long memory) throws IOException {
+	new ExternalDocFreqs(threads, memory).convert(new File(doctermFile),
+		new File(idfFile), idfNorm);
+    }
+
     /**
      * This class takes an input MDS stream and deletes/marks any tuple that
      * matches the filter values in the provided column. Marking means to
@@ -250,6 +303,215 @@ public class MDSTools {
 	return modified;
     }
 
+    /**
+     * Filters an MDS file like
+     * {@link #filterByColumn(int, Set, Reader, Writer, boolean)} with several
+     * threads. The input is split into chunks of whole lines, which are
+     * filtered in parallel and written in their original order. The column
+     * value is taken from a single-pass {@link HyTupleParser} instead of a
+     * {@link HyTuple}. Line breaks are written as '\n'.
+     * 
+     * @param column
+     *            the column to filter (index starts with 0)
+     * @param filterValues
+     *            the values to filter
+     * @param inputMDS
+     *            the input MDS file
+     * @param outputMDS
+     *            the output MDS file, which must not be the input file
+     * @param reallyDelete
+     *            whether to delete ({@code true}) or mark ({@code false})
+     * @param threads
+     *            the number of threads; the number of available processors
+     *            if not positive
+     * @return the number of lines modified or deleted
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @throws HyTupleFormatException
+     *             if a line does not represent a tuple, comment or empty line
+     * @since 1.3.0
+     */
+    public static int filterByColumn(final int column,
+	    final Set<String> filterValues, File inputMDS, File outputMDS,
+	    final boolean reallyDelete, int threads) throws IOException,
+	    HyTupleFormatException {
+	return MDSChunks.filter(inputMDS, outputMDS, threads,
+		new MDSChunks.LineFilter() {
+		    public boolean filter(String line, HyTupleParser parser,
+			    StringBuilder out) throws HyTupleFormatException {
+			String trimmed = line.trim();
+			if (!trimmed.startsWith("#") && !trimmed.isEmpty()) {
+			    parser.parse(trimmed);
+			    if (filterValues.contains(parser.valueAt(column))) {
+				if (!reallyDelete)
+				    out.append('#').append(line, 1,
+					    line.length()).append('\n');
+				return true;
+			    }
+			}
+			out.append(line).append('\n');
+			return false;
+		    }
+		});
+    }
+
+    /**
+     * Removes the tuples marked by
+     * {@link #filterByColumn(int, Set, Reader, Writer, boolean)} from an MDS
+     * file. A marked tuple is a line starting with '#' which is a tuple of
+     * the form (&lt;value&gt;, ...) with an optional probability if the '#' is
+     * replaced by the character it replaced, i.e. '(', a probability digit or
+     * white space. Values are quoted or contain no white space, commas or
+     * brackets, so comments like "# e1 finished (x)" are kept; a comment
+     * which is such a tuple after '#', like "# (x)", is removed, though. As
+     * the positions of the remaining tuples change, the indexes on the file
+     * are invalid afterwards. If any tuple was removed, the given index
+     * directories and files are deleted (symbolic links are deleted, not
+     * followed), as the indexers would add to them, and the given engines
+     * (e.g. a
+     * {@link hyspirit.engines.HyMDS2DirEngine} or
+     * {@link hyspirit.engines.HyMDS2PRIEngine} configured like when the
+     * index was created) are run to regenerate them.
+     * 
+     * @param mdsFile
+     *            the MDS file
+     * @param indexes
+     *            the index directories and PRI files of the MDS file
+     * @param indexers
+     *            the engines regenerating the indexes of the file
+     * @return the number of tuples removed
+     * @throws IOException
+     *             if the file cannot be rewritten, an index cannot be
+     *             deleted or an indexer fails
+     * @since 1.3.0
+     */
+    public static int compact(File mdsFile, File[] indexes,
+	    HyEngine... indexers) throws IOException {
+	File tmp = new File(mdsFile.getPath() + ".tmp");
+	int removed;
+	try {
+	    removed = MDSChunks.filter(mdsFile, tmp, 0,
+		    new MDSChunks.LineFilter() {
+			public boolean filter(String line,
+				HyTupleParser parser, StringBuilder out) {
+			    if (isMarked(line, parser))
+				return true;
+			    out.append(line).append('\n');
+			    return false;
+			}
+		    });
+	} catch (HyTupleFormatException h) {
+	    // cannot happen, marked tuples are recognised by parsing
+	    throw new IOException(h);
+	}
+	if (removed == 0) {
+	    tmp.delete();
+	    return 0;
+	}
+	Files.move(tmp.toPath(), mdsFile.toPath(),
+		StandardCopyOption.REPLACE_EXISTING,
+		StandardCopyOption.ATOMIC_MOVE);
+	LOG.info("Removed " + removed + " marked tuples from " + mdsFile);
+	for (File index : indexes)
+	    delete(index);
+	for (HyEngine indexer : indexers) {
+	    EnginePipeline pipeline = new EnginePipeline.Builder().add(indexer)
+		    .build();
+	    pipeline.start();
+	    try {
+		pipeline.waitFor();
+	    } catch (InterruptedException ie) {
+		pipeline.destroy();
+		Thread.currentThread().interrupt();
+		throw new IOException("Interrupted while regenerating "
+			+ "indexes of " + mdsFile);
+	    }
+	}
+	return removed;
+    }
+
+    /*
+     * Deletes a file or a directory with all its contents, without following
+     * symbolic links
+     */
+    private static void delete(File file) throws IOException {
+	File[] files = file.listFiles();
+	if (files != null && !Files.isSymbolicLink(file.toPath()))
+	    for (File f : files)
+		delete(f);
+	// a symbolic link is deleted itself, not its target
+	Files.deleteIfExists(file.toPath());
+    }
+
+    /*
+     * Whether a line is a tuple marked by filterByColumn()
+     */
+    private static boolean isMarked(String line, HyTupleParser parser) {
+	if (!line.startsWith("#") || !line.trim().endsWith(")"))
+	    return false;
+	for (char first : MARKED_FIRST) {
+	    String tuple = first + line.substring(1);
+	    if (!TUPLE.matcher(tuple).matches())
+		continue;
+	    try {
+		parser.parse(tuple.trim());
+		return true;
+	    } catch (HyTupleFormatException h) {
+		// not a tuple line either
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Filters a batch of tuples: returns a batch (sharing the dictionary) with
+     * all tuples whose value in the given column is not one of the filter
+     * values. Values are compared by their dictionary ids.
+     * 
+     * @param column
+     *            the column to filter (index starts with 0)
+     * @param filterValues
+     *            the values to filter
+     * @param batch
+     *            the input tuples
+     * @return the remaining tuples
+     * @since 1.3.0
+     */
+    public static TupleBatch filterByColumn(int column,
+	    Set<String> filterValues, TupleBatch batch) {
+	StringDictionary dictionary = batch.getDictionary();
+	Set<Integer> filterIds = new HashSet<Integer>();
+	for (String value : filterValues) {
+	    int id = dictionary.lookup(value);
+	    if (id >= 0)
+		filterIds.add(id);
+	}
+	TupleBatch result = new TupleBatch(dictionary);
+	for (int row = 0; row < batch.size(); row++) {
+	    if (!filterIds.contains(batch.valueId(row, column)))
+		result.add(batch.tuple(row));
+	}
+	return result;
+    }
+
+    /**
+     * Writes a batch of tuples as MDS, one tuple per line. Does not close the
+     * output stream.
+     * 
+     * @param batch
+     *            the tuples
+     * @param outputMDS
+     *            the output MDS
+     * @throws IOException
+     *             if there is a problem with the stream
+     * @since 1.3.0
+     */
+    public static void writeMDS(TupleBatch batch, Writer outputMDS)
+	    throws IOException {
+	for (int row = 0; row < batch.size(); row++)
+	    outputMDS.write(batch.tuple(row).toString() + "\n");
+    }
+
     /**
      * Some nifty tools for operations on MDS files
      * 
@@ -23,10 +23,23 @@ package hyspirit.application.indexing;
 
 import hyspirit.util.*;
 import hyspirit.engines.*;
+import hyspirit.knowledgeBase.BinaryMDS;
+import hyspirit.knowledgeBase.BinaryMDSReader;
+import hyspirit.knowledgeBase.BinaryMDSWriter;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.knowledgeBase.KeyIndex;
+import hyspirit.knowledgeBase.KeyIndexWriter;
+import hyspirit.knowledgeBase.MdsFile;
 //import de.unidu.is.text.*;
 
 import java.io.*;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 
 /**
@@ -51,38 +64,72 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
     protected static final String TERM_MDS = "term.mds";
     protected static final String TF_MDS = "tf.mds";	
     protected static final String IDF_MDS = "idf.mds";
+    protected static final String TF_BMDS = "tf.bmds";
+    protected static final String IDF_BMDS = "idf.bmds";
     protected static final String LINK = "link.mds";
     protected static final String TERM_FREQ = "term_tf.freq";
     protected static final String DOC_FREQ = "term_df.freq";	
     protected static final String INSTANCE_OF = "instance_of.mds";
     protected static final String ATTRIBUTE = "attribute.mds";
     protected static final String CONNECTOR = "connector";
+    protected static final String INSTANCE_OF_KEYS = "instance_of.keys";
+    protected static final String LINK_KEYS = "link.keys";
     protected String stopwordFile = null;
     protected String morphemeFile = null;
     protected String termMDSFile = null;
     protected String tfMDSFile = null;
     protected String idfMDSFile = null;
+    protected String tfBinaryFile = null;
+    protected String idfBinaryFile = null;
     protected String termTFFile = null;
     protected String termIDFFile = null;
     protected String connectorFile = null;
-    private HashSet linkStrings = new HashSet();
-    private HashSet attributeStrings = new HashSet();
-    private HashSet instanceStrings = new HashSet();
+    private HashSet<String> linkStrings = new HashSet<String>();
+    private HashSet<String> attributeStrings = new HashSet<String>();
+    private HashSet<String> instanceStrings = new HashSet<String>();
     private String linkMDSFile = null;
     private String attributeMDSFile = null;
     private String instanceMDSFile = null;
+    private String instanceKeysFile = null;
+    private String linkKeysFile = null;
+    private KeyIndex instanceKeys = null;
+    private KeyIndex linkKeys = null;
+    private boolean writeKeyIndexes = true;
     private boolean useCache = false;
     private HashSet indexedDocumentsCache = null;
     private HashSet indexedLinksCache = null;
     private int windowSize = 1000;
     protected HyText2PoolFilter filter = null;
+    private boolean useTextAnalyzer = false;
+    private boolean useJavaConverters = false;
+    private int ingestionThreads = 1;
+    private volatile ExecutorService ingestion = null;
+    private EnginePool<HyText2POOLEngine> filterPool = null;
+    private Semaphore ingestionWindow = null;
+    private int ingestionPermits = 0;
+    private final ConcurrentLinkedQueue<Future<Runnable>> mergeQueue = 
+        new ConcurrentLinkedQueue<Future<Runnable>>();
+    private final AtomicBoolean merging = new AtomicBoolean(false);
     private ArrayList keyelems = null;
     private int tf_keys = 0;
     private int tf_tuples = 0;
     private int idf_keys = 0;
     private int idf_values = 0;
-    private HashMap termIDF = new HashMap();
-    private HashMap docList = new HashMap();
+    private StringIntMap termIDF = new StringIntMap();
+    private HashMap<String, DocTermList> docList = 
+        new HashMap<String, DocTermList>();
+    private HashSet<String> addedDocuments = new HashSet<String>();
+    // documents written by index(), which are written again by the next
+    // index() together with the documents added in between
+    private int indexed_tf_keys = 0;
+    private int indexed_tf_tuples = 0;
+    private StringIntMap indexedTermIDF = new StringIntMap();
+    private HashMap<String, DocTermList> indexedDocList = 
+        new HashMap<String, DocTermList>();
+    private HashSet<String> indexedAddedDocuments = new HashSet<String>();
+    private HashSet<String> indexedLinkStrings = new HashSet<String>();
+    private HashSet<String> indexedAttributeStrings = new HashSet<String>();
+    private HashSet<String> indexedInstanceStrings = new HashSet<String>();
     private boolean verbose = false;
     
     
@@ -99,6 +146,10 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
     // whether to write term.mds or not
     private boolean writeTermMDSFile = true;
     
+    // whether to write tf.bmds and idf.bmds or not
+    private boolean writeBinaryMDSFiles = false;
+    private QueryCache queryCache = null;
+    
     
     /**
      * Constructor of class. Needs a HySpirit object containing all 
@@ -119,10 +170,15 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         //this.termMDSFile = knowledgebaseDir + File.separator + TERM_MDS;
         this.tfMDSFile = knowledgebaseDir + File.separator + TF_MDS;
         this.idfMDSFile = knowledgebaseDir + File.separator + IDF_MDS;
+        this.tfBinaryFile = knowledgebaseDir + File.separator + TF_BMDS;
+        this.idfBinaryFile = knowledgebaseDir + File.separator + IDF_BMDS;
         this.termMDSFile = knowledgebaseDir + File.separator + TERM_MDS;    	
         this.linkMDSFile = knowledgebaseDir + File.separator + LINK;
         this.attributeMDSFile = knowledgebaseDir + File.separator + ATTRIBUTE;
         this.instanceMDSFile = knowledgebaseDir + File.separator + INSTANCE_OF;
+        this.instanceKeysFile = 
+            knowledgebaseDir + File.separator + INSTANCE_OF_KEYS;
+        this.linkKeysFile = knowledgebaseDir + File.separator + LINK_KEYS;
         this.termTFFile =  knowledgebaseDir + File.separator + TERM_FREQ;
         this.termIDFFile =  knowledgebaseDir + File.separator + DOC_FREQ;
         this.connectorFile = knowledgebaseDir + File.separator + CONNECTOR;
@@ -156,6 +212,56 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         return this.hyspirit;
     }
     
+    /**
+     * Returns the absolute name of tf.mds, containing the tf values of the
+     * terms in the documents
+     * @return the name of tf.mds
+     * @since 1.3.0
+     */
+    public String getTFMDSFile() {
+        return this.tfMDSFile;
+    }
+    
+    /**
+     * Returns the absolute name of idf.mds, containing the idf values of the
+     * terms
+     * @return the name of idf.mds
+     * @since 1.3.0
+     */
+    public String getIDFMDSFile() {
+        return this.idfMDSFile;
+    }
+    
+    /**
+     * Returns the absolute name of tf.bmds (see
+     * {@link #writeBinaryMDSFiles(boolean)})
+     * @return the name of tf.bmds
+     * @since 1.3.0
+     */
+    public String getTFBinaryFile() {
+        return this.tfBinaryFile;
+    }
+    
+    /**
+     * Returns the absolute name of idf.bmds (see
+     * {@link #writeBinaryMDSFiles(boolean)})
+     * @return the name of idf.bmds
+     * @since 1.3.0
+     */
+    public String getIDFBinaryFile() {
+        return this.idfBinaryFile;
+    }
+    
+    /**
+     * Returns the absolute name of term_tf.freq, containing the frequencies
+     * of the terms in the documents
+     * @return the name of term_tf.freq
+     * @since 1.3.0
+     */
+    public String getTermTFFile() {
+        return this.termTFFile;
+    }
+    
     /**
      * Whether or not to write term.mds. Default: Write it.
      * @param termmds Flag if term.mds should be written.
@@ -164,74 +270,98 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         this.writeTermMDSFile = termmds;
     }
     
+    /**
+     * Whether or not to write binary versions of tf.mds and idf.mds (tf.bmds
+     * and idf.bmds, see {@link BinaryMDS}), which Java consumers can read
+     * with a {@link BinaryMDSReader} without parsing text. Default: Don't
+     * write them.
+     * @param binary Flag if tf.bmds and idf.bmds should be written.
+     * @since 1.3.0
+     */
+    public void writeBinaryMDSFiles(boolean binary) {
+        this.writeBinaryMDSFiles = binary;
+    }
+    
+    /**
+     * Sets a cache for the results of queries against this index, used by
+     * {@link hyspirit.application.retrieval.SimpleFullTextQueryImpl}. The
+     * cache is invalidated whenever {@link #index(boolean)} rewrites the
+     * relations.
+     * @param queryCache the cache, or null for no caching (the default)
+     * @since 1.3.0
+     */
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+    
+    /**
+     * Returns the cache for the results of queries against this index
+     * @return the cache, or null if results are not cached
+     * @since 1.3.0
+     */
+    public QueryCache getQueryCache() {
+        return this.queryCache;
+    }
+    
+    /**
+     * Whether to filter the full text with the pure Java {@link TextAnalyzer}
+     * instead of a hy_text2pool process. Default: Use hy_text2pool. Queries
+     * on the index must be filtered the same way (see
+     * {@link hyspirit.application.retrieval.SimpleFullTextQueryImpl}).
+     * @param analyzer Flag if the Java analyzer should be used.
+     * @since 1.3.0
+     */
+    public void useTextAnalyzer(boolean analyzer) {
+        this.useTextAnalyzer = analyzer;
+    }
+    
+    /**
+     * Whether to calculate idf.mds from term_df.freq inside the JVM with
+     * {@link Freq2MDS} instead of a hy_freq2mds | hy_mds2mds pipeline.
+     * Default: Use the HySpirit tools.
+     * @param java Flag if the Java converters should be used.
+     * @since 1.3.0
+     */
+    public void useJavaConverters(boolean java) {
+        this.useJavaConverters = java;
+    }
+    
+    /**
+     * Use the given number of threads to ingest indexing objects. With more
+     * than one thread, addIndexingObject() and addHyperlink() may be invoked
+     * concurrently; the full texts are filtered in parallel (by a pool of
+     * hy_text2pool engines, or the Java analyzer if
+     * {@link #useTextAnalyzer(boolean)} is set) and the results are merged
+     * into the index statistics in the order the objects were added. So the
+     * index written by index() is the same as with sequential ingestion of
+     * the objects in that order. Default: 1 (sequential ingestion).
+     * @param threads the number of ingestion threads
+     * @since 1.3.0
+     */
+    public void useParallelIngestion(int threads) {
+        this.ingestionThreads = Math.max(1, threads);
+    }
+    
     /**
      * Adds an indexing object, which represents a document to be indexed.
      * @param idx the indexing obect
      */
-    public void addIndexingObject(IndexingObject idx){
+    public void addIndexingObject(final IndexingObject idx){
         if (idx != null) {
+            if (ingestionThreads > 1) {
+                addParallel(idx);
+                return;
+            }
             try {
                 // start filter if not already running
-                if (filter == null)
+                if (filter == null && useTextAnalyzer)
+                    filter = new HyText2PoolFilter(TextAnalyzer.fromFiles(
+                            true, stopwordFile, morphemeFile));
+                else if (filter == null)
                     filter = new HyText2PoolFilter(hyspirit, true, stopwordFile,
                             morphemeFile);
                 
-                
-                String fulltext = idx.fulltext();
-                String uri = idx.documentURI();
-                
-                /*
-                 * document type
-                 */
-                addDocument(uri, idx.documentType());
-                
-                /*
-                 * Attribute-value pairs
-                 */
-                Set aNames = idx.attributeNames();
-                if (aNames != null) {
-                    for (Iterator ita = aNames.iterator(); ita.hasNext();) {
-                        String aName = (String) ita.next();
-                        Set aValues =  idx.attributeValues(aName);
-                        for (Iterator it2 = aValues.iterator();
-                        it2.hasNext();) {
-                            String aValue = (String)it2.next();
-                            addAttribute(uri, aName, aValue);
-                        }
-                    }
-                }	    
-                
-                /*
-                 * fulltext: update frequency information
-                 */
-                if (fulltext != null) {
-                    fulltext = fulltext.toLowerCase();
-                    Iterator terms = filter.filterIt(fulltext);
-                    if (terms != null) {
-                        DocTermList docTermList = new DocTermList();
-                        while (terms.hasNext())  {
-                            String term = (String)terms.next();
-                            
-                            // collect distinct terms for document, update 
-                            // statistics
-                            if (docTermList.addTerm(term) == 1) {
-                                // a new term for this documents
-                                tf_keys++;
-                                
-                                // update idf value
-                                Integer docFreq = (Integer)termIDF.get(term);
-                                if (docFreq == null) {
-                                    docFreq = new Integer(1);
-                                }
-                                else docFreq =
-                                    new Integer((docFreq.intValue()) + 1);
-                                termIDF.put(term, docFreq);
-                            }
-                            tf_tuples++;
-                        }
-                        docList.put(uri, docTermList);
-                    }
-                }
+                analyse(idx, filter).run();
             }
             
             catch (Exception e) {
@@ -240,6 +370,226 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         }
     }	    
     
+    /*
+     * Filters the full text of the indexing object and returns the action
+     * merging the document into the index statistics.
+     */
+    private Runnable analyse(final IndexingObject idx,
+            HyText2PoolFilter filter) {
+        DocTermList docTermList = null;
+        final List<String> newTerms = new ArrayList<String>();
+        int tuples = 0;
+        String fulltext = idx.fulltext();
+        if (fulltext != null) {
+            fulltext = fulltext.toLowerCase();
+            Iterator terms = filter.filterIt(fulltext);
+            if (terms != null) {
+                docTermList = new DocTermList();
+                while (terms.hasNext())  {
+                    String term = (String)terms.next();
+                    
+                    // collect distinct terms for document
+                    if (docTermList.addTerm(term) == 1) newTerms.add(term);
+                    tuples++;
+                }
+            }
+        }
+        final DocTermList docTerms = docTermList;
+        final int docTuples = tuples;
+        return new Runnable() {
+            public void run() {
+                mergeDocument(idx, docTerms, newTerms, docTuples);
+            }
+        };
+    }
+    
+    /*
+     * Adds the document and its attributes, and updates the frequency
+     * information with the distinct terms of the document (in the order of
+     * their first occurrence).
+     */
+    private void mergeDocument(IndexingObject idx, DocTermList docTermList,
+            List<String> newTerms, int tuples) {
+        String uri = idx.documentURI();
+        addedDocuments.add(uri);
+        
+        /*
+         * document type
+         */
+        addDocument(uri, idx.documentType());
+        
+        /*
+         * Attribute-value pairs
+         */
+        Set<?> aNames = idx.attributeNames();
+        if (aNames != null) {
+            for (Iterator<?> ita = aNames.iterator(); ita.hasNext();) {
+                String aName = (String) ita.next();
+                Set<?> aValues =  idx.attributeValues(aName);
+                for (Iterator<?> it2 = aValues.iterator();
+                it2.hasNext();) {
+                    String aValue = (String)it2.next();
+                    addAttribute(uri, aName, aValue);
+                }
+            }
+        }	    
+        
+        /*
+         * fulltext: update frequency information
+         */
+        if (docTermList != null) {
+            for (Iterator<String> it = newTerms.iterator(); it.hasNext();) {
+                String term = it.next();
+                // a new term for this documents
+                tf_keys++;
+                
+                // update idf value
+                termIDF.increment(term, 1);
+            }
+            tf_tuples += tuples;
+            docList.put(uri, docTermList);
+        }
+    }
+    
+    /*
+     * Submits the indexing object to the ingestion threads. The merge actions
+     * are queued in the order of submission and run as the analyses
+     * complete; at most windowSize objects per thread are pending at the same
+     * time. If the thread is interrupted while waiting for the window, the
+     * object is not added.
+     */
+    private void addParallel(final IndexingObject idx) {
+        try {
+            final HyText2PoolFilter parallelFilter = startIngestion();
+            try {
+                ingestionWindow.acquire();
+            }
+            catch (InterruptedException ie) {
+                System.err.println("Interrupted, not indexed: "
+                        + idx.documentURI());
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queueMerge(CompletableFuture.supplyAsync(new Supplier<Runnable>() {
+                public Runnable get() {
+                    return analyse(idx, parallelFilter);
+                }
+            }, ingestion));
+        }
+        catch (Exception e) {
+            e.printStackTrace(System.err);
+        }
+    }
+    
+    /*
+     * Starts the ingestion threads and the filter shared by them, if not
+     * already running.
+     */
+    private synchronized HyText2PoolFilter startIngestion() 
+    throws HySpiritException {
+        if (ingestion == null) {
+            if (useTextAnalyzer)
+                filter = new HyText2PoolFilter(TextAnalyzer.fromFiles(
+                        true, stopwordFile, morphemeFile));
+            else {
+                filterPool = new EnginePool<HyText2POOLEngine>(
+                        HyText2PoolFilter.engineFactory(
+                        hyspirit, true, stopwordFile, morphemeFile),
+                        ingestionThreads);
+                filter = new HyText2PoolFilter(filterPool);
+            }
+            ingestionPermits = ingestionThreads * windowSize;
+            ingestionWindow = new Semaphore(ingestionPermits);
+            ingestion = Executors.newFixedThreadPool(ingestionThreads,
+                    new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SimpleHypertextFileIndex "
+                            + "ingestion");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return filter;
+    }
+    
+    /*
+     * Queues the merge action of a submitted object (which holds a window
+     * permit) and merges the finished prefix of the queue once it completes.
+     */
+    private void queueMerge(CompletableFuture<Runnable> merge) {
+        mergeQueue.add(merge);
+        merge.whenComplete(new BiConsumer<Runnable, Throwable>() {
+            public void accept(Runnable action, Throwable error) {
+                mergeQueued();
+            }
+        });
+    }
+    
+    /*
+     * Runs the finished merge actions at the head of the queue in queue
+     * order and releases their window permits. Only one thread merges at a
+     * time; the others return immediately, and the merging thread checks the
+     * head again after it is done, so no completed action is left behind.
+     * Objects whose analysis or merge failed are reported and dropped, as
+     * with sequential ingestion.
+     */
+    private void mergeQueued() {
+        Future<Runnable> merge;
+        do {
+            if (!merging.compareAndSet(false, true)) return;
+            try {
+                while ((merge = mergeQueue.peek()) != null && merge.isDone()) {
+                    try {
+                        merge.get().run();
+                    }
+                    catch (ExecutionException e) {
+                        System.err.println("Indexing object dropped:");
+                        e.getCause().printStackTrace(System.err);
+                    }
+                    catch (RuntimeException e) {
+                        System.err.println("Indexing object dropped:");
+                        e.printStackTrace(System.err);
+                    }
+                    catch (InterruptedException ie) {
+                        // not thrown, the action is done already
+                        Thread.currentThread().interrupt();
+                    }
+                    finally {
+                        mergeQueue.poll();
+                        ingestionWindow.release();
+                    }
+                }
+            }
+            finally {
+                merging.set(false);
+            }
+            merge = mergeQueue.peek();
+        } while (merge != null && merge.isDone());
+    }
+    
+    /**
+     * Waits until all indexing objects added so far are merged into the index
+     * statistics and stops the ingestion threads (see 
+     * {@link #useParallelIngestion(int)}). They are started again with the
+     * next object. index() invokes this method, so it is only needed to 
+     * measure or checkpoint the ingestion.
+     * @since 1.3.0
+     */
+    public void finishIngestion() {
+        if (ingestion == null) return;
+        // the index must not miss added objects, so interrupts are deferred;
+        // all permits are back once every queued object is merged
+        ingestionWindow.acquireUninterruptibly(ingestionPermits);
+        ingestionWindow.release(ingestionPermits);
+        ingestion.shutdown();
+        ingestion = null;
+        if (filterPool != null) {
+            filterPool.close();
+            filterPool = null;
+        }
+    }
+    
     /*
      * Creates a frequency key from key elements.
      */
@@ -320,8 +670,29 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
     public void addHyperlink(String sourceDocumentURI,
             String destinationDocumentURI,
             String linktype) {
-        linkStrings.add("(\"" + sourceDocumentURI + "\",\"" + 
-                destinationDocumentURI + "\"," + linktype + ")");	 	
+        final String linkString = "(\"" + sourceDocumentURI + "\",\"" + 
+                destinationDocumentURI + "\"," + linktype + ")";
+        if (ingestionThreads > 1) {
+            // keep the order relative to the pending indexing objects
+            try {
+                startIngestion();
+                ingestionWindow.acquire();
+                queueMerge(CompletableFuture.completedFuture(
+                        new Runnable() {
+                    public void run() {
+                        linkStrings.add(linkString);
+                    }
+                }));
+            }
+            catch (InterruptedException ie) {
+                System.err.println("Interrupted, not indexed: " + linkString);
+                Thread.currentThread().interrupt();
+            }
+            catch (HySpiritException he) {
+                he.printStackTrace(System.err);
+            }
+        }
+        else linkStrings.add(linkString);	 	
     }
     
     
@@ -331,6 +702,8 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
      * @return true if the document was already indexed, false elsewhere
      */
     public boolean isIndexed(String documentURI) {
+        KeyIndex keys = keyIndex(false);
+        if (keys != null) return keys.contains(documentURI);
         boolean isIndexed = false;
         // cache lookup, if cache is not there, create it
         if (useCache) {
@@ -339,47 +712,36 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
             else {
                 indexedDocumentsCache = new HashSet();
                 try {
-                    String line = null;
-                    BufferedReader br =
-                        new BufferedReader(new FileReader(instanceMDSFile));
-                    while ((line = br.readLine()) != null) {
-                        line = line.replace('(', ' ');
-                        line = line.replace(')', ' ');
-                        String token[] = line.split(",");
-                        line = token[0];
-                        line = line.replace('"', ' ');
-                        line = line.trim();
-                        indexedDocumentsCache.add(line);
-                        if (line.equals(documentURI)) isIndexed = true;
+                    MdsFile mds = new MdsFile(new File(instanceMDSFile));
+                    MdsFile.Scanner tuples = mds.scanner();
+                    while (tuples.next()) {
+                        String uri = unquote(tuples.valueAt(0));
+                        indexedDocumentsCache.add(uri);
+                        if (uri.equals(documentURI)) isIndexed = true;
                     }
-                    br.close();
+                    mds.close();
                 }
-                catch(FileNotFoundException fnf) {}
+                catch(NoSuchFileException nsf) {}
                 catch(IOException io){
                     io.printStackTrace(System.err);
                 }
             }
         }
         else {
+            String quotedURI = "\"" + documentURI + "\"";
             try {
-                String line = null;
-                BufferedReader br =
-                    new BufferedReader(new FileReader(instanceMDSFile));
-                while ((line = br.readLine()) != null) {
-                    line = line.replace('(', ' ');
-                    line = line.replace(')', ' ');
-                    String token[] = line.split(",");
-                    line = token[0];
-                    line = line.replace('"', ' ');
-                    line = line.trim();
-                    if (line.equals(documentURI)) {
+                MdsFile mds = new MdsFile(new File(instanceMDSFile));
+                MdsFile.Scanner tuples = mds.scanner();
+                while (tuples.next()) {
+                    if (tuples.valueEquals(0, quotedURI)
+                            || tuples.valueEquals(0, documentURI)) {
                         isIndexed = true;
                         break;
                     }
                 }
-                br.close();
+                mds.close();
             }
-            catch (FileNotFoundException fnf) {}
+            catch (NoSuchFileException nsf) {}
             catch (IOException io) {
                 io.printStackTrace(System.err);
             }           
@@ -397,21 +759,24 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
      */
     public boolean isIndexed(String sourceURI, String destinationURI,
             String linktype) {
+        KeyIndex keys = keyIndex(true);
+        if (keys != null) 
+            return keys.contains(linkKey(sourceURI, destinationURI, linktype));
         boolean isIndexed = false;
         String linkString = "(\"" + sourceURI + "\",\"" + 
         destinationURI + "\"," + linktype + ")";
         // cache lookup, if cache is not there, create it
         if (useCache) {
-            if (indexedDocumentsCache != null) 
-                isIndexed = indexedDocumentsCache.contains(linkString);
+            if (indexedLinksCache != null) 
+                isIndexed = indexedLinksCache.contains(linkString);
             else {
-                indexedDocumentsCache = new HashSet();
+                indexedLinksCache = new HashSet();
                 try {
                     String line = null;
                     BufferedReader br =
                         new BufferedReader(new FileReader(linkMDSFile));
                     while ((line = br.readLine()) != null) {
-                        indexedDocumentsCache.add(line);
+                        indexedLinksCache.add(line);
                         if (line.equals(linkString)) isIndexed = true;
                     }
                     br.close();
@@ -449,7 +814,8 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
      * set, all relevant information is read into memory, which can be time
      * and memory consuming; but next time isIndexed is invoked, the cache is
      * used, resulting in faster lookup times. For many invocations if
-     * isIndexed, better use a cache.
+     * isIndexed, better use a cache. The cache is only used for indexes
+     * without key indexes (see {@link #writeKeyIndexes(boolean)}).
      *  
      * @param useCache whether or not to use the cache.
      */
@@ -457,6 +823,114 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         this.useCache = useCache;
     }
     
+    /**
+     * Whether or not to write the key indexes instance_of.keys and link.keys
+     * when indexing (see {@link KeyIndex}). They let isIndexed() answer 
+     * with a memory-mapped hash lookup instead of scanning instance_of.mds
+     * or link.mds, or reading them into a cache. Default: Write them.
+     * @param keyIndexes Flag if the key indexes should be written.
+     * @since 1.3.0
+     */
+    public void writeKeyIndexes(boolean keyIndexes) {
+        this.writeKeyIndexes = keyIndexes;
+    }
+    
+    /*
+     * Returns the key of a link in link.keys
+     */
+    private static String linkKey(String sourceURI, String destinationURI,
+            String linktype) {
+        return sourceURI + "\n" + destinationURI + "\n" + linktype;
+    }
+    
+    /*
+     * Returns the key index of the documents or links, or null if there is
+     * none or it is older than the MDS file 
+     */
+    private synchronized KeyIndex keyIndex(boolean links) {
+        KeyIndex keys = links ? linkKeys : instanceKeys;
+        if (keys != null) return keys;
+        File keyFile = new File(links ? linkKeysFile : instanceKeysFile);
+        File mdsFile = new File(links ? linkMDSFile : instanceMDSFile);
+        if (!keyFile.exists() || keyFile.lastModified() < mdsFile.lastModified())
+            return null;
+        try {
+            keys = new KeyIndex(keyFile);
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+            return null;
+        }
+        if (links) linkKeys = keys;
+        else instanceKeys = keys;
+        return keys;
+    }
+    
+    /*
+     * Closes the key indexes; they are opened again when needed
+     */
+    private synchronized void closeKeyIndexes() {
+        try {
+            if (instanceKeys != null) instanceKeys.close();
+            if (linkKeys != null) linkKeys.close();
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+        }
+        instanceKeys = null;
+        linkKeys = null;
+    }
+    
+    /*
+     * Writes or deletes the key indexes of the document URIs in 
+     * instance_of.mds and the links in link.mds
+     */
+    private void updateKeyIndexes() {
+        closeKeyIndexes();
+        if (!writeKeyIndexes) {
+            deleteFile(instanceKeysFile);
+            deleteFile(linkKeysFile);
+            return;
+        }
+        try {
+            KeyIndexWriter writer = 
+                new KeyIndexWriter(new File(instanceKeysFile));
+            try {
+                MdsFile mds = new MdsFile(new File(instanceMDSFile));
+                MdsFile.Scanner tuples = mds.scanner();
+                while (tuples.next())
+                    if (tuples.size() > 0) 
+                        writer.add(unquote(tuples.valueAt(0)));
+                mds.close();
+            }
+            catch (NoSuchFileException nsf) {}
+            finally {
+                writer.close();
+            }
+            
+            writer = new KeyIndexWriter(new File(linkKeysFile));
+            try {
+                MdsFile mds = new MdsFile(new File(linkMDSFile));
+                MdsFile.Scanner tuples = mds.scanner();
+                while (tuples.next())
+                    if (tuples.size() > 2) 
+                        writer.add(linkKey(unquote(tuples.valueAt(0)),
+                                unquote(tuples.valueAt(1)), 
+                                tuples.valueAt(2)));
+                mds.close();
+            }
+            catch (NoSuchFileException nsf) {}
+            finally {
+                writer.close();
+            }
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+            deleteFile(instanceKeysFile);
+            deleteFile(linkKeysFile);
+        }
+    }
+    
     
     /**
      * Use sum norm for tf calculation
@@ -571,21 +1045,12 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
     }
     
     /*
-     * Incrementally indexes the full texts. What happens here depends on the
+     * Indexes the full texts. What happens here depends on the
      * indexing strategy and the backing storage. Usually, tfxidf-weights are
      * calculated for the full text and stored in the index.
      */
     private void indexFullText() {    	
         try {
-            /*
-             * TODO Incremental indexing: 
-             * 1. read term_tf.freq. Update internal structure; if document
-             * exists in term_tf.freq nd docList, take values from docList.
-             * Otherwise append to docList. Update tf and idf statistics.
-             * Write tf and idf frequency files.
-             */
-            
-            
             /*
              * Write term frequencies and tf values
              */
@@ -596,113 +1061,165 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
                     new FileWriter(termMDSFile));
             BufferedWriter termWeightFile =
                 new BufferedWriter(new FileWriter(tfMDSFile));
+            BinaryMDSWriter tfBinary = null;
+            if (writeBinaryMDSFiles) tfBinary = 
+                new BinaryMDSWriter(new File(tfBinaryFile));
             tfFile.write(getPrefix(tf_keys, tf_tuples, "tuples"));
             tfFile.newLine();
             tfFile.flush();
-            for (Iterator it = docList.keySet().iterator() ; it.hasNext();) {
-                String uri = (String) it.next();
-                DocTermList docterms = (DocTermList)docList.get(uri);
-                for (Iterator it2 = docterms.docTerms().iterator();
-                it2.hasNext(); ) {
-                    TermFreq tf = (TermFreq) it2.next();
-                    try {
-                        ArrayList tflist = new ArrayList(2);
-                        tflist.add(tf.term());
-                        tflist.add(uri);
-                        String key = createKey(tflist);
-                        tfFile.write(tf.frequency() + " " + key);
-                        tfFile.newLine();
-                        
-                        // get the actual term weight
-                        float termweight = 0;
-                        switch (tfNorm) {
-                        case TF_MAX_NORM:
-                            termweight = docterms.maxNTF(tf.term());
-                            break;
-                        case TF_SUM_NORM:
-                            termweight = docterms.sumNTF(tf.term());
-                            break;
-                        case TF_APOISSON_AVG:
-                            termweight = docterms.APoissonWeight(tf.term());
-                            break;
-                        case TF_SMART_NORM:
-                            termweight = docterms.smartNTF(tf.term());
-                        }
-                        
-                        termWeightFile.write(termweight + " " + key);
-                        termWeightFile.newLine();
-                        
-                        if (writeTermMDSFile) {
-                            for (int i=0; i < tf.frequency(); i++) {
-                                tmdsFile.write(key);
-                                tmdsFile.newLine();
-                            }
-                        }
-                    }
-                    catch (NullPointerException ne) {
-                        System.err.println("Warning: Null Pointer Exception " +
-                        "caught!");
-                        System.err.println("\tURI: " + uri);
-                        System.err.println("\tTermFreq tf: " + tf);
-                    }
-                }
-                tfFile.flush();
-                if (writeTermMDSFile) tmdsFile.flush();
-            }
+            writeDocuments(tfFile, termWeightFile, tmdsFile, tfBinary);
             tfFile.close();
+            termWeightFile.close();
             if (writeTermMDSFile) tmdsFile.close();
+            if (writeBinaryMDSFiles) tfBinary.close();
             
             
             /*
              * Write document frequencies
              */
-            idf_values = docList.size(); // the number of documents
-            idf_keys = termIDF.size(); // the number of terms
-            
-            
-            // get minumum document frequency
-            int minDocFreq = 0;
-            String minDocFreqTerm = null;
-            Set keys = termIDF.keySet();
-            for (Iterator it = keys.iterator(); it.hasNext();) {
-                String term = (String)it.next();
-                int value = ((Integer)termIDF.get(term)).intValue();
-                if (minDocFreq == 0 || value < minDocFreq) {
-                    minDocFreq = value;
-                    minDocFreqTerm = term;
-                }
-            }
-            termIDF.remove(minDocFreqTerm);
-            
-            BufferedWriter dfFile = new BufferedWriter(
-                    new FileWriter(termIDFFile));
-            dfFile.write(getPrefix(idf_keys, idf_values, "values"));
-            dfFile.newLine();
-            ArrayList idflist = new ArrayList(1);
-            idflist.add(minDocFreqTerm);
-            String key = createKey(idflist);    
-            dfFile.write(minDocFreq + " " + key);
-            dfFile.newLine();
-            dfFile.flush();
-            keys = termIDF.keySet();
-            for (Iterator it = keys.iterator(); it.hasNext();) {
-                String term = (String)it.next();
-                int value = ((Integer)termIDF.get(term)).intValue();
-                idflist = new ArrayList(1);
-                idflist.add(term);
-                key = createKey(idflist);               
-                dfFile.write(value + " " + key);
-                dfFile.newLine();
-            }
-            dfFile.close();
-            termIDF.put(minDocFreqTerm, new Integer(minDocFreq)); //just in case
+            writeDocFreqs(termIDF, docList.size());
         }
         catch (IOException io) {
             io.printStackTrace(System.err);
         }
         
+        calculateIDF();
+        convertToBinaryMDS(false);
+        indexFullTextDirs();
+    }
+    
+    /*
+     * Writes the term frequencies, tf values, (optionally) terms and 
+     * (optionally) binary tf values of the documents in docList.
+     */
+    private void writeDocuments(BufferedWriter tfFile, 
+            BufferedWriter termWeightFile, BufferedWriter tmdsFile,
+            BinaryMDSWriter tfBinary) 
+    throws IOException {
+        for (Iterator it = docList.keySet().iterator() ; it.hasNext();) {
+            String uri = (String) it.next();
+            DocTermList docterms = (DocTermList)docList.get(uri);
+            for (Iterator it2 = docterms.docTerms().iterator();
+            it2.hasNext(); ) {
+                TermFreq tf = (TermFreq) it2.next();
+                try {
+                    ArrayList tflist = new ArrayList(2);
+                    tflist.add(tf.term());
+                    tflist.add(uri);
+                    String key = createKey(tflist);
+                    tfFile.write(tf.frequency() + " " + key);
+                    tfFile.newLine();
+                    
+                    // get the actual term weight
+                    float termweight = 0;
+                    switch (tfNorm) {
+                    case TF_MAX_NORM:
+                        termweight = docterms.maxNTF(tf.term());
+                        break;
+                    case TF_SUM_NORM:
+                        termweight = docterms.sumNTF(tf.term());
+                        break;
+                    case TF_APOISSON_AVG:
+                        termweight = docterms.APoissonWeight(tf.term());
+                        break;
+                    case TF_SMART_NORM:
+                        termweight = docterms.smartNTF(tf.term());
+                    }
+                    
+                    termWeightFile.write(termweight + " " + key);
+                    termWeightFile.newLine();
+                    if (tfBinary != null) tfBinary.write(termweight, 
+                            "\"" + tf.term() + "\"", "\"" + uri + "\"");
+                    
+                    if (writeTermMDSFile) {
+                        for (int i=0; i < tf.frequency(); i++) {
+                            tmdsFile.write(key);
+                            tmdsFile.newLine();
+                        }
+                    }
+                }
+                catch (NullPointerException ne) {
+                    System.err.println("Warning: Null Pointer Exception " +
+                    "caught!");
+                    System.err.println("\tURI: " + uri);
+                    System.err.println("\tTermFreq tf: " + tf);
+                }
+            }
+            tfFile.flush();
+            if (writeTermMDSFile) tmdsFile.flush();
+        }
+    }
+    
+    /*
+     * Writes the document frequencies of the given terms to term_df.freq,
+     * skipping terms with document frequency 0. The term with the minimum
+     * document frequency comes first.
+     */
+    private void writeDocFreqs(StringIntMap docFreqs, int documents) 
+    throws IOException {
+        idf_values = documents; // the number of documents
+        
         
+        // get minumum document frequency
+        idf_keys = 0; // the number of terms
+        int minDocFreq = 0;
+        int minDocFreqTerm = -1;
+        for (int i = 0; i < docFreqs.size(); i++) {
+            int value = docFreqs.valueAt(i);
+            if (value == 0) continue;
+            idf_keys++;
+            if (minDocFreq == 0 || value < minDocFreq) {
+                minDocFreq = value;
+                minDocFreqTerm = i;
+            }
+        }
         
+        BufferedWriter dfFile = new BufferedWriter(
+                new FileWriter(termIDFFile));
+        dfFile.write(getPrefix(idf_keys, idf_values, "values"));
+        dfFile.newLine();
+        ArrayList idflist = new ArrayList(1);
+        idflist.add(minDocFreqTerm < 0 ? null 
+                : docFreqs.keyAt(minDocFreqTerm));
+        String key = createKey(idflist);    
+        dfFile.write(minDocFreq + " " + key);
+        dfFile.newLine();
+        dfFile.flush();
+        for (int i = 0; i < docFreqs.size(); i++) {
+            int value = docFreqs.valueAt(i);
+            if (value == 0 || i == minDocFreqTerm) continue;
+            idflist = new ArrayList(1);
+            idflist.add(docFreqs.keyAt(i));
+            key = createKey(idflist);               
+            dfFile.write(value + " " + key);
+            dfFile.newLine();
+        }
+        dfFile.close();
+    }
+    
+    /*
+     * Calculates the inverse document frequencies from term_df.freq
+     */
+    private void calculateIDF() {
+        if (useJavaConverters) {
+            // the same as the pipeline below: -ln(df/N)/max_idf
+            Freq2MDS idf = new Freq2MDS();
+            idf.useMaxIDFNorm();
+            try {
+                BufferedWriter out = 
+                    new BufferedWriter(new FileWriter(idfMDSFile));
+                try {
+                    idf.run(new FileReader(termIDFFile), out);
+                }
+                finally {
+                    out.close();
+                }
+            }
+            catch (Exception e) {
+                e.printStackTrace(System.err);
+            }
+            return;
+        }
         try {
             /*
              * Calculate inverse document frequency (idf), using max idf norm
@@ -718,31 +1235,17 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
             hymds2mds.maxStream(true);
             hymds2mds.readFromSTDIN();
             
-            hyfreq2mds.start();
-            hyfreq2mds.waitTillRunning();
-            hymds2mds.start();
-            hymds2mds.waitTillRunning();
-            
-            StreamGobbler st = new StreamGobbler(hyfreq2mds.getSTDOUT(), 
-                    hymds2mds.getSTDIN());
-            st.start();
-            
-            // STDERR to System.err
-            StreamGobbler st2 = new StreamGobbler(hyfreq2mds.getSTDERR(), 
-                    System.err);
-            st2.start();
-            BufferedWriter fileIn =
-                new BufferedWriter(new FileWriter(idfMDSFile));
-            StreamGobbler st3 = new StreamGobbler(hymds2mds.getSTDOUT(), 
-                    fileIn);
-            st3.start();
-            StreamGobbler st4 = new StreamGobbler(hymds2mds.getSTDERR(), 
-                    System.err);
-            st4.start();
+            // hy_mds2mds writes idf.mds directly
+            EnginePipeline pipeline = new EnginePipeline.Builder()
+                .add(hyfreq2mds)
+                .add(hymds2mds)
+                .redirectOutput(new File(idfMDSFile))
+                .build();
+            pipeline.start();
             
             // wait for completion
             try {
-                hymds2mds.waitFor();
+                pipeline.waitFor();
             }
             catch (InterruptedException ie) {
                 ie.printStackTrace(System.err);
@@ -751,11 +1254,28 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         catch (Exception e) {
             e.printStackTrace(System.err);
         }
-        
-        
-        /*
-         * write to index directory
-         */
+    }
+    
+    /*
+     * Converts idf.mds and, if convertTF is set, tf.mds to their binary
+     * versions, if these are to be written.
+     */
+    private void convertToBinaryMDS(boolean convertTF) {
+        if (!writeBinaryMDSFiles) return;
+        try {
+            if (convertTF) 
+                BinaryMDS.toBinary(new File(tfMDSFile), new File(tfBinaryFile));
+            BinaryMDS.toBinary(new File(idfMDSFile), new File(idfBinaryFile));
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+        }
+    }
+    
+    /*
+     * Writes tf.mds and idf.mds to the index directory
+     */
+    private void indexFullTextDirs() {
         try {
             HyMDS2DirEngine hymds2dir = new HyMDS2DirEngine(hyspirit);
             hymds2dir.addMDSFile(tfMDSFile);
@@ -777,6 +1297,390 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         }
     }
     
+    /**
+     * Indexes the documents added since the last invocation of index() or
+     * indexIncrementally(), keeping the documents already in the index.
+     * Documents which were indexed before replace their former version.
+     * Instead of analysing all documents again, the term frequencies and
+     * document frequencies of the index are read from term_tf.freq and
+     * term_df.freq and updated with the new documents; only if documents are
+     * replaced, their former entries are removed from the knowledge base
+     * files. This includes the hyperlinks starting at replaced documents, so
+     * links which still exist must be added again. idf.mds and the index
+     * directories are regenerated from the updated files afterwards. The
+     * added documents are discarded from memory, so this method can be
+     * invoked for every batch of documents. If the former entries cannot be
+     * removed, the index is left unchanged and the added documents are kept.
+     * If there is no index yet, the index is built as with index(false).
+     * @since 1.3.0
+     */
+    public void indexIncrementally() {
+        finishIngestion();
+        if (!new File(termTFFile).exists() || !new File(termIDFFile).exists())
+            index(false);
+        else {
+            Set<String> replaced = indexedDocuments(addedDocuments);
+            if (!replaced.isEmpty()) {
+                if (!removeDocuments(new String[] { instanceMDSFile, 
+                        attributeMDSFile, linkMDSFile }, 
+                        new int[] { 0, 1, 0 }, replaced)) {
+                    System.err.println("Replaced documents not removed, "
+                            + "not indexed: " + addedDocuments);
+                    return;
+                }
+                // stale index entries would survive hy_mds2dir
+                eraseDirAndFiles(indexDir);
+                createDirs();
+            }
+            
+            indexDocumentTypes();
+            indexAttributes();
+            indexHyperlinks(); 
+            indexFullTextIncrementally(replaced);
+            writeConnector();
+            updateKeyIndexes();
+            if (queryCache != null) queryCache.invalidateAll();
+            
+            // close filter
+            if (filter != null) {
+                filter.close();
+                filter = null;
+            }
+        }
+        
+        forgetDocuments();
+    }
+    
+    /*
+     * Forgets the indexed documents, so that the next invocation of
+     * indexIncrementally() only sees the documents added afterwards.
+     */
+    private void forgetDocuments() {
+        docList.clear();
+        addedDocuments.clear();
+        termIDF.clear();
+        instanceStrings.clear();
+        attributeStrings.clear();
+        linkStrings.clear();
+        tf_keys = 0;
+        tf_tuples = 0;
+        forgetIndexedDocuments();
+        indexedDocumentsCache = null;
+        indexedLinksCache = null;
+    }
+    
+    /*
+     * Forgets the documents set aside by the last index()
+     */
+    private void forgetIndexedDocuments() {
+        indexedDocList.clear();
+        indexedAddedDocuments.clear();
+        indexedTermIDF.clear();
+        indexedInstanceStrings.clear();
+        indexedAttributeStrings.clear();
+        indexedLinkStrings.clear();
+        indexed_tf_keys = 0;
+        indexed_tf_tuples = 0;
+    }
+    
+    /*
+     * Swaps the added documents with the documents set aside by index(). 
+     */
+    private void swapIndexedDocuments() {
+        HashMap<String, DocTermList> docs = indexedDocList;
+        indexedDocList = docList;
+        docList = docs;
+        HashSet<String> uris = indexedAddedDocuments;
+        indexedAddedDocuments = addedDocuments;
+        addedDocuments = uris;
+        StringIntMap idf = indexedTermIDF;
+        indexedTermIDF = termIDF;
+        termIDF = idf;
+        HashSet<String> strings = indexedInstanceStrings;
+        indexedInstanceStrings = instanceStrings;
+        instanceStrings = strings;
+        strings = indexedAttributeStrings;
+        indexedAttributeStrings = attributeStrings;
+        attributeStrings = strings;
+        strings = indexedLinkStrings;
+        indexedLinkStrings = linkStrings;
+        linkStrings = strings;
+        int keys = indexed_tf_keys;
+        indexed_tf_keys = tf_keys;
+        tf_keys = keys;
+        int tuples = indexed_tf_tuples;
+        indexed_tf_tuples = tf_tuples;
+        tf_tuples = tuples;
+    }
+    
+    /*
+     * Adds the documents set aside by the last index() to the documents
+     * added since, so that index() writes all of them again.
+     */
+    private void restoreIndexedDocuments() {
+        indexedDocList.putAll(docList);
+        indexedAddedDocuments.addAll(addedDocuments);
+        for (int i = 0; i < termIDF.size(); i++)
+            indexedTermIDF.increment(termIDF.keyAt(i), termIDF.valueAt(i));
+        indexedInstanceStrings.addAll(instanceStrings);
+        indexedAttributeStrings.addAll(attributeStrings);
+        indexedLinkStrings.addAll(linkStrings);
+        indexed_tf_keys += tf_keys;
+        indexed_tf_tuples += tf_tuples;
+        swapIndexedDocuments();
+        forgetIndexedDocuments();
+    }
+    
+    /*
+     * Updates the frequency files with the documents in docList, replacing
+     * the given documents. 
+     */
+    private void indexFullTextIncrementally(Set<String> replaced) {
+        try {
+            StringIntMap docFreqs = new StringIntMap();
+            int[] prefix = readFreqFile(termIDFFile, docFreqs);
+            int documents = prefix[1];
+            prefix = readFreqFile(termTFFile, null);
+            int keys = prefix[0];
+            int tuples = prefix[1];
+            HyTupleParser parser = HyTupleParser.threadParser();
+            
+            /*
+             * Subtract the former versions of replaced documents
+             */
+            if (!replaced.isEmpty()) {
+                HashSet<String> removed = new HashSet<String>();
+                BufferedReader br =
+                    new BufferedReader(new FileReader(termTFFile));
+                String line = null;
+                while ((line = br.readLine()) != null) {
+                    if (line.startsWith("#!")) continue;
+                    parser.parseFrequencyTuple(line);
+                    String uri = unquote(parser.valueAt(1));
+                    if (!replaced.contains(uri)) continue;
+                    removed.add(uri);
+                    keys--;
+                    tuples -= parser.frequency();
+                    int term = docFreqs.indexOf(unquote(parser.valueAt(0)));
+                    if (term >= 0 && docFreqs.valueAt(term) > 0)
+                        docFreqs.setValueAt(term, docFreqs.valueAt(term) - 1);
+                }
+                br.close();
+                documents -= removed.size();
+                String[] mdsFiles = writeTermMDSFile 
+                    ? new String[] { tfMDSFile, termMDSFile }
+                    : new String[] { tfMDSFile };
+                if (!removeDocuments(mdsFiles, new int[] { 1, 1 }, replaced))
+                    throw new IOException("Cannot remove replaced documents "
+                            + "from " + tfMDSFile);
+            }
+            
+            /*
+             * Add the new documents
+             */
+            for (int i = 0; i < termIDF.size(); i++)
+                docFreqs.increment(termIDF.keyAt(i), termIDF.valueAt(i));
+            documents += docList.size();
+            
+            // term_tf.freq gets a new prefix, so it is copied
+            File tmpFile = new File(termTFFile + ".tmp");
+            BufferedWriter tfFile = new BufferedWriter(
+                    new FileWriter(tmpFile));
+            tfFile.write(getPrefix(keys + tf_keys, tuples + tf_tuples, 
+                    "tuples"));
+            tfFile.newLine();
+            BufferedReader br = new BufferedReader(new FileReader(termTFFile));
+            String line = null;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith("#!")) continue;
+                if (!replaced.isEmpty()) {
+                    parser.parseFrequencyTuple(line);
+                    if (replaced.contains(unquote(parser.valueAt(1))))
+                        continue;
+                }
+                tfFile.write(line);
+                tfFile.newLine();
+            }
+            br.close();
+            
+            // tf.mds and term.mds are appended
+            BufferedWriter tmdsFile = null;
+            if (writeTermMDSFile) tmdsFile =  new BufferedWriter(
+                    new FileWriter(termMDSFile, true));
+            BufferedWriter termWeightFile =
+                new BufferedWriter(new FileWriter(tfMDSFile, true));
+            writeDocuments(tfFile, termWeightFile, tmdsFile, null);
+            tfFile.close();
+            termWeightFile.close();
+            if (writeTermMDSFile) tmdsFile.close();
+            replaceFile(tmpFile, termTFFile);
+            
+            writeDocFreqs(docFreqs, documents);
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+        }
+        
+        calculateIDF();
+        convertToBinaryMDS(true);
+        indexFullTextDirs();
+    }
+    
+    /*
+     * Reads a frequency file. Returns the number of keys and the number
+     * of tuples/values given in its prefix. If frequencies is not null, the
+     * frequencies of single-valued keys are put into it.
+     */
+    private static int[] readFreqFile(String filename, 
+            StringIntMap frequencies)
+    throws IOException {
+        int[] prefix = new int[2];
+        int prefixLines = 0;
+        HyTupleParser parser = HyTupleParser.threadParser();
+        BufferedReader br = new BufferedReader(new FileReader(filename));
+        String line = null;
+        while ((line = br.readLine()) != null) {
+            if (line.startsWith("#!")) {
+                if (prefixLines < 2) prefix[prefixLines++] = 
+                    Integer.parseInt(line.substring(
+                            line.lastIndexOf(':') + 1).trim());
+            }
+            else if (frequencies == null) break;
+            else {
+                parser.parseFrequencyTuple(line);
+                frequencies.put(unquote(parser.valueAt(0)), 
+                        parser.frequency());
+            }
+        }
+        br.close();
+        return prefix;
+    }
+    
+    /*
+     * Returns those of the given document URIs which are already indexed
+     */
+    private Set<String> indexedDocuments(Set<String> uris) {
+        HashSet<String> indexed = new HashSet<String>();
+        if (uris.isEmpty()) return indexed;
+        KeyIndex keys = keyIndex(false);
+        if (keys != null) {
+            for (Iterator<String> it = uris.iterator(); it.hasNext();) {
+                String uri = it.next();
+                if (keys.contains(uri)) indexed.add(uri);
+            }
+            return indexed;
+        }
+        try {
+            MdsFile mds = new MdsFile(new File(instanceMDSFile));
+            MdsFile.Scanner tuples = mds.scanner();
+            while (tuples.next()) {
+                String uri = unquote(tuples.valueAt(0));
+                if (uris.contains(uri)) indexed.add(uri);
+            }
+            mds.close();
+        }
+        catch (NoSuchFileException nsf) {}
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+        }
+        return indexed;
+    }
+    
+    /*
+     * Removes the tuples of the given documents from MDS files. columns are
+     * the (0-based) columns containing the document URI. The files are only
+     * replaced if all of them could be read; returns false otherwise.
+     */
+    private static boolean removeDocuments(String[] filenames, int[] columns,
+            Set<String> uris) {
+        File[] tmpFiles = new File[filenames.length];
+        boolean removed = true;
+        try {
+            for (int i = 0; i < filenames.length && removed; i++) {
+                tmpFiles[i] = new File(filenames[i] + ".tmp");
+                removed = removeDocuments(filenames[i], columns[i], uris,
+                        tmpFiles[i]);
+            }
+            for (int i = 0; i < filenames.length && removed; i++)
+                if (tmpFiles[i].exists())
+                    replaceFile(tmpFiles[i], filenames[i]);
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+            removed = false;
+        }
+        finally {
+            for (int i = 0; i < tmpFiles.length; i++)
+                if (tmpFiles[i] != null) tmpFiles[i].delete();
+        }
+        return removed;
+    }
+    
+    /*
+     * Writes the tuples of an MDS file except those of the given documents
+     * to tmpFile, if the file exists. Returns false if the file could not be
+     * read.
+     */
+    private static boolean removeDocuments(String filename, int column, 
+            Set<String> uris, File tmpFile) {
+        File file = new File(filename);
+        if (!file.exists()) return true;
+        HyTupleParser parser = HyTupleParser.threadParser();
+        BufferedReader br = null;
+        BufferedWriter bw = null;
+        try {
+            br = new BufferedReader(new FileReader(file));
+            bw = new BufferedWriter(new FileWriter(tmpFile));
+            String line = null;
+            while ((line = br.readLine()) != null) {
+                parser.parse(line);
+                if (parser.size() > column 
+                        && uris.contains(unquote(parser.valueAt(column))))
+                    continue;
+                bw.write(line);
+                bw.newLine();
+            }
+            return true;
+        }
+        catch (HyTupleFormatException fe) {
+            System.err.println("Error in " + filename + ":");
+            fe.printStackTrace(System.err);
+        }
+        catch (IOException io) {
+            io.printStackTrace(System.err);
+        }
+        finally {
+            try {
+                if (br != null) br.close();
+                if (bw != null) bw.close();
+            }
+            catch (IOException io) {
+                io.printStackTrace(System.err);
+            }
+        }
+        return false;
+    }
+    
+    /*
+     * Replaces the given file by tmpFile
+     */
+    private static void replaceFile(File tmpFile, String filename) 
+    throws IOException {
+        File file = new File(filename);
+        if ((file.exists() && !file.delete()) || !tmpFile.renameTo(file))
+            throw new IOException("Cannot replace " + filename);
+    }
+    
+    /*
+     * Removes the quotes around a value
+     */
+    private static String unquote(String value) {
+        if (value != null && value.length() > 1 && value.charAt(0) == '"'
+                && value.charAt(value.length() - 1) == '"')
+            return value.substring(1, value.length() - 1);
+        return value;
+    }
+    
     /**
      * Indexes everything based on the knowledge base. Erases the index before
      * beginning to index new. Writes the connector string to file.
@@ -792,14 +1696,30 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
      * @param erase Whether to erase the index before indexing, or not.
      */
     public void index(boolean erase) {
+        finishIngestion();
+        restoreIndexedDocuments();
         if (erase) eraseDirAndFiles(indexDir);
         
         indexDocumentTypes();
         indexAttributes();
         indexHyperlinks(); 
         indexFullText();
+        writeConnector();
+        updateKeyIndexes();
+        if (queryCache != null) queryCache.invalidateAll();
         
-        // write connector file
+        // close filter
+        if (filter != null) {
+            filter.close();
+            filter = null;
+        }
+        swapIndexedDocuments();
+    }
+    
+    /*
+     * Writes the connector file
+     */
+    private void writeConnector() {
         try {
             BufferedWriter fb = 
                 new BufferedWriter(
@@ -811,12 +1731,6 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
         catch (IOException io) {
             io.printStackTrace(System.err);
         }
-        
-        // close filter
-        if (filter != null) {
-            filter.close();
-            filter = null;
-        }
     }
     
     
@@ -826,6 +1740,7 @@ public class SimpleHypertextFileIndex implements HypertextIndex {
      *
      */
     public void erase() {
+        closeKeyIndexes();
         eraseDirAndFiles(this.indexBaseDir);
         createDirs();
     }
@@ -0,0 +1,472 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.retrieval;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hyspirit.application.indexing.SimpleHypertextFileIndex;
+import hyspirit.knowledgeBase.BinaryMDSReader;
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.knowledgeBase.MdsFile;
+import hyspirit.knowledgeBase.TupleScanner;
+import hyspirit.util.TopKHeap;
+
+/**
+ * An in-memory inverted index for OR-of-terms queries, built from the files
+ * of a {@link SimpleHypertextFileIndex}. The score of a document is the sum of
+ * the weights of the query terms it contains:
+ * <ul>
+ * <li>tf-idf (see {@link #fromMDS(File, File)}): idf(t) * tf(t,d), with the
+ * values of idf.mds and tf.mds. This is what the PRA program of
+ * {@link SimpleFullTextQueryImpl#orQueryToPRA(java.util.Iterator)} computes;
+ * like its disjoint UNITE, a term occurring n times in the query is weighted
+ * n*n times.</li>
+ * <li>BM25 (see {@link #fromFrequencies(File, double, double)}), computed from
+ * the term frequencies in term_tf.freq; a term occurring n times in the query
+ * is weighted n times.</li>
+ * </ul>
+ * Queries are processed document-at-a-time. With a limited number of results,
+ * WAND skips documents which cannot enter the top k, using the maximum
+ * weight of each posting list and of each block of postings; the result is
+ * the same as with exhaustive evaluation. Quotes around terms and document
+ * URIs in the files are removed. Instances are immutable and may be searched
+ * by several threads.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class InvertedIndex {
+
+    /** The default BM25 parameter k1 */
+    public static final double DEFAULT_K1 = 1.2;
+
+    /** The default BM25 parameter b */
+    public static final double DEFAULT_B = 0.75;
+
+    private final Map<String, PostingList> postings;
+    private final String[] documents;
+    private final boolean bm25;
+
+    private InvertedIndex(Map<String, PostingList> postings,
+	    String[] documents, boolean bm25) {
+	this.postings = postings;
+	this.documents = documents;
+	this.bm25 = bm25;
+    }
+
+    /**
+     * Builds a tf-idf index from the given index. The binary files tf.bmds
+     * and idf.bmds are used if they exist, tf.mds and idf.mds otherwise.
+     *
+     * @param index
+     *            the index
+     * @return the inverted index
+     * @throws IOException
+     *             if the files cannot be read
+     */
+    public static InvertedIndex fromIndex(SimpleHypertextFileIndex index)
+	    throws IOException {
+	File tf = new File(index.getTFBinaryFile());
+	File idf = new File(index.getIDFBinaryFile());
+	if (!tf.isFile() || !idf.isFile()) {
+	    tf = new File(index.getTFMDSFile());
+	    idf = new File(index.getIDFMDSFile());
+	}
+	return fromMDS(tf, idf);
+    }
+
+    /**
+     * Builds a tf-idf index from tf and idf relations. Files ending with
+     * ".bmds" are read as binary MDS, all others as text MDS. Terms without
+     * idf value are left out, as they do not contribute to the PRA result
+     * either.
+     *
+     * @param tfMDS
+     *            the tf values, (term, document) tuples
+     * @param idfMDS
+     *            the idf values, (term) tuples
+     * @return the inverted index
+     * @throws IOException
+     *             if the files cannot be read
+     */
+    public static InvertedIndex fromMDS(File tfMDS, File idfMDS)
+	    throws IOException {
+	Map<String, Float> idf = new HashMap<String, Float>();
+	TupleScanner tuples = open(idfMDS);
+	try {
+	    while (tuples.next()) {
+		if (tuples.size() < 1)
+		    continue;
+		String term = unquote(tuples.valueAt(0));
+		Float sum = idf.get(term);
+		idf.put(term, (float) tuples.probability()
+			+ (sum == null ? 0 : sum));
+	    }
+	} finally {
+	    tuples.close();
+	}
+
+	Builder builder = new Builder();
+	tuples = open(tfMDS);
+	try {
+	    while (tuples.next()) {
+		if (tuples.size() < 2)
+		    continue;
+		String term = unquote(tuples.valueAt(0));
+		if (idf.containsKey(term))
+		    builder.add(term, unquote(tuples.valueAt(1)),
+			    (float) tuples.probability());
+	    }
+	} finally {
+	    tuples.close();
+	}
+
+	Map<String, PostingList> postings = new HashMap<String, PostingList>();
+	for (Map.Entry<String, Builder.Postings> e : builder.terms.entrySet()) {
+	    Builder.Postings p = e.getValue();
+	    postings.put(e.getKey(), new PostingList(p.docs, p.weights, p.size,
+		    idf.get(e.getKey())));
+	}
+	return new InvertedIndex(postings, builder.documents(), false);
+    }
+
+    /**
+     * Builds a BM25 index from a frequency file as term_tf.freq, containing
+     * (term, document) tuples with their frequency. Each pair must occur only
+     * once.
+     *
+     * @param termTFFreq
+     *            the frequency file
+     * @param k1
+     *            the BM25 parameter k1, e.g. {@link #DEFAULT_K1}
+     * @param b
+     *            the BM25 parameter b, e.g. {@link #DEFAULT_B}
+     * @return the inverted index
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static InvertedIndex fromFrequencies(File termTFFreq, double k1,
+	    double b) throws IOException {
+	Builder builder = new Builder();
+	HyTupleParser parser = HyTupleParser.threadParser();
+	BufferedReader br = new BufferedReader(new FileReader(termTFFreq));
+	try {
+	    String line;
+	    while ((line = br.readLine()) != null) {
+		line = line.trim();
+		if (line.length() == 0 || line.startsWith("#"))
+		    continue;
+		try {
+		    parser.parseFrequencyTuple(line);
+		} catch (HyTupleFormatException | NumberFormatException e) {
+		    continue;
+		}
+		if (parser.size() >= 2)
+		    builder.add(unquote(parser.valueAt(0)),
+			    unquote(parser.valueAt(1)), parser.frequency());
+	    }
+	} finally {
+	    br.close();
+	}
+
+	// document lengths
+	String[] documents = builder.documents();
+	double[] lengths = new double[documents.length];
+	double total = 0;
+	for (Builder.Postings p : builder.terms.values())
+	    for (int i = 0; i < p.size; i++) {
+		lengths[p.docs[i]] += p.weights[i];
+		total += p.weights[i];
+	    }
+	double avgLength = documents.length == 0 ? 0
+		: total / documents.length;
+
+	Map<String, PostingList> postings = new HashMap<String, PostingList>();
+	for (Map.Entry<String, Builder.Postings> e : builder.terms.entrySet()) {
+	    Builder.Postings p = e.getValue();
+	    for (int i = 0; i < p.size; i++) {
+		double f = p.weights[i];
+		double norm = k1 * (1 - b + b * lengths[p.docs[i]] / avgLength);
+		p.weights[i] = (float) (f * (k1 + 1) / (f + norm));
+	    }
+	    double idf = Math.log(1 + (documents.length - p.size + 0.5)
+		    / (p.size + 0.5));
+	    postings.put(e.getKey(), new PostingList(p.docs, p.weights, p.size,
+		    (float) idf));
+	}
+	return new InvertedIndex(postings, documents, true);
+    }
+
+    /*
+     * Opens a text or binary MDS file
+     */
+    private static TupleScanner open(File file) throws IOException {
+	if (file.getName().endsWith(".bmds"))
+	    return new BinaryMDSReader(file);
+	final MdsFile mds = new MdsFile(file);
+	final MdsFile.Scanner scanner = mds.scanner();
+	return new TupleScanner() {
+	    public boolean next() throws IOException {
+		return scanner.next();
+	    }
+
+	    public double probability() {
+		return scanner.probability();
+	    }
+
+	    public int size() {
+		return scanner.size();
+	    }
+
+	    public String valueAt(int index) {
+		return scanner.valueAt(index);
+	    }
+
+	    public boolean valueEquals(int index, CharSequence value) {
+		return scanner.valueEquals(index, value);
+	    }
+
+	    public HyTuple tuple() {
+		return scanner.tuple();
+	    }
+
+	    public void close() throws IOException {
+		mds.close();
+	    }
+	};
+    }
+
+    private static String unquote(String value) {
+	if (value.length() > 1 && value.charAt(0) == '"'
+		&& value.charAt(value.length() - 1) == '"')
+	    return value.substring(1, value.length() - 1);
+	return value;
+    }
+
+    /**
+     * Returns the number of documents
+     *
+     * @return the number of documents
+     */
+    public int documentCount() {
+	return documents.length;
+    }
+
+    /**
+     * Returns the number of terms
+     *
+     * @return the number of terms
+     */
+    public int termCount() {
+	return postings.size();
+    }
+
+    /**
+     * Returns the number of documents containing the given term
+     *
+     * @param term
+     *            the term
+     * @return the document frequency
+     */
+    public int documentFrequency(String term) {
+	PostingList list = postings.get(term);
+	return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Returns true if this is a BM25 index, false for tf-idf
+     *
+     * @return whether documents are scored with BM25
+     */
+    public boolean isBM25() {
+	return bm25;
+    }
+
+    /**
+     * Ranks the documents containing at least one of the query terms.
+     *
+     * @param queryTerms
+     *            the query terms, as indexed
+     * @param k
+     *            the maximum number of results, 0 for all documents
+     * @return the ranked list of document URIs
+     */
+    public RankedList search(List<String> queryTerms, int k) {
+	RankedList result = k > 0 ? new RankedList(k) : new RankedList();
+
+	// query term weights in the order of first occurrence
+	Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+	for (String term : queryTerms) {
+	    Integer c = counts.get(term);
+	    counts.put(term, c == null ? 1 : c + 1);
+	}
+	List<PostingList.Cursor> list = new ArrayList<PostingList.Cursor>();
+	List<Double> weights = new ArrayList<Double>();
+	List<Double> bounds = new ArrayList<Double>();
+	for (Map.Entry<String, Integer> e : counts.entrySet()) {
+	    PostingList postingList = postings.get(e.getKey());
+	    if (postingList == null)
+		continue;
+	    int c = e.getValue();
+	    list.add(postingList.cursor());
+	    double w = (double) postingList.termWeight() * (bm25 ? c : c * c);
+	    weights.add(w);
+	    bounds.add(w * postingList.maxWeight());
+	}
+	int n = list.size();
+	if (n == 0)
+	    return result;
+	PostingList.Cursor[] cursors = list.toArray(new PostingList.Cursor[n]);
+	double[] qw = new double[n];
+	double[] upper = new double[n];
+	for (int i = 0; i < n; i++) {
+	    qw[i] = weights.get(i);
+	    upper[i] = bounds.get(i);
+	    cursors[i].next();
+	}
+
+	TopKHeap heap = k > 0 ? new TopKHeap(k) : null;
+	int[] slotDocs = k > 0 ? new int[k] : null;
+	int[] byDoc = new int[n];
+	for (int i = 0; i < n; i++)
+	    byDoc[i] = i;
+	while (true) {
+	    sortByDoc(cursors, byDoc);
+	    double theta = heap != null && heap.size() == k ? heap.threshold()
+		    : Double.NEGATIVE_INFINITY;
+
+	    // the pivot: the first cursor at which the upper bounds of the
+	    // cursors up to it can beat the threshold
+	    double bound = 0;
+	    int pivot = -1;
+	    for (int i = 0; i < n; i++) {
+		if (cursors[byDoc[i]].doc() == PostingList.NO_MORE_DOCS)
+		    break;
+		bound += upper[byDoc[i]];
+		if (bound > theta) {
+		    pivot = i;
+		    break;
+		}
+	    }
+	    if (pivot < 0)
+		break;
+	    int pivotDoc = cursors[byDoc[pivot]].doc();
+
+	    if (cursors[byDoc[0]].doc() == pivotDoc) {
+		// all cursors up to the pivot are at the pivot document
+		double blockBound = 0;
+		for (int c = 0; c < n; c++)
+		    if (cursors[c].doc() == pivotDoc)
+			blockBound += qw[c] * cursors[c].blockMaxWeight();
+		if (blockBound > theta) {
+		    double score = 0;
+		    for (int c = 0; c < n; c++)
+			if (cursors[c].doc() == pivotDoc)
+			    score += qw[c] * cursors[c].weight();
+		    if (heap == null)
+			result.add(new ResultItem(score, documents[pivotDoc]));
+		    else {
+			int slot = heap.offer(score);
+			if (slot >= 0)
+			    slotDocs[slot] = pivotDoc;
+		    }
+		}
+		for (int c = 0; c < n; c++)
+		    if (cursors[c].doc() == pivotDoc)
+			cursors[c].next();
+	    } else {
+		for (int i = 0; i < pivot; i++)
+		    cursors[byDoc[i]].advance(pivotDoc);
+	    }
+	}
+
+	if (heap != null)
+	    for (int slot : heap.slots())
+		result.add(new ResultItem(heap.score(slot),
+			documents[slotDocs[slot]]));
+	return result;
+    }
+
+    /*
+     * Sorts the indexes of the cursors by their current document
+     * (insertion sort, queries have few terms)
+     */
+    private static void sortByDoc(PostingList.Cursor[] cursors, int[] byDoc) {
+	for (int i = 1; i < byDoc.length; i++) {
+	    int c = byDoc[i];
+	    int doc = cursors[c].doc();
+	    int j = i - 1;
+	    while (j >= 0 && cursors[byDoc[j]].doc() > doc) {
+		byDoc[j + 1] = byDoc[j];
+		j--;
+	    }
+	    byDoc[j + 1] = c;
+	}
+    }
+
+    /*
+     * Collects postings, assigning document ids in the order of first
+     * occurrence
+     */
+    private static final class Builder {
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private final List<String> documents = new ArrayList<String>();
+	private final Map<String, Postings> terms = new HashMap<String, Postings>();
+
+	private static final class Postings {
+	    private int[] docs = new int[4];
+	    private float[] weights = new float[4];
+	    private int size = 0;
+	}
+
+	void add(String term, String document, float weight) {
+	    Integer id = ids.get(document);
+	    if (id == null) {
+		id = documents.size();
+		ids.put(document, id);
+		documents.add(document);
+	    }
+	    Postings p = terms.get(term);
+	    if (p == null) {
+		p = new Postings();
+		terms.put(term, p);
+	    }
+	    if (p.size == p.docs.length) {
+		p.docs = Arrays.copyOf(p.docs, p.size * 2);
+		p.weights = Arrays.copyOf(p.weights, p.size * 2);
+	    }
+	    p.docs[p.size] = id;
+	    p.weights[p.size++] = weight;
+	}
+
+	String[] documents() {
+	    return documents.toArray(new String[documents.size()]);
+	}
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.retrieval;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import hyspirit.application.indexing.SimpleHypertextFileIndex;
+import hyspirit.util.TextAnalyzer;
+
+/**
+ * A {@link SimpleFullTextQuery} answered by an {@link InvertedIndex} in the
+ * JVM, without hy_pra processes. With a tf-idf index built from tf.mds and
+ * idf.mds it ranks like {@link SimpleFullTextQueryImpl}. Use it for indexes
+ * built with {@link SimpleHypertextFileIndex#useTextAnalyzer(boolean)}, so
+ * that the query terms are analysed the same way as the documents.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class JavaFullTextQuery implements SimpleFullTextQuery {
+
+    private final InvertedIndex index;
+    private final TextAnalyzer analyzer;
+    private List<String> queryTerms = Collections.emptyList();
+    private int maxResults = 0;
+
+    /**
+     * Constructor of class, loading the tf-idf postings of the given index
+     * (see {@link InvertedIndex#fromIndex(SimpleHypertextFileIndex)}).
+     *
+     * @param index
+     *            the index object
+     * @param analyzer
+     *            the text analyzer for the query terms
+     * @throws IOException
+     *             if the index files cannot be read
+     */
+    public JavaFullTextQuery(SimpleHypertextFileIndex index,
+	    TextAnalyzer analyzer) throws IOException {
+	this(InvertedIndex.fromIndex(index), analyzer);
+    }
+
+    /**
+     * Constructor of class, sharing an inverted index
+     *
+     * @param index
+     *            the inverted index
+     * @param analyzer
+     *            the text analyzer for the query terms
+     */
+    public JavaFullTextQuery(InvertedIndex index, TextAnalyzer analyzer) {
+	this.index = index;
+	this.analyzer = analyzer;
+    }
+
+    /**
+     * Returns the inverted index
+     *
+     * @return the inverted index
+     */
+    public InvertedIndex getIndex() {
+	return index;
+    }
+
+    /**
+     * Sets the query (i.e. a set of terms in a string)
+     *
+     * @param query
+     *            the query terms as a string
+     */
+    public void setQuery(String query) {
+	queryTerms = analyzer.analyze(query);
+    }
+
+    /**
+     * Limits the number of results of a query to the ones with the highest
+     * retrieval weights.
+     *
+     * @param maxResults
+     *            the maximum number of results; 0 for unlimited
+     */
+    public void setMaxResults(int maxResults) {
+	this.maxResults = maxResults;
+    }
+
+    /**
+     * Execute the query
+     *
+     * @return ranked list of query results
+     */
+    public RankedList executeQuery() {
+	return index.search(queryTerms, maxResults);
+    }
+
+    /**
+     * Execute the given query
+     *
+     * @param query
+     *            the query terms
+     * @return ranked list of query results
+     */
+    public RankedList executeQuery(String query) {
+	setQuery(query);
+	return executeQuery();
+    }
+
+    /**
+     * Does nothing; classes are not supported.
+     *
+     * @param documentClass
+     *            ignored
+     */
+    public void filter(String documentClass) {
+    }
+
+    /**
+     * Does nothing, there are no processes to close.
+     */
+    public void close() {
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.application.retrieval;
+
+import java.util.Arrays;
+
+/**
+ * The postings of a term in an {@link InvertedIndex}: ascending document ids
+ * with a weight each. The ids are delta-encoded as varints in blocks of
+ * {@link #BLOCK_SIZE} postings; for each block the last document id and the
+ * highest weight are kept, so cursors can skip whole blocks without decoding
+ * them.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+final class PostingList {
+
+    /** The number of postings per block */
+    static final int BLOCK_SIZE = 128;
+
+    /** The document id of an exhausted cursor */
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private final byte[] docs;
+    private final float[] weights;
+    private final int[] blockOffsets;
+    private final int[] blockLastDocs;
+    private final float[] blockMaxWeights;
+    private final float maxWeight;
+    private final float termWeight;
+
+    /**
+     * Constructor of class. The postings need not be sorted; the weights of
+     * postings with the same document are added.
+     *
+     * @param docIds
+     *            the document ids
+     * @param docWeights
+     *            the weights
+     * @param length
+     *            the number of postings
+     * @param termWeight
+     *            the weight of the term, e.g. its idf
+     */
+    PostingList(int[] docIds, float[] docWeights, int length,
+	    float termWeight) {
+	this.termWeight = termWeight;
+
+	// sort by document (usually already sorted)
+	long[] order = null;
+	for (int i = 1; i < length; i++)
+	    if (docIds[i] <= docIds[i - 1]) {
+		order = new long[length];
+		for (int j = 0; j < length; j++)
+		    order[j] = (long) docIds[j] << 32 | j;
+		Arrays.sort(order);
+		break;
+	    }
+	int[] ids = new int[length];
+	float[] w = new float[length];
+	int n = 0;
+	for (int i = 0; i < length; i++) {
+	    int j = order == null ? i : (int) order[i];
+	    if (n > 0 && ids[n - 1] == docIds[j])
+		w[n - 1] += docWeights[j];
+	    else {
+		ids[n] = docIds[j];
+		w[n++] = docWeights[j];
+	    }
+	}
+
+	int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+	blockOffsets = new int[blocks + 1];
+	blockLastDocs = new int[blocks];
+	blockMaxWeights = new float[blocks];
+	byte[] buf = new byte[n * 2 + 8];
+	int pos = 0;
+	float max = 0;
+	for (int b = 0; b < blocks; b++) {
+	    blockOffsets[b] = pos;
+	    int prev = b == 0 ? -1 : ids[b * BLOCK_SIZE - 1];
+	    float blockMax = 0;
+	    int end = Math.min(n, (b + 1) * BLOCK_SIZE);
+	    for (int i = b * BLOCK_SIZE; i < end; i++) {
+		if (pos + 5 > buf.length)
+		    buf = Arrays.copyOf(buf, buf.length * 2);
+		int delta = ids[i] - prev;
+		while ((delta & ~0x7F) != 0) {
+		    buf[pos++] = (byte) ((delta & 0x7F) | 0x80);
+		    delta >>>= 7;
+		}
+		buf[pos++] = (byte) delta;
+		prev = ids[i];
+		blockMax = Math.max(blockMax, w[i]);
+	    }
+	    blockLastDocs[b] = prev;
+	    blockMaxWeights[b] = blockMax;
+	    max = Math.max(max, blockMax);
+	}
+	blockOffsets[blocks] = pos;
+	this.docs = Arrays.copyOf(buf, pos);
+	this.weights = Arrays.copyOf(w, n);
+	this.maxWeight = max;
+    }
+
+    /**
+     * Returns the number of postings, i.e. the document frequency
+     *
+     * @return the number of postings
+     */
+    int size() {
+	return weights.length;
+    }
+
+    /**
+     * Returns the highest weight of all postings
+     *
+     * @return the maximum weight
+     */
+    float maxWeight() {
+	return maxWeight;
+    }
+
+    /**
+     * Returns the weight of the term
+     *
+     * @return the term weight
+     */
+    float termWeight() {
+	return termWeight;
+    }
+
+    /**
+     * Returns a new cursor positioned before the first posting
+     *
+     * @return the cursor
+     */
+    Cursor cursor() {
+	return new Cursor();
+    }
+
+    /**
+     * Iterates over the postings in the order of the documents.
+     */
+    final class Cursor {
+	private final int[] blockDocs = new int[BLOCK_SIZE];
+	private int block = -1;
+	private int index = 0;
+	private int count = 0;
+	private int doc = -1;
+
+	/**
+	 * Returns the current document, or {@link #NO_MORE_DOCS} if the
+	 * cursor is exhausted
+	 *
+	 * @return the document id
+	 */
+	int doc() {
+	    return doc;
+	}
+
+	/**
+	 * Returns the weight of the current posting
+	 *
+	 * @return the weight
+	 */
+	float weight() {
+	    return weights[block * BLOCK_SIZE + index];
+	}
+
+	/**
+	 * Returns the highest weight in the block of the current posting
+	 *
+	 * @return the maximum weight of the current block
+	 */
+	float blockMaxWeight() {
+	    return blockMaxWeights[block];
+	}
+
+	/**
+	 * Moves to the next posting
+	 *
+	 * @return the document id of the next posting
+	 */
+	int next() {
+	    if (doc == NO_MORE_DOCS)
+		return doc;
+	    if (++index >= count && !decode(block + 1))
+		return doc = NO_MORE_DOCS;
+	    return doc = blockDocs[index];
+	}
+
+	/**
+	 * Moves to the first posting with a document id not smaller than the
+	 * target, skipping blocks which end before it
+	 *
+	 * @param target
+	 *            the document id
+	 * @return the document id of the posting reached
+	 */
+	int advance(int target) {
+	    if (doc >= target)
+		return doc;
+	    int b = Math.max(block, 0);
+	    while (b < blockLastDocs.length && blockLastDocs[b] < target)
+		b++;
+	    if (b >= blockLastDocs.length)
+		return doc = NO_MORE_DOCS;
+	    if (b != block)
+		decode(b);
+	    while (blockDocs[index] < target)
+		index++;
+	    return doc = blockDocs[index];
+	}
+
+	/*
+	 * Decodes a block, positioning the cursor at its first posting
+	 */
+	private boolean decode(int b) {
+	    if (b >= blockLastDocs.length)
+		return false;
+	    int pos = blockOffsets[b];
+	    int prev = b == 0 ? -1 : blockLastDocs[b - 1];
+	    count = Math.min(BLOCK_SIZE, weights.length - b * BLOCK_SIZE);
+	    for (int i = 0; i < count; i++) {
+		int delta = 0;
+		int shift = 0;
+		byte v;
+		do {
+		    v = docs[pos++];
+		    delta |= (v & 0x7F) << shift;
+		    shift += 7;
+		} while (v < 0);
+		prev += delta;
+		blockDocs[i] = prev;
+	    }
+	    block = b;
+	    index = 0;
+	    return true;
+	}
+    }
+}
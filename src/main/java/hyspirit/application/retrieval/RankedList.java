@@ -31,14 +31,23 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
 
+import hyspirit.engines.HyInferenceEngine;
 import hyspirit.knowledgeBase.HyTuple;
 import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.TupleBatch;
+import hyspirit.util.TopKHeap;
 import hyspirit.util.Util;
 
 /**
  * Interface for ranked result lists. Elements of the lists are of type
  * hyspirit.application.retrieval.ResultItem. The ranked list is always sorted
  * in ascending order of the retrieval weights of its result items.
+ * <p>
+ * A ranked list created with {@link #RankedList(int)} only keeps the k result
+ * items with the highest retrieval weights in a bounded heap, so its memory
+ * does not grow with the number of results added. Items with the same weight
+ * are kept in the order they were added. The paging methods work on the final
+ * ranking of these k items, which is built when it is accessed first.
  * 
  * @author Ingo Frommholz &lt;ingo@is.informatik.uni-duisburg.de&gt;
  *         <p>
@@ -52,6 +61,32 @@ public class RankedList {
 
     private HashSet<String> whitelist = null;
 
+    /** The top-k heap and the URIs of its slots; null if unbounded */
+    private final TopKHeap topK;
+    private final String[] topKURIs;
+    private boolean topKChanged = false;
+
+    /**
+     * Constructor of class. The ranked list keeps all result items.
+     */
+    public RankedList() {
+	this.topK = null;
+	this.topKURIs = null;
+    }
+
+    /**
+     * Constructor of class. The ranked list keeps only the k result items
+     * with the highest retrieval weights.
+     * 
+     * @param k
+     *            the maximum number of result items (&gt; 0)
+     * @since 1.3.0
+     */
+    public RankedList(int k) {
+	this.topK = new TopKHeap(k);
+	this.topKURIs = new String[k];
+    }
+
     /**
      * Gets the whole ranked list, sorted in ascending order of the retrieval
      * weight of its result item.
@@ -59,7 +94,7 @@ public class RankedList {
      * @return the ranked list
      */
     public List<ResultItem> getList() {
-	if (ranking.size() > 0) {
+	if (ranking().size() > 0) {
 	    sort();
 	    return ranking;
 	}
@@ -78,11 +113,11 @@ public class RankedList {
      */
     public List<ResultItem> getNextElements(int number) {
 	Vector<ResultItem> nextElems = null;
-	if (number > 0 && nextElement < ranking.size()) {
+	if (number > 0 && nextElement < ranking().size()) {
 	    nextElems = new Vector<ResultItem>(number);
 	    for (int i = nextElement; (i < nextElement + number
-		    && i < ranking.size()); i++) {
-		nextElems.add(ranking.get(i));
+		    && i < ranking().size()); i++) {
+		nextElems.add(ranking().get(i));
 	    }
 	    nextElement += number;
 	}
@@ -96,7 +131,7 @@ public class RankedList {
      */
     public ResultItem getNextElement() {
 	if (hasNext())
-	    return ranking.get(nextElement++);
+	    return ranking().get(nextElement++);
 	else
 	    return null;
     }
@@ -112,8 +147,8 @@ public class RankedList {
      */
     public List<ResultItem> getFirstElements(int number) {
 	Vector<ResultItem> elems = new Vector<ResultItem>(number);
-	for (int i = nextElement; (i < number && i < ranking.size()); i++)
-	    elems.add(ranking.get(i));
+	for (int i = nextElement; (i < number && i < ranking().size()); i++)
+	    elems.add(ranking().get(i));
 	return elems;
     }
 
@@ -123,7 +158,7 @@ public class RankedList {
      * @return true or false
      */
     public boolean hasNext() {
-	return (nextElement < ranking.size());
+	return (nextElement < ranking().size());
     }
 
     /**
@@ -133,7 +168,7 @@ public class RankedList {
      * @return the number of elements left
      */
     public int elementsLeft() {
-	return ranking.size() - nextElement;
+	return ranking().size() - nextElement;
     }
 
     /**
@@ -149,7 +184,7 @@ public class RankedList {
      * @return the size of the ranking
      */
     public int size() {
-	return ranking.size();
+	return ranking().size();
     }
 
     /**
@@ -168,10 +203,10 @@ public class RankedList {
 	begin--;
 	end--;
 	Vector<ResultItem> range = null;
-	if (begin < ranking.size()) {
+	if (begin < ranking().size()) {
 	    range = new Vector<ResultItem>();
-	    for (int i = begin; (i <= begin + end && i < ranking.size()); i++)
-		range.add(ranking.get(i));
+	    for (int i = begin; (i <= begin + end && i < ranking().size()); i++)
+		range.add(ranking().get(i));
 	}
 	return range;
     }
@@ -184,12 +219,100 @@ public class RankedList {
      */
     public void add(ResultItem res) {
 	if (whitelist == null || whitelist.contains(res.getURI())) {
-	    ranking.add(res);
+	    if (topK != null)
+		offer(res.getRSV(), res.getURI());
+	    else
+		ranking.add(res);
 	    isSorted = false;
 	    reset();
 	}
     }
 
+    /**
+     * Adds the tuples of a batch to the ranking, using their probability as
+     * retrieval weight and their first attribute as URI. This invokes the
+     * reset() method.
+     * 
+     * @param batch
+     *            the batch
+     * @since 1.3.0
+     */
+    public void add(TupleBatch batch) {
+	for (int row = 0; row < batch.size(); row++) {
+	    String uri = batch.value(row, 0);
+	    if (whitelist == null || whitelist.contains(uri)) {
+		if (topK != null)
+		    offer(batch.probability(row), uri);
+		else
+		    ranking.add(new ResultItem(batch.probability(row), uri));
+	    }
+	}
+	isSorted = false;
+	reset();
+    }
+
+    /**
+     * Adds all tuples the given engine returns with nextTuple(), using their
+     * probability as retrieval weight and their first attribute as URI. The
+     * tuples are consumed as they arrive, so a ranked list with a bounded
+     * size (see {@link #RankedList(int)}) and an engine in streaming mode
+     * (see {@link HyInferenceEngine#setStreaming(int)}) never hold the whole
+     * result in memory. This invokes the reset() method.
+     * 
+     * @param engine
+     *            the engine
+     * @return the number of tuples read
+     * @since 1.3.0
+     */
+    public int add(HyInferenceEngine engine) {
+	int read = 0;
+	HyTuple tuple;
+	while ((tuple = engine.nextTuple()) != null) {
+	    read++;
+	    String uri = tuple.valueAt(0);
+	    if (whitelist == null || whitelist.contains(uri)) {
+		if (topK != null)
+		    offer(tuple.probability(), uri);
+		else
+		    ranking.add(new ResultItem(tuple.probability(), uri));
+	    }
+	}
+	isSorted = false;
+	reset();
+	return read;
+    }
+
+    /*
+     * Offers an item to the top-k heap
+     */
+    private void offer(double rsv, String uri) {
+	int slot = topK.offer(rsv);
+	if (slot >= 0) {
+	    topKURIs[slot] = uri;
+	    topKChanged = true;
+	}
+    }
+
+    /*
+     * Returns the ranking, building it from the top-k heap if needed
+     */
+    private List<ResultItem> ranking() {
+	if (topK != null)
+	    sort();
+	return ranking;
+    }
+
+    /**
+     * Returns the maximum number of result items kept, or 0 if the ranked
+     * list keeps all of them
+     * 
+     * @return k or 0
+     * @since 1.3.0
+     */
+    public int getMaxSize() {
+	return topK == null ? 0 : topK.capacity();
+    }
+
     /**
      * Tell us whether the ranked list is already sorted an doesn't need further
      * sorting
@@ -206,7 +329,15 @@ public class RankedList {
      * when one of the get methods is called and the current list is not sorted.
      */
     public void sort() {
-	if (!isSorted) {
+	if (topK != null) {
+	    if (topKChanged) {
+		ranking.clear();
+		for (int slot : topK.slots())
+		    ranking.add(new ResultItem(topK.score(slot), topKURIs[slot]));
+		topKChanged = false;
+	    }
+	    isSorted = true;
+	} else if (!isSorted) {
 	    Collections.sort(ranking);
 	    isSorted = true;
 	}
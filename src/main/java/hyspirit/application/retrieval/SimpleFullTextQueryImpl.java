@@ -23,10 +23,14 @@
 package hyspirit.application.retrieval;
 
 import hyspirit.application.indexing.SimpleHypertextFileIndex;
+import hyspirit.engines.EngineFactory;
+import hyspirit.engines.EnginePool;
 import hyspirit.engines.HyPRAEngine;
-import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.engines.QueryCache;
+import hyspirit.util.HySpiritException;
 import hyspirit.util.HySpiritProperties;
 import hyspirit.util.HyText2PoolFilter;
+import hyspirit.util.TextAnalyzer;
 
 import java.io.IOException;
 import java.util.Iterator;
@@ -46,8 +50,11 @@ implements SimpleFullTextQuery
     private HySpiritProperties hyspirit = null;
     private String connector = null;
     private HyPRAEngine hypra = null;
+    private EnginePool<HyPRAEngine> hypraPool = null;
     private HyText2PoolFilter filter = null;
     private Iterator queryTerms = null;
+    private int maxResults = 0;
+    private QueryCache queryCache = null;
     
     /**
      * Constructor of class. Index objects contain the necessary information
@@ -64,6 +71,7 @@ implements SimpleFullTextQuery
         try {
             this.connector = index.getConnector();
             this.hyspirit = index.getEnvironment();
+            this.queryCache = index.getQueryCache();
             
             // start the hy_pra process
             hypra = new HyPRAEngine(hyspirit);
@@ -81,6 +89,94 @@ implements SimpleFullTextQuery
         }
     }
     
+    /**
+     * Constructor of class using a pool of hy_pra engines. Each query is
+     * executed by an engine leased from the pool, so several query objects
+     * can share warm engines. Use {@link #engineFactory(SimpleHypertextFileIndex)}
+     * to create the pool. The query terms are filtered by hy_text2pool engines
+     * leased from the shared pool for the given filter configuration (see
+     * {@link EnginePool#getPool(EngineFactory, int)}), which is created with
+     * as many engines as the hy_pra pool. Closing this query object does not
+     * close the pools.
+     * @param index the index object
+     * @param stemming whether queries should be stemmed
+     * @param stopwordFile the name of a file containing stopword, or null
+     * @param morphemeFile the name of a file containing morphemes, or null
+     * @param hypraPool the pool of hy_pra engines connected to the index
+     * @since 1.3.0
+     */
+    public SimpleFullTextQueryImpl(SimpleHypertextFileIndex index,
+            boolean stemming,
+            String stopwordFile,
+            String morphemeFile,
+            EnginePool<HyPRAEngine> hypraPool) {
+        try {
+            this.connector = index.getConnector();
+            this.hyspirit = index.getEnvironment();
+            this.queryCache = index.getQueryCache();
+            this.hypraPool = hypraPool;
+            filter = new HyText2PoolFilter(EnginePool.getPool(
+                    HyText2PoolFilter.engineFactory(hyspirit, stemming,
+                            stopwordFile, morphemeFile),
+                    hypraPool.size()));
+        }
+        catch (Exception e) {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Constructor of class filtering queries with the given pure Java analyzer
+     * instead of a hy_text2pool process. Use it for indexes built with
+     * {@link SimpleHypertextFileIndex#useTextAnalyzer(boolean)}.
+     * @param index the index object
+     * @param analyzer the text analyzer for the query terms
+     * @param hypraPool the pool of hy_pra engines connected to the index, or
+     * null if the query object should start its own hy_pra process
+     * @since 1.3.0
+     */
+    public SimpleFullTextQueryImpl(SimpleHypertextFileIndex index,
+            TextAnalyzer analyzer,
+            EnginePool<HyPRAEngine> hypraPool) {
+        try {
+            this.connector = index.getConnector();
+            this.hyspirit = index.getEnvironment();
+            this.queryCache = index.getQueryCache();
+            this.hypraPool = hypraPool;
+            filter = new HyText2PoolFilter(analyzer);
+            if (hypraPool == null) {
+                hypra = new HyPRAEngine(hyspirit);
+                hypra.start();
+                hypra.waitTillRunning();
+                hypra.send(this.connector);
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Returns a factory for hy_pra engines connected to the given index, to be
+     * used with an {@link EnginePool}.
+     * @param index the index object
+     * @return the engine factory
+     * @since 1.3.0
+     */
+    public static EngineFactory<HyPRAEngine> engineFactory(
+            final SimpleHypertextFileIndex index) {
+        return new EngineFactory<HyPRAEngine>() {
+            public HyPRAEngine createEngine() throws HySpiritException {
+                return new HyPRAEngine(index.getEnvironment());
+            }
+
+            public void initEngine(HyPRAEngine engine) throws IOException {
+                engine.send(index.getConnector());
+                while (engine.hasNext()) engine.next();
+            }
+        };
+    }
+    
     /**
      * Sets the query (i.e. a set  of terms in a string)
      * @param query the query terms as a string
@@ -90,23 +186,54 @@ implements SimpleFullTextQuery
         if (queryTerms != null && !queryTerms.hasNext()) queryTerms = null;
     }
     
+    /**
+     * Limits the number of results of a query to the ones with the highest
+     * retrieval weights. Only these are kept while reading the result.
+     * @param maxResults the maximum number of results; 0 for unlimited
+     * @since 1.3.0
+     */
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+    
+    /**
+     * Sets the cache for query results, shared by all engines executing the
+     * queries. By default, the cache of the index is used (see
+     * {@link SimpleHypertextFileIndex#setQueryCache(QueryCache)}), which is
+     * invalidated when the index is rebuilt. A cache can be shared by the
+     * query objects of several indexes, as the results are cached for the
+     * connector of the index.
+     * @param queryCache the cache, or null to switch caching off
+     * @since 1.3.0
+     */
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+    
     /**
      * Execute the query with the given filter
      * @return ranked list of query results
      */
     public RankedList executeQuery() {
-        RankedList rList = new RankedList();
+        RankedList rList = 
+            maxResults > 0 ? new RankedList(maxResults) : new RankedList();
+        HyPRAEngine engine = hypra;
         try {
-            hypra.eval(orQueryToPRA(queryTerms));
-            HyTuple tuple;
-            while ((tuple = hypra.nextTuple()) != null) {
-                rList.add(new ResultItem(tuple.probability(), tuple.valueAt(0)));
-            }
+            if (hypraPool != null) engine = hypraPool.lease();
+            engine.setQueryCache(queryCache, connector);
+            engine.eval(orQueryToPRA(queryTerms));
+            rList.add(engine);
             rList.sort();
         }
         catch (IOException io) {
             io.printStackTrace(System.err);
         }
+        catch (HySpiritException he) {
+            he.printStackTrace(System.err);
+        }
+        finally {
+            if (hypraPool != null && engine != null) hypraPool.giveBack(engine);
+        }
         return rList;
     }
     
@@ -127,7 +254,7 @@ implements SimpleFullTextQuery
      */
     public void close() {
         filter.close();
-        hypra.destroy();
+        if (hypra != null) hypra.destroy();
     }
 
     /**
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.IOException;
+
+import hyspirit.util.HySpiritException;
+
+/**
+ * Creates engines of a particular configuration. Used by {@link EnginePool} to
+ * fill the pool and to replace engines which died.
+ *
+ * @param <E>
+ *            the engine type
+ * @since 1.3.0
+ */
+public interface EngineFactory<E extends HyEngine> {
+
+    /**
+     * Creates a fully configured, but not yet started engine.
+     *
+     * @return the new engine
+     * @throws HySpiritException
+     *             if the HySpirit environment is not set up
+     */
+    public E createEngine() throws HySpiritException;
+
+    /**
+     * Called after the engine was started and before it is handed out the
+     * first time, e.g. to send a connector or knowledge base. All output
+     * produced here must be read. The default implementation does nothing.
+     *
+     * @param engine
+     *            the started engine
+     * @throws IOException
+     *             if the engine could not be initialised
+     */
+    public default void initEngine(E engine) throws IOException {
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import hyspirit.util.LatencyHistogram;
+
+/**
+ * Latency and throughput metrics of all engines of one class. Instances are
+ * obtained from the {@link MetricsRegistry} and updated by the engines while
+ * metrics are enabled. A response is the output of a send() or one query of a
+ * query queue or pipeline; its time is measured from sending the input (or
+ * from the previous answer, if the engine was busy) until the delimiter was
+ * read.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+
+    private final String engineClass;
+    private final LatencyHistogram startLatency = new LatencyHistogram();
+    private final LatencyHistogram firstLine = new LatencyHistogram();
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+    private final LongAdder starts = new LongAdder();
+    private final LongAdder restarts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private volatile long since = System.nanoTime();
+
+    /**
+     * Constructor of class.
+     *
+     * @param engineClass
+     *            the name of the engine class
+     */
+    EngineMetrics(String engineClass) {
+	this.engineClass = engineClass;
+    }
+
+    /**
+     * Records a process start
+     *
+     * @param nanos
+     *            the time it took to start the process
+     */
+    public void recordStart(long nanos) {
+	starts.increment();
+	startLatency.record(nanos);
+    }
+
+    /**
+     * Records a restart
+     */
+    public void recordRestart() {
+	restarts.increment();
+    }
+
+    /**
+     * Records a failure
+     */
+    public void recordFailure() {
+	failures.increment();
+    }
+
+    /**
+     * Records the time to the first output line of a response
+     *
+     * @param nanos
+     *            the time since the input was sent
+     */
+    public void recordFirstLine(long nanos) {
+	firstLine.record(nanos);
+    }
+
+    /**
+     * Records a response
+     *
+     * @param nanos
+     *            the response time
+     */
+    public void recordResponse(long nanos) {
+	responseTime.record(nanos);
+    }
+
+    /**
+     * Returns the number of bytes of an output line including its line
+     * break, i.e. the length of the line encoded in UTF-8 plus one. The
+     * length is computed without encoding the line.
+     *
+     * @param line
+     *            the line without line break
+     * @return the number of bytes
+     */
+    public static long lineBytes(CharSequence line) {
+	int length = line.length();
+	long bytes = length + 1;
+	for (int i = 0; i < length; i++) {
+	    char c = line.charAt(i);
+	    if (c >= 0x80) {
+		if (c < 0x800)
+		    bytes++;
+		else if (Character.isHighSurrogate(c) && i + 1 < length
+			&& Character.isLowSurrogate(line.charAt(i + 1))) {
+		    // four bytes for two chars
+		    bytes += 2;
+		    i++;
+		} else
+		    bytes += 2;
+	    }
+	}
+	return bytes;
+    }
+
+    /**
+     * Records output read from an engine
+     *
+     * @param lines
+     *            the number of lines
+     * @param bytes
+     *            the number of bytes, see {@link #lineBytes(CharSequence)}
+     */
+    public void recordOutput(long lines, long bytes) {
+	this.lines.add(lines);
+	this.bytes.add(bytes);
+    }
+
+    /**
+     * Returns the histogram of process start times
+     *
+     * @return the start latency histogram
+     */
+    public LatencyHistogram getStartLatency() {
+	return startLatency;
+    }
+
+    /**
+     * Returns the histogram of times to the first output line
+     *
+     * @return the first line histogram
+     */
+    public LatencyHistogram getFirstLine() {
+	return firstLine;
+    }
+
+    /**
+     * Returns the histogram of response times
+     *
+     * @return the response time histogram
+     */
+    public LatencyHistogram getResponseTime() {
+	return responseTime;
+    }
+
+    @Override
+    public String getEngineClass() {
+	return engineClass;
+    }
+
+    @Override
+    public long getStarts() {
+	return starts.sum();
+    }
+
+    @Override
+    public long getRestarts() {
+	return restarts.sum();
+    }
+
+    @Override
+    public long getFailures() {
+	return failures.sum();
+    }
+
+    @Override
+    public long getQueries() {
+	return responseTime.getCount();
+    }
+
+    @Override
+    public double getQueriesPerSecond() {
+	double seconds = (System.nanoTime() - since) / 1e9;
+	return seconds <= 0 ? 0 : getQueries() / seconds;
+    }
+
+    @Override
+    public long getLinesRead() {
+	return lines.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+	return bytes.sum();
+    }
+
+    @Override
+    public double getStartLatencyMean() {
+	return startLatency.getMean();
+    }
+
+    @Override
+    public double getStartLatencyMax() {
+	return startLatency.getMax();
+    }
+
+    @Override
+    public double getFirstLineMean() {
+	return firstLine.getMean();
+    }
+
+    @Override
+    public double getFirstLine99() {
+	return firstLine.getPercentile(99);
+    }
+
+    @Override
+    public double getResponseTimeMean() {
+	return responseTime.getMean();
+    }
+
+    @Override
+    public double getResponseTime50() {
+	return responseTime.getPercentile(50);
+    }
+
+    @Override
+    public double getResponseTime99() {
+	return responseTime.getPercentile(99);
+    }
+
+    @Override
+    public double getResponseTimeMax() {
+	return responseTime.getMax();
+    }
+
+    @Override
+    public void reset() {
+	startLatency.reset();
+	firstLine.reset();
+	responseTime.reset();
+	starts.reset();
+	restarts.reset();
+	failures.reset();
+	lines.reset();
+	bytes.reset();
+	since = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+	return engineClass + ": starts=" + getStarts() + " restarts="
+		+ getRestarts() + " failures=" + getFailures() + " queries="
+		+ getQueries() + String.format(" qps=%.2f", getQueriesPerSecond())
+		+ " lines=" + getLinesRead() + " bytes=" + getBytesRead()
+		+ " start[" + startLatency + "] firstLine[" + firstLine
+		+ "] response[" + responseTime + "]";
+    }
+}
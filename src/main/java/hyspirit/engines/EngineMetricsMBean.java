@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+/**
+ * The JMX view of {@link EngineMetrics}. Durations are in milliseconds.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public interface EngineMetricsMBean {
+
+    /** @return the engine class */
+    String getEngineClass();
+
+    /** @return the number of started processes */
+    long getStarts();
+
+    /** @return the number of restarts */
+    long getRestarts();
+
+    /** @return the number of failed starts, sends and pipelines */
+    long getFailures();
+
+    /** @return the number of answered sends and queries */
+    long getQueries();
+
+    /** @return the mean number of queries per second */
+    double getQueriesPerSecond();
+
+    /** @return the number of lines read from the engines */
+    long getLinesRead();
+
+    /** @return the number of bytes read from the engines, in UTF-8 */
+    long getBytesRead();
+
+    /** @return the mean time to start a process */
+    double getStartLatencyMean();
+
+    /** @return the longest time to start a process */
+    double getStartLatencyMax();
+
+    /** @return the mean time to the first output line */
+    double getFirstLineMean();
+
+    /** @return the 99th percentile of the time to the first output line */
+    double getFirstLine99();
+
+    /** @return the mean response time */
+    double getResponseTimeMean();
+
+    /** @return the median response time */
+    double getResponseTime50();
+
+    /** @return the 99th percentile of the response time */
+    double getResponseTime99();
+
+    /** @return the longest response time */
+    double getResponseTimeMax();
+
+    /** Resets all metrics */
+    void reset();
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import hyspirit.util.StreamPumps;
+
+/**
+ * Chains engine processes like a shell pipe, e.g. hy_freq2mds into
+ * hy_mds2mds:
+ *
+ * <pre>
+ * EnginePipeline idf = new EnginePipeline.Builder()
+ * 	.add(hyfreq2mds)
+ * 	.add(hymds2mds)
+ * 	.redirectOutput(new File("idf.mds"))
+ * 	.build();
+ * idf.start();
+ * idf.waitFor();
+ * </pre>
+ *
+ * The stages are configured engine objects; their command lines (see
+ * {@link HyEngine#buildCommand()}) are started as processes, the engine
+ * objects themselves are not started. On Java 9 and later, adjacent processes
+ * are connected directly by the operating system
+ * (ProcessBuilder.startPipeline()). Otherwise the bytes are copied by
+ * {@link StreamPumps} tasks without decoding them. Input and output of the
+ * pipeline can be files or streams; STDERR of each stage is logged. If a
+ * stage fails, {@link #waitFor()} reports it.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public final class EnginePipeline {
+
+    private static Logger LOG = LogManager.getLogger(EnginePipeline.class);
+
+    /** The size of the buffers copying between processes */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final List<HyEngine> stages;
+    private final File input;
+    private final File output;
+    private List<Process> processes = null;
+    private final List<Pump> pumps = new ArrayList<Pump>();
+    private final List<ErrorLog> errors = new ArrayList<ErrorLog>();
+
+    /**
+     * Builds an {@link EnginePipeline}
+     */
+    public static final class Builder {
+	private final List<HyEngine> stages = new ArrayList<HyEngine>();
+	private File input = null;
+	private File output = null;
+
+	/**
+	 * Appends a stage. The engine must not be in client mode.
+	 *
+	 * @param engine
+	 *            the configured engine
+	 * @return this builder
+	 */
+	public Builder add(HyEngine engine) {
+	    if (engine.isInClientMode())
+		throw new IllegalArgumentException(engine.getEngineName()
+			+ " is in client mode");
+	    stages.add(engine);
+	    return this;
+	}
+
+	/**
+	 * Lets the first stage read from a file instead of
+	 * {@link EnginePipeline#getInput()}
+	 *
+	 * @param file
+	 *            the input file
+	 * @return this builder
+	 */
+	public Builder redirectInput(File file) {
+	    this.input = file;
+	    return this;
+	}
+
+	/**
+	 * Lets the last stage write to a file instead of
+	 * {@link EnginePipeline#getOutput()}
+	 *
+	 * @param file
+	 *            the output file
+	 * @return this builder
+	 */
+	public Builder redirectOutput(File file) {
+	    this.output = file;
+	    return this;
+	}
+
+	/**
+	 * Builds the pipeline
+	 *
+	 * @return the pipeline, not started yet
+	 */
+	public EnginePipeline build() {
+	    if (stages.isEmpty())
+		throw new IllegalStateException("No stages");
+	    return new EnginePipeline(this);
+	}
+    }
+
+    private EnginePipeline(Builder builder) {
+	this.stages = Collections.unmodifiableList(new ArrayList<HyEngine>(
+		builder.stages));
+	this.input = builder.input;
+	this.output = builder.output;
+    }
+
+    /**
+     * Returns the stages
+     *
+     * @return the engines of the stages
+     */
+    public List<HyEngine> getStages() {
+	return stages;
+    }
+
+    /**
+     * Starts the processes
+     *
+     * @throws IOException
+     *             if a process cannot be started
+     */
+    public void start() throws IOException {
+	start(nativePipelines());
+    }
+
+    /*
+     * Starts the processes, connected by the operating system or by pumps
+     */
+    synchronized void start(boolean connected) throws IOException {
+	if (processes != null)
+	    throw new IllegalStateException("Pipeline already started");
+	List<ProcessBuilder> builders = new ArrayList<ProcessBuilder>();
+	for (HyEngine stage : stages) {
+	    ProcessBuilder pb = new ProcessBuilder(Arrays.asList(stage
+		    .buildCommand()));
+	    String dir = stage.hyspirit.getWorkingDirectory();
+	    if (dir != null)
+		pb.directory(new File(dir));
+	    builders.add(pb);
+	}
+	if (input != null)
+	    builders.get(0).redirectInput(input);
+	if (output != null)
+	    builders.get(builders.size() - 1).redirectOutput(output);
+
+	List<Process> started = new ArrayList<Process>();
+	try {
+	    if (connected && builders.size() > 1)
+		started.addAll(startPipeline(builders));
+	    else {
+		for (ProcessBuilder pb : builders)
+		    started.add(pb.start());
+		for (int i = 0; i + 1 < started.size(); i++) {
+		    Pump pump = new Pump(started.get(i).getInputStream(),
+			    started.get(i + 1).getOutputStream());
+		    pumps.add(pump);
+		    StreamPumps.start(pump);
+		}
+	    }
+	} catch (IOException io) {
+	    for (Process p : started)
+		p.destroy();
+	    throw io;
+	}
+	for (int i = 0; i < started.size(); i++) {
+	    ErrorLog log = new ErrorLog(stages.get(i),
+		    started.get(i).getErrorStream());
+	    errors.add(log);
+	    StreamPumps.start(log);
+	}
+	processes = started;
+	LOG.debug("Started pipeline " + this);
+    }
+
+    /**
+     * Returns STDIN of the first stage, unless the input was redirected to a
+     * file. It is closed by {@link #waitFor()} if still open.
+     *
+     * @return the input stream of the pipeline
+     */
+    public synchronized OutputStream getInput() {
+	checkStarted();
+	return processes.get(0).getOutputStream();
+    }
+
+    /**
+     * Returns STDOUT of the last stage, unless the output was redirected to
+     * a file
+     *
+     * @return the output of the pipeline
+     */
+    public synchronized InputStream getOutput() {
+	checkStarted();
+	return processes.get(processes.size() - 1).getInputStream();
+    }
+
+    /**
+     * Closes the input of the pipeline and waits until all stages have
+     * terminated. The stages in front of a failed stage are killed.
+     *
+     * @throws IOException
+     *             if a stage terminated with a non-zero exit value or data
+     *             could not be passed on; the message names the stages
+     * @throws InterruptedException
+     *             if the current thread was interrupted while waiting
+     */
+    public void waitFor() throws IOException, InterruptedException {
+	List<Process> ps;
+	synchronized (this) {
+	    checkStarted();
+	    ps = processes;
+	}
+	if (input == null)
+	    closeQuietly(ps.get(0).getOutputStream());
+	StringBuilder failures = new StringBuilder();
+	// from the last stage backwards: once a stage failed, the stages in
+	// front of it cannot deliver anymore and might block on a full pipe
+	boolean failed = false;
+	for (int i = ps.size() - 1; i >= 0; i--) {
+	    if (failed)
+		ps.get(i).destroy();
+	    int exit = ps.get(i).waitFor();
+	    errors.get(i).await();
+	    if (exit != 0 && !failed) {
+		failed = true;
+		failures.append(stages.get(i).getEngineName())
+			.append(" exited with ").append(exit);
+		String last = errors.get(i).lastLine();
+		if (last != null)
+		    failures.append(" (").append(last).append(")");
+	    }
+	}
+	for (Pump pump : pumps) {
+	    pump.await();
+	    if (pump.failure != null && !failed)
+		failures.append(failures.length() == 0 ? "" : "; ").append(
+			pump.failure);
+	}
+	if (failures.length() > 0)
+	    throw new IOException("Pipeline " + this + " failed: " + failures);
+    }
+
+    /**
+     * Kills all processes of the pipeline
+     */
+    public synchronized void destroy() {
+	if (processes != null)
+	    for (Process p : processes)
+		p.destroy();
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder s = new StringBuilder();
+	for (HyEngine stage : stages)
+	    s.append(s.length() == 0 ? "" : " | ").append(
+		    stage.getEngineName());
+	return s.toString();
+    }
+
+    private void checkStarted() {
+	if (processes == null)
+	    throw new IllegalStateException("Pipeline not started");
+    }
+
+    private static void closeQuietly(OutputStream out) {
+	try {
+	    out.close();
+	} catch (IOException io) {
+	    LOG.debug("Cannot close pipeline input", io);
+	}
+    }
+
+    /*
+     * Returns true if ProcessBuilder.startPipeline() is available (Java 9)
+     */
+    static boolean nativePipelines() {
+	return startPipelineMethod() != null;
+    }
+
+    private static Method startPipelineMethod() {
+	try {
+	    return ProcessBuilder.class.getMethod("startPipeline", List.class);
+	} catch (NoSuchMethodException e) {
+	    return null;
+	}
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Process> startPipeline(List<ProcessBuilder> builders)
+	    throws IOException {
+	try {
+	    return (List<Process>) startPipelineMethod().invoke(null, builders);
+	} catch (java.lang.reflect.InvocationTargetException e) {
+	    if (e.getCause() instanceof IOException)
+		throw (IOException) e.getCause();
+	    throw new IOException("Cannot start pipeline", e.getCause());
+	} catch (IllegalAccessException e) {
+	    throw new IOException("Cannot start pipeline", e);
+	}
+    }
+
+    /*
+     * Copies the output of one process to the input of the next one
+     */
+    private static final class Pump implements Runnable {
+	private final InputStream from;
+	private final OutputStream to;
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile String failure = null;
+
+	Pump(InputStream from, OutputStream to) {
+	    this.from = from;
+	    this.to = to;
+	}
+
+	public void run() {
+	    byte[] buffer = new byte[BUFFER_SIZE];
+	    try {
+		int n;
+		while ((n = from.read(buffer)) >= 0) {
+		    if (failure != null)
+			continue;
+		    try {
+			to.write(buffer, 0, n);
+		    } catch (IOException io) {
+			// the next stage died, its exit value tells why; keep
+			// draining so that the previous stage does not block
+			failure = "Cannot pass on data: " + io.getMessage();
+			closeQuietly(to);
+		    }
+		}
+	    } catch (IOException io) {
+		failure = "Cannot read data: " + io.getMessage();
+	    } finally {
+		closeQuietly(to);
+		done.countDown();
+	    }
+	}
+
+	void await() throws InterruptedException {
+	    done.await();
+	}
+    }
+
+    /*
+     * Logs STDERR of a stage like the engine would and keeps its last line
+     */
+    private static final class ErrorLog implements Runnable {
+	private final HyEngine engine;
+	private final String engineName;
+	private final InputStream stderr;
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile String lastLine = null;
+
+	ErrorLog(HyEngine engine, InputStream stderr) {
+	    this.engine = engine;
+	    this.engineName = engine.getEngineName();
+	    this.stderr = stderr;
+	}
+
+	public void run() {
+	    BufferedReader in = new BufferedReader(new InputStreamReader(
+		    stderr));
+	    try {
+		String line;
+		while ((line = in.readLine()) != null) {
+		    if (!engine.suppressesSTDERR())
+			System.err.println(line);
+		    LOG.warn("<" + engineName + "> " + line);
+		    lastLine = line;
+		}
+	    } catch (IOException io) {
+		LOG.debug("IOException reading STDERR of " + engineName, io);
+	    } finally {
+		done.countDown();
+	    }
+	}
+
+	void await() throws InterruptedException {
+	    done.await();
+	}
+
+	String lastLine() {
+	    return lastLine;
+	}
+    }
+}
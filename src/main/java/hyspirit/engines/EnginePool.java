@@ -0,0 +1,386 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import hyspirit.util.HySpiritException;
+
+/**
+ * A pool of warm engine processes of the same configuration. Starting a
+ * HySpirit engine means forking a process and loading e.g. an index, which is
+ * expensive compared to answering a single request. The pool keeps a number of
+ * started engines which are leased for a request and given back afterwards.
+ * Engines are checked for a live process when they are leased and given back.
+ * Idle engines are additionally checked with an echo round trip (see
+ * {@link HyEngine#ping(long)}) periodically in the background, so that
+ * returning an engine does not cost a round trip. Engines which died or do
+ * not answer are destroyed and replaced in the background.
+ * <p>
+ * Engines in a pool are identified by their command line (including all
+ * parameters) and working directory. Use {@link #getPool(EngineFactory, int)}
+ * to share one pool for each configuration.
+ * <p>
+ * Typical usage:
+ *
+ * <pre>
+ * HyPRAEngine pra = pool.lease();
+ * try {
+ *     pra.eval(query);
+ *     while ((tuple = pra.nextTuple()) != null)
+ * 	...
+ * } finally {
+ *     pool.giveBack(pra);
+ * }
+ * </pre>
+ *
+ * @param <E>
+ *            the engine type
+ * @since 1.3.0
+ */
+public class EnginePool<E extends HyEngine> {
+
+    /**
+     * The default time to wait for an engine to answer a ping (milliseconds)
+     */
+    public static final long DEFAULT_PING_TIMEOUT = 5000;
+
+    /**
+     * The default interval between two checks of the idle engines
+     * (milliseconds)
+     */
+    public static final long DEFAULT_CHECK_INTERVAL = 60000;
+
+    private static Logger LOG = LogManager.getLogger(EnginePool.class);
+
+    private static final Map<String, EnginePool<?>> pools = new HashMap<>();
+
+    private final EngineFactory<E> factory;
+    private final String key;
+    private final int size;
+    private final BlockingQueue<E> idle;
+    private final Set<E> leased = Collections
+	    .synchronizedSet(new HashSet<E>());
+    private final ScheduledExecutorService replacer;
+    private ScheduledFuture<?> check = null;
+    private long pingTimeout = DEFAULT_PING_TIMEOUT;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a pool and starts the given number of engines.
+     *
+     * @param factory
+     *            creates the engines of this pool
+     * @param size
+     *            the number of engines
+     * @throws HySpiritException
+     *             if the engines cannot be created or started
+     */
+    public EnginePool(EngineFactory<E> factory, int size)
+	    throws HySpiritException {
+	if (size < 1)
+	    throw new IllegalArgumentException("Pool size must be positive");
+	this.factory = factory;
+	this.size = size;
+	this.idle = new LinkedBlockingQueue<E>();
+	E engine = factory.createEngine();
+	this.key = keyOf(engine);
+	this.replacer = Executors
+		.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		    @Override
+		    public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "EnginePool-replacer");
+			t.setDaemon(true);
+			return t;
+		    }
+		});
+	idle.add(startEngine(engine));
+	for (int i = 1; i < size; i++)
+	    idle.add(startEngine(factory.createEngine()));
+	setCheckInterval(DEFAULT_CHECK_INTERVAL);
+	LOG.debug("Started pool of " + size + " engines: " + key);
+    }
+
+    /**
+     * Returns the shared pool for the configuration of the engines created by
+     * the given factory, creating it if necessary. If the pool already exists,
+     * its size is not changed.
+     *
+     * @param factory
+     *            creates the engines of the pool
+     * @param size
+     *            the number of engines if the pool is created
+     * @return the pool
+     * @throws HySpiritException
+     *             if the engines cannot be created or started
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <E extends HyEngine> EnginePool<E> getPool(
+	    EngineFactory<E> factory, int size) throws HySpiritException {
+	String key = keyOf(factory.createEngine());
+	EnginePool<E> pool = (EnginePool<E>) pools.get(key);
+	if (pool == null || pool.closed) {
+	    pool = new EnginePool<E>(factory, size);
+	    pools.put(key, pool);
+	}
+	return pool;
+    }
+
+    /**
+     * Returns the key identifying the configuration of the given engine, i.e.
+     * its full command line and working directory.
+     *
+     * @param engine
+     *            the engine
+     * @return the key
+     * @throws HySpiritException
+     *             if the engine is in client mode
+     */
+    public static String keyOf(HyEngine engine) throws HySpiritException {
+	if (engine.isInClientMode())
+	    throw new HySpiritException(
+		    "Engines in client mode cannot be pooled");
+	String workingDir = engine.hyspirit == null ? ""
+		: engine.hyspirit.getWorkingDirectory();
+	return engine.getFullCommand().trim() + " [" + workingDir + "]";
+    }
+
+    /*
+     * Starts and initialises the given engine.
+     */
+    private E startEngine(E engine) throws HySpiritException {
+	engine.run();
+	if (!engine.isAlive())
+	    throw new HySpiritException("Could not start engine: " + key);
+	try {
+	    factory.initEngine(engine);
+	} catch (IOException io) {
+	    engine.destroy();
+	    throw new HySpiritException("Could not initialise engine " + key
+		    + ": " + io.getMessage());
+	}
+	return engine;
+    }
+
+    /**
+     * Leases an engine, waiting until one becomes available.
+     *
+     * @return the engine
+     * @throws HySpiritException
+     *             if the pool is closed or waiting was interrupted
+     */
+    public E lease() throws HySpiritException {
+	return lease(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leases an engine, waiting at most the given time until one becomes
+     * available.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of timeout
+     * @return the engine, or null if no engine became available in time
+     * @throws HySpiritException
+     *             if the pool is closed or waiting was interrupted
+     */
+    public E lease(long timeout, TimeUnit unit) throws HySpiritException {
+	boolean forever = timeout == Long.MAX_VALUE;
+	long deadline = forever ? 0 : System.nanoTime() + unit.toNanos(timeout);
+	while (!closed) {
+	    E engine = null;
+	    try {
+		if (forever)
+		    engine = idle.take();
+		else
+		    engine = idle.poll(deadline - System.nanoTime(),
+			    TimeUnit.NANOSECONDS);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new HySpiritException(
+			"Interrupted while waiting for engine " + key);
+	    }
+	    if (engine == null)
+		return null;
+	    if (engine.isAlive()) {
+		leased.add(engine);
+		return engine;
+	    }
+	    LOG.warn("Found dead engine in pool: " + key);
+	    replace(engine);
+	}
+	throw new HySpiritException("Engine pool is closed: " + key);
+    }
+
+    /**
+     * Gives a leased engine back to the pool. All output of the engine must
+     * have been read. The engine is replaced if its process died; whether it
+     * still answers is checked in the background (see
+     * {@link #setCheckInterval(long)}).
+     *
+     * @param engine
+     *            the engine leased before
+     */
+    public void giveBack(E engine) {
+	if (engine == null || !leased.remove(engine))
+	    throw new IllegalArgumentException(
+		    "Engine was not leased from this pool");
+	if (closed) {
+	    engine.destroy();
+	} else if (engine.isAlive()) {
+	    idle.add(engine);
+	} else {
+	    LOG.warn("Engine died, replacing it: " + key);
+	    replace(engine);
+	}
+    }
+
+    /**
+     * Pings all idle engines and replaces those which do not answer. This is
+     * invoked periodically in the background, see
+     * {@link #setCheckInterval(long)}.
+     */
+    public void checkIdleEngines() {
+	int n = idle.size();
+	for (int i = 0; i < n && !closed; i++) {
+	    E engine = idle.poll();
+	    if (engine == null)
+		break;
+	    if (engine.ping(pingTimeout)) {
+		idle.add(engine);
+		if (closed && idle.remove(engine))
+		    engine.destroy();
+	    } else {
+		LOG.warn("Idle engine did not answer, replacing it: " + key);
+		replace(engine);
+	    }
+	}
+    }
+
+    /*
+     * Destroys the given engine and starts a new one in the background.
+     */
+    private void replace(E engine) {
+	engine.destroy();
+	if (closed)
+	    return;
+	replacer.execute(new Runnable() {
+	    @Override
+	    public void run() {
+		try {
+		    E fresh = startEngine(factory.createEngine());
+		    if (closed)
+			fresh.destroy();
+		    else
+			idle.add(fresh);
+		} catch (HySpiritException e) {
+		    LOG.error("Could not replace engine: " + key, e);
+		}
+	    }
+	});
+    }
+
+    /**
+     * Sets the time to wait for an engine to answer a ping
+     *
+     * @param pingTimeout
+     *            the timeout in milliseconds
+     */
+    public void setPingTimeout(long pingTimeout) {
+	this.pingTimeout = pingTimeout;
+    }
+
+    /**
+     * Sets the interval between two background checks of the idle engines.
+     * The next check takes place after the given interval.
+     *
+     * @param checkInterval
+     *            the interval in milliseconds; 0 switches the checks off
+     */
+    public synchronized void setCheckInterval(long checkInterval) {
+	if (check != null)
+	    check.cancel(false);
+	check = null;
+	if (checkInterval > 0 && !closed)
+	    check = replacer.scheduleWithFixedDelay(new Runnable() {
+		@Override
+		public void run() {
+		    checkIdleEngines();
+		}
+	    }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the key of the engine configuration of this pool
+     *
+     * @return the key
+     */
+    public String getKey() {
+	return key;
+    }
+
+    /**
+     * Returns the number of engines of this pool
+     *
+     * @return the pool size
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the number of engines currently available for leasing
+     *
+     * @return the number of idle engines
+     */
+    public int idleEngines() {
+	return idle.size();
+    }
+
+    /**
+     * Closes the pool. Idle engines are destroyed immediately, leased engines
+     * when they are given back.
+     */
+    public void close() {
+	closed = true;
+	synchronized (EnginePool.class) {
+	    if (pools.get(key) == this)
+		pools.remove(key);
+	}
+	E engine;
+	while ((engine = idle.poll()) != null)
+	    engine.destroy();
+	replacer.shutdown();
+    }
+}
@@ -32,6 +32,7 @@ import java.net.Socket;
 import java.util.Enumeration;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,6 +42,7 @@ import hyspirit.util.HySpiritException;
 import hyspirit.util.HySpiritProperties;
 import hyspirit.util.StreamCatcher;
 import hyspirit.util.StreamGobbler;
+import hyspirit.util.StreamPumps;
 
 /**
  * This class implements all required methods and communications for the
@@ -65,6 +67,7 @@ public abstract class HyEngine implements Runnable {
     boolean clientmode = false;
     private String engineName = null;
     private StreamCatcher streamCatcher = null;
+    private int streamCapacity = 0;
     private ErrorStreamHandler err = null;
     private final boolean verbose = false;
     private String realTime;
@@ -72,6 +75,8 @@ public abstract class HyEngine implements Runnable {
     private String userTime;
     private String percentageCPU;
     private boolean running = false;
+    /* the metrics of this engine class, null if metrics are disabled */
+    EngineMetrics metrics = null;
 
     protected final static String STREAM_END_MESSAGE = "#! END";
     protected String argumentString = null;
@@ -505,8 +510,12 @@ public abstract class HyEngine implements Runnable {
 		    }
 		    com = tmpCmd;
 		}
+		metrics = MetricsRegistry.forEngine(this);
+		long started = metrics == null ? 0 : System.nanoTime();
 		process = Runtime.getRuntime().exec(com, null,
 			new File(hyspirit.getWorkingDirectory()));
+		if (metrics != null)
+		    metrics.recordStart(System.nanoTime() - started);
 		running = true;
 		LOG.debug("Engine started: " + process.toString());
 
@@ -516,7 +525,7 @@ public abstract class HyEngine implements Runnable {
 				new InputStreamReader(
 					process.getErrorStream())),
 			this, LOG);
-		err.start();
+		StreamPumps.start(err);
 
 	    } catch (Exception e) {
 		String command = "";
@@ -525,6 +534,8 @@ public abstract class HyEngine implements Runnable {
 		}
 		LOG.error("Exception  caught while starting engine:\n"
 			+ command, e);
+		if (metrics != null)
+		    metrics.recordFailure();
 		if (process != null)
 		    destroy();
 	    }
@@ -555,6 +566,8 @@ public abstract class HyEngine implements Runnable {
 	if (!clientmode) {
 	    destroy();
 	    streamCatcher = null;
+	    if (metrics != null)
+		metrics.recordRestart();
 	    run(buildCommand(), hyspirit);
 	}
     }
@@ -603,6 +616,46 @@ public abstract class HyEngine implements Runnable {
 	    return false;
     }
 
+    /**
+     * Returns true if the underlying process has been started and has not
+     * terminated yet. Unlike {@link #isRunning()}, this asks the operating
+     * system. Returns always true if in client mode.
+     * 
+     * @return whether the underlying process is alive
+     */
+    public boolean isAlive() {
+	if (clientmode)
+	    return true;
+	Process p = process;
+	return p != null && p.isAlive();
+    }
+
+    /**
+     * Checks whether the engine still answers by sending the echo of the
+     * stream end message (see {@link #echoSpecial(String)}) and waiting for it
+     * to come back. Engines without a stream end message or echo command can
+     * only be checked for being alive. Make sure all results of a previous
+     * send() were read before, as they will be dropped.
+     * 
+     * @param timeout
+     *            the maximum time to wait for the echo in milliseconds
+     * @return true if the engine answered in time, false otherwise
+     */
+    public boolean ping(long timeout) {
+	if (!isAlive())
+	    return false;
+	String endMessage = getStreamEndMessage();
+	if (endMessage == null || echoSpecial(endMessage) == null)
+	    return true;
+	try {
+	    send(new BufferedReader(new StringReader("")));
+	} catch (IOException io) {
+	    LOG.debug("Ping failed for " + getEngineName(), io);
+	    return false;
+	}
+	return streamCatcher.waitTillFinished(timeout);
+    }
+
     /**
      * Returns true if this object is in client mode, and false if it is in
      * client/server mode.
@@ -725,13 +778,14 @@ public abstract class HyEngine implements Runnable {
 		    new OutputStreamWriter(System.err));
 	    StreamGobbler err = new StreamGobbler(getSTDERR(), bSyserr,
 		    null);
-	    err.start();
+	    StreamPumps.start(err);
 
 	    // Catch everything what the engine writes to STDOUT
 	    BufferedReader out = getInputReader();
 	    StreamCatcher streamCatcher = new StreamCatcher(out,
 		    getStreamEndMessage());
-	    streamCatcher.start();
+	    streamCatcher.setMetrics(metrics);
+	    StreamPumps.start(streamCatcher);
 
 	    // Send input to STDIN
 	    BufferedWriter in = getOutputWriter();
@@ -766,11 +820,17 @@ public abstract class HyEngine implements Runnable {
 	if (in != null && input != null && out != null) {
 	    if (streamCatcher != null) {
 		// it might be that the previous stream catcher reads output
-		// from our process. We should wait until it finished.
-		streamCatcher.waitTillFinished();
+		// from our process. We should wait until it finished (and drop
+		// what was not read yet, otherwise a streaming catcher blocks).
+		streamCatcher.discard();
 	    }
-	    streamCatcher = new StreamCatcher(out, getStreamEndMessage());
-	    streamCatcher.start();
+	    if (streamCapacity > 0)
+		streamCatcher = new StreamCatcher(out, getStreamEndMessage(),
+			streamCapacity);
+	    else
+		streamCatcher = new StreamCatcher(out, getStreamEndMessage());
+	    streamCatcher.setMetrics(metrics);
+	    StreamPumps.start(streamCatcher);
 
 	    /*
 	    // Ensure that STDERR is read and piped to our STDERR.
@@ -782,13 +842,19 @@ public abstract class HyEngine implements Runnable {
 	    }
 	    */
 
-	    String line = null;
-	    while ((line = input.readLine()) != null) {
-		LOG.trace(line);
-		in.write(line);
-		in.newLine();
+	    try {
+		String line = null;
+		while ((line = input.readLine()) != null) {
+		    LOG.trace(line);
+		    in.write(line);
+		    in.newLine();
+		}
+		in.flush();
+	    } catch (IOException io) {
+		if (metrics != null)
+		    metrics.recordFailure();
+		throw io;
 	    }
-	    in.flush();
 
 	    if (getStreamEndMessage() != null) {
 		String endMessage = echoSpecial(getStreamEndMessage());
@@ -822,8 +888,6 @@ public abstract class HyEngine implements Runnable {
     public boolean hasNext() {
 	boolean hasNext = false;
 	if (streamCatcher != null) {
-	    // streamCatcher.waitTillFinished(); // XXX avoids streaming, should
-	    // be parameterised!
 	    hasNext = streamCatcher.hasNext();
 	}
 	return hasNext;
@@ -839,8 +903,9 @@ public abstract class HyEngine implements Runnable {
     public String next() {
 	String nextLine = null;
 	if (streamCatcher != null) {
-	    streamCatcher.waitTillFinished(); // XXX avoids streaming, should
-	    // be parameterised!
+	    // blocks until the stream is read unless we are streaming
+	    if (!streamCatcher.isStreaming())
+		streamCatcher.waitTillFinished();
 	    nextLine = streamCatcher.next();
 	}
 	return nextLine;
@@ -860,6 +925,45 @@ public abstract class HyEngine implements Runnable {
 	this.suppressSTDERR = suppress;
     }
 
+    /*
+     * Returns true if STDERR of the process is not sent to System.err
+     */
+    boolean suppressesSTDERR() {
+	return suppressSTDERR;
+    }
+
+    /**
+     * Switches streaming of the results of send() on or off. By default, the
+     * whole output of the engine is buffered before hasNext() and next() (and
+     * thus nextTuple() of inference engines) return the first line. In
+     * streaming mode, lines are delivered as soon as the engine emits them, and
+     * at most capacity lines are buffered; the engine is slowed down if they
+     * are not consumed fast enough. Read the results completely or invoke
+     * send() again, which drops the remaining lines. Streaming takes effect
+     * with the next send().
+     * 
+     * @param capacity
+     *            the maximum number of buffered lines, or 0 to switch streaming
+     *            off
+     * @since 1.3.0
+     * @see StreamCatcher#DEFAULT_STREAM_CAPACITY
+     */
+    public void setStreaming(int capacity) {
+	if (capacity < 0)
+	    throw new IllegalArgumentException("Negative capacity: " + capacity);
+	this.streamCapacity = capacity;
+    }
+
+    /**
+     * Returns true if the results of send() are streamed
+     * 
+     * @return whether streaming is switched on
+     * @since 1.3.0
+     */
+    public boolean isStreaming() {
+	return streamCapacity > 0;
+    }
+
     /**
      * Whether to take runtime statistics of the engine process or not. If this
      * is set to {@code true}, the engine is started using the Unix {@code time}
@@ -970,11 +1074,12 @@ public abstract class HyEngine implements Runnable {
      * Methods and classes handling and parsing STDERR
      */
 
-    private class ErrorStreamHandler extends Thread {
+    private class ErrorStreamHandler implements Runnable {
 	private final BufferedReader stderr;
 	private final Logger LOG;
 	private final HyEngine engine;
 	private boolean completed = false;
+	private final CountDownLatch done = new CountDownLatch(1);
 
 	/**
 	 * Constructor of class.
@@ -992,6 +1097,13 @@ public abstract class HyEngine implements Runnable {
 	    return completed;
 	}
 
+	/**
+	 * Waits until STDERR was read completely
+	 */
+	public void join() throws InterruptedException {
+	    done.await();
+	}
+
 	@Override
 	public void run() {
 	    try {
@@ -1020,6 +1132,8 @@ public abstract class HyEngine implements Runnable {
 		// IOExceptions can happen if the stream is closed and
 		// doesn't know. Hence we only send a debug message.
 		LOG.debug("IOException in error stream handler.", e);
+	    } finally {
+		done.countDown();
 	    }
 	}
     }
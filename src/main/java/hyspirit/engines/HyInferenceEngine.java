@@ -31,18 +31,23 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import hyspirit.knowledgeBase.HyTuple;
 import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.StringDictionary;
+import hyspirit.knowledgeBase.TupleBatch;
 import hyspirit.util.HySpiritException;
 import hyspirit.util.HySpiritProperties;
 import hyspirit.util.RetrievalstrategyManager;
 import hyspirit.util.StreamCatcher;
+import hyspirit.util.StreamPumps;
 
 /**
  * This abstract class provides funtionality for inference engines like hyp_pra,
@@ -66,6 +71,21 @@ import hyspirit.util.StreamCatcher;
  * ...
  * </pre>
  *
+ * Alternatively, queries can be pipelined into a running engine with
+ * {@link #submit(String, String)}. The engine keeps running, and the result of
+ * each query is available as soon as the engine has answered it:
+ *
+ * <pre>
+ * ...
+ * hypraEngine.start();
+ * CompletableFuture&lt;List&lt;HyTuple&gt;&gt; result1 = hypraEngine.submit("query1",
+ * 	"person(fred); ?- person;");
+ * CompletableFuture&lt;List&lt;HyTuple&gt;&gt; result2 = hypraEngine.submit("query2",
+ * 	"human(X) :- person(X); ?- human;");
+ * List&lt;HyTuple&gt; tuplesQuery1 = result1.get();
+ * ...
+ * </pre>
+ *
  * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
  *
  */
@@ -92,13 +112,32 @@ public abstract class HyInferenceEngine extends HyEngine {
     BlockingQueue<Query> queryQueue = null;
 
     /** The result set for query queues */
-    Map<String, List<HyTuple>> resultSet = null;
+    Map<String, TupleBatch> resultSet = null;
+
+    /** The time needed for each query of the queue in nanoseconds */
+    Map<String, Long> queryTimes = null;
 
     /**
      * The string to delimit the output of different queries in the queue
      */
     private static final String DELIMITER = "_ENDQUERY_";
 
+    /** Pipeline for submitted queries, created with the first submission */
+    private QueryPipeline pipeline = null;
+
+    /** The cache for query results, or null */
+    private QueryCache queryCache = null;
+
+    /** The knowledge base the cached results belong to, or null */
+    private String knowledgeBase = null;
+
+    /** The cached output of the last eval(), replayed by next() */
+    private Iterator<String> replay = null;
+
+    /** The output of the last eval() read so far, to be cached, and its key */
+    private List<String> recording = null;
+    private String recordingKey = null;
+
     /**
      * This constructor must be used if you are going to start your own engine
      * process (client/server mode).
@@ -159,7 +198,98 @@ public abstract class HyInferenceEngine extends HyEngine {
      *             if communication fails
      */
     public void eval(String input) throws IOException {
-	send(input);
+	if (queryCache == null || input == null || input.trim().equals("")) {
+	    send(input);
+	    return;
+	}
+	String key = QueryCache.key(this, knowledgeBase, input);
+	List<String> lines = queryCache.get(key);
+	if (lines != null) {
+	    replay = lines.iterator();
+	    recording = null;
+	} else {
+	    send(input);
+	    recording = new ArrayList<String>();
+	    recordingKey = key;
+	}
+    }
+
+    /**
+     * Sets the cache for the results of {@link #eval(String)} and
+     * {@link #executeQueryQueue()}. A cached result is replayed by
+     * {@link #nextTuple()}, {@link #hasNext()} and {@link #next()} without
+     * sending the query to the engine; a result is cached when it was read
+     * completely. See {@link QueryCache} for which queries can be cached.
+     *
+     * @param queryCache
+     *            the cache, or null to switch caching off
+     * @since 1.3.0
+     */
+    public void setQueryCache(QueryCache queryCache) {
+	setQueryCache(queryCache, null);
+    }
+
+    /**
+     * Sets the cache for query results of an engine connected to a
+     * knowledge base, e.g. by a connector sent to the engine. The results
+     * are cached for this knowledge base only, so engines connected to other
+     * knowledge bases can share the cache (see
+     * {@link #setQueryCache(QueryCache)}).
+     *
+     * @param queryCache
+     *            the cache, or null to switch caching off
+     * @param knowledgeBase
+     *            the knowledge base, e.g. the connector, or null
+     * @since 1.3.0
+     */
+    public void setQueryCache(QueryCache queryCache, String knowledgeBase) {
+	this.queryCache = queryCache;
+	this.knowledgeBase = knowledgeBase;
+    }
+
+    /**
+     * Returns the cache for query results
+     *
+     * @return the cache, or null if results are not cached
+     * @since 1.3.0
+     */
+    public QueryCache getQueryCache() {
+	return queryCache;
+    }
+
+    /*
+     * Any input sent to the engine ends replaying or recording the output of
+     * a cached query
+     */
+    @Override
+    protected void send(BufferedReader input) throws IOException {
+	replay = null;
+	recording = null;
+	super.send(input);
+    }
+
+    @Override
+    public boolean hasNext() {
+	if (replay != null)
+	    return replay.hasNext();
+	boolean hasNext = super.hasNext();
+	if (!hasNext && recording != null) {
+	    // a result cut off by a dying engine is not cached
+	    if (isAlive())
+		queryCache.put(recordingKey, recording);
+	    recording = null;
+	}
+	return hasNext;
+    }
+
+    @Override
+    public String next() {
+	if (replay != null)
+	    return replay.hasNext() ? replay.next() : null;
+	String line = super.next();
+	if (line != null && recording != null)
+	    recording.add(line);
+	return line;
     }
 
     public void evalFile(String filename) throws IOException {
@@ -299,7 +429,9 @@ public abstract class HyInferenceEngine extends HyEngine {
      * to run a HySpirit program that contains more than one query. Use the
      * {@link #addQueryToQueue(String, String)} method to build your query
      * queue. Use {@link #getResultForQuery(String)} to fetch the result for a
-     * specific query in the queue.
+     * specific query in the queue. With a query cache (see
+     * {@link #setQueryCache(QueryCache)}), only the queries not cached are
+     * sent to the engine.
      *
      * @throws IOException
      * @since 1.1.0
@@ -310,6 +442,27 @@ public abstract class HyInferenceEngine extends HyEngine {
 	BufferedWriter in = getOutputWriter(); // stdin of process
 	BufferedReader out = getInputReader(); // stdout of process
 	if (in != null && out != null) {
+	    /*
+	     * Take cached results, send only the other queries
+	     */
+	    Map<String, List<String>> cached = new LinkedHashMap<String, List<String>>();
+	    Map<String, String> keys = new HashMap<String, String>();
+	    if (queryCache != null) {
+		BlockingQueue<Query> uncached = new LinkedBlockingQueue<Query>();
+		for (Query q : queryQueue) {
+		    String key = QueryCache.key(this, knowledgeBase,
+			    q.getQuery());
+		    List<String> lines = queryCache.get(key);
+		    if (lines != null)
+			cached.put(q.getId(), lines);
+		    else {
+			keys.put(q.getId(), key);
+			uncached.add(q);
+		    }
+		}
+		queryQueue = uncached;
+	    }
+
 	    /*
 	     * Start stream catcher to catch the output and separate it
 	     */
@@ -317,13 +470,16 @@ public abstract class HyInferenceEngine extends HyEngine {
 		    new LinkedBlockingQueue<HyInferenceEngine.Query>(
 			    queryQueue));
 	    // streamCatcher.useQueryQueue(queryQueue);
-	    streamCatcher.start();
+	    streamCatcher.setMetrics(metrics);
+	    StreamPumps.start(streamCatcher);
 
 	    /*
 	     * Send queries
 	     */
 	    Query q;
+	    Map<String, Long> sent = new LinkedHashMap<String, Long>();
 	    while ((q = queryQueue.poll()) != null) {
+		sent.put(q.getId(), System.nanoTime());
 		in.write(q.getQuery());
 		in.newLine();
 		in.write(echoSpecial(DELIMITER)); // echo delimiter
@@ -338,10 +494,37 @@ public abstract class HyInferenceEngine extends HyEngine {
 	    Map<String, List<String>> results = streamCatcher
 		    .getQueryQueueResults();
 
+	    /*
+	     * A query is timed from when it was sent or, if the engine was
+	     * still busy, from the result of the previous query
+	     */
+	    Map<String, Long> received = streamCatcher
+		    .getQueryQueueResultTimes();
+	    queryTimes = new HashMap<String, Long>();
+	    long previous = 0;
+	    for (Map.Entry<String, Long> e : sent.entrySet()) {
+		Long done = received.get(e.getKey());
+		if (done != null) {
+		    long time = done - Math.max(e.getValue(), previous);
+		    queryTimes.put(e.getKey(), time);
+		    if (metrics != null)
+			metrics.recordResponse(time);
+		    previous = done;
+		    String key = keys.get(e.getKey());
+		    List<String> lines = results.get(e.getKey());
+		    if (key != null && lines != null)
+			queryCache.put(key, lines);
+		}
+	    }
+	    results.putAll(cached);
+
 	    Iterator<Map.Entry<String, List<String>>> it = results.entrySet()
 		    .iterator();
 
-	    resultSet = new HashMap<String, List<HyTuple>>();
+	    resultSet = new HashMap<String, TupleBatch>();
+	    // all results share one dictionary, as they usually have many
+	    // values (e.g. document ids) in common
+	    StringDictionary dictionary = new StringDictionary();
 
 	    // Iterate over results for queries in queue
 
@@ -349,12 +532,12 @@ public abstract class HyInferenceEngine extends HyEngine {
 		// Translate this into HyTuples
 		Map.Entry<String, List<String>> entry = it.next();
 		List<String> resultLines = entry.getValue();
-		List<HyTuple> resultTuples = new ArrayList<HyTuple>();
+		TupleBatch resultTuples = new TupleBatch(dictionary);
 		for (String line : resultLines) {
 		    if (line != null && !line.trim().equals("") &&
 			    !line.startsWith("#") && !line.equals(DELIMITER)) {
 			try {
-			    resultTuples.add(new HyTuple(line));
+			    resultTuples.addLine(line);
 			} catch (HyTupleFormatException h) {
 			    LOG.trace("Couldn't parse " + line);
 			    LOG.trace(h);
@@ -369,6 +552,54 @@ public abstract class HyInferenceEngine extends HyEngine {
 	queryQueue = null;
     }
 
+    /**
+     * Sends a query to the running engine and returns immediately. The result
+     * is delivered through the returned future as soon as the engine has
+     * answered the query; queries are answered in the order they were
+     * submitted. STDIN is not closed, so many callers (in different threads)
+     * can share one engine. Do not mix this with send() or
+     * {@link #executeQueryQueue()} on the same engine, as they read the same
+     * output. If the engine dies, all pending results fail with an
+     * IOException.
+     *
+     * @param queryID
+     *            the query ID (used for logging)
+     * @param query
+     *            the query, e.g. "?- person;"
+     * @return the future result
+     * @since 1.3.0
+     */
+    public CompletableFuture<List<HyTuple>> submit(String queryID,
+	    String query) {
+	QueryPipeline p;
+	synchronized (this) {
+	    if (pipeline == null || !pipeline.isUsable()) {
+		try {
+		    pipeline = new QueryPipeline(this, DELIMITER);
+		    StreamPumps.start(pipeline);
+		} catch (IOException io) {
+		    pipeline = null;
+		    CompletableFuture<List<HyTuple>> failed = new CompletableFuture<List<HyTuple>>();
+		    failed.completeExceptionally(io);
+		    return failed;
+		}
+	    }
+	    p = pipeline;
+	}
+	return p.submit(queryID, query);
+    }
+
+    /**
+     * Returns the number of submitted queries which were not answered yet
+     *
+     * @return the number of pending queries
+     * @since 1.3.0
+     * @see #submit(String, String)
+     */
+    public synchronized int pendingQueries() {
+	return pipeline == null ? 0 : pipeline.pendingQueries();
+    }
+
     /**
      * Returns the result of a query as a list of HyTuple objects. Please invoke
      * {@link #executeQueryQueue()} first!
@@ -381,6 +612,41 @@ public abstract class HyInferenceEngine extends HyEngine {
      * @see #executeQueryQueue()
      */
     public List<HyTuple> getResultForQuery(String queryID) {
+	TupleBatch batch = resultSet.get(queryID);
+	return batch == null ? null : batch.asList();
+    }
+
+    /**
+     * Returns the time the engine needed to answer a query of the last
+     * {@link #executeQueryQueue()}, i.e. the time between sending the query
+     * (or reading the result of the previous query, whichever came later)
+     * and reading its result.
+     *
+     * @param queryID
+     *            the query ID as given in
+     *            {@link #addQueryToQueue(String, String)}
+     * @return the time in milliseconds, or -1 if the query has no result
+     * @since 1.3.0
+     * @see #executeQueryQueue()
+     */
+    public double getQueryTime(String queryID) {
+	Long time = queryTimes == null ? null : queryTimes.get(queryID);
+	return time == null ? -1 : time / 1e6;
+    }
+
+    /**
+     * Returns the result of a query in columnar form. Please invoke
+     * {@link #executeQueryQueue()} first! The results of all queries of the
+     * queue share one dictionary.
+     *
+     * @param queryID
+     *            the query ID as given in
+     *            {@link #addQueryToQueue(String, String)}
+     * @return the result set
+     * @since 1.3.0
+     * @see #executeQueryQueue()
+     */
+    public TupleBatch getResultBatchForQuery(String queryID) {
 	return resultSet.get(queryID);
     }
 
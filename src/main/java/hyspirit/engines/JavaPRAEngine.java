@@ -0,0 +1,330 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.RelationHandler;
+import hyspirit.knowledgeBase.StringDictionary;
+import hyspirit.knowledgeBase.TupleBatch;
+import hyspirit.util.HySpiritException;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * An inference engine that evaluates PRA programs inside the JVM with a
+ * {@link PRAEvaluator} instead of starting a hyp_pra process, so it needs no
+ * HySpirit installation. It can be used wherever eval() and nextTuple(),
+ * query queues or {@link #submit(String, String)} of a
+ * {@link HyInferenceEngine} are used:
+ *
+ * <pre>
+ * JavaPRAEngine pra = new JavaPRAEngine();
+ * pra.connect("tf", "/index/kb/tf.mds");
+ * pra.connect("idf", "/index/kb/idf.mds");
+ * pra.start();
+ * pra.eval(SimpleFullTextQueryImpl.orQueryToPRA(queryTerms));
+ * HyTuple tuple;
+ * while ((tuple = pra.nextTuple()) != null)
+ *     ...
+ * pra.destroy();
+ * </pre>
+ *
+ * MDS files added with {@link #addFile(String)} are connected to the relation
+ * named like the file (e.g. "tf" for "tf.mds"), all other files are evaluated
+ * as PRA programs when the engine is started. The knowledge base lives as
+ * long as the engine object, so facts and assignments of previous programs
+ * are still visible to later ones. Evaluation is synchronous: eval() returns
+ * after the whole program was evaluated. See {@link PRAEvaluator} for the
+ * supported language.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class JavaPRAEngine extends HyInferenceEngine {
+
+    /** The engine name */
+    public static final String ENGINE_NAME = "java_pra";
+
+    /** The evaluator */
+    private final PRAEvaluator evaluator;
+
+    /**
+     * The output of the last program, read with next() and nextTuple(): query
+     * results as tuples, echoed messages as strings
+     */
+    private final LinkedList<Object> output = new LinkedList<Object>();
+
+    private volatile boolean started = false;
+
+    /**
+     * Constructor of class. Starts with an empty knowledge base.
+     *
+     * @throws HySpiritException
+     *             never, as no HySpirit environment is needed
+     */
+    public JavaPRAEngine() throws HySpiritException {
+	this(new RelationHandler());
+    }
+
+    /**
+     * Constructor of class. Evaluates programs over the given relations.
+     *
+     * @param relations
+     *            the relations
+     * @throws HySpiritException
+     *             never, as no HySpirit environment is needed
+     */
+    public JavaPRAEngine(RelationHandler relations) throws HySpiritException {
+	// the properties are only needed for the working directory
+	super(ENGINE_NAME, HySpiritProperties
+		.withoutInstallation(System.getProperty("user.dir")));
+	this.evaluator = new PRAEvaluator(relations);
+    }
+
+    /**
+     * Returns the evaluator of this engine
+     *
+     * @return the evaluator
+     */
+    public PRAEvaluator getEvaluator() {
+	return this.evaluator;
+    }
+
+    /**
+     * Connects a relation to an MDS file. The file is read when the relation
+     * is used for the first time.
+     *
+     * @param relationName
+     *            the relation name
+     * @param mdsFile
+     *            the MDS file
+     * @see PRAEvaluator#connect(String, String)
+     */
+    public synchronized void connect(String relationName, String mdsFile) {
+	evaluator.connect(relationName, mdsFile);
+    }
+
+    /**
+     * Starts the engine, i.e. connects and evaluates the files added with
+     * {@link #addFile(String)}. The output of these files can be read with
+     * next() or nextTuple().
+     */
+    @Override
+    public synchronized void run() {
+	output.clear();
+	for (String filename : files) {
+	    String name = new File(filename).getName();
+	    if (name.endsWith(".mds")) {
+		evaluator.connect(name.substring(0, name.length() - 4),
+			filename);
+	    } else {
+		try {
+		    output.addAll(evaluator.output(readFile(filename)));
+		} catch (IOException io) {
+		    LOG.error("Cannot read " + filename, io);
+		}
+	    }
+	}
+	started = true;
+    }
+
+    /**
+     * Stops the engine and drops unread output. The knowledge base is kept.
+     */
+    @Override
+    public synchronized void destroy() {
+	started = false;
+	output.clear();
+    }
+
+    @Override
+    public void restart() {
+	destroy();
+	run();
+    }
+
+    @Override
+    public boolean isRunning() {
+	return started;
+    }
+
+    @Override
+    public boolean isAlive() {
+	return started;
+    }
+
+    @Override
+    public boolean ping(long timeout) {
+	return started;
+    }
+
+    @Override
+    public void waitTillRunning() {
+    }
+
+    /**
+     * Evaluates the given PRA program. Use next() or nextTuple() to read its
+     * output; unread output of a previous program is dropped.
+     *
+     * @param input
+     *            the PRA program
+     */
+    @Override
+    public synchronized void send(String input) throws IOException {
+	output.clear();
+	if (input != null && !input.trim().equals("")) {
+	    LOG.trace(input);
+	    output.addAll(evaluator.output(input));
+	}
+    }
+
+    @Override
+    public void sendFile(String filename) throws IOException {
+	if (filename != null && !filename.trim().equals(""))
+	    send(readFile(filename));
+    }
+
+    @Override
+    public synchronized String sendAndReceive(String input) {
+	StringBuilder result = new StringBuilder();
+	try {
+	    send(input);
+	} catch (IOException io) {
+	    LOG.error(io);
+	}
+	for (Object line : output)
+	    result.append(line).append('\n');
+	output.clear();
+	return result.toString();
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+	return !output.isEmpty();
+    }
+
+    @Override
+    public synchronized String next() {
+	Object line = output.poll();
+	return line == null ? null : line.toString();
+    }
+
+    /**
+     * Returns the next result tuple of the last program, as computed by the
+     * evaluator. Echoed messages are parsed like the output of the process
+     * based engines.
+     */
+    @Override
+    public synchronized HyTuple nextTuple() {
+	Object line;
+	while ((line = output.poll()) != null) {
+	    HyTuple tuple = toTuple(line);
+	    if (tuple != null)
+		return tuple;
+	}
+	return null;
+    }
+
+    /**
+     * Executes all queries in the queue, one after the other. Unlike the
+     * process based engines, the engine keeps running.
+     *
+     * @see #addQueryToQueue(String, String)
+     * @see #getResultForQuery(String)
+     */
+    @Override
+    public synchronized void executeQueryQueue() throws IOException {
+	resultSet = new HashMap<String, TupleBatch>();
+	StringDictionary dictionary = new StringDictionary();
+	Query q;
+	while (queryQueue != null && (q = queryQueue.poll()) != null) {
+	    TupleBatch resultTuples = new TupleBatch(dictionary);
+	    for (Object line : evaluator.output(q.getQuery())) {
+		HyTuple tuple = toTuple(line);
+		if (tuple != null)
+		    resultTuples.add(tuple);
+	    }
+	    resultSet.put(q.getId(), resultTuples);
+	}
+	queryQueue = null;
+    }
+
+    /**
+     * Evaluates the query and returns a completed future, as queries are
+     * evaluated synchronously.
+     */
+    @Override
+    public CompletableFuture<List<HyTuple>> submit(String queryID,
+	    String query) {
+	List<HyTuple> tuples = new ArrayList<HyTuple>();
+	List<Object> lines;
+	synchronized (this) {
+	    lines = evaluator.output(query);
+	}
+	for (Object line : lines) {
+	    HyTuple tuple = toTuple(line);
+	    if (tuple != null)
+		tuples.add(tuple);
+	}
+	return CompletableFuture.completedFuture(tuples);
+    }
+
+    /*
+     * Returns an output line as tuple, or null if it is an echoed message
+     * which is no tuple
+     */
+    private static HyTuple toTuple(Object line) {
+	if (line instanceof HyTuple)
+	    return (HyTuple) line;
+	try {
+	    return new HyTuple((String) line);
+	} catch (HyTupleFormatException h) {
+	    LOG.trace("Couldn't parse " + line);
+	    return null;
+	}
+    }
+
+    /*
+     * Reads a whole file
+     */
+    private static String readFile(String filename) throws IOException {
+	StringBuilder content = new StringBuilder();
+	BufferedReader reader = Files.newBufferedReader(Paths.get(filename),
+		StandardCharsets.UTF_8);
+	try {
+	    String line;
+	    while ((line = reader.readLine()) != null)
+		content.append(line).append('\n');
+	} finally {
+	    reader.close();
+	}
+	return content.toString();
+    }
+}
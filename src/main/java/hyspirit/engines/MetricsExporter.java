@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.util.Collection;
+
+/**
+ * Exports engine metrics, e.g. to a log file or a monitoring system.
+ * Exporters are invoked periodically by the {@link MetricsRegistry}.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ * @see MetricsRegistry#addExporter(MetricsExporter, long)
+ */
+public interface MetricsExporter {
+
+    /**
+     * Exports the metrics of all engine classes used so far
+     *
+     * @param metrics
+     *            the metrics
+     */
+    void export(Collection<EngineMetrics> metrics);
+}
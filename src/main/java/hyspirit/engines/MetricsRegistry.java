@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the {@link EngineMetrics} of all engine classes. Metrics are disabled
+ * by default; engines then only check a flag when they are started. Enable
+ * them with {@link #setEnabled(boolean)} or the system property
+ * "hyspirit.metrics=true" before starting the engines. Metrics can be
+ * published as MBeans named "hyspirit:type=EngineMetrics,name=&lt;engine
+ * class&gt;" (also with the system property "hyspirit.metrics.jmx=true"), and
+ * exported periodically:
+ *
+ * <pre>
+ * MetricsRegistry.setEnabled(true);
+ * MetricsRegistry.registerMBeans();
+ * MetricsRegistry.addExporter(new MetricsExporter() {
+ * 	public void export(Collection&lt;EngineMetrics&gt; metrics) {
+ * 	    for (EngineMetrics m : metrics)
+ * 		LOG.info(m);
+ * 	}
+ * }, 60000);
+ * </pre>
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public final class MetricsRegistry {
+
+    private static Logger LOG = LogManager.getLogger(MetricsRegistry.class);
+
+    /** The domain and type of the MBean names */
+    public static final String MBEAN_PREFIX = "hyspirit:type=EngineMetrics,name=";
+
+    private static volatile boolean enabled = Boolean
+	    .getBoolean("hyspirit.metrics");
+    private static volatile boolean jmx = false;
+    private static final ConcurrentMap<String, EngineMetrics> METRICS = new ConcurrentHashMap<String, EngineMetrics>();
+    private static final Map<MetricsExporter, ScheduledFuture<?>> EXPORTERS = new IdentityHashMap<MetricsExporter, ScheduledFuture<?>>();
+    private static ScheduledExecutorService scheduler = null;
+
+    static {
+	if (Boolean.getBoolean("hyspirit.metrics.jmx"))
+	    registerMBeans();
+    }
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Switches metrics on or off. Engines pick this up when they are
+     * (re)started.
+     *
+     * @param enable
+     *            whether to collect metrics
+     */
+    public static void setEnabled(boolean enable) {
+	enabled = enable;
+    }
+
+    /**
+     * Returns true if metrics are collected
+     *
+     * @return whether metrics are enabled
+     */
+    public static boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * Returns the metrics of the given engine's class, or null if metrics are
+     * disabled
+     *
+     * @param engine
+     *            the engine
+     * @return the metrics or null
+     */
+    public static EngineMetrics forEngine(HyEngine engine) {
+	if (!enabled)
+	    return null;
+	return getMetrics(engine.getClass().getName());
+    }
+
+    /**
+     * Returns the metrics of the given engine class, creating them if
+     * necessary
+     *
+     * @param engineClass
+     *            the name of the engine class
+     * @return the metrics
+     */
+    public static EngineMetrics getMetrics(String engineClass) {
+	EngineMetrics metrics = METRICS.get(engineClass);
+	if (metrics == null) {
+	    EngineMetrics created = new EngineMetrics(engineClass);
+	    metrics = METRICS.putIfAbsent(engineClass, created);
+	    if (metrics == null) {
+		metrics = created;
+		if (jmx)
+		    register(metrics);
+	    }
+	}
+	return metrics;
+    }
+
+    /**
+     * Returns the metrics of all engine classes used so far
+     *
+     * @return the metrics
+     */
+    public static Collection<EngineMetrics> getMetrics() {
+	return Collections.unmodifiableCollection(
+		new ArrayList<EngineMetrics>(METRICS.values()));
+    }
+
+    /**
+     * Resets the metrics of all engine classes
+     */
+    public static void reset() {
+	for (EngineMetrics metrics : METRICS.values())
+	    metrics.reset();
+    }
+
+    /**
+     * Publishes the metrics of all engine classes, including the ones used
+     * later, as MBeans of the platform MBean server.
+     */
+    public static synchronized void registerMBeans() {
+	if (!jmx) {
+	    jmx = true;
+	    for (EngineMetrics metrics : METRICS.values())
+		register(metrics);
+	}
+    }
+
+    /*
+     * Registers the MBean of the given metrics
+     */
+    private static void register(EngineMetrics metrics) {
+	try {
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName name = new ObjectName(
+		    MBEAN_PREFIX + metrics.getEngineClass());
+	    if (!server.isRegistered(name))
+		server.registerMBean(metrics, name);
+	} catch (JMException e) {
+	    LOG.warn("Cannot register metrics of " + metrics.getEngineClass(),
+		    e);
+	}
+    }
+
+    /**
+     * Invokes the exporter periodically in a daemon thread
+     *
+     * @param exporter
+     *            the exporter
+     * @param period
+     *            the period in milliseconds
+     */
+    public static synchronized void addExporter(final MetricsExporter exporter,
+	    long period) {
+	removeExporter(exporter);
+	if (scheduler == null)
+	    scheduler = Executors
+		    .newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+			    Thread t = new Thread(r, "MetricsExporter");
+			    t.setDaemon(true);
+			    return t;
+			}
+		    });
+	Runnable export = new Runnable() {
+	    @Override
+	    public void run() {
+		try {
+		    exporter.export(getMetrics());
+		} catch (RuntimeException e) {
+		    LOG.warn("Metrics exporter failed", e);
+		}
+	    }
+	};
+	EXPORTERS.put(exporter, scheduler.scheduleAtFixedRate(export, period,
+		period, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stops invoking the given exporter
+     *
+     * @param exporter
+     *            the exporter
+     */
+    public static synchronized void removeExporter(MetricsExporter exporter) {
+	ScheduledFuture<?> future = EXPORTERS.remove(exporter);
+	if (future != null)
+	    future.cancel(false);
+    }
+}
@@ -0,0 +1,774 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.knowledgeBase.RelationHandler;
+
+/**
+ * An evaluator for the core of the probabilistic relational algebra (PRA) as
+ * understood by hyp_pra, running inside the JVM. Relations are kept in a
+ * {@link RelationHandler}; they are defined by facts, by assignments or by MDS
+ * files connected with {@link #connect(String, String)}. A program consists of
+ * statements terminated by '.' or ';':
+ *
+ * <pre>
+ * # comment
+ * term(database, d1).
+ * 0.35 term(ir, d2).
+ * qterm := SELECT[$1="ir"](term).
+ * retrieve = PROJECT disjoint[$2](JOIN[$1=$1](qterm,term)).
+ * ?- retrieve.
+ * _echo("done");
+ * </pre>
+ *
+ * The operators are SELECT[$i="v" &amp; $i=$j](r), PROJECT[$i,$j,...](r),
+ * JOIN[$i=$j](r,s), UNITE(r,s) and SUBTRACT(r,s). Except SELECT, each operator
+ * may be followed by the assumption about the events of the tuples it combines
+ * (independent, disjoint or subsumed). Without an assumption, PROJECT and UNITE
+ * are disjoint, JOIN and SUBTRACT are independent. Relations which are not
+ * defined yet are empty, so a relation can be accumulated with
+ * {@code r := UNITE(r, ...)}.
+ * <p>
+ * Query results are returned in the format of hyp_pra, i.e. one line
+ * "&lt;prob&gt; (&lt;value_1&gt;,...,&lt;value_n&gt;)" per tuple, which can be
+ * parsed with {@link HyTuple#HyTuple(String)}. Values are stored without
+ * double quotes unless they contain commas, blanks or brackets.
+ * <p>
+ * Specials other than _echo (e.g. _SQL_connect) are ignored; use
+ * {@link #connect(String, String)} instead. Datalog rules are not supported.
+ * This class is not thread safe.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class PRAEvaluator {
+
+    private static Logger LOG = LogManager.getLogger(PRAEvaluator.class);
+
+    /**
+     * The assumptions about the events of tuples which are combined by an
+     * operator.
+     */
+    public enum Assumption {
+	/** the events are independent */
+	INDEPENDENT,
+	/** the events are disjoint */
+	DISJOINT,
+	/** one event is included in the other */
+	SUBSUMED;
+
+	/**
+	 * Returns the probability of the disjunction of two events
+	 *
+	 * @param p
+	 *            the first probability
+	 * @param q
+	 *            the second probability
+	 * @return P(e1 OR e2)
+	 */
+	public double or(double p, double q) {
+	    switch (this) {
+	    case DISJOINT:
+		return Math.min(1, p + q);
+	    case SUBSUMED:
+		return Math.max(p, q);
+	    default:
+		return 1 - (1 - p) * (1 - q);
+	    }
+	}
+
+	/**
+	 * Returns the probability of the conjunction of two events
+	 *
+	 * @param p
+	 *            the first probability
+	 * @param q
+	 *            the second probability
+	 * @return P(e1 AND e2)
+	 */
+	public double and(double p, double q) {
+	    switch (this) {
+	    case DISJOINT:
+		return 0;
+	    case SUBSUMED:
+		return Math.min(p, q);
+	    default:
+		return p * q;
+	    }
+	}
+
+	/**
+	 * Returns the probability that the first event occurs, but not the
+	 * second one
+	 *
+	 * @param p
+	 *            the first probability
+	 * @param q
+	 *            the second probability
+	 * @return P(e1 AND NOT e2)
+	 */
+	public double andNot(double p, double q) {
+	    switch (this) {
+	    case DISJOINT:
+		return p;
+	    case SUBSUMED:
+		return Math.max(0, p - q);
+	    default:
+		return p * (1 - q);
+	    }
+	}
+    }
+
+    /** The relations */
+    private final RelationHandler relations;
+
+    /** MDS files which are loaded when their relation is used first */
+    private final Map<String, String> connections = new HashMap<String, String>();
+
+    /**
+     * Constructor of class. Starts with an empty knowledge base.
+     */
+    public PRAEvaluator() {
+	this(new RelationHandler());
+    }
+
+    /**
+     * Constructor of class. Evaluates PRA programs over the given relations;
+     * assignments and facts modify them.
+     *
+     * @param relations
+     *            the relations
+     */
+    public PRAEvaluator(RelationHandler relations) {
+	this.relations = relations;
+    }
+
+    /**
+     * Returns the relations of this evaluator
+     *
+     * @return the relations
+     */
+    public RelationHandler getRelations() {
+	return this.relations;
+    }
+
+    /**
+     * Connects a relation to an MDS file. The file is read when the relation
+     * is used for the first time; tuples already in the relation are kept.
+     *
+     * @param relationName
+     *            the relation name
+     * @param mdsFile
+     *            the MDS file
+     */
+    public void connect(String relationName, String mdsFile) {
+	connections.put(relationName, mdsFile);
+    }
+
+    /**
+     * Reads tuples in MDS format (one tuple per line, comments starting with
+     * '#') and adds them to a relation. Does not close the reader.
+     *
+     * @param relationName
+     *            the relation name
+     * @param mds
+     *            the MDS input
+     * @return the number of tuples read
+     * @throws IOException
+     *             if reading fails
+     */
+    public int loadMDS(String relationName, Reader mds) throws IOException {
+	BufferedReader input = new BufferedReader(mds);
+	HyTupleParser parser = HyTupleParser.threadParser();
+	List<HyTuple> tuples = new ArrayList<HyTuple>();
+	String line;
+	while ((line = input.readLine()) != null) {
+	    line = line.trim();
+	    if (line.equals("") || line.startsWith("#"))
+		continue;
+	    parser.parse(line);
+	    String[] values = parser.attributeValues();
+	    for (int i = 0; i < values.length; i++)
+		values[i] = canonical(values[i]);
+	    tuples.add(new HyTuple(parser.probability(), values));
+	}
+	relation(relationName).addAll(tuples);
+	return tuples.size();
+    }
+
+    /**
+     * Evaluates a PRA program and returns its output, i.e. the result of
+     * queries and echo specials. A faulty statement is reported and skipped,
+     * the following statements are evaluated.
+     *
+     * @param program
+     *            the PRA program
+     * @return the output lines
+     */
+    public List<String> eval(String program) {
+	List<String> lines = new ArrayList<String>();
+	for (Object line : output(program))
+	    lines.add(line.toString());
+	return lines;
+    }
+
+    /**
+     * Evaluates a PRA program like {@link #eval(String)}, but returns the
+     * result tuples of queries as they are instead of formatting them, so
+     * that their probabilities keep their full precision. The output contains
+     * {@link HyTuple} objects for query results and strings for echoed
+     * messages.
+     *
+     * @param program
+     *            the PRA program
+     * @return the output
+     */
+    List<Object> output(String program) {
+	List<Object> output = new ArrayList<Object>();
+	for (String statement : statements(program)) {
+	    try {
+		evalStatement(statement, output);
+	    } catch (IllegalArgumentException ie) {
+		LOG.error("Cannot evaluate '" + statement + "': "
+			+ ie.getMessage());
+	    }
+	}
+	return output;
+    }
+
+    /**
+     * Evaluates a PRA expression, e.g. "PROJECT[$1](term)", and returns its
+     * tuples.
+     *
+     * @param expression
+     *            the expression
+     * @return the result tuples
+     * @throws IllegalArgumentException
+     *             if the expression is malformed or refers to columns that
+     *             do not exist
+     */
+    public List<HyTuple> query(String expression) {
+	Parser parser = new Parser(expression);
+	List<HyTuple> result = parser.expression();
+	parser.end();
+	return result;
+    }
+
+    /*
+     * Evaluates one statement without its terminator
+     */
+    private void evalStatement(String statement, List<Object> output) {
+	if (statement.startsWith("?-")) {
+	    output.addAll(query(statement.substring(2)));
+	} else if (statement.startsWith("_")) {
+	    Parser parser = new Parser(statement);
+	    String special = parser.name();
+	    if (special.equals("_echo")) {
+		parser.expect('(');
+		output.add(unquote(parser.value()));
+		parser.expect(')');
+	    } else
+		LOG.debug("Ignoring " + statement);
+	} else {
+	    Parser parser = new Parser(statement);
+	    double probability = 1;
+	    if (!Character.isLetter(statement.charAt(0)))
+		probability = parser.number();
+	    String name = parser.name();
+	    if (parser.accept(":=") || parser.accept("=")) {
+		List<HyTuple> result = parser.expression();
+		parser.end();
+		relations.put(name, new LinkedList<HyTuple>(result));
+		connections.remove(name);
+	    } else {
+		parser.expect('(');
+		List<String> values = new ArrayList<String>();
+		do {
+		    values.add(canonical(parser.value()));
+		} while (parser.accept(","));
+		parser.expect(')');
+		parser.end();
+		relation(name).add(new HyTuple(probability,
+			values.toArray(new String[values.size()])));
+	    }
+	}
+    }
+
+    /*
+     * Returns the tuples of a relation, loading a connected MDS file first
+     */
+    private Collection<HyTuple> relation(String name) {
+	String mdsFile = connections.remove(name);
+	Collection<HyTuple> tuples = relations.get(name);
+	if (tuples == null) {
+	    tuples = new LinkedList<HyTuple>();
+	    relations.put(name, tuples);
+	}
+	if (mdsFile != null) {
+	    LOG.debug("Loading " + name + " from " + mdsFile);
+	    try {
+		Reader reader = new FileReader(mdsFile);
+		try {
+		    loadMDS(name, reader);
+		} finally {
+		    reader.close();
+		}
+	    } catch (IOException io) {
+		throw new IllegalArgumentException("Cannot read " + mdsFile
+			+ ": " + io.getMessage());
+	    }
+	}
+	return tuples;
+    }
+
+    /*
+     * Splits a program into statements. Statements end with ';' or with a '.'
+     * followed by white space; specials may also end with their closing
+     * bracket. Lines starting with '#' are comments.
+     */
+    static List<String> statements(String program) {
+	List<String> statements = new ArrayList<String>();
+	StringBuilder current = new StringBuilder();
+	int depth = 0;
+	boolean quoted = false;
+	int length = program.length();
+	for (int i = 0; i < length; i++) {
+	    char c = program.charAt(i);
+	    if (!quoted && c == '#' && current.toString().trim().equals("")) {
+		while (i < length && program.charAt(i) != '\n')
+		    i++;
+		continue;
+	    }
+	    boolean end = false;
+	    if (quoted) {
+		quoted = c != '"';
+	    } else if (c == '"') {
+		quoted = true;
+	    } else if (c == '(' || c == '[') {
+		depth++;
+	    } else if (c == ')' || c == ']') {
+		depth--;
+		end = depth == 0 && c == ')'
+			&& current.toString().trim().startsWith("_");
+	    } else if (depth == 0 && (c == ';' || (c == '.'
+		    && (i + 1 == length
+			    || Character.isWhitespace(program.charAt(i + 1)))))) {
+		String statement = current.toString().trim();
+		if (!statement.equals(""))
+		    statements.add(statement);
+		current.setLength(0);
+		continue;
+	    }
+	    current.append(c);
+	    if (end) {
+		statements.add(current.toString().trim());
+		current.setLength(0);
+		// skip an optional terminator
+		int j = i + 1;
+		while (j < length && program.charAt(j) == ' ')
+		    j++;
+		if (j < length && (program.charAt(j) == ';'
+			|| program.charAt(j) == '.'))
+		    i = j;
+	    }
+	}
+	String rest = current.toString().trim();
+	if (!rest.equals(""))
+	    statements.add(rest);
+	return statements;
+    }
+
+    /*
+     * Brings a value into the form used in the relations: without double
+     * quotes unless it contains commas, blanks or brackets
+     */
+    static String canonical(String value) {
+	value = unquote(value.trim());
+	for (int i = 0; i < value.length(); i++) {
+	    char c = value.charAt(i);
+	    if (c == ',' || c == '(' || c == ')' || Character.isWhitespace(c))
+		return '"' + value + '"';
+	}
+	return value.equals("") ? "\"\"" : value;
+    }
+
+    /*
+     * Removes enclosing double quotes
+     */
+    private static String unquote(String value) {
+	if (value.length() > 1 && value.startsWith("\"")
+		&& value.endsWith("\""))
+	    return value.substring(1, value.length() - 1);
+	return value;
+    }
+
+    /*
+     * Aggregates tuples with the same values under the given assumption
+     */
+    private static List<HyTuple> aggregate(List<HyTuple> tuples,
+	    Assumption assumption) {
+	Map<List<String>, HyTuple> aggregated = new LinkedHashMap<List<String>, HyTuple>();
+	for (HyTuple tuple : tuples) {
+	    List<String> key = Arrays.asList(tuple.attributeValues());
+	    HyTuple previous = aggregated.get(key);
+	    if (previous == null)
+		aggregated.put(key, tuple);
+	    else
+		aggregated.put(key, new HyTuple(
+			assumption.or(previous.probability(),
+				tuple.probability()),
+			tuple.attributeValues()));
+	}
+	return new ArrayList<HyTuple>(aggregated.values());
+    }
+
+    /**
+     * A recursive descent parser which evaluates expressions while parsing
+     * them.
+     */
+    private class Parser {
+	private final String input;
+	private int pos = 0;
+
+	Parser(String input) {
+	    this.input = input;
+	}
+
+	List<HyTuple> expression() {
+	    String name = name();
+	    String operator = name.toUpperCase();
+	    if (!name.equals(operator) || !(operator.equals("SELECT")
+		    || operator.equals("PROJECT") || operator.equals("JOIN")
+		    || operator.equals("UNITE") || operator.equals("SUBTRACT")))
+		return new ArrayList<HyTuple>(relation(name));
+
+	    Assumption assumption = assumption();
+	    List<int[]> conditions = null;
+	    List<String> constants = null;
+	    List<Integer> columns = null;
+	    if (accept("[")) {
+		if (operator.equals("PROJECT")) {
+		    columns = new ArrayList<Integer>();
+		    do {
+			columns.add(column());
+		    } while (accept(","));
+		} else {
+		    conditions = new ArrayList<int[]>();
+		    constants = new ArrayList<String>();
+		    do {
+			int left = column();
+			expect('=');
+			skipBlanks();
+			if (peek() == '$') {
+			    conditions.add(new int[] { left, column() });
+			    constants.add(null);
+			} else {
+			    conditions.add(new int[] { left, -1 });
+			    constants.add(canonical(value()));
+			}
+		    } while (accept("&") || accept(","));
+		}
+		expect(']');
+	    }
+	    if (assumption == null)
+		assumption = assumption();
+
+	    expect('(');
+	    List<HyTuple> first = expression();
+	    List<HyTuple> second = null;
+	    if (operator.equals("JOIN") || operator.equals("UNITE")
+		    || operator.equals("SUBTRACT")) {
+		expect(',');
+		second = expression();
+	    }
+	    expect(')');
+
+	    if (operator.equals("SELECT"))
+		return select(first, conditions, constants);
+	    else if (operator.equals("PROJECT"))
+		return project(first, columns, assumption == null
+			? Assumption.DISJOINT : assumption);
+	    else if (operator.equals("JOIN"))
+		return join(first, second, conditions, assumption == null
+			? Assumption.INDEPENDENT : assumption);
+	    else if (operator.equals("UNITE")) {
+		List<HyTuple> union = new ArrayList<HyTuple>(first);
+		union.addAll(second);
+		return aggregate(union, assumption == null
+			? Assumption.DISJOINT : assumption);
+	    } else
+		return subtract(first, second, assumption == null
+			? Assumption.INDEPENDENT : assumption);
+	}
+
+	/*
+	 * Parses an optional assumption
+	 */
+	private Assumption assumption() {
+	    int mark = pos;
+	    skipBlanks();
+	    if (pos < input.length() && Character.isLetter(peek())) {
+		String word = name().toUpperCase();
+		for (Assumption assumption : Assumption.values())
+		    if (assumption.name().equals(word))
+			return assumption;
+	    }
+	    pos = mark;
+	    return null;
+	}
+
+	String name() {
+	    skipBlanks();
+	    int start = pos;
+	    while (pos < input.length() && (Character.isLetterOrDigit(peek())
+		    || peek() == '_'))
+		pos++;
+	    if (start == pos)
+		throw error("name expected");
+	    return input.substring(start, pos);
+	}
+
+	double number() {
+	    skipBlanks();
+	    int start = pos;
+	    while (pos < input.length() && !Character.isWhitespace(peek()))
+		pos++;
+	    try {
+		return Double.parseDouble(input.substring(start, pos));
+	    } catch (NumberFormatException ne) {
+		pos = start;
+		throw error("probability expected");
+	    }
+	}
+
+	/*
+	 * Parses a value, i.e. a quoted string or everything up to the next
+	 * delimiter
+	 */
+	String value() {
+	    skipBlanks();
+	    int start = pos;
+	    if (pos < input.length() && peek() == '"') {
+		pos = input.indexOf('"', pos + 1);
+		if (pos < 0)
+		    throw error("unterminated string");
+		pos++;
+	    } else {
+		while (pos < input.length() && ",)]&".indexOf(peek()) < 0)
+		    pos++;
+	    }
+	    return input.substring(start, pos).trim();
+	}
+
+	/*
+	 * Parses a column reference ($n) and returns the index starting with 0
+	 */
+	int column() {
+	    expect('$');
+	    int start = pos;
+	    while (pos < input.length() && Character.isDigit(peek()))
+		pos++;
+	    if (start == pos)
+		throw error("column number expected");
+	    int column = Integer.parseInt(input.substring(start, pos)) - 1;
+	    if (column < 0)
+		throw error("columns start with $1");
+	    return column;
+	}
+
+	boolean accept(String token) {
+	    skipBlanks();
+	    if (input.startsWith(token, pos)) {
+		pos += token.length();
+		return true;
+	    }
+	    return false;
+	}
+
+	void expect(char c) {
+	    if (!accept(String.valueOf(c)))
+		throw error("'" + c + "' expected");
+	}
+
+	void end() {
+	    skipBlanks();
+	    if (pos < input.length())
+		throw error("unexpected input");
+	}
+
+	private char peek() {
+	    return input.charAt(pos);
+	}
+
+	private void skipBlanks() {
+	    while (pos < input.length() && Character.isWhitespace(peek()))
+		pos++;
+	}
+
+	private IllegalArgumentException error(String message) {
+	    return new IllegalArgumentException(message + " at position "
+		    + pos);
+	}
+    }
+
+    /*
+     * SELECT: keeps the tuples that fulfil all conditions
+     */
+    private static List<HyTuple> select(List<HyTuple> tuples,
+	    List<int[]> conditions, List<String> constants) {
+	if (conditions == null)
+	    return tuples;
+	List<HyTuple> result = new ArrayList<HyTuple>();
+	for (HyTuple tuple : tuples) {
+	    boolean match = true;
+	    for (int i = 0; match && i < conditions.size(); i++) {
+		int[] condition = conditions.get(i);
+		String value = valueAt(tuple, condition[0]);
+		match = condition[1] < 0 ? value.equals(constants.get(i))
+			: value.equals(valueAt(tuple, condition[1]));
+	    }
+	    if (match)
+		result.add(tuple);
+	}
+	return result;
+    }
+
+    /*
+     * PROJECT: keeps the given columns and aggregates equal tuples
+     */
+    private static List<HyTuple> project(List<HyTuple> tuples,
+	    List<Integer> columns, Assumption assumption) {
+	if (columns == null)
+	    return aggregate(tuples, assumption);
+	List<HyTuple> projected = new ArrayList<HyTuple>(tuples.size());
+	for (HyTuple tuple : tuples) {
+	    String[] values = new String[columns.size()];
+	    for (int i = 0; i < values.length; i++)
+		values[i] = valueAt(tuple, columns.get(i));
+	    projected.add(new HyTuple(tuple.probability(), values));
+	}
+	return aggregate(projected, assumption);
+    }
+
+    /*
+     * JOIN: combines the tuples of both relations that fulfil all conditions;
+     * the first condition is evaluated with a hash table
+     */
+    private static List<HyTuple> join(List<HyTuple> left,
+	    List<HyTuple> right, List<int[]> conditions,
+	    Assumption assumption) {
+	Map<String, List<HyTuple>> index = null;
+	if (conditions != null && !conditions.isEmpty()) {
+	    index = new HashMap<String, List<HyTuple>>();
+	    int column = conditions.get(0)[1];
+	    if (column < 0)
+		throw new IllegalArgumentException(
+			"JOIN needs conditions of the form $i=$j");
+	    for (HyTuple tuple : right) {
+		String key = valueAt(tuple, column);
+		List<HyTuple> bucket = index.get(key);
+		if (bucket == null) {
+		    bucket = new ArrayList<HyTuple>(2);
+		    index.put(key, bucket);
+		}
+		bucket.add(tuple);
+	    }
+	}
+	List<HyTuple> result = new ArrayList<HyTuple>();
+	for (HyTuple l : left) {
+	    List<HyTuple> candidates = right;
+	    if (index != null) {
+		candidates = index.get(valueAt(l, conditions.get(0)[0]));
+		if (candidates == null)
+		    continue;
+	    }
+	    for (HyTuple r : candidates) {
+		boolean match = true;
+		for (int i = 1; match && conditions != null
+			&& i < conditions.size(); i++) {
+		    int[] condition = conditions.get(i);
+		    if (condition[1] < 0)
+			throw new IllegalArgumentException(
+				"JOIN needs conditions of the form $i=$j");
+		    match = valueAt(l, condition[0])
+			    .equals(valueAt(r, condition[1]));
+		}
+		double probability = assumption.and(l.probability(),
+			r.probability());
+		if (match && probability > 0) {
+		    String[] values = new String[l.size() + r.size()];
+		    System.arraycopy(l.attributeValues(), 0, values, 0,
+			    l.size());
+		    System.arraycopy(r.attributeValues(), 0, values, l.size(),
+			    r.size());
+		    result.add(new HyTuple(probability, values));
+		}
+	    }
+	}
+	return result;
+    }
+
+    /*
+     * SUBTRACT: the tuples of the first relation which are not in the second
+     */
+    private static List<HyTuple> subtract(List<HyTuple> first,
+	    List<HyTuple> second, Assumption assumption) {
+	Map<List<String>, Double> subtrahend = new HashMap<List<String>, Double>();
+	for (HyTuple tuple : aggregate(second, assumption))
+	    subtrahend.put(Arrays.asList(tuple.attributeValues()),
+		    tuple.probability());
+	List<HyTuple> result = new ArrayList<HyTuple>();
+	for (HyTuple tuple : first) {
+	    Double q = subtrahend
+		    .get(Arrays.asList(tuple.attributeValues()));
+	    double probability = q == null ? tuple.probability()
+		    : assumption.andNot(tuple.probability(), q);
+	    if (probability > 0)
+		result.add(new HyTuple(probability, tuple.attributeValues()));
+	}
+	return result;
+    }
+
+    /*
+     * Returns the value in the given column (starting with 0)
+     */
+    private static String valueAt(HyTuple tuple, int column) {
+	if (column >= tuple.size())
+	    throw new IllegalArgumentException("$" + (column + 1)
+		    + " does not exist in " + tuple);
+	return tuple.valueAt(column);
+    }
+}
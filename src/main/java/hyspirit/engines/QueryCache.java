@@ -0,0 +1,289 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache for the output of queries to inference engines, bounded by the
+ * number of entries and by their weight (the number of characters of the
+ * cached lines). The least recently used entries are evicted first. Entries
+ * are keyed by the normalised query text (whitespace outside quotes
+ * collapsed), the engine configuration, i.e. its command line built by
+ * {@link HyEngine#buildCommand()}, and the knowledge base the engine was
+ * given (see {@link HyInferenceEngine#setQueryCache(QueryCache, String)}).
+ * So engines with different parameters do not share results, and neither do
+ * engines connected to different knowledge bases over their input, as long
+ * as these are given with the cache. A cache can be shared by many engines
+ * and threads:
+ *
+ * <pre>
+ * QueryCache cache = new QueryCache(10000, 64 * 1024 * 1024);
+ * engine.setQueryCache(cache);
+ * engine.eval("?- retrieve;"); // evaluated by the engine
+ * engine.eval("?-  retrieve;"); // read from the cache
+ * </pre>
+ *
+ * Only cache queries whose result depends solely on the knowledge base, as a
+ * cached query is not sent to the engine, and invalidate the cache when the
+ * knowledge base changes (see {@link #invalidateAll()}).
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class QueryCache {
+
+    /** The weight added for each entry besides its characters */
+    static final int ENTRY_OVERHEAD = 64;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, List<String>> entries = new LinkedHashMap<String, List<String>>(
+	    16, 0.75f, true);
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Constructor of class
+     *
+     * @param maxEntries
+     *            the maximum number of cached queries
+     * @param maxWeight
+     *            the maximum number of characters of all cached results
+     */
+    public QueryCache(int maxEntries, long maxWeight) {
+	if (maxEntries <= 0 || maxWeight <= 0)
+	    throw new IllegalArgumentException("Cache bounds must be positive: "
+		    + maxEntries + ", " + maxWeight);
+	this.maxEntries = maxEntries;
+	this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the key of a query sent to an engine
+     *
+     * @param engine
+     *            the engine
+     * @param query
+     *            the query
+     * @return the cache key
+     */
+    public static String key(HyEngine engine, String query) {
+	return key(engine, null, query);
+    }
+
+    /**
+     * Returns the key of a query sent to an engine connected to a knowledge
+     * base
+     *
+     * @param engine
+     *            the engine
+     * @param knowledgeBase
+     *            the knowledge base, e.g. the connector sent to the engine,
+     *            or null
+     * @param query
+     *            the query
+     * @return the cache key
+     */
+    public static String key(HyEngine engine, String knowledgeBase,
+	    String query) {
+	StringBuilder key = new StringBuilder();
+	String[] command = engine.buildCommand();
+	if (command != null)
+	    for (String c : command)
+		key.append(c).append(' ');
+	if (engine.isInClientMode())
+	    key.append(engine.getEngineName()).append(' ');
+	key.append('\n');
+	if (knowledgeBase != null)
+	    key.append(knowledgeBase).append('\n');
+	return normalise(query, key);
+    }
+
+    /*
+     * Appends the query with whitespace outside quotes collapsed into single
+     * blanks and leading and trailing whitespace removed
+     */
+    private static String normalise(String query, StringBuilder key) {
+	int start = key.length();
+	boolean quoted = false;
+	boolean blank = false;
+	for (int i = 0; i < query.length(); i++) {
+	    char c = query.charAt(i);
+	    if (!quoted && Character.isWhitespace(c)) {
+		blank = true;
+		continue;
+	    }
+	    if (blank && key.length() > start)
+		key.append(' ');
+	    blank = false;
+	    if (c == '"')
+		quoted = !quoted;
+	    key.append(c);
+	}
+	return key.toString();
+    }
+
+    /**
+     * Returns the cached output for the key and counts a hit or miss
+     *
+     * @param key
+     *            the key, see {@link #key(HyEngine, String)}
+     * @return the output lines, or null if they are not cached
+     */
+    public synchronized List<String> get(String key) {
+	List<String> lines = entries.get(key);
+	if (lines == null)
+	    misses++;
+	else
+	    hits++;
+	return lines;
+    }
+
+    /**
+     * Caches the output of a query, evicting the least recently used entries
+     * if the cache is full. Outputs heavier than the whole cache are not
+     * cached.
+     *
+     * @param key
+     *            the key, see {@link #key(HyEngine, String)}
+     * @param lines
+     *            the output lines
+     */
+    public synchronized void put(String key, List<String> lines) {
+	long w = weight(key, lines);
+	if (w > maxWeight)
+	    return;
+	List<String> old = entries.put(key,
+		Collections.unmodifiableList(lines));
+	if (old != null)
+	    weight -= weight(key, old);
+	weight += w;
+	Iterator<Map.Entry<String, List<String>>> it = entries.entrySet()
+		.iterator();
+	while ((weight > maxWeight || entries.size() > maxEntries)
+		&& it.hasNext()) {
+	    Map.Entry<String, List<String>> eldest = it.next();
+	    weight -= weight(eldest.getKey(), eldest.getValue());
+	    it.remove();
+	    evictions++;
+	}
+    }
+
+    private static long weight(String key, List<String> lines) {
+	long w = ENTRY_OVERHEAD + key.length();
+	for (String line : lines)
+	    w += line.length() + 1;
+	return w;
+    }
+
+    /**
+     * Removes all entries, e.g. because the knowledge base was rewritten
+     */
+    public synchronized void invalidateAll() {
+	entries.clear();
+	weight = 0;
+	invalidations++;
+    }
+
+    /**
+     * Returns the number of cached queries
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+	return entries.size();
+    }
+
+    /**
+     * Returns the weight of all cached queries
+     *
+     * @return the weight
+     */
+    public synchronized long weight() {
+	return weight;
+    }
+
+    /**
+     * Returns the number of lookups which found a cached result
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+	return hits;
+    }
+
+    /**
+     * Returns the number of lookups which did not find a cached result
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+	return misses;
+    }
+
+    /**
+     * Returns the ratio of hits to all lookups
+     *
+     * @return the hit rate, 0 if there was no lookup
+     */
+    public synchronized double getHitRate() {
+	long lookups = hits + misses;
+	return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of entries evicted because the cache was full
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+	return evictions;
+    }
+
+    /**
+     * Returns how often the cache was invalidated
+     *
+     * @return the number of invalidations
+     */
+    public synchronized long getInvalidations() {
+	return invalidations;
+    }
+
+    /**
+     * Resets the statistics, not the entries
+     */
+    public synchronized void resetStatistics() {
+	hits = misses = evictions = invalidations = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+	return "QueryCache entries: " + entries.size() + "/" + maxEntries
+		+ " weight: " + weight + "/" + maxWeight + " hits: " + hits
+		+ " misses: " + misses + " evictions: " + evictions
+		+ " invalidations: " + invalidations;
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.util.HySpiritException;
+
+/**
+ * Distributes independent queries over several identical inference engine
+ * processes, e.g. one hyp_pra per core, all connected to the same index (see
+ * {@link hyspirit.application.retrieval.SimpleFullTextQueryImpl#engineFactory(hyspirit.application.indexing.SimpleHypertextFileIndex)}).
+ * Each query is pipelined (see {@link HyInferenceEngine#submit(String, String)})
+ * into the engine with the fewest pending queries.
+ * <p>
+ * Results are delivered through futures. To process them as they complete,
+ * register a callback on the futures; to process them in submission order,
+ * iterate over the map returned by {@link #submitAll(Map)}.
+ *
+ * <pre>
+ * QueryDispatcher&lt;HyPRAEngine&gt; dispatcher = new QueryDispatcher&lt;HyPRAEngine&gt;(
+ * 	SimpleFullTextQueryImpl.engineFactory(index));
+ * Map&lt;String, CompletableFuture&lt;List&lt;HyTuple&gt;&gt;&gt; results = dispatcher
+ * 	.submitAll(queries);
+ * for (Map.Entry&lt;String, CompletableFuture&lt;List&lt;HyTuple&gt;&gt;&gt; r : results.entrySet())
+ *     process(r.getKey(), r.getValue().get());
+ * dispatcher.close();
+ * </pre>
+ *
+ * @param <E>
+ *            the engine type
+ * @since 1.3.0
+ */
+public class QueryDispatcher<E extends HyInferenceEngine> {
+
+    private static Logger LOG = LogManager.getLogger(QueryDispatcher.class);
+
+    private final EngineFactory<E> factory;
+    private final List<Slot> slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    /**
+     * An engine and its counters
+     */
+    private class Slot {
+	final int index;
+	/* replaced under the lock of the slot, read without it */
+	volatile E engine;
+	final AtomicLong submitted = new AtomicLong();
+	final AtomicLong completed = new AtomicLong();
+	final AtomicLong failed = new AtomicLong();
+	final long started = System.nanoTime();
+
+	Slot(int index, E engine) {
+	    this.index = index;
+	    this.engine = engine;
+	}
+    }
+
+    /**
+     * Statistics of one engine of the dispatcher
+     */
+    public static class EngineStats {
+	private final int engine;
+	private final int pending;
+	private final long submitted;
+	private final long completed;
+	private final long failed;
+	private final double throughput;
+
+	EngineStats(int engine, int pending, long submitted, long completed,
+		long failed, double throughput) {
+	    this.engine = engine;
+	    this.pending = pending;
+	    this.submitted = submitted;
+	    this.completed = completed;
+	    this.failed = failed;
+	    this.throughput = throughput;
+	}
+
+	/**
+	 * @return the index of the engine
+	 */
+	public int getEngine() {
+	    return engine;
+	}
+
+	/**
+	 * @return the number of queries waiting for their result (queue depth)
+	 */
+	public int getPending() {
+	    return pending;
+	}
+
+	/**
+	 * @return the number of queries sent to the engine
+	 */
+	public long getSubmitted() {
+	    return submitted;
+	}
+
+	/**
+	 * @return the number of queries answered by the engine
+	 */
+	public long getCompleted() {
+	    return completed;
+	}
+
+	/**
+	 * @return the number of queries which failed
+	 */
+	public long getFailed() {
+	    return failed;
+	}
+
+	/**
+	 * @return the answered queries per second since the engine was started
+	 */
+	public double getThroughput() {
+	    return throughput;
+	}
+
+	@Override
+	public String toString() {
+	    return "engine " + engine + ": pending=" + pending + ", submitted="
+		    + submitted + ", completed=" + completed + ", failed="
+		    + failed + ", throughput="
+		    + String.format("%.1f", throughput) + "/s";
+	}
+    }
+
+    /**
+     * Creates a dispatcher with one engine per available processor.
+     *
+     * @param factory
+     *            creates the engines
+     * @throws HySpiritException
+     *             if the engines cannot be created or started
+     */
+    public QueryDispatcher(EngineFactory<E> factory)
+	    throws HySpiritException {
+	this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a dispatcher with the given number of engines.
+     *
+     * @param factory
+     *            creates the engines
+     * @param engines
+     *            the number of engines
+     * @throws HySpiritException
+     *             if the engines cannot be created or started
+     */
+    public QueryDispatcher(EngineFactory<E> factory, int engines)
+	    throws HySpiritException {
+	if (engines < 1)
+	    throw new IllegalArgumentException(
+		    "Number of engines must be positive");
+	this.factory = factory;
+	List<Slot> s = new ArrayList<Slot>(engines);
+	try {
+	    for (int i = 0; i < engines; i++)
+		s.add(new Slot(i, startEngine()));
+	} catch (HySpiritException he) {
+	    for (Slot slot : s)
+		slot.engine.destroy();
+	    throw he;
+	}
+	this.slots = Collections.unmodifiableList(s);
+	LOG.debug("Started " + engines + " engines");
+    }
+
+    /*
+     * Creates, starts and initialises an engine.
+     */
+    private E startEngine() throws HySpiritException {
+	E engine = factory.createEngine();
+	engine.run();
+	if (!engine.isAlive())
+	    throw new HySpiritException(
+		    "Could not start engine " + engine.getEngineName());
+	try {
+	    factory.initEngine(engine);
+	} catch (IOException io) {
+	    engine.destroy();
+	    throw new HySpiritException("Could not initialise engine "
+		    + engine.getEngineName() + ": " + io.getMessage());
+	}
+	return engine;
+    }
+
+    /*
+     * Returns the slot with the fewest pending queries. Ties are broken round
+     * robin.
+     */
+    private Slot leastLoaded() {
+	int n = slots.size();
+	int start = (nextSlot.getAndIncrement() & Integer.MAX_VALUE) % n;
+	Slot best = null;
+	int bestPending = Integer.MAX_VALUE;
+	for (int i = 0; i < n; i++) {
+	    Slot slot = slots.get((start + i) % n);
+	    int pending = slot.engine.pendingQueries();
+	    if (pending < bestPending) {
+		best = slot;
+		bestPending = pending;
+		if (pending == 0)
+		    break;
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * Sends a query to the least loaded engine. Engines which died are
+     * replaced.
+     *
+     * @param queryID
+     *            the query ID
+     * @param query
+     *            the query
+     * @return the future result
+     */
+    public CompletableFuture<List<HyTuple>> submit(String queryID,
+	    String query) {
+	final Slot slot = leastLoaded();
+	E engine;
+	synchronized (slot) {
+	    if (!slot.engine.isAlive()) {
+		LOG.warn("Engine " + slot.index + " died, replacing it");
+		slot.engine.destroy();
+		try {
+		    slot.engine = startEngine();
+		} catch (HySpiritException he) {
+		    CompletableFuture<List<HyTuple>> failed = new CompletableFuture<List<HyTuple>>();
+		    failed.completeExceptionally(he);
+		    slot.failed.incrementAndGet();
+		    return failed;
+		}
+	    }
+	    engine = slot.engine;
+	}
+	slot.submitted.incrementAndGet();
+	CompletableFuture<List<HyTuple>> result = engine.submit(queryID, query);
+	result.whenComplete(new BiConsumer<List<HyTuple>, Throwable>() {
+	    public void accept(List<HyTuple> tuples, Throwable error) {
+		if (error == null)
+		    slot.completed.incrementAndGet();
+		else
+		    slot.failed.incrementAndGet();
+	    }
+	});
+	return result;
+    }
+
+    /**
+     * Sends all queries. The returned map contains the futures in the
+     * iteration order of the given map.
+     *
+     * @param queries
+     *            the queries, with their IDs as keys
+     * @return the future results, with the query IDs as keys
+     */
+    public Map<String, CompletableFuture<List<HyTuple>>> submitAll(
+	    Map<String, String> queries) {
+	Map<String, CompletableFuture<List<HyTuple>>> results = new LinkedHashMap<String, CompletableFuture<List<HyTuple>>>();
+	for (Map.Entry<String, String> query : queries.entrySet())
+	    results.put(query.getKey(),
+		    submit(query.getKey(), query.getValue()));
+	return results;
+    }
+
+    /**
+     * Returns the number of engines
+     *
+     * @return the number of engines
+     */
+    public int size() {
+	return slots.size();
+    }
+
+    /**
+     * Returns the number of queries waiting for their result over all engines
+     *
+     * @return the number of pending queries
+     */
+    public int pendingQueries() {
+	int pending = 0;
+	for (Slot slot : slots)
+	    pending += slot.engine.pendingQueries();
+	return pending;
+    }
+
+    /**
+     * Returns the current statistics of all engines
+     *
+     * @return the statistics, one entry per engine
+     */
+    public List<EngineStats> getStats() {
+	List<EngineStats> stats = new ArrayList<EngineStats>(slots.size());
+	for (Slot slot : slots) {
+	    long completed = slot.completed.get();
+	    double seconds = (System.nanoTime() - slot.started) / 1e9;
+	    stats.add(new EngineStats(slot.index,
+		    slot.engine.pendingQueries(), slot.submitted.get(),
+		    completed, slot.failed.get(),
+		    seconds > 0 ? completed / seconds : 0));
+	}
+	return stats;
+    }
+
+    /**
+     * Destroys all engines. Pending queries fail.
+     */
+    public void close() {
+	for (Slot slot : slots)
+	    synchronized (slot) {
+		slot.engine.destroy();
+	    }
+    }
+}
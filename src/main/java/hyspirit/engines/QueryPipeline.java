@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.TupleBatch;
+import hyspirit.util.StreamPumps;
+
+/**
+ * Pipelines queries into a running inference engine without closing its STDIN.
+ * Each query is followed by the echo of a delimiter. A reader thread splits
+ * the engine output at the delimiters and completes the future of the oldest
+ * pending query with each block, so results become available one by one while
+ * later queries are still being processed. The reader is run by
+ * {@link StreamPumps}.
+ *
+ * @see HyInferenceEngine#submit(String, String)
+ * @since 1.3.0
+ */
+final class QueryPipeline implements Runnable {
+
+    private static Logger LOG = LogManager.getLogger(QueryPipeline.class);
+
+    private final HyInferenceEngine engine;
+    private final BufferedWriter in;
+    private final BufferedReader out;
+    private final String delimiter;
+    private final Pattern delimiterPattern;
+    private final Queue<PendingQuery> pending = new ConcurrentLinkedQueue<PendingQuery>();
+    private volatile IOException failure = null;
+
+    /**
+     * A query waiting for its result
+     */
+    private static class PendingQuery {
+	final String id;
+	final CompletableFuture<List<HyTuple>> result = new CompletableFuture<List<HyTuple>>();
+	final long submitted = System.nanoTime();
+
+	PendingQuery(String id) {
+	    this.id = id;
+	}
+    }
+
+    /**
+     * Constructor of class.
+     *
+     * @param engine
+     *            the running engine
+     * @param delimiter
+     *            the delimiter echoed after each query
+     * @throws IOException
+     *             if the streams of the engine cannot be accessed
+     */
+    QueryPipeline(HyInferenceEngine engine, String delimiter)
+	    throws IOException {
+	this.engine = engine;
+	this.in = engine.getOutputWriter();
+	this.out = engine.getInputReader();
+	this.delimiter = delimiter;
+	this.delimiterPattern = Pattern.compile(delimiter);
+	if (in == null || out == null)
+	    throw new IOException("Engine is not running");
+    }
+
+    /**
+     * Sends a query to the engine.
+     *
+     * @param id
+     *            the query id (used for logging)
+     * @param query
+     *            the query
+     * @return the future result of the query
+     */
+    synchronized CompletableFuture<List<HyTuple>> submit(String id,
+	    String query) {
+	PendingQuery p = new PendingQuery(id);
+	if (failure != null) {
+	    p.result.completeExceptionally(failure);
+	    return p.result;
+	}
+	pending.add(p);
+	try {
+	    in.write(query);
+	    in.newLine();
+	    in.write(engine.echoSpecial(delimiter));
+	    in.newLine();
+	    in.flush();
+	} catch (IOException io) {
+	    fail(new IOException("Could not send query " + id, io));
+	}
+	return p.result;
+    }
+
+    /**
+     * Returns true unless the engine output was closed or a query could not be
+     * sent
+     *
+     * @return whether the pipeline accepts queries
+     */
+    boolean isUsable() {
+	return failure == null;
+    }
+
+    /**
+     * Returns the number of queries waiting for their result
+     *
+     * @return the number of pending queries
+     */
+    int pendingQueries() {
+	return pending.size();
+    }
+
+    /*
+     * Fails all pending queries and all further submissions.
+     */
+    private synchronized void fail(IOException io) {
+	if (failure == null) {
+	    failure = io;
+	    if (engine.metrics != null && !pending.isEmpty())
+		engine.metrics.recordFailure();
+	}
+	PendingQuery p;
+	while ((p = pending.poll()) != null)
+	    p.result.completeExceptionally(failure);
+    }
+
+    /**
+     * Reads the output of the engine and hands it over to the pending queries.
+     */
+    @Override
+    public void run() {
+	TupleBatch batch = new TupleBatch();
+	EngineMetrics metrics = engine.metrics;
+	long previous = 0;
+	String line;
+	try {
+	    while ((line = out.readLine()) != null) {
+		if (metrics != null)
+		    metrics.recordOutput(1, EngineMetrics.lineBytes(line));
+		if (delimiterPattern.matcher(line).find()) {
+		    PendingQuery p = pending.poll();
+		    if (metrics != null && p != null) {
+			long now = System.nanoTime();
+			metrics.recordResponse(
+				now - Math.max(p.submitted, previous));
+			previous = now;
+		    }
+		    if (p != null) {
+			LOG.trace("Result for " + p.id + ": " + batch.size()
+				+ " tuples");
+			p.result.complete(batch.asList());
+		    } else
+			LOG.warn("Got result for unknown query");
+		    batch = new TupleBatch();
+		} else if (!line.trim().equals("") && !line.startsWith("#")) {
+		    try {
+			batch.addLine(line);
+		    } catch (HyTupleFormatException h) {
+			LOG.trace("Couldn't parse " + line);
+		    }
+		}
+	    }
+	    fail(new IOException("Engine output closed"));
+	} catch (IOException io) {
+	    LOG.debug("IOException in QueryPipeline", io);
+	    fail(io);
+	}
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A compact binary format for relations, e.g. tf.mds or idf.mds, which can be
+ * read without parsing text. A binary MDS file consists of
+ * <ul>
+ * <li>a header: the magic number {@link #MAGIC} and the version (two ints)
+ * </li>
+ * <li>blocks of up to {@link BinaryMDSWriter#BLOCK_SIZE} tuples: the number of
+ * tuples and the payload length (ints), the payload and its CRC32 (int). Each
+ * tuple in the payload is its probability (float) followed by the arity and
+ * the dictionary ids of its attribute values (unsigned varints).</li>
+ * <li>the dictionary: the payload length (int), the payload and its CRC32
+ * (int). The payload is the number of strings followed by the UTF-8 length
+ * (varints) and bytes of each string, in the order of their ids.</li>
+ * <li>the block index: the number of blocks (int) and, for each block, its
+ * file offset and the number of its first tuple (longs)</li>
+ * <li>a trailer: the offsets of the dictionary and of the block index, the
+ * number of tuples (longs) and the magic number (int)</li>
+ * </ul>
+ * All numbers are big-endian. Attribute values are stored as they appear in
+ * text MDS, i.e. quoted values keep their quotes. Converting text to binary
+ * and back yields the same tuples; comments and empty lines are dropped, and
+ * probabilities are stored with float precision.
+ *
+ * @since 1.3.0
+ * @see BinaryMDSWriter
+ * @see BinaryMDSReader
+ */
+public final class BinaryMDS {
+
+    /** The magic number ("HYMB") */
+    public static final int MAGIC = 0x48594D42;
+
+    /** The format version */
+    public static final int VERSION = 1;
+
+    /** The length of the header in bytes */
+    static final int HEADER_LENGTH = 8;
+
+    /** The length of the trailer in bytes */
+    static final int TRAILER_LENGTH = 28;
+
+    private BinaryMDS() {
+    }
+
+    /**
+     * Converts a text MDS file into a binary one. Lines which are no tuples
+     * are skipped.
+     *
+     * @param text
+     *            the text MDS file
+     * @param binary
+     *            the binary MDS file to write
+     * @return the number of tuples
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public static long toBinary(File text, File binary) throws IOException {
+	MdsFile mds = new MdsFile(text);
+	BinaryMDSWriter writer = new BinaryMDSWriter(binary);
+	try {
+	    MdsFile.Scanner tuples = mds.scanner();
+	    while (tuples.next())
+		writer.write(tuples);
+	} finally {
+	    writer.close();
+	    mds.close();
+	}
+	return writer.tupleCount();
+    }
+
+    /**
+     * Writes the tuples of a binary MDS file as text MDS, one tuple per line.
+     * Does not close the writer.
+     *
+     * @param binary
+     *            the binary MDS file
+     * @param text
+     *            the writer for the text MDS
+     * @return the number of tuples
+     * @throws IOException
+     *             if the binary file is corrupt or cannot be read, or the
+     *             text cannot be written
+     */
+    public static long toText(File binary, Writer text) throws IOException {
+	BinaryMDSReader reader = new BinaryMDSReader(binary);
+	long tuples = 0;
+	try {
+	    while (reader.next()) {
+		text.write(reader.tuple().toString());
+		text.write('\n');
+		tuples++;
+	    }
+	} finally {
+	    reader.close();
+	}
+	return tuples;
+    }
+
+    /**
+     * Converts a binary MDS file into a text one.
+     *
+     * @param binary
+     *            the binary MDS file
+     * @param text
+     *            the text MDS file to write
+     * @return the number of tuples
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public static long toText(File binary, File text) throws IOException {
+	Writer writer = new BufferedWriter(new FileWriter(text));
+	try {
+	    return toText(binary, writer);
+	} finally {
+	    writer.close();
+	}
+    }
+
+    /*
+     * Appends an unsigned varint to buf at pos, returns the new position
+     */
+    static int writeVarint(byte[] buf, int pos, int value) {
+	while ((value & ~0x7F) != 0) {
+	    buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	buf[pos++] = (byte) value;
+	return pos;
+    }
+}
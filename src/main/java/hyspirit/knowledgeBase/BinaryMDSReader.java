@@ -0,0 +1,318 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a binary MDS file (see {@link BinaryMDS}). The dictionary and the
+ * block index are read when the file is opened; blocks are read and checked
+ * one at a time while the tuples are scanned. {@link #seek(long)} moves to
+ * any tuple by its number. Not thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class BinaryMDSReader implements TupleScanner {
+
+    private final File file;
+    private final FileChannel channel;
+    private final String[] strings;
+    private StringDictionary dictionary = null;
+    private final long tupleCount;
+    private final long[] blockOffsets;
+    private final long[] blockFirstTuples;
+    private final CRC32 crc = new CRC32();
+
+    private int block = -1;
+    private byte[] payload = new byte[0];
+    private int pos = 0;
+    private int remaining = 0;
+    private double probability = 1;
+    private int size = 0;
+    private int[] ids = new int[8];
+
+    /**
+     * Opens a binary MDS file
+     *
+     * @param file
+     *            the file
+     * @throws IOException
+     *             if the file cannot be read or is no binary MDS file
+     */
+    public BinaryMDSReader(File file) throws IOException {
+	this.file = file;
+	this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	try {
+	    long length = channel.size();
+	    if (length < BinaryMDS.HEADER_LENGTH + BinaryMDS.TRAILER_LENGTH)
+		throw new IOException(file + " is no binary MDS file");
+	    ByteBuffer header = read(0, BinaryMDS.HEADER_LENGTH);
+	    if (header.getInt() != BinaryMDS.MAGIC)
+		throw new IOException(file + " is no binary MDS file");
+	    int version = header.getInt();
+	    if (version != BinaryMDS.VERSION)
+		throw new IOException("Unsupported version " + version
+			+ " of " + file);
+	    ByteBuffer trailer = read(length - BinaryMDS.TRAILER_LENGTH,
+		    BinaryMDS.TRAILER_LENGTH);
+	    long dictionaryOffset = trailer.getLong();
+	    long indexOffset = trailer.getLong();
+	    tupleCount = trailer.getLong();
+	    if (trailer.getInt() != BinaryMDS.MAGIC)
+		throw new IOException(file + " is truncated");
+
+	    ByteBuffer dict = ByteBuffer.wrap(readChecked(dictionaryOffset,
+		    "dictionary"));
+	    strings = new String[readVarint(dict)];
+	    for (int id = 0; id < strings.length; id++) {
+		int len = readVarint(dict);
+		strings[id] = new String(dict.array(), dict.position(), len,
+			StandardCharsets.UTF_8);
+		dict.position(dict.position() + len);
+	    }
+
+	    int blocks = read(indexOffset, 4).getInt();
+	    ByteBuffer index = read(indexOffset + 4, blocks * 16);
+	    blockOffsets = new long[blocks];
+	    blockFirstTuples = new long[blocks];
+	    for (int b = 0; b < blocks; b++) {
+		blockOffsets[b] = index.getLong();
+		blockFirstTuples[b] = index.getLong();
+	    }
+	} catch (IOException | RuntimeException e) {
+	    channel.close();
+	    throw e;
+	}
+    }
+
+    /**
+     * Returns the number of tuples in the file
+     *
+     * @return the number of tuples
+     */
+    public long tupleCount() {
+	return tupleCount;
+    }
+
+    /**
+     * Returns the number of blocks in the file
+     *
+     * @return the number of blocks
+     */
+    public int blockCount() {
+	return blockOffsets.length;
+    }
+
+    /**
+     * Returns the dictionary of the attribute values. The ids are those
+     * returned by {@link #valueId(int)}.
+     *
+     * @return the dictionary
+     */
+    public StringDictionary getDictionary() {
+	if (dictionary == null) {
+	    StringDictionary d = new StringDictionary();
+	    for (String s : strings)
+		d.id(s);
+	    dictionary = d;
+	}
+	return dictionary;
+    }
+
+    /**
+     * Moves before the tuple with the given number, so the next invocation of
+     * {@link #next()} returns it.
+     *
+     * @param tuple
+     *            the tuple number (0 for the first tuple)
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void seek(long tuple) throws IOException {
+	if (tuple < 0 || tuple > tupleCount)
+	    throw new IndexOutOfBoundsException("Tuple: " + tuple);
+	if (tuple == tupleCount) {
+	    block = blockOffsets.length - 1;
+	    remaining = 0;
+	    return;
+	}
+	int b = Arrays.binarySearch(blockFirstTuples, tuple);
+	if (b < 0)
+	    b = -b - 2;
+	loadBlock(b);
+	for (long t = blockFirstTuples[b]; t < tuple; t++)
+	    decodeTuple();
+    }
+
+    @Override
+    public boolean next() throws IOException {
+	while (remaining == 0) {
+	    if (block + 1 >= blockOffsets.length)
+		return false;
+	    loadBlock(block + 1);
+	}
+	decodeTuple();
+	return true;
+    }
+
+    @Override
+    public double probability() {
+	return probability;
+    }
+
+    @Override
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the dictionary id of an attribute value of the current tuple
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @return the id
+     */
+    public int valueId(int index) {
+	if (index < 0 || index >= size)
+	    throw new IndexOutOfBoundsException("Attribute index: " + index);
+	return ids[index];
+    }
+
+    @Override
+    public String valueAt(int index) {
+	return strings[valueId(index)];
+    }
+
+    @Override
+    public boolean valueEquals(int index, CharSequence value) {
+	return getDictionary().lookup(value.toString()) == valueId(index);
+    }
+
+    @Override
+    public HyTuple tuple() {
+	String[] values = new String[size];
+	for (int i = 0; i < size; i++)
+	    values[i] = strings[ids[i]];
+	return new HyTuple(probability, values);
+    }
+
+    /**
+     * Closes the file
+     */
+    @Override
+    public void close() throws IOException {
+	channel.close();
+    }
+
+    /*
+     * Reads and checks the given block
+     */
+    private void loadBlock(int b) throws IOException {
+	int tuples = read(blockOffsets[b], 4).getInt();
+	payload = readChecked(blockOffsets[b] + 4, "block " + b);
+	block = b;
+	pos = 0;
+	remaining = tuples;
+    }
+
+    /*
+     * Decodes the next tuple of the current block
+     */
+    private void decodeTuple() throws IOException {
+	if (remaining == 0 || pos + 4 > payload.length)
+	    throw new IOException("Block " + block + " of " + file
+		    + " is corrupt");
+	int bits = (payload[pos] & 0xFF) << 24 | (payload[pos + 1] & 0xFF) << 16
+		| (payload[pos + 2] & 0xFF) << 8 | (payload[pos + 3] & 0xFF);
+	pos += 4;
+	probability = Float.intBitsToFloat(bits);
+	size = nextVarint();
+	if (size > ids.length)
+	    ids = new int[Math.max(size, ids.length * 2)];
+	for (int i = 0; i < size; i++) {
+	    int id = nextVarint();
+	    if (id >= strings.length)
+		throw new IOException("Block " + block + " of " + file
+			+ " is corrupt");
+	    ids[i] = id;
+	}
+	remaining--;
+    }
+
+    private int nextVarint() {
+	int value = 0;
+	int shift = 0;
+	byte b;
+	do {
+	    b = payload[pos++];
+	    value |= (b & 0x7F) << shift;
+	    shift += 7;
+	} while (b < 0);
+	return value;
+    }
+
+    private static int readVarint(ByteBuffer buf) {
+	int value = 0;
+	int shift = 0;
+	byte b;
+	do {
+	    b = buf.get();
+	    value |= (b & 0x7F) << shift;
+	    shift += 7;
+	} while (b < 0);
+	return value;
+    }
+
+    /*
+     * Reads a length, the payload and its CRC32, and returns the checked
+     * payload
+     */
+    private byte[] readChecked(long offset, String what) throws IOException {
+	int length = read(offset, 4).getInt();
+	if (length < 0 || offset + 8 + length > channel.size())
+	    throw new IOException("Corrupt " + what + " in " + file);
+	ByteBuffer buf = read(offset + 4, length + 4);
+	byte[] bytes = new byte[length];
+	buf.get(bytes);
+	crc.reset();
+	crc.update(bytes, 0, length);
+	if (buf.getInt() != (int) crc.getValue())
+	    throw new IOException("Checksum error in " + what + " of " + file);
+	return bytes;
+    }
+
+    /*
+     * Reads the given number of bytes at the given position
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+	ByteBuffer buf = ByteBuffer.allocate(length);
+	while (buf.hasRemaining()) {
+	    if (channel.read(buf, position + buf.position()) < 0)
+		throw new IOException("Unexpected end of " + file);
+	}
+	buf.flip();
+	return buf;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Writes tuples to a binary MDS file (see {@link BinaryMDS}). Attribute values
+ * are collected in a dictionary, which is written together with the block
+ * index when the writer is closed. Not thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class BinaryMDSWriter implements Closeable {
+
+    /** The number of tuples per block */
+    public static final int BLOCK_SIZE = 4096;
+
+    private final DataOutputStream out;
+    private final StringDictionary dictionary = new StringDictionary();
+    private final CRC32 crc = new CRC32();
+    private byte[] block = new byte[1 << 16];
+    private int blockLength = 0;
+    private int blockTuples = 0;
+    private long offset = 0;
+    private long tuples = 0;
+    private long[] blockOffsets = new long[16];
+    private long[] blockFirstTuples = new long[16];
+    private int blocks = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates the given file and writes the header
+     *
+     * @param file
+     *            the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public BinaryMDSWriter(File file) throws IOException {
+	out = new DataOutputStream(new BufferedOutputStream(
+		new FileOutputStream(file), 1 << 16));
+	out.writeInt(BinaryMDS.MAGIC);
+	out.writeInt(BinaryMDS.VERSION);
+	offset = BinaryMDS.HEADER_LENGTH;
+    }
+
+    /**
+     * Writes a tuple
+     *
+     * @param probability
+     *            the probability
+     * @param attributeValues
+     *            the attribute values
+     * @throws IOException
+     *             if the tuple cannot be written
+     */
+    public void write(double probability, String... attributeValues)
+	    throws IOException {
+	ensureCapacity(4 + 5 * (attributeValues.length + 1));
+	int bits = Float.floatToIntBits((float) probability);
+	block[blockLength++] = (byte) (bits >>> 24);
+	block[blockLength++] = (byte) (bits >>> 16);
+	block[blockLength++] = (byte) (bits >>> 8);
+	block[blockLength++] = (byte) bits;
+	blockLength = BinaryMDS.writeVarint(block, blockLength,
+		attributeValues.length);
+	for (String value : attributeValues)
+	    blockLength = BinaryMDS.writeVarint(block, blockLength,
+		    dictionary.id(value));
+	tuples++;
+	if (++blockTuples == BLOCK_SIZE)
+	    flushBlock();
+    }
+
+    /**
+     * Writes a tuple
+     *
+     * @param tuple
+     *            the tuple
+     * @throws IOException
+     *             if the tuple cannot be written
+     */
+    public void write(HyTuple tuple) throws IOException {
+	write(tuple.probability(), tuple.attributeValues());
+    }
+
+    /**
+     * Writes the current tuple of a scanner
+     *
+     * @param tuples
+     *            the scanner
+     * @throws IOException
+     *             if the tuple cannot be written
+     */
+    public void write(TupleScanner tuples) throws IOException {
+	String[] values = new String[tuples.size()];
+	for (int i = 0; i < values.length; i++)
+	    values[i] = tuples.valueAt(i);
+	write(tuples.probability(), values);
+    }
+
+    /**
+     * Returns the number of tuples written so far
+     *
+     * @return the number of tuples
+     */
+    public long tupleCount() {
+	return tuples;
+    }
+
+    private void ensureCapacity(int bytes) {
+	if (blockLength + bytes > block.length)
+	    block = Arrays.copyOf(block,
+		    Math.max(block.length * 2, blockLength + bytes));
+    }
+
+    /*
+     * Writes the current block and its index entry
+     */
+    private void flushBlock() throws IOException {
+	if (blockTuples == 0)
+	    return;
+	if (blocks == blockOffsets.length) {
+	    blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+	    blockFirstTuples = Arrays.copyOf(blockFirstTuples, blocks * 2);
+	}
+	blockOffsets[blocks] = offset;
+	blockFirstTuples[blocks] = tuples - blockTuples;
+	blocks++;
+	out.writeInt(blockTuples);
+	offset += 4;
+	writeChecked(block, blockLength);
+	blockTuples = 0;
+	blockLength = 0;
+    }
+
+    /*
+     * Writes length, payload and CRC32 of the payload
+     */
+    private void writeChecked(byte[] payload, int length) throws IOException {
+	crc.reset();
+	crc.update(payload, 0, length);
+	out.writeInt(length);
+	out.write(payload, 0, length);
+	out.writeInt((int) crc.getValue());
+	offset += length + 8;
+    }
+
+    /**
+     * Writes the remaining tuples, the dictionary, the block index and the
+     * trailer, and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+	if (closed)
+	    return;
+	closed = true;
+	try {
+	    flushBlock();
+
+	    long dictionaryOffset = offset;
+	    int size = dictionary.size();
+	    byte[] payload = new byte[1 << 16];
+	    int length = BinaryMDS.writeVarint(payload, 0, size);
+	    for (int id = 0; id < size; id++) {
+		byte[] bytes = dictionary.value(id)
+			.getBytes(StandardCharsets.UTF_8);
+		if (length + bytes.length + 5 > payload.length)
+		    payload = Arrays.copyOf(payload, Math.max(
+			    payload.length * 2, length + bytes.length + 5));
+		length = BinaryMDS.writeVarint(payload, length, bytes.length);
+		System.arraycopy(bytes, 0, payload, length, bytes.length);
+		length += bytes.length;
+	    }
+	    writeChecked(payload, length);
+
+	    long indexOffset = offset;
+	    out.writeInt(blocks);
+	    for (int b = 0; b < blocks; b++) {
+		out.writeLong(blockOffsets[b]);
+		out.writeLong(blockFirstTuples[b]);
+	    }
+
+	    out.writeLong(dictionaryOffset);
+	    out.writeLong(indexOffset);
+	    out.writeLong(tuples);
+	    out.writeInt(BinaryMDS.MAGIC);
+	} finally {
+	    out.close();
+	}
+    }
+}
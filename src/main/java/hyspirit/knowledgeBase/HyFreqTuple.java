@@ -19,10 +19,6 @@
  */
 package hyspirit.knowledgeBase;
 
-import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * This class represents a tuple as to be found in frequency files. Each tuple
  * has a certain frequency, which is a value >= 1
@@ -74,55 +70,13 @@ public class HyFreqTuple implements Comparable {
      *             if the input line does not represent a frequency tuple
      */
     public HyFreqTuple(String line) throws HyTupleFormatException {
-
-	Matcher m = Pattern.compile("^([0-9]*)").matcher(line);
-	if (m.find()) {
-	    // explicitly given frequency
-	    String freqString = m.group();
-	    this.frequency = Integer.parseInt(freqString);
-	} else {
-	    // no explicitly given frequency value
-	    m = Pattern.compile("^\\s*\\((.*)\\)").matcher(line);
-	    if (m.find())
-		this.frequency = 1;
-	    else
-		throw new HyTupleFormatException(
-			"Malformed probability in tuple!");
+	HyTupleParser parser = HyTupleParser.threadParser();
+	parser.parseFrequencyTuple(line);
+	this.frequency = parser.frequency();
+	this.attributeValues = new String[parser.size() + 1];
+	for (int i = 0; i < parser.size(); i++) {
+	    this.attributeValues[i] = parser.valueAt(i);
 	}
-
-	/*
-	 * We match attributes by matching the first attribute, removing it,
-	 * matching the first attribute from the remaining attribute string,
-	 * etc.
-	 */
-	m = Pattern.compile("\\((.*)\\)").matcher(line);
-	if (m.find()) {
-	    String attributeString = m.group().substring(1,
-		    m.group().length() - 1); // remove brackets
-
-	    m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
-		    .matcher(attributeString);
-	    Vector<String> attValues = new Vector<String>();
-	    while (m.find() && !attributeString.equals("")) {
-		String attributeValue = m.group();
-		attributeString = attributeString
-			.substring(m.end(), attributeString.length())
-			.trim();
-		if (attributeValue.endsWith(","))
-		    // remove last ','
-		    attributeValue = attributeValue.substring(0,
-			    attributeValue.length() - 1);
-		attValues.add(attributeValue.trim());
-		m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
-			.matcher(attributeString);
-	    }
-
-	    this.attributeValues = new String[attValues.size() + 1];
-	    for (int i = 0; i < attValues.size(); i++) {
-		this.attributeValues[i] = attValues.elementAt(i);
-	    }
-	} else
-	    throw new HyTupleFormatException("Malformed attributes in tuple!");
 	this.stringRepresentation = line;
     }
 
@@ -25,9 +25,6 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.Locale;
-import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class represents a tuples as to be found in MDS files or as output of
@@ -77,7 +74,7 @@ public class HyTuple implements Comparable<HyTuple>, Serializable {
      *            the tuple to copy
      */
     public HyTuple(HyTuple tuple) {
-	this(tuple.probability, tuple.attributeValues.clone());
+	this(tuple.probability(), tuple.attributeValues().clone());
 	setRelationName(tuple.getRelationName());
     }
 
@@ -162,59 +159,23 @@ public class HyTuple implements Comparable<HyTuple>, Serializable {
      *             if the input line does not represent a tuple
      */
     public HyTuple(String line) throws HyTupleFormatException {
+	HyTupleParser parser = HyTupleParser.threadParser();
+	parser.parse(line);
+	this.probability = parser.probability();
+	this.attributeValues = parser.attributeValues();
+    }
 
-	Matcher m = Pattern.compile("^([10](\\.[0-9]*)?)").matcher(line);
-	if (m.find()) {
-	    String probString = m.group();
-	    this.probability = Float.parseFloat(probString);
-	}
-	else {
-	    m = Pattern.compile("^\\s*\\((.*)\\)").matcher(line);
-	    if (m.find())
-		this.probability = 1;
-	    else
-		throw new HyTupleFormatException(
-			"Malformed probability in tuple!");
-	}
-
-	/*
-	 * We match attributes by matching the first attribute, removing it,
-	 * matching the first attribute from the remaining attribute string,
-	 * etc.
-	 */
-	m = Pattern.compile("\\((.*)\\)").matcher(line);
-	if (m.find()) {
-	    String attributeString =
-		    m.group().substring(1, m.group().length() - 1); // remove
-								    // brackets
-
-	    m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
-		    .matcher(attributeString);
-	    Vector<String> attValues = new Vector<String>();
-	    while (m.find() && !attributeString.equals("")) {
-		String attributeValue = m.group();
-		attributeString =
-			attributeString.substring(m.end(),
-				attributeString.length())
-				.trim();
-		if (attributeValue.endsWith(","))
-		    // remove last ','
-		    attributeValue =
-			    attributeValue.substring(0,
-				    attributeValue.length() - 1);
-		attValues.add(attributeValue.trim());
-		m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
-			.matcher(attributeString);
-	    }
-
-	    this.attributeValues = new String[attValues.size()];
-	    for (int i = 0; i < attValues.size(); i++) {
-		this.attributeValues[i] = attValues.elementAt(i);
-	    }
-	}
-	else
-	    throw new HyTupleFormatException("Malformed attributes in tuple!");
-	// this.stringRepresentation = line;
+    /**
+     * Constructor of class. Creates a HyTuple from the tuple the given parser
+     * parsed last, e.g. from a window of a larger buffer.
+     * 
+     * @param parser
+     *            the parser
+     * @since 1.3.0
+     */
+    public HyTuple(HyTupleParser parser) {
+	this.probability = parser.probability();
+	this.attributeValues = parser.attributeValues();
     }
 
     /**
@@ -292,18 +253,20 @@ public class HyTuple implements Comparable<HyTuple>, Serializable {
     public String toString() {
 	// we don't print '1'
 	String probPrefix =
-		this.probability == 1 ? "" : probabilityString() + " ";
+		probability() == 1 ? "" : probabilityString() + " ";
 	String relName = "";
 	if (this.printRelName && this.relationName != null)
 	    relName = this.relationName;
-	String stringRepresentation = probPrefix + relName + "(";
-	for (int i = 0; i < attributeValues.length; i++) {
-	    stringRepresentation += attributeValues[i];
-	    if (i < attributeValues.length - 1)
-		stringRepresentation += ", ";
+	StringBuilder stringRepresentation =
+		new StringBuilder(probPrefix).append(relName).append('(');
+	int size = size();
+	for (int i = 0; i < size; i++) {
+	    stringRepresentation.append(valueAt(i));
+	    if (i < size - 1)
+		stringRepresentation.append(", ");
 	}
-	stringRepresentation += ")";
-	return stringRepresentation;
+	stringRepresentation.append(')');
+	return stringRepresentation.toString();
     }
 
     /**
@@ -319,7 +282,7 @@ public class HyTuple implements Comparable<HyTuple>, Serializable {
 	DecimalFormat form =
 		(DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
 	form.applyPattern("#.######");
-	return form.format(this.probability);
+	return form.format(probability());
     }
 
     /**
@@ -360,9 +323,9 @@ public class HyTuple implements Comparable<HyTuple>, Serializable {
     public int hashCode() {
 	final int prime = 31;
 	int result = 1;
-	result = prime * result + Arrays.hashCode(this.attributeValues);
+	result = prime * result + Arrays.hashCode(attributeValues());
 	long temp;
-	temp = Double.doubleToLongBits(this.probability);
+	temp = Double.doubleToLongBits(probability());
 	result = prime * result + (int) (temp ^ (temp >>> 32));
 	result = prime * result + ((this.relationName == null) ? 0
 		: this.relationName.hashCode());
@@ -386,11 +349,11 @@ public class HyTuple implements Comparable<HyTuple>, Serializable {
 	    return false;
 	}
 	HyTuple other = (HyTuple) obj;
-	if (!Arrays.equals(this.attributeValues, other.attributeValues)) {
+	if (!Arrays.equals(attributeValues(), other.attributeValues())) {
 	    return false;
 	}
-	if (Double.doubleToLongBits(this.probability) != Double
-		.doubleToLongBits(other.probability)) {
+	if (Double.doubleToLongBits(probability()) != Double
+		.doubleToLongBits(other.probability())) {
 	    return false;
 	}
 	if (this.relationName == null) {
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+/**
+ * A single-pass parser for tuple lines as found in MDS and frequency files or
+ * as output of inference engines, i.e. <br>
+ * &lt;prob&gt; (&lt;tokenelement_1&gt;,...,&lt;tokenelement_n&gt;) <br>
+ * It yields the same probabilities and attribute values as the regular
+ * expressions used by {@link HyTuple#HyTuple(String)} and
+ * {@link HyFreqTuple#HyFreqTuple(String)} did before, including quoted values
+ * containing commas, but scans the line only once. Parsing only records the
+ * positions of the attribute values, so a parser instance can be reused for
+ * many lines, and strings are created only if they are requested with
+ * {@link #valueAt(int)} or {@link #attributeValues()}. Lines can be given as
+ * a {@link CharSequence} or a window of a char array, so they need not be
+ * converted to a String before parsing.
+ * <p>
+ * Instances are not thread-safe; use {@link #threadParser()} for a parser
+ * owned by the current thread.
+ *
+ * @since 1.3.0
+ */
+public final class HyTupleParser {
+
+    private static final ThreadLocal<HyTupleParser> PARSERS = new ThreadLocal<HyTupleParser>() {
+	@Override
+	protected HyTupleParser initialValue() {
+	    return new HyTupleParser();
+	}
+    };
+
+    /** Powers of ten exactly representable as float */
+    private static final float[] POW10 = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f,
+	    1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    private CharSequence seq = null;
+    private char[] chars = null;
+
+    private double probability = 1;
+    private int frequency = 1;
+    private int size = 0;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+
+    /**
+     * Returns a parser owned by the current thread
+     *
+     * @return the parser of this thread
+     */
+    public static HyTupleParser threadParser() {
+	return PARSERS.get();
+    }
+
+    /**
+     * Parses a tuple line with a probability.
+     *
+     * @param line
+     *            the line
+     * @throws HyTupleFormatException
+     *             if the line does not represent a tuple
+     */
+    public void parse(CharSequence line) throws HyTupleFormatException {
+	parse(line, 0, line.length());
+    }
+
+    /**
+     * Parses the tuple with a probability found between start (inclusive) and
+     * end (exclusive) of the given sequence.
+     *
+     * @param line
+     *            the character sequence containing the tuple
+     * @param start
+     *            the start of the tuple
+     * @param end
+     *            the end of the tuple
+     * @throws HyTupleFormatException
+     *             if the window does not represent a tuple
+     */
+    public void parse(CharSequence line, int start, int end)
+	    throws HyTupleFormatException {
+	this.seq = line;
+	this.chars = null;
+	parse(start, end, false);
+    }
+
+    /**
+     * Parses the tuple with a probability found between start (inclusive) and
+     * end (exclusive) of the given buffer.
+     *
+     * @param buf
+     *            the buffer containing the tuple
+     * @param start
+     *            the start of the tuple
+     * @param end
+     *            the end of the tuple
+     * @throws HyTupleFormatException
+     *             if the window does not represent a tuple
+     */
+    public void parse(char[] buf, int start, int end)
+	    throws HyTupleFormatException {
+	this.seq = null;
+	this.chars = buf;
+	parse(start, end, false);
+    }
+
+    /**
+     * Parses a tuple line with a frequency.
+     *
+     * @param line
+     *            the line
+     * @throws HyTupleFormatException
+     *             if the line does not represent a tuple
+     * @throws NumberFormatException
+     *             if the line does not start with a frequency
+     */
+    public void parseFrequencyTuple(CharSequence line)
+	    throws HyTupleFormatException {
+	parseFrequencyTuple(line, 0, line.length());
+    }
+
+    /**
+     * Parses the tuple with a frequency found between start (inclusive) and
+     * end (exclusive) of the given sequence.
+     *
+     * @param line
+     *            the character sequence containing the tuple
+     * @param start
+     *            the start of the tuple
+     * @param end
+     *            the end of the tuple
+     * @throws HyTupleFormatException
+     *             if the window does not represent a tuple
+     * @throws NumberFormatException
+     *             if the window does not start with a frequency
+     */
+    public void parseFrequencyTuple(CharSequence line, int start, int end)
+	    throws HyTupleFormatException {
+	this.seq = line;
+	this.chars = null;
+	parse(start, end, true);
+    }
+
+    /**
+     * Returns the probability of the tuple parsed last
+     *
+     * @return the probability
+     */
+    public double probability() {
+	return probability;
+    }
+
+    /**
+     * Returns the frequency of the frequency tuple parsed last
+     *
+     * @return the frequency
+     */
+    public int frequency() {
+	return frequency;
+    }
+
+    /**
+     * Returns the number of attributes of the tuple parsed last
+     *
+     * @return the number of attributes
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the start position of an attribute value in the parsed line
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @return the start position (inclusive)
+     */
+    public int valueStart(int index) {
+	checkIndex(index);
+	return starts[index];
+    }
+
+    /**
+     * Returns the end position of an attribute value in the parsed line
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @return the end position (exclusive)
+     */
+    public int valueEnd(int index) {
+	checkIndex(index);
+	return ends[index];
+    }
+
+    /**
+     * Returns the attribute value at the give index as a new string
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @return the attribute value
+     */
+    public String valueAt(int index) {
+	checkIndex(index);
+	int s = starts[index];
+	int e = ends[index];
+	if (chars != null)
+	    return new String(chars, s, e - s);
+	if (seq instanceof String)
+	    return ((String) seq).substring(s, e);
+	return seq.subSequence(s, e).toString();
+    }
+
+    /**
+     * Compares an attribute value with the given string without creating a
+     * string for the attribute value.
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @param value
+     *            the value to compare with
+     * @return true if the attribute value equals the given value
+     */
+    public boolean valueEquals(int index, CharSequence value) {
+	checkIndex(index);
+	int s = starts[index];
+	int len = ends[index] - s;
+	if (len != value.length())
+	    return false;
+	for (int i = 0; i < len; i++)
+	    if (charAt(s + i) != value.charAt(i))
+		return false;
+	return true;
+    }
+
+    /**
+     * Returns all attribute values of the tuple parsed last as new strings
+     *
+     * @return the attribute values
+     */
+    public String[] attributeValues() {
+	String[] values = new String[size];
+	for (int i = 0; i < size; i++)
+	    values[i] = valueAt(i);
+	return values;
+    }
+
+    private void checkIndex(int index) {
+	if (index < 0 || index >= size)
+	    throw new IndexOutOfBoundsException("Attribute index: " + index);
+    }
+
+    private char charAt(int i) {
+	return chars != null ? chars[i] : seq.charAt(i);
+    }
+
+    /*
+     * Line terminators as recognised by '.' in java.util.regex
+     */
+    private static boolean isLineTerminator(char c) {
+	return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+		|| c == '\u2029';
+    }
+
+    /*
+     * White space as recognised by '\s' in java.util.regex
+     */
+    private static boolean isRegexSpace(char c) {
+	return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+		|| c == '\f' || c == '\r';
+    }
+
+    /*
+     * Returns the position of the last ')' following the given position in the
+     * same line, or -1 if there is none
+     */
+    private int closingBracket(int open, int end) {
+	int close = -1;
+	for (int i = open + 1; i < end; i++) {
+	    char c = charAt(i);
+	    if (c == ')')
+		close = i;
+	    else if (isLineTerminator(c))
+		break;
+	}
+	return close;
+    }
+
+    private void parse(int start, int end, boolean withFrequency)
+	    throws HyTupleFormatException {
+	size = 0;
+	if (withFrequency)
+	    parseFrequency(start, end);
+	else
+	    parseProbability(start, end);
+
+	// the leftmost '(' which is closed in the same line, and the last ')'
+	// in that line
+	int open = -1;
+	int close = -1;
+	int i = start;
+	while (i < end && close < 0) {
+	    if (charAt(i) == '(') {
+		close = closingBracket(i, end);
+		if (close >= 0)
+		    open = i;
+		else
+		    while (i < end && !isLineTerminator(charAt(i)))
+			i++;
+	    } else
+		i++;
+	}
+	if (close < 0)
+	    throw new HyTupleFormatException("Malformed attributes in tuple!");
+	parseAttributes(open + 1, close);
+    }
+
+    /*
+     * The probability is either 0 or 1 optionally followed by a decimal point
+     * and digits at the very beginning, or 1 if the line starts with a
+     * bracket (after optional white space).
+     */
+    private void parseProbability(int start, int end)
+	    throws HyTupleFormatException {
+	char c = start < end ? charAt(start) : 0;
+	if (c == '0' || c == '1') {
+	    int i = start + 1;
+	    long mantissa = c - '0';
+	    int decimals = 0;
+	    if (i < end && charAt(i) == '.') {
+		i++;
+		while (i < end && (c = charAt(i)) >= '0' && c <= '9') {
+		    if (decimals < 18)
+			mantissa = mantissa * 10 + (c - '0');
+		    decimals++;
+		    i++;
+		}
+	    }
+	    if (decimals < POW10.length && mantissa < (1 << 24))
+		// exact operands, so the division is rounded like parseFloat()
+		probability = (float) mantissa / POW10[decimals];
+	    else
+		probability = Float.parseFloat(chars != null
+			? new String(chars, start, i - start)
+			: seq.subSequence(start, i).toString());
+	} else {
+	    int i = start;
+	    while (i < end && isRegexSpace(charAt(i)))
+		i++;
+	    if (i < end && charAt(i) == '(' && closingBracket(i, end) >= 0)
+		probability = 1;
+	    else
+		throw new HyTupleFormatException(
+			"Malformed probability in tuple!");
+	}
+    }
+
+    /*
+     * The frequency consists of the digits at the very beginning. As with
+     * Integer.parseInt(), a missing or too large frequency results in a
+     * NumberFormatException.
+     */
+    private void parseFrequency(int start, int end) {
+	long value = 0;
+	int i = start;
+	char c;
+	while (i < end && (c = charAt(i)) >= '0' && c <= '9') {
+	    value = value * 10 + (c - '0');
+	    if (value > Integer.MAX_VALUE)
+		break;
+	    i++;
+	}
+	if (i == start || value > Integer.MAX_VALUE) {
+	    while (i < end && (c = charAt(i)) >= '0' && c <= '9')
+		i++;
+	    throw new NumberFormatException("For input string: \""
+		    + (chars != null ? new String(chars, start, i - start)
+			    : seq.subSequence(start, i).toString())
+		    + "\"");
+	}
+	frequency = (int) value;
+    }
+
+    /*
+     * Splits the attribute string between the brackets. Values are either
+     * quoted strings (which may contain commas) or anything up to the next
+     * comma or quote. White space around values is removed.
+     */
+    private void parseAttributes(int from, int to)
+	    throws HyTupleFormatException {
+	if (from == to)
+	    return;
+	int end = to;
+	while (end > from && charAt(end - 1) <= ' ')
+	    end--;
+	int pos = from;
+	while (true) {
+	    int valueEnd;
+	    int next;
+	    if (pos < end && charAt(pos) == '"') {
+		int quote = pos + 1;
+		while (quote < end && charAt(quote) != '"')
+		    quote++;
+		if (quote >= end)
+		    throw new HyTupleFormatException(
+			    "Unbalanced quotes in tuple!");
+		valueEnd = quote + 1;
+	    } else {
+		valueEnd = pos;
+		char c;
+		while (valueEnd < end && (c = charAt(valueEnd)) != ','
+			&& c != '"')
+		    valueEnd++;
+	    }
+	    next = valueEnd;
+	    if (next < end && charAt(next) == ',')
+		next++;
+	    addValue(pos, valueEnd);
+
+	    pos = next;
+	    while (pos < end && charAt(pos) <= ' ')
+		pos++;
+	    if (pos >= end)
+		break;
+	}
+    }
+
+    private void addValue(int start, int end) {
+	while (start < end && charAt(start) <= ' ')
+	    start++;
+	while (end > start && charAt(end - 1) <= ' ')
+	    end--;
+	if (size == starts.length) {
+	    int[] s = new int[size * 2];
+	    int[] e = new int[size * 2];
+	    System.arraycopy(starts, 0, s, 0, size);
+	    System.arraycopy(ends, 0, e, 0, size);
+	    starts = s;
+	    ends = e;
+	}
+	starts[size] = start;
+	ends[size] = end;
+	size++;
+    }
+}
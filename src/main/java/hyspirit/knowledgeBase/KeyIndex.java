@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A persistent, memory-mapped set of strings (e.g. document URIs) answering
+ * membership queries in constant time without loading the keys into the
+ * heap. Files are written by {@link KeyIndexWriter}. The file consists of
+ * <ul>
+ * <li>a header (magic number, version, number of keys, number of Bloom
+ * filter bits and hash functions, number of hash bits of the directory),</li>
+ * <li>a Bloom filter, answering most queries for absent keys,</li>
+ * <li>a directory with the first entry of each bucket, the buckets being
+ * given by the high bits of the key hashes,</li>
+ * <li>the entries (64 bit hash, offset of the key), sorted by hash,</li>
+ * <li>the keys (length and UTF-8 bytes) in the order of the entries.</li>
+ * </ul>
+ * Instances are thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class KeyIndex implements Closeable {
+
+    /** The magic number at the beginning of the file ("HYKI") */
+    static final int MAGIC = 0x48594B49;
+
+    /** The format version */
+    static final int VERSION = 1;
+
+    /** The length of the header in bytes */
+    static final int HEADER_LENGTH = 32;
+
+    private final File file;
+    private final FileChannel channel;
+    private final MappedSegments data;
+    private final long size;
+    private final long bloomBits;
+    private final int bloomHashes;
+    private final int bucketBits;
+    private final long directory;
+    private final long entries;
+    private final long keys;
+
+    /**
+     * Opens a key index
+     *
+     * @param file
+     *            the file
+     * @throws IOException
+     *             if the file cannot be read or is no key index
+     */
+    public KeyIndex(File file) throws IOException {
+	this.file = file;
+	this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	try {
+	    long length = channel.size();
+	    if (length < HEADER_LENGTH)
+		throw new IOException(file + " is no key index");
+	    data = new MappedSegments(channel, 0, length);
+	    if (data.getInt(0) != MAGIC)
+		throw new IOException(file + " is no key index");
+	    int version = data.getInt(4);
+	    if (version != VERSION)
+		throw new IOException("Unsupported version " + version
+			+ " of " + file);
+	    size = data.getLong(8);
+	    bloomBits = data.getLong(16);
+	    bloomHashes = data.getInt(24);
+	    bucketBits = data.getInt(28);
+	    directory = HEADER_LENGTH + bloomBits / 8;
+	    entries = directory + ((1L << bucketBits) + 1) * 8;
+	    keys = entries + size * 16;
+	    if (keys > length)
+		throw new IOException(file + " is truncated");
+	} catch (IOException io) {
+	    channel.close();
+	    throw io;
+	}
+    }
+
+    /**
+     * Returns the file
+     *
+     * @return the file
+     */
+    public File getFile() {
+	return file;
+    }
+
+    /**
+     * Returns the number of keys
+     *
+     * @return the number of keys
+     */
+    public long size() {
+	return size;
+    }
+
+    /**
+     * Returns false if the key is definitely not in the set. A true result
+     * is wrong for about one percent of absent keys.
+     *
+     * @param key
+     *            the key
+     * @return whether the key might be in the set
+     */
+    public boolean mightContain(String key) {
+	return mightContain(hash(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns true if the key is in the set
+     *
+     * @param key
+     *            the key
+     * @return whether the key is in the set
+     */
+    public boolean contains(String key) {
+	byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+	long h = hash(bytes);
+	if (!mightContain(h))
+	    return false;
+	long bucket = bucketBits == 0 ? 0 : h >>> (64 - bucketBits);
+	long end = data.getLong(directory + (bucket + 1) * 8);
+	for (long e = data.getLong(directory + bucket * 8); e < end; e++) {
+	    long entryHash = data.getLong(entries + e * 16);
+	    if (Long.compareUnsigned(entryHash, h) > 0)
+		break;
+	    if (entryHash == h) {
+		long offset = keys + data.getLong(entries + e * 16 + 8);
+		if (data.getInt(offset) == bytes.length
+			&& data.equals(offset + 4, bytes))
+		    return true;
+	    }
+	}
+	return false;
+    }
+
+    private boolean mightContain(long h) {
+	if (bloomBits == 0)
+	    return false;
+	long h1 = h & 0xFFFFFFFFL;
+	long h2 = h >>> 32 | 1;
+	for (int i = 0; i < bloomHashes; i++) {
+	    long bit = (h1 + i * h2) % bloomBits;
+	    if ((data.get(HEADER_LENGTH + (bit >>> 3)) & 1 << (bit & 7)) == 0)
+		return false;
+	}
+	return true;
+    }
+
+    /**
+     * Returns the 64 bit hash of a key (FNV-1a, with the finaliser of
+     * MurmurHash3 to spread the bits)
+     */
+    static long hash(byte[] bytes) {
+	long h = 0xcbf29ce484222325L;
+	for (byte b : bytes) {
+	    h ^= b & 0xFF;
+	    h *= 0x100000001b3L;
+	}
+	h ^= h >>> 33;
+	h *= 0xff51afd7ed558ccdL;
+	h ^= h >>> 33;
+	h *= 0xc4ceb9fe1a85ec53L;
+	h ^= h >>> 33;
+	return h;
+    }
+
+    /**
+     * Closes the file. The mapping is released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+	channel.close();
+    }
+}
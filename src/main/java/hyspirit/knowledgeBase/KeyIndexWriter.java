@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link KeyIndex}. Keys are spooled to a temporary file next to
+ * the target while they are added; only their hashes and offsets (16 bytes
+ * per key) are kept in memory. Duplicate keys are stored once. The index is
+ * built by {@link #close()} and replaces the target file atomically, so
+ * readers of an older version of the file are not disturbed.
+ *
+ * <pre>
+ * KeyIndexWriter writer = new KeyIndexWriter(new File("docs.keys"));
+ * writer.add("http://example.org/doc1");
+ * writer.close();
+ * KeyIndex index = new KeyIndex(new File("docs.keys"));
+ * index.contains("http://example.org/doc1"); // true
+ * </pre>
+ *
+ * @since 1.3.0
+ */
+public class KeyIndexWriter implements Closeable {
+
+    /** The number of Bloom filter bits per key */
+    static final int BLOOM_BITS_PER_KEY = 10;
+
+    /** The number of Bloom filter hash functions, optimal for 10 bits */
+    static final int BLOOM_HASHES = 7;
+
+    private final File file;
+    private final File spool;
+    private DataOutputStream out;
+    private long[] hashes = new long[1024];
+    private long[] offsets = new long[1024];
+    private int count = 0;
+    private long spooled = 0;
+
+    /**
+     * Creates a writer
+     *
+     * @param file
+     *            the index file to be written
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    public KeyIndexWriter(File file) throws IOException {
+	this.file = file;
+	this.spool = new File(file.getPath() + ".spool");
+	this.out = new DataOutputStream(new BufferedOutputStream(
+		new FileOutputStream(spool)));
+    }
+
+    /**
+     * Adds a key
+     *
+     * @param key
+     *            the key
+     * @throws IOException
+     *             if the key cannot be written
+     */
+    public void add(String key) throws IOException {
+	byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+	if (count == hashes.length) {
+	    hashes = Arrays.copyOf(hashes, count * 2);
+	    offsets = Arrays.copyOf(offsets, count * 2);
+	}
+	hashes[count] = KeyIndex.hash(bytes);
+	offsets[count++] = spooled;
+	out.writeInt(bytes.length);
+	out.write(bytes);
+	spooled += 4 + bytes.length;
+    }
+
+    /**
+     * Builds the index file and deletes the temporary file
+     *
+     * @throws IOException
+     *             if the index cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+	if (out == null)
+	    return;
+	out.close();
+	out = null;
+	File tmp = new File(file.getPath() + ".tmp");
+	FileChannel channel = FileChannel.open(spool.toPath(),
+		StandardOpenOption.READ);
+	try {
+	    MappedSegments keys = spooled == 0 ? null
+		    : new MappedSegments(channel, 0, spooled);
+	    write(tmp, keys);
+	} finally {
+	    channel.close();
+	    spool.delete();
+	}
+	Files.move(tmp.toPath(), file.toPath(),
+		StandardCopyOption.REPLACE_EXISTING,
+		StandardCopyOption.ATOMIC_MOVE);
+	hashes = offsets = null;
+    }
+
+    /*
+     * Sorts the entries by bucket and hash, removes duplicates and writes
+     * the file
+     */
+    private void write(File tmp, MappedSegments keys) throws IOException {
+	int bucketBits = 0;
+	while ((1L << bucketBits) < count / 2)
+	    bucketBits++;
+	int buckets = 1 << bucketBits;
+
+	// counting sort by bucket
+	long[] start = new long[buckets + 1];
+	for (int i = 0; i < count; i++)
+	    start[bucket(hashes[i], bucketBits) + 1]++;
+	for (int b = 0; b < buckets; b++)
+	    start[b + 1] += start[b];
+	long[] sortedHashes = new long[count];
+	long[] sortedOffsets = new long[count];
+	long[] next = Arrays.copyOf(start, buckets);
+	for (int i = 0; i < count; i++) {
+	    int j = (int) next[bucket(hashes[i], bucketBits)]++;
+	    sortedHashes[j] = hashes[i];
+	    sortedOffsets[j] = offsets[i];
+	}
+	hashes = offsets = null;
+
+	// sort each bucket by hash, dropping duplicate keys
+	long[] directory = new long[buckets + 1];
+	int unique = 0;
+	for (int b = 0; b < buckets; b++) {
+	    directory[b] = unique;
+	    int from = (int) start[b];
+	    int to = (int) start[b + 1];
+	    for (int i = from + 1; i < to; i++) {
+		long h = sortedHashes[i];
+		long o = sortedOffsets[i];
+		int j = i - 1;
+		while (j >= from && Long.compareUnsigned(sortedHashes[j], h) > 0) {
+		    sortedHashes[j + 1] = sortedHashes[j];
+		    sortedOffsets[j + 1] = sortedOffsets[j];
+		    j--;
+		}
+		sortedHashes[j + 1] = h;
+		sortedOffsets[j + 1] = o;
+	    }
+	    for (int i = from; i < to; i++) {
+		boolean duplicate = false;
+		for (int j = unique - 1; j >= directory[b]
+			&& sortedHashes[j] == sortedHashes[i]; j--)
+		    if (sameKey(keys, sortedOffsets[j], sortedOffsets[i])) {
+			duplicate = true;
+			break;
+		    }
+		if (!duplicate) {
+		    sortedHashes[unique] = sortedHashes[i];
+		    sortedOffsets[unique++] = sortedOffsets[i];
+		}
+	    }
+	}
+	directory[buckets] = unique;
+
+	// Bloom filter
+	long bloomBits = ((long) unique * BLOOM_BITS_PER_KEY + 63) / 64 * 64;
+	byte[] bloom = new byte[(int) Math.min(Integer.MAX_VALUE - 8,
+		bloomBits / 8)];
+	bloomBits = (long) bloom.length * 8;
+	for (int i = 0; i < unique; i++) {
+	    long h1 = sortedHashes[i] & 0xFFFFFFFFL;
+	    long h2 = sortedHashes[i] >>> 32 | 1;
+	    for (int k = 0; k < BLOOM_HASHES; k++) {
+		long bit = (h1 + k * h2) % bloomBits;
+		bloom[(int) (bit >>> 3)] |= 1 << (bit & 7);
+	    }
+	}
+
+	DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(
+		new FileOutputStream(tmp), 1 << 16));
+	try {
+	    dos.writeInt(KeyIndex.MAGIC);
+	    dos.writeInt(KeyIndex.VERSION);
+	    dos.writeLong(unique);
+	    dos.writeLong(bloomBits);
+	    dos.writeInt(BLOOM_HASHES);
+	    dos.writeInt(bucketBits);
+	    dos.write(bloom);
+	    for (long d : directory)
+		dos.writeLong(d);
+	    long offset = 0;
+	    for (int i = 0; i < unique; i++) {
+		dos.writeLong(sortedHashes[i]);
+		dos.writeLong(offset);
+		offset += 4 + keys.getInt(sortedOffsets[i]);
+	    }
+	    byte[] buf = new byte[256];
+	    for (int i = 0; i < unique; i++) {
+		int length = keys.getInt(sortedOffsets[i]);
+		if (buf.length < length)
+		    buf = new byte[length];
+		keys.get(sortedOffsets[i] + 4, buf, 0, length);
+		dos.writeInt(length);
+		dos.write(buf, 0, length);
+	    }
+	} finally {
+	    dos.close();
+	}
+    }
+
+    private static int bucket(long hash, int bucketBits) {
+	return bucketBits == 0 ? 0 : (int) (hash >>> (64 - bucketBits));
+    }
+
+    private static boolean sameKey(MappedSegments keys, long a, long b) {
+	int length = keys.getInt(a);
+	if (keys.getInt(b) != length)
+	    return false;
+	for (int i = 4; i < length + 4; i++)
+	    if (keys.get(a + i) != keys.get(b + i))
+		return false;
+	return true;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only memory mapping of a region of a file which may be larger than
+ * 2 GB, split into segments of 1 GB. Reads at absolute positions only, so
+ * instances can be shared by threads.
+ *
+ * @since 1.3.0
+ */
+final class MappedSegments {
+
+    static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long length;
+
+    /**
+     * Maps a region of the file
+     *
+     * @param channel
+     *            the file channel
+     * @param offset
+     *            the start of the region in the file
+     * @param length
+     *            the length of the region
+     * @throws IOException
+     *             if the region cannot be mapped
+     */
+    MappedSegments(FileChannel channel, long offset, long length)
+	    throws IOException {
+	this.length = length;
+	int n = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+	segments = new MappedByteBuffer[n];
+	for (int i = 0; i < n; i++) {
+	    long start = (long) i << SEGMENT_BITS;
+	    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+		    offset + start, Math.min(length - start, 1L << SEGMENT_BITS));
+	}
+    }
+
+    long length() {
+	return length;
+    }
+
+    byte get(long pos) {
+	return segments[(int) (pos >>> SEGMENT_BITS)].get((int) (pos
+		& SEGMENT_MASK));
+    }
+
+    int getInt(long pos) {
+	int s = (int) (pos >>> SEGMENT_BITS);
+	int p = (int) (pos & SEGMENT_MASK);
+	if (p + 4 <= segments[s].limit())
+	    return segments[s].getInt(p);
+	int value = 0;
+	for (int i = 0; i < 4; i++)
+	    value = value << 8 | (get(pos + i) & 0xFF);
+	return value;
+    }
+
+    long getLong(long pos) {
+	int s = (int) (pos >>> SEGMENT_BITS);
+	int p = (int) (pos & SEGMENT_MASK);
+	if (p + 8 <= segments[s].limit())
+	    return segments[s].getLong(p);
+	return (long) getInt(pos) << 32 | (getInt(pos + 4) & 0xFFFFFFFFL);
+    }
+
+    void get(long pos, byte[] dst, int off, int len) {
+	for (int i = 0; i < len; i++)
+	    dst[off + i] = get(pos + i);
+    }
+
+    /**
+     * Compares the bytes at the position with the given ones
+     */
+    boolean equals(long pos, byte[] bytes) {
+	if (pos + bytes.length > length)
+	    return false;
+	for (int i = 0; i < bytes.length; i++)
+	    if (get(pos + i) != bytes[i])
+		return false;
+	return true;
+    }
+}
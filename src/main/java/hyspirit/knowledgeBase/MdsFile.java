@@ -0,0 +1,383 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A memory-mapped MDS file. Its tuples are read with a {@link Scanner}, which
+ * scans the lines directly in the mapped bytes: the tuple syntax is checked by
+ * a {@link HyTupleParser} working on the bytes, and attribute values are only
+ * decoded (as UTF-8) if they are requested as strings. Values and
+ * probabilities are also available as byte slices of the file.
+ * <p>
+ * Large files can be scanned in parallel with the scanners returned by
+ * {@link #split(int)}, which cover disjoint ranges of whole lines. Each
+ * scanner maps its range in windows, so files larger than 2 GB are supported
+ * as long as a single line fits into a window.
+ * <p>
+ * Empty lines and comments ('#') are skipped, as are lines which are no
+ * tuples; {@link Scanner#malformedLines()} counts the latter. A file must not
+ * be closed while it is being scanned. Scanners are not thread-safe, but
+ * different scanners of a file may be used by different threads.
+ *
+ * @since 1.3.0
+ */
+public class MdsFile implements Closeable {
+
+    /** The default size of the mapped windows */
+    static final int WINDOW_SIZE = 1 << 28;
+
+    private final File file;
+    private final FileChannel channel;
+    private final long length;
+    private final int windowSize;
+
+    /**
+     * Opens an MDS file
+     *
+     * @param file
+     *            the file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public MdsFile(File file) throws IOException {
+	this(file, WINDOW_SIZE);
+    }
+
+    /*
+     * Opens an MDS file to be mapped in windows of the given size
+     */
+    MdsFile(File file, int windowSize) throws IOException {
+	this.file = file;
+	this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	this.length = channel.size();
+	this.windowSize = windowSize;
+    }
+
+    /**
+     * Returns the file
+     *
+     * @return the file
+     */
+    public File getFile() {
+	return file;
+    }
+
+    /**
+     * Returns the length of the file in bytes
+     *
+     * @return the length
+     */
+    public long length() {
+	return length;
+    }
+
+    /**
+     * Returns a scanner over all tuples of the file
+     *
+     * @return the scanner
+     */
+    public Scanner scanner() {
+	return new Scanner(0, length);
+    }
+
+    /**
+     * Splits the file into at most n ranges of about the same size, aligned to
+     * line boundaries, and returns a scanner for each range. Together, the
+     * scanners return each tuple of the file exactly once.
+     *
+     * @param n
+     *            the number of ranges
+     * @return the scanners, in the order of the file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public List<Scanner> split(int n) throws IOException {
+	if (n < 1)
+	    throw new IllegalArgumentException("Number of splits: " + n);
+	List<Scanner> scanners = new ArrayList<Scanner>(n);
+	long start = 0;
+	for (int i = 1; i <= n && start < length; i++) {
+	    long end = i == n ? length : lineStart(length * i / n);
+	    if (end > start) {
+		scanners.add(new Scanner(start, end));
+		start = end;
+	    }
+	}
+	return scanners;
+    }
+
+    /*
+     * Returns the start of the first line beginning at or after the given
+     * position
+     */
+    private long lineStart(long position) throws IOException {
+	if (position == 0)
+	    return 0;
+	ByteBuffer buf = ByteBuffer.allocate(8192);
+	long pos = position - 1;
+	while (pos < length) {
+	    buf.clear();
+	    int read = channel.read(buf, pos);
+	    if (read <= 0)
+		break;
+	    for (int i = 0; i < read; i++)
+		if (buf.get(i) == '\n')
+		    return pos + i + 1;
+	    pos += read;
+	}
+	return length;
+    }
+
+    /**
+     * Closes the file
+     */
+    @Override
+    public void close() throws IOException {
+	channel.close();
+    }
+
+    /*
+     * The bytes of a window as characters for the parser. Non-ASCII bytes
+     * (parts of UTF-8 sequences) become a character which has no meaning in
+     * tuples, so they cannot be mistaken for delimiters or line breaks.
+     */
+    private static final class ByteChars implements CharSequence {
+	private ByteBuffer buf;
+
+	@Override
+	public int length() {
+	    return buf.limit();
+	}
+
+	@Override
+	public char charAt(int index) {
+	    byte b = buf.get(index);
+	    return b >= 0 ? (char) b : '\u00ff';
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+	    return decode(buf, start, end);
+	}
+
+	@Override
+	public String toString() {
+	    return decode(buf, 0, buf.limit());
+	}
+    }
+
+    /*
+     * Decodes the given bytes as UTF-8
+     */
+    private static String decode(ByteBuffer buf, int start, int end) {
+	byte[] bytes = new byte[end - start];
+	for (int i = 0; i < bytes.length; i++)
+	    bytes[i] = buf.get(start + i);
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Scans the tuples of a range of lines of the file.
+     */
+    public class Scanner implements TupleScanner {
+	private final long end;
+	private final HyTupleParser parser = new HyTupleParser();
+	private final ByteChars chars = new ByteChars();
+	private MappedByteBuffer window = null;
+	private long windowStart = 0;
+	private long pos;
+	private long lineOffset = -1;
+	private int lineStart = 0;
+	private long malformed = 0;
+
+	/*
+	 * Scans the lines starting in [start, end)
+	 */
+	private Scanner(long start, long end) {
+	    this.pos = start;
+	    this.end = end;
+	}
+
+	@Override
+	public boolean next() throws IOException {
+	    while (pos < end) {
+		int start = (int) (pos - windowStart);
+		if (window == null || pos < windowStart
+			|| start >= window.limit()) {
+		    map(pos);
+		    start = 0;
+		}
+		int limit = window.limit();
+		int newline = start;
+		while (newline < limit && window.get(newline) != '\n')
+		    newline++;
+		if (newline == limit && windowStart + limit < length) {
+		    // the line continues beyond the window
+		    if (start == 0)
+			throw new IOException("Line at " + pos + " of " + file
+				+ " is longer than " + windowSize + " bytes");
+		    map(pos);
+		    continue;
+		}
+		lineOffset = pos;
+		lineStart = start;
+		pos = windowStart + newline + 1;
+		int lineEnd = newline;
+		if (lineEnd > start && window.get(lineEnd - 1) == '\r')
+		    lineEnd--;
+		int first = start;
+		while (first < lineEnd && window.get(first) <= ' ')
+		    first++;
+		if (first == lineEnd || window.get(first) == '#')
+		    continue;
+		try {
+		    parser.parse(chars, start, lineEnd);
+		    return true;
+		} catch (HyTupleFormatException h) {
+		    malformed++;
+		}
+	    }
+	    return false;
+	}
+
+	/*
+	 * Maps the window starting at the given position
+	 */
+	private void map(long position) throws IOException {
+	    long size = Math.min(windowSize, length - position);
+	    window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	    windowStart = position;
+	    chars.buf = window;
+	}
+
+	@Override
+	public double probability() {
+	    return parser.probability();
+	}
+
+	@Override
+	public int size() {
+	    return parser.size();
+	}
+
+	@Override
+	public String valueAt(int index) {
+	    return decode(window, parser.valueStart(index),
+		    parser.valueEnd(index));
+	}
+
+	@Override
+	public boolean valueEquals(int index, CharSequence value) {
+	    int s = parser.valueStart(index);
+	    int len = parser.valueEnd(index) - s;
+	    if (len != value.length())
+		return valueAt(index).contentEquals(value);
+	    for (int i = 0; i < len; i++) {
+		char c = value.charAt(i);
+		if (c >= 0x80)
+		    return valueAt(index).contentEquals(value);
+		if (window.get(s + i) != c)
+		    return false;
+	    }
+	    return true;
+	}
+
+	/**
+	 * Returns the bytes of an attribute value of the current tuple. The
+	 * buffer is a read-only view of the mapped file, valid until the next
+	 * invocation of {@link #next()}.
+	 *
+	 * @param index
+	 *            the index of the attribute (0 for the first attribute)
+	 * @return the bytes of the attribute value
+	 */
+	public ByteBuffer value(int index) {
+	    return slice(parser.valueStart(index), parser.valueEnd(index));
+	}
+
+	/**
+	 * Returns the bytes of the probability of the current tuple, which are
+	 * empty if the tuple has no explicit probability. The buffer is a
+	 * read-only view of the mapped file, valid until the next invocation
+	 * of {@link #next()}.
+	 *
+	 * @return the bytes of the probability
+	 */
+	public ByteBuffer probabilityBytes() {
+	    int e = lineStart;
+	    byte b;
+	    while ((b = window.get(e)) != '(' && b > ' ')
+		e++;
+	    return slice(lineStart, e);
+	}
+
+	private ByteBuffer slice(int start, int end) {
+	    ByteBuffer slice = window.asReadOnlyBuffer();
+	    slice.limit(end);
+	    slice.position(start);
+	    return slice.slice();
+	}
+
+	@Override
+	public HyTuple tuple() {
+	    String[] values = new String[parser.size()];
+	    for (int i = 0; i < values.length; i++)
+		values[i] = valueAt(i);
+	    return new HyTuple(parser.probability(), values);
+	}
+
+	/**
+	 * Returns the position of the current tuple's line in the file
+	 *
+	 * @return the offset of the line in bytes
+	 */
+	public long position() {
+	    return lineOffset;
+	}
+
+	/**
+	 * Returns the number of lines skipped so far because they are no
+	 * tuples
+	 *
+	 * @return the number of malformed lines
+	 */
+	public long malformedLines() {
+	    return malformed;
+	}
+
+	/**
+	 * Does nothing; the mapped windows are released by the garbage
+	 * collector and the file is closed by {@link MdsFile#close()}.
+	 */
+	@Override
+	public void close() {
+	    window = null;
+	}
+    }
+}
@@ -56,6 +56,25 @@ public class RelationHandler extends HashMap<String, Collection<HyTuple>>
 	tuples.add(tuple);
     }
 
+    /**
+     * Adds all tuples of a batch to a relation. If the relation does not exist
+     * yet, it is backed by the batch, so no tuple objects are created; tuples
+     * added later to such a relation are added to the batch.
+     * 
+     * @param relationName
+     *            the relation name
+     * @param batch
+     *            the tuples to add
+     * @since 1.3.0
+     */
+    public void addBatchToRelation(String relationName, TupleBatch batch) {
+	Collection<HyTuple> tuples = this.get(relationName);
+	if (tuples == null)
+	    put(relationName, batch.asList());
+	else
+	    tuples.addAll(batch.asList());
+    }
+
     /**
      * String representation of a relation. Use toString() to get a
      * representation for all relations.
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import hyspirit.util.StringIntMap;
+
+import java.io.Serializable;
+
+/**
+ * A dictionary mapping strings to dense integer ids (0, 1, 2, ...) and back.
+ * Each distinct string is stored only once, so it can be shared by several
+ * {@link TupleBatch} objects. Instances are thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class StringDictionary implements Serializable {
+
+    private static final long serialVersionUID = 4127331470217263781L;
+
+    // the index of a string in the map is its id
+    private final StringIntMap ids = new StringIntMap();
+
+    /**
+     * Returns the id of the given string, adding it to the dictionary if
+     * necessary.
+     *
+     * @param value
+     *            the string
+     * @return the id
+     */
+    public synchronized int id(String value) {
+	return ids.add(value);
+    }
+
+    /**
+     * Returns the id of the given string without adding it.
+     *
+     * @param value
+     *            the string
+     * @return the id, or -1 if the string is not in the dictionary
+     */
+    public synchronized int lookup(String value) {
+	return ids.indexOf(value);
+    }
+
+    /**
+     * Returns the string with the given id
+     *
+     * @param id
+     *            the id
+     * @return the string
+     */
+    public synchronized String value(int id) {
+	return ids.keyAt(id);
+    }
+
+    /**
+     * Returns the number of distinct strings in the dictionary
+     *
+     * @return the dictionary size
+     */
+    public synchronized int size() {
+	return ids.size();
+    }
+}
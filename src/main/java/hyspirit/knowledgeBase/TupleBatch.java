@@ -0,0 +1,314 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A columnar representation of a set of tuples, e.g. the result of a query.
+ * Instead of one HyTuple object with a String array per tuple, a batch stores
+ * the probabilities in a double array and, for each column, the ids of the
+ * attribute values in an int array. The ids refer to a
+ * {@link StringDictionary}, which may be shared by several batches so each
+ * distinct value is stored only once.
+ * <p>
+ * Code expecting HyTuple objects can use {@link #tuple(int)} or
+ * {@link #asList()}. These return light-weight views which read from the batch
+ * when their methods are invoked.
+ *
+ * @since 1.3.0
+ */
+public class TupleBatch implements Serializable {
+
+    private static final long serialVersionUID = -2270581047123955021L;
+
+    private static final String[] NO_VALUES = new String[0];
+
+    private final StringDictionary dictionary;
+    private double[] probabilities;
+    private int[] arities;
+    private int[][] columns = new int[0][];
+    private int size = 0;
+
+    /**
+     * Constructor of class. The batch uses its own dictionary.
+     */
+    public TupleBatch() {
+	this(new StringDictionary());
+    }
+
+    /**
+     * Constructor of class.
+     *
+     * @param dictionary
+     *            the dictionary for the attribute values
+     */
+    public TupleBatch(StringDictionary dictionary) {
+	this.dictionary = dictionary;
+	this.probabilities = new double[16];
+	this.arities = new int[16];
+    }
+
+    /**
+     * Adds a tuple.
+     *
+     * @param probability
+     *            the tuple probability
+     * @param attributeValues
+     *            the attribute values
+     */
+    public void add(double probability, String... attributeValues) {
+	int row = newRow(probability, attributeValues.length);
+	for (int c = 0; c < attributeValues.length; c++)
+	    columns[c][row] = dictionary.id(attributeValues[c]);
+    }
+
+    /**
+     * Adds a tuple.
+     *
+     * @param tuple
+     *            the tuple
+     */
+    public void add(HyTuple tuple) {
+	int arity = tuple.size();
+	int row = newRow(tuple.probability(), arity);
+	for (int c = 0; c < arity; c++)
+	    columns[c][row] = dictionary.id(tuple.valueAt(c));
+    }
+
+    /**
+     * Adds the tuple parsed last by the given parser.
+     *
+     * @param parser
+     *            the parser
+     */
+    public void add(HyTupleParser parser) {
+	int arity = parser.size();
+	int row = newRow(parser.probability(), arity);
+	for (int c = 0; c < arity; c++)
+	    columns[c][row] = dictionary.id(parser.valueAt(c));
+    }
+
+    /**
+     * Parses a tuple line (see {@link HyTuple#HyTuple(String)}) and adds the
+     * tuple.
+     *
+     * @param line
+     *            the tuple line
+     * @throws HyTupleFormatException
+     *             if the line does not represent a tuple
+     */
+    public void addLine(String line) throws HyTupleFormatException {
+	HyTupleParser parser = HyTupleParser.threadParser();
+	parser.parse(line);
+	add(parser);
+    }
+
+    /*
+     * Appends a row, growing the arrays if necessary, and returns its index.
+     */
+    private int newRow(double probability, int arity) {
+	if (size == probabilities.length) {
+	    int capacity = size * 2;
+	    probabilities = Arrays.copyOf(probabilities, capacity);
+	    arities = Arrays.copyOf(arities, capacity);
+	    for (int c = 0; c < columns.length; c++)
+		columns[c] = Arrays.copyOf(columns[c], capacity);
+	}
+	if (arity > columns.length) {
+	    int oldWidth = columns.length;
+	    columns = Arrays.copyOf(columns, arity);
+	    for (int c = oldWidth; c < arity; c++) {
+		columns[c] = new int[probabilities.length];
+		Arrays.fill(columns[c], 0, size, -1);
+	    }
+	}
+	for (int c = arity; c < columns.length; c++)
+	    columns[c][size] = -1;
+	probabilities[size] = probability;
+	arities[size] = arity;
+	return size++;
+    }
+
+    /**
+     * Returns the number of tuples
+     *
+     * @return the number of tuples
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the dictionary of the attribute values
+     *
+     * @return the dictionary
+     */
+    public StringDictionary getDictionary() {
+	return dictionary;
+    }
+
+    /**
+     * Returns the probability of a tuple
+     *
+     * @param row
+     *            the index of the tuple
+     * @return the probability
+     */
+    public double probability(int row) {
+	checkRow(row);
+	return probabilities[row];
+    }
+
+    /**
+     * Returns the number of attributes of a tuple
+     *
+     * @param row
+     *            the index of the tuple
+     * @return the number of attributes
+     */
+    public int arity(int row) {
+	checkRow(row);
+	return arities[row];
+    }
+
+    /**
+     * Returns the dictionary id of an attribute value
+     *
+     * @param row
+     *            the index of the tuple
+     * @param column
+     *            the index of the attribute (0 for the first attribute)
+     * @return the id of the value
+     */
+    public int valueId(int row, int column) {
+	checkRow(row);
+	if (column < 0 || column >= arities[row])
+	    throw new IndexOutOfBoundsException("Column: " + column);
+	return columns[column][row];
+    }
+
+    /**
+     * Returns an attribute value
+     *
+     * @param row
+     *            the index of the tuple
+     * @param column
+     *            the index of the attribute (0 for the first attribute)
+     * @return the value
+     */
+    public String value(int row, int column) {
+	return dictionary.value(valueId(row, column));
+    }
+
+    /**
+     * Returns a view of a tuple. The view is backed by this batch.
+     *
+     * @param row
+     *            the index of the tuple
+     * @return the tuple view
+     */
+    public HyTuple tuple(int row) {
+	checkRow(row);
+	return new TupleView(this, row);
+    }
+
+    /**
+     * Returns a list view of all tuples of this batch. Tuples added to the
+     * list are added to the batch.
+     *
+     * @return the list view
+     */
+    public List<HyTuple> asList() {
+	return new AbstractList<HyTuple>() {
+	    @Override
+	    public HyTuple get(int index) {
+		return tuple(index);
+	    }
+
+	    @Override
+	    public int size() {
+		return size;
+	    }
+
+	    @Override
+	    public boolean add(HyTuple tuple) {
+		TupleBatch.this.add(tuple);
+		modCount++;
+		return true;
+	    }
+	};
+    }
+
+    private void checkRow(int row) {
+	if (row < 0 || row >= size)
+	    throw new IndexOutOfBoundsException("Row: " + row);
+    }
+
+    /**
+     * A HyTuple reading its probability and values from a batch
+     */
+    private static class TupleView extends HyTuple {
+
+	private static final long serialVersionUID = 5905349880733950310L;
+
+	private final TupleBatch batch;
+	private final int row;
+
+	TupleView(TupleBatch batch, int row) {
+	    super(0.0, NO_VALUES);
+	    this.batch = batch;
+	    this.row = row;
+	}
+
+	@Override
+	public double probability() {
+	    return batch.probabilities[row];
+	}
+
+	@Override
+	public String valueAt(int index) {
+	    return batch.value(row, index);
+	}
+
+	@Override
+	public String[] attributeValues() {
+	    String[] values = new String[size()];
+	    for (int i = 0; i < values.length; i++)
+		values[i] = valueAt(i);
+	    return values;
+	}
+
+	@Override
+	public int size() {
+	    return batch.arities[row];
+	}
+
+	/*
+	 * Views are serialised as ordinary tuples.
+	 */
+	private Object writeReplace() {
+	    HyTuple tuple = new HyTuple(probability(), attributeValues());
+	    tuple.setRelationName(getRelationName());
+	    return tuple;
+	}
+    }
+}
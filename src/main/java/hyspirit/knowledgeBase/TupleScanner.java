@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.knowledgeBase;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Iterates over the tuples of a relation, e.g. an MDS file, without creating
+ * an object per tuple. After {@link #next()} returned true, the accessors
+ * refer to the current tuple. Attribute values are returned as they are
+ * stored, i.e. quoted values keep their quotes (see {@link HyTupleParser}).
+ *
+ * @since 1.3.0
+ */
+public interface TupleScanner extends Closeable {
+
+    /**
+     * Moves to the next tuple
+     *
+     * @return false if there is no tuple left
+     * @throws IOException
+     *             if the relation cannot be read
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Returns the probability of the current tuple
+     *
+     * @return the probability
+     */
+    double probability();
+
+    /**
+     * Returns the number of attributes of the current tuple
+     *
+     * @return the number of attributes
+     */
+    int size();
+
+    /**
+     * Returns an attribute value of the current tuple as a new string
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @return the attribute value
+     */
+    String valueAt(int index);
+
+    /**
+     * Compares an attribute value of the current tuple with the given string
+     * without creating a string for the attribute value
+     *
+     * @param index
+     *            the index of the attribute (0 for the first attribute)
+     * @param value
+     *            the value to compare with
+     * @return true if the attribute value equals the given value
+     */
+    boolean valueEquals(int index, CharSequence value);
+
+    /**
+     * Returns the current tuple as a new HyTuple
+     *
+     * @return the tuple
+     */
+    HyTuple tuple();
+}
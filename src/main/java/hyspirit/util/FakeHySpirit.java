@@ -0,0 +1,420 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A stand-in for the HySpirit binaries, so that engine pooling, streaming and
+ * pipelining can be tested and benchmarked without a HySpirit installation.
+ * {@link #install(File, Properties)} writes small shell stubs for all engines
+ * into &lt;dir&gt;/bin, which start the main method of this class, and
+ * returns HySpirit properties pointing at them:
+ *
+ * <pre>
+ * Properties config = new Properties();
+ * config.setProperty("latency", "5");
+ * config.setProperty("results", "1000");
+ * HySpiritProperties hyspirit = FakeHySpirit.install(new File("/tmp/fakehs"),
+ * 	config);
+ * HyPRAEngine hypra = new HyPRAEngine(hyspirit);
+ * </pre>
+ *
+ * The fake engines speak the protocol of the real ones on STDIN and STDOUT:
+ * <ul>
+ * <li>Inference engines (hyp_pra, hyp_pd, hy_psql, ...) echo _echo("...")
+ * (and INSERT INTO _echo VALUES ('...') for PSQL) and answer every query
+ * ("?- ..." or PSQL SELECT) with a number of MDS tuples "&lt;prob&gt;
+ * ("doc&lt;n&gt;")".</li>
+ * <li>hy_text2pool writes the words of each input line, lower case.</li>
+ * <li>hyp_text2mds writes one tuple ("&lt;word&gt;") per word.</li>
+ * <li>hy_mds2dir creates its index directory.</li>
+ * <li>All other engines copy their input files (or STDIN) to STDOUT.</li>
+ * </ul>
+ * The behaviour is configured with the following properties, which can be
+ * given for a single engine by prefixing them with its name (e.g.
+ * "hyp_pra.latency"):
+ * <ul>
+ * <li>startup: delay before the engine reads its input, in ms (default 0)
+ * </li>
+ * <li>latency: delay per query or input line, in ms (default 0)</li>
+ * <li>results: number of tuples per query (default 10)</li>
+ * <li>documents: number of distinct documents in results (default 100000)
+ * </li>
+ * <li>failure.rate: probability that a query kills the engine (default 0)
+ * </li>
+ * <li>failure.after: number of queries after which the engine dies; 0 for
+ * never (default 0)</li>
+ * <li>seed: the seed for results and failures (default 42)</li>
+ * </ul>
+ * A dying engine writes a message to STDERR and exits with 1. The property
+ * java.options is passed to the JVM of the engines.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class FakeHySpirit {
+
+    /** The system property naming the configuration file */
+    public static final String CONFIG_PROPERTY = "hyspirit.fake.config";
+
+    /** The engines stubs are written for */
+    public static final String[] ENGINES = { "hyp_pra", "hy_pra", "hyp_pd",
+	    "hy_pd", "hy_psql", "hy_fvpd", "hyp_fvpd", "hy_pool",
+	    "hy_text2pool", "hyp_text2mds", "hy_text2mds", "hy_text2tf",
+	    "hy_freq2mds", "hyp_freq2mds", "hy_mds2mds", "hyp_mds2freq",
+	    "hy_mds2freq", "hy_mds2pri", "hyp_mds2pri", "hy_mds2dir",
+	    "hy_data2pra", "hy_sql2pra", "hy_text2pra", "hy_xml2pra" };
+
+    private static final String CONFIG_FILE = "fake.properties";
+
+    /** The stream end message of hy_text2pool */
+    private static final String TEXT2POOL_END = "dduummyy" + "tteerrmm123";
+
+    private static final Pattern COMMAND = Pattern.compile(
+	    "_echo\\(\"([^\"]*)\"\\)|INSERT INTO _echo VALUES \\('([^']*)'\\)"
+		    + "|\\?-|^\\s*SELECT\\b",
+	    Pattern.CASE_INSENSITIVE);
+
+    private final String engine;
+    private final Properties config;
+    private final Random random;
+    private final PrintWriter out;
+    private int queries = 0;
+
+    /*
+     * Creates the engine with the given name and configuration
+     */
+    private FakeHySpirit(String engine, Properties config, OutputStream out) {
+	this.engine = engine;
+	this.config = config;
+	this.random = new Random(getLong("seed", 42));
+	this.out = new PrintWriter(new BufferedWriter(
+		new OutputStreamWriter(out)), false);
+    }
+
+    /**
+     * Writes engine stubs and the configuration to the given directory. The
+     * stubs start this class with the Java runtime and class path of the
+     * current JVM.
+     *
+     * @param dir
+     *            the directory to become $HYSPIRIT
+     * @param config
+     *            the configuration, see above
+     * @return HySpirit properties pointing at the stubs, using the current
+     *         directory as working directory
+     * @throws IOException
+     *             if the stubs cannot be written
+     */
+    public static HySpiritProperties install(File dir, Properties config)
+	    throws IOException {
+	File bin = new File(dir, "bin");
+	File etc = new File(dir, "etc");
+	if (!bin.isDirectory() && !bin.mkdirs())
+	    throw new IOException("Cannot create " + bin);
+	if (!etc.isDirectory() && !etc.mkdirs())
+	    throw new IOException("Cannot create " + etc);
+	configure(dir, config);
+
+	String java = System.getProperty("java.home") + File.separator + "bin"
+		+ File.separator + "java";
+	String options = config.getProperty("java.options", "");
+	String configFile = new File(etc, CONFIG_FILE).getAbsolutePath();
+	for (String engine : ENGINES) {
+	    File stub = new File(bin, engine);
+	    BufferedWriter writer = new BufferedWriter(new FileWriter(stub));
+	    writer.write("#!/bin/sh");
+	    writer.newLine();
+	    writer.write("exec '" + java + "' " + options + " -cp '"
+		    + System.getProperty("java.class.path") + "' -D"
+		    + CONFIG_PROPERTY + "='" + configFile + "' "
+		    + FakeHySpirit.class.getName() + " " + engine + " \"$@\"");
+	    writer.newLine();
+	    writer.close();
+	    stub.setExecutable(true);
+	}
+	try {
+	    return HySpiritProperties.forInstallation(dir.getAbsolutePath(),
+		    System.getProperty("user.dir"));
+	} catch (HySpiritException e) {
+	    throw new IOException(e.getMessage());
+	}
+    }
+
+    /**
+     * Replaces the configuration of installed fake engines. Engines read it
+     * when they are started.
+     *
+     * @param dir
+     *            the directory given to {@link #install(File, Properties)}
+     * @param config
+     *            the new configuration
+     * @throws IOException
+     *             if the configuration cannot be written
+     */
+    public static void configure(File dir, Properties config)
+	    throws IOException {
+	OutputStream os = new FileOutputStream(
+		new File(new File(dir, "etc"), CONFIG_FILE));
+	try {
+	    config.store(os, "FakeHySpirit configuration");
+	} finally {
+	    os.close();
+	}
+    }
+
+    /**
+     * Runs a fake engine. The first argument is the engine name, the other
+     * ones are the arguments of the engine.
+     *
+     * @param args
+     *            the engine name and its arguments
+     */
+    public static void main(String[] args) {
+	if (args.length == 0) {
+	    System.err.println("Usage: FakeHySpirit <engine> [args]");
+	    System.exit(2);
+	}
+	Properties config = new Properties();
+	String configFile = System.getProperty(CONFIG_PROPERTY);
+	if (configFile != null) {
+	    try {
+		InputStream is = new FileInputStream(configFile);
+		try {
+		    config.load(is);
+		} finally {
+		    is.close();
+		}
+	    } catch (IOException io) {
+		System.err.println("Cannot read " + configFile + ": " + io);
+	    }
+	}
+	List<String> engineArgs = new ArrayList<String>();
+	Collections.addAll(engineArgs, args);
+	String engine = engineArgs.remove(0);
+	FakeHySpirit fake = new FakeHySpirit(engine, config, System.out);
+	try {
+	    System.exit(fake.run(engineArgs));
+	} catch (IOException io) {
+	    System.err.println(engine + ": " + io.getMessage());
+	    System.exit(1);
+	}
+    }
+
+    /*
+     * Runs the engine and returns the exit code
+     */
+    private int run(List<String> args) throws IOException {
+	pause(getLong("startup", 0));
+	int exit;
+	if (engine.equals("hy_text2pool"))
+	    exit = text2pool(stdin());
+	else if (engine.endsWith("text2mds"))
+	    exit = text2mds(stdin());
+	else if (engine.endsWith("mds2dir"))
+	    exit = mds2dir(args);
+	else if (engine.indexOf('2') < 0)
+	    exit = inference(stdin());
+	else
+	    exit = copy(args);
+	out.flush();
+	return exit;
+    }
+
+    /*
+     * Inference engines: echo specials and answer queries
+     */
+    private int inference(BufferedReader in) throws IOException {
+	int results = (int) getLong("results", 10);
+	int documents = (int) Math.max(1, getLong("documents", 100000));
+	String line;
+	while ((line = in.readLine()) != null) {
+	    Matcher m = COMMAND.matcher(line);
+	    while (m.find()) {
+		if (m.group(1) != null)
+		    out.println(m.group(1));
+		else if (m.group(2) != null)
+		    out.println(m.group(2));
+		else {
+		    if (!query())
+			return 1;
+		    for (int i = 0; i < results; i++)
+			out.println(Util.floatToString(random.nextFloat())
+				+ " (\"doc" + random.nextInt(documents) + "\")");
+		}
+	    }
+	    out.flush();
+	}
+	return 0;
+    }
+
+    /*
+     * Accounts for a query: waits and decides whether the engine dies
+     */
+    private boolean query() {
+	queries++;
+	long failAfter = getLong("failure.after", 0);
+	double failureRate = getDouble("failure.rate", 0);
+	if ((failAfter > 0 && queries > failAfter)
+		|| (failureRate > 0 && random.nextDouble() < failureRate)) {
+	    out.flush();
+	    System.err.println(engine + ": injected failure at query "
+		    + queries);
+	    return false;
+	}
+	pause(getLong("latency", 0));
+	return true;
+    }
+
+    /*
+     * hy_text2pool: the words of each line
+     */
+    private int text2pool(BufferedReader in) throws IOException {
+	String line;
+	while ((line = in.readLine()) != null) {
+	    if (line.contains(TEXT2POOL_END)) {
+		out.println(TEXT2POOL_END);
+	    } else {
+		List<String> words = words(line);
+		if (!words.isEmpty()) {
+		    if (!query())
+			return 1;
+		    StringBuilder pool = new StringBuilder();
+		    for (String word : words)
+			pool.append(word).append(' ');
+		    out.println(pool.toString().trim());
+		}
+	    }
+	    out.flush();
+	}
+	return 0;
+    }
+
+    /*
+     * hyp_text2mds: one tuple per word
+     */
+    private int text2mds(BufferedReader in) throws IOException {
+	String line;
+	while ((line = in.readLine()) != null) {
+	    List<String> words = words(line);
+	    if (!words.isEmpty() && !query())
+		return 1;
+	    for (String word : words)
+		out.println("(\"" + word + "\")");
+	}
+	return 0;
+    }
+
+    /*
+     * hy_mds2dir: creates the index directory
+     */
+    private int mds2dir(List<String> args) {
+	int i = args.indexOf("-index_dir");
+	if (i >= 0 && i + 1 < args.size())
+	    new File(args.get(i + 1)).mkdirs();
+	return 0;
+    }
+
+    /*
+     * Converters: copy the input files or STDIN
+     */
+    private int copy(List<String> args) throws IOException {
+	List<Reader> inputs = new ArrayList<Reader>();
+	for (String arg : args) {
+	    if (arg.equals("-"))
+		inputs.add(new InputStreamReader(System.in));
+	    else if (!arg.startsWith("-") && new File(arg).isFile())
+		inputs.add(new FileReader(arg));
+	}
+	if (inputs.isEmpty())
+	    inputs.add(new InputStreamReader(System.in));
+	for (Reader input : inputs) {
+	    BufferedReader in = new BufferedReader(input);
+	    String line;
+	    while ((line = in.readLine()) != null) {
+		if (!query())
+		    return 1;
+		out.println(line);
+	    }
+	    in.close();
+	}
+	return 0;
+    }
+
+    private static BufferedReader stdin() {
+	return new BufferedReader(new InputStreamReader(System.in));
+    }
+
+    /*
+     * Splits a line into lower case words
+     */
+    private static List<String> words(String line) {
+	List<String> words = new ArrayList<String>();
+	for (String word : line.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+	    if (!word.isEmpty())
+		words.add(word);
+	return words;
+    }
+
+    private static void pause(long millis) {
+	if (millis > 0) {
+	    try {
+		Thread.sleep(millis);
+	    } catch (InterruptedException ie) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+    }
+
+    private String get(String key) {
+	String value = config.getProperty(engine + "." + key);
+	return value != null ? value : config.getProperty(key);
+    }
+
+    private long getLong(String key, long defaultValue) {
+	String value = get(key);
+	return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private double getDouble(String key, double defaultValue) {
+	String value = get(key);
+	return value == null ? defaultValue
+		: Double.parseDouble(value.trim());
+    }
+}
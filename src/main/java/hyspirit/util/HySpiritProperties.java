@@ -23,6 +23,7 @@
 package hyspirit.util;
 
 
+import java.io.File;
 import java.util.Properties;
 import java.util.Enumeration;
 
@@ -130,6 +131,39 @@ public class HySpiritProperties extends Properties{
         setPathAndPerl5Lib(getSystemProperty("HYSPIRIT"));
     }
     
+    /*
+     * Constructor of class. Only sets the working directory.
+     */
+    private HySpiritProperties(File workingDir) {
+        super.setProperty("workingDir", workingDir.getPath());
+    }
+    
+    /**
+     * Returns properties containing nothing but the working directory, for
+     * engines which run inside the JVM and need no HySpirit installation
+     * (like hyspirit.engines.JavaPRAEngine), or for components which do not
+     * start engines at all.
+     * @param workingDir the working directory
+     * @return the properties
+     * @since 1.3.0
+     */
+    public static HySpiritProperties withoutInstallation(String workingDir) {
+        return new HySpiritProperties(new File(workingDir));
+    }
+    
+    /*
+     * Returns properties for the installation at the given path, like the
+     * deprecated constructor. Only for installations set up by this package
+     * (see FakeHySpirit); the environment of real ones is set externally.
+     */
+    static HySpiritProperties forInstallation(String hyspiritPath, 
+            String workingDir) throws HySpiritException {
+        HySpiritProperties hyspirit = 
+            new HySpiritProperties(new File(workingDir));
+        hyspirit.setPathAndPerl5Lib(hyspiritPath);
+        return hyspirit;
+    }
+    
     /**
      * Returns all environment variables as string array. Each entry has the
      * format "propertyName=propertyValue", so it can be uses for
@@ -21,6 +21,8 @@
  */
 package hyspirit.util;
 
+import hyspirit.engines.EngineFactory;
+import hyspirit.engines.EnginePool;
 import hyspirit.engines.HyText2POOLEngine;
 
 import java.io.BufferedReader;
@@ -44,6 +46,8 @@ import org.apache.logging.log4j.Logger;
  */
 public class HyText2PoolFilter {
     private HyText2POOLEngine hytext2pool = null;
+    private EnginePool<HyText2POOLEngine> pool = null;
+    private TextAnalyzer analyzer = null;
     private BufferedWriter stdin = null;
     private BufferedReader stdout = null;
 
@@ -93,22 +97,93 @@ public class HyText2PoolFilter {
 	    throws HySpiritException {
 	if (log != null)
 	    LOG = log;
-	hytext2pool = new HyText2POOLEngine(hyspirit);
-	hytext2pool.stemming(stemming);
-	if (stopwordFile != null)
-	    hytext2pool.addStopwordFile(stopwordFile);
-	if (morphemeFile != null)
-	    hytext2pool.addMorphemeFile(morphemeFile);
-	hytext2pool.translateUmlauts(true);
-	hytext2pool.recogniseClassifications(false);
-	hytext2pool.recogniseRelationships(false);
-	hytext2pool.recogniseNumbers(false);
-	hytext2pool.readFromSTDIN();
-	hytext2pool.setLogger(LOG);
+	hytext2pool = createEngine(hyspirit, stemming, stopwordFile,
+		morphemeFile, LOG);
 	hytext2pool.start();
 	hytext2pool.waitTillRunning();
     }
 
+    /**
+     * With this constructor, the filter leases its hy_text2pool engines from
+     * the given pool for each invocation of filter() instead of using an own
+     * process. Use {@link #engineFactory(HySpiritProperties, boolean, String, String)}
+     * to create a pool with the default filter configuration. Closing the filter
+     * does not close the pool.
+     * 
+     * @param pool
+     *            the engine pool
+     * @since 1.3.0
+     */
+    public HyText2PoolFilter(EnginePool<HyText2POOLEngine> pool) {
+	this.pool = pool;
+    }
+
+    /**
+     * With this constructor, the text is filtered by the given pure Java
+     * analyzer instead of a hy_text2pool process, so no engine is started at
+     * all. The analyzer only approximates hy_text2pool (e.g. regarding
+     * stemming), so indexes and queries must be filtered consistently.
+     * 
+     * @param analyzer
+     *            the text analyzer
+     * @since 1.3.0
+     */
+    public HyText2PoolFilter(TextAnalyzer analyzer) {
+	this.analyzer = analyzer;
+    }
+
+    /**
+     * Returns a factory for hy_text2pool engines configured like the ones
+     * created by
+     * {@link #HyText2PoolFilter(HySpiritProperties, boolean, String, String)},
+     * to be used with an {@link EnginePool}.
+     * 
+     * @param hyspirit
+     *            the HySpirit environment
+     * @param stemming
+     *            whether stemming should be applied
+     * @param stopwordFile
+     *            absoulte name of a stop word file; null if no stop word
+     *            elimination should take place
+     * @param morphemeFile
+     *            absolute name of a morpheme file; null if there are none.
+     * @return the engine factory
+     * @since 1.3.0
+     */
+    public static EngineFactory<HyText2POOLEngine> engineFactory(
+	    final HySpiritProperties hyspirit, final boolean stemming,
+	    final String stopwordFile, final String morphemeFile) {
+	return new EngineFactory<HyText2POOLEngine>() {
+	    @Override
+	    public HyText2POOLEngine createEngine() throws HySpiritException {
+		return HyText2PoolFilter.createEngine(hyspirit, stemming,
+			stopwordFile, morphemeFile, null);
+	    }
+	};
+    }
+
+    /*
+     * Creates and configures a hy_text2pool engine (not started yet)
+     */
+    private static HyText2POOLEngine createEngine(HySpiritProperties hyspirit,
+	    boolean stemming, String stopwordFile, String morphemeFile,
+	    Logger log) throws HySpiritException {
+	HyText2POOLEngine engine = new HyText2POOLEngine(hyspirit);
+	engine.stemming(stemming);
+	if (stopwordFile != null)
+	    engine.addStopwordFile(stopwordFile);
+	if (morphemeFile != null)
+	    engine.addMorphemeFile(morphemeFile);
+	engine.translateUmlauts(true);
+	engine.recogniseClassifications(false);
+	engine.recogniseRelationships(false);
+	engine.recogniseNumbers(false);
+	engine.readFromSTDIN();
+	if (log != null)
+	    engine.setLogger(log);
+	return engine;
+    }
+
     /**
      * With this constructor, a hytext2pool object is created and configured by
      * the invoking method. The hytext2pool is started and used by this object,
@@ -130,7 +205,8 @@ public class HyText2PoolFilter {
      *
      */
     public void close() {
-	hytext2pool.destroy();
+	if (hytext2pool != null)
+	    hytext2pool.destroy();
 	stdin = null;
 	stdout = null;
     }
@@ -146,6 +222,10 @@ public class HyText2PoolFilter {
 	String filteredText = "";
 	if (text != null && !text.equals("")) {
 	    StringBuffer strbuf = new StringBuffer();
+	    if (analyzer != null)
+		return analyzer.filter(text);
+	    if (pool != null)
+		return filterPooled(text);
 	    try {
 		/*
 		hytext2pool.send(text);
@@ -166,6 +246,30 @@ public class HyText2PoolFilter {
 	return filteredText;
     }
 
+    /*
+     * Filters the text with an engine leased from the pool. The engine stays
+     * alive, so the output is read up to the stream end message.
+     */
+    private String filterPooled(String text) {
+	StringBuilder strbuf = new StringBuilder();
+	HyText2POOLEngine engine = null;
+	try {
+	    engine = pool.lease();
+	    engine.send(text);
+	    while (engine.hasNext())
+		strbuf.append(engine.next()).append(' ');
+	} catch (Exception e) {
+	    e.printStackTrace(System.err);
+	} finally {
+	    if (engine != null)
+		pool.giveBack(engine);
+	}
+	String filteredText = strbuf.toString().trim();
+	if (filteredText.equals(""))
+	    filteredText = null;
+	return filteredText;
+    }
+
     /**
      * Filters the text, returns filtered terms as iterator. Removes the
      * annoying "NOT" ;-)
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations. Durations are recorded in nanoseconds
+ * and counted in buckets whose bounds are powers of two microseconds, so
+ * percentiles are accurate up to a factor of two, which is enough to tell
+ * where the time goes. Count, mean and maximum are exact.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public class LatencyHistogram {
+
+    /* bucket i counts durations below 2^i microseconds */
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration
+     *
+     * @param nanos
+     *            the duration in nanoseconds
+     */
+    public void record(long nanos) {
+	if (nanos < 0)
+	    nanos = 0;
+	long micros = nanos / 1000;
+	int bucket = 64 - Long.numberOfLeadingZeros(micros);
+	buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+	count.increment();
+	sum.add(nanos);
+	long m;
+	while ((m = max.get()) < nanos && !max.compareAndSet(m, nanos)) {
+	}
+    }
+
+    /**
+     * Returns the number of recorded durations
+     *
+     * @return the number of durations
+     */
+    public long getCount() {
+	return count.sum();
+    }
+
+    /**
+     * Returns the mean duration in milliseconds, or 0 if nothing was recorded
+     *
+     * @return the mean duration in milliseconds
+     */
+    public double getMean() {
+	long n = count.sum();
+	return n == 0 ? 0 : sum.sum() / (n * 1e6);
+    }
+
+    /**
+     * Returns the longest duration in milliseconds
+     *
+     * @return the maximum in milliseconds
+     */
+    public double getMax() {
+	return max.get() / 1e6;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile in milliseconds, or 0 if
+     * nothing was recorded. The bound is never above the maximum.
+     *
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the percentile in milliseconds
+     */
+    public double getPercentile(double percentile) {
+	long total = 0;
+	long[] counts = new long[BUCKETS];
+	for (int i = 0; i < BUCKETS; i++)
+	    total += counts[i] = buckets.get(i);
+	if (total == 0)
+	    return 0;
+	long rank = (long) Math.ceil(total * percentile / 100);
+	long seen = 0;
+	for (int i = 0; i < BUCKETS; i++) {
+	    seen += counts[i];
+	    if (seen >= rank && counts[i] > 0)
+		return Math.min((1L << i) / 1e3, getMax());
+	}
+	return getMax();
+    }
+
+    /**
+     * Forgets all recorded durations
+     */
+    public void reset() {
+	for (int i = 0; i < BUCKETS; i++)
+	    buckets.set(i, 0);
+	count.reset();
+	sum.reset();
+	max.set(0);
+    }
+
+    @Override
+    public String toString() {
+	return String.format("n=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+		getCount(), getMean(), getPercentile(50), getPercentile(99),
+		getMax());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A hash set of primitive longs using open addressing with linear probing.
+ * It is meant for compact keys like pairs of ints (see {@link #pair(int, int)}
+ * ), e.g. term and document ids, without creating objects for the elements.
+ * Instances are not thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class LongHashSet implements Serializable {
+
+    private static final long serialVersionUID = 5812707733125011423L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    // 0 marks a free slot; the element 0 is tracked separately
+    private long[] table;
+    private boolean containsZero = false;
+    private int size = 0;
+
+    /**
+     * Constructor of class.
+     */
+    public LongHashSet() {
+	this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructor of class.
+     *
+     * @param expectedSize
+     *            the expected number of elements
+     */
+    public LongHashSet(int expectedSize) {
+	int capacity = Math.max(MIN_CAPACITY, expectedSize);
+	table = new long[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /**
+     * Combines two ints into a long key
+     *
+     * @param high
+     *            the upper 32 bits
+     * @param low
+     *            the lower 32 bits
+     * @return the key
+     */
+    public static long pair(int high, int low) {
+	return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds the element
+     *
+     * @param element
+     *            the element
+     * @return true if the element was not in the set before
+     */
+    public boolean add(long element) {
+	if (element == 0) {
+	    if (containsZero)
+		return false;
+	    containsZero = true;
+	    size++;
+	    return true;
+	}
+	int mask = table.length - 1;
+	for (int slot = hash(element) & mask;; slot = (slot + 1) & mask) {
+	    long e = table[slot];
+	    if (e == element)
+		return false;
+	    if (e == 0) {
+		table[slot] = element;
+		if (2 * ++size > table.length)
+		    rehash(2 * table.length);
+		return true;
+	    }
+	}
+    }
+
+    /**
+     * Checks if the element is in the set
+     *
+     * @param element
+     *            the element
+     * @return true if the element is in the set
+     */
+    public boolean contains(long element) {
+	if (element == 0)
+	    return containsZero;
+	int mask = table.length - 1;
+	for (int slot = hash(element) & mask;; slot = (slot + 1) & mask) {
+	    long e = table[slot];
+	    if (e == element)
+		return true;
+	    if (e == 0)
+		return false;
+	}
+    }
+
+    /**
+     * Returns the number of elements
+     *
+     * @return the size of the set
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Removes all elements
+     */
+    public void clear() {
+	Arrays.fill(table, 0);
+	containsZero = false;
+	size = 0;
+    }
+
+    private void rehash(int length) {
+	long[] old = table;
+	table = new long[length];
+	int mask = length - 1;
+	for (long e : old) {
+	    if (e == 0)
+		continue;
+	    int slot = hash(e) & mask;
+	    while (table[slot] != 0)
+		slot = (slot + 1) & mask;
+	    table[slot] = e;
+	}
+    }
+
+    private static int hash(long element) {
+	long h = element * 0x9E3779B97F4A7C15L;
+	return (int) (h ^ (h >>> 32));
+    }
+}
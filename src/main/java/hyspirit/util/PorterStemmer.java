@@ -0,0 +1,441 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+/**
+ * The Porter stemming algorithm for English words (M.F. Porter, "An algorithm
+ * for suffix stripping", Program 14(3), 1980), following the reference
+ * implementation. Words are expected in lower case. Instances are not
+ * thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class PorterStemmer {
+
+    private char[] b = new char[64];
+    private int k;
+    private int j;
+
+    /**
+     * Returns the stem of the given (lower case) word
+     *
+     * @param word
+     *            the word
+     * @return the stem
+     */
+    public String stem(String word) {
+	int length = word.length();
+	if (length <= 2)
+	    return word;
+	if (b.length < length)
+	    b = new char[length];
+	word.getChars(0, length, b, 0);
+	k = length - 1;
+	step1();
+	step2();
+	step3();
+	step4();
+	step5();
+	step6();
+	return new String(b, 0, k + 1);
+    }
+
+    /* true if b[i] is a consonant */
+    private boolean cons(int i) {
+	switch (b[i]) {
+	case 'a':
+	case 'e':
+	case 'i':
+	case 'o':
+	case 'u':
+	    return false;
+	case 'y':
+	    return i == 0 ? true : !cons(i - 1);
+	default:
+	    return true;
+	}
+    }
+
+    /*
+     * Measures the number of consonant sequences between 0 and j, i.e. n in
+     * [C](VC)^n[V]
+     */
+    private int m() {
+	int n = 0;
+	int i = 0;
+	while (true) {
+	    if (i > j)
+		return n;
+	    if (!cons(i))
+		break;
+	    i++;
+	}
+	i++;
+	while (true) {
+	    while (true) {
+		if (i > j)
+		    return n;
+		if (cons(i))
+		    break;
+		i++;
+	    }
+	    i++;
+	    n++;
+	    while (true) {
+		if (i > j)
+		    return n;
+		if (!cons(i))
+		    break;
+		i++;
+	    }
+	    i++;
+	}
+    }
+
+    /* true if 0,...,j contains a vowel */
+    private boolean vowelInStem() {
+	for (int i = 0; i <= j; i++)
+	    if (!cons(i))
+		return true;
+	return false;
+    }
+
+    /* true if j,(j-1) contain a double consonant */
+    private boolean doublec(int j) {
+	if (j < 1)
+	    return false;
+	if (b[j] != b[j - 1])
+	    return false;
+	return cons(j);
+    }
+
+    /*
+     * true if i-2,i-1,i has the form consonant - vowel - consonant and also if
+     * the second c is not w, x or y
+     */
+    private boolean cvc(int i) {
+	if (i < 2 || !cons(i) || cons(i - 1) || !cons(i - 2))
+	    return false;
+	char ch = b[i];
+	return ch != 'w' && ch != 'x' && ch != 'y';
+    }
+
+    /* true if 0,...,k ends with s; sets j to the end of the stem */
+    private boolean ends(String s) {
+	int l = s.length();
+	int o = k - l + 1;
+	if (o < 0)
+	    return false;
+	for (int i = 0; i < l; i++)
+	    if (b[o + i] != s.charAt(i))
+		return false;
+	j = k - l;
+	return true;
+    }
+
+    /* sets (j+1),...,k to s, readjusting k */
+    private void setTo(String s) {
+	int l = s.length();
+	int o = j + 1;
+	for (int i = 0; i < l; i++)
+	    b[o + i] = s.charAt(i);
+	k = j + l;
+    }
+
+    private void r(String s) {
+	if (m() > 0)
+	    setTo(s);
+    }
+
+    /* gets rid of plurals and -ed or -ing */
+    private void step1() {
+	if (b[k] == 's') {
+	    if (ends("sses"))
+		k -= 2;
+	    else if (ends("ies"))
+		setTo("i");
+	    else if (b[k - 1] != 's')
+		k--;
+	}
+	if (ends("eed")) {
+	    if (m() > 0)
+		k--;
+	} else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+	    k = j;
+	    if (ends("at"))
+		setTo("ate");
+	    else if (ends("bl"))
+		setTo("ble");
+	    else if (ends("iz"))
+		setTo("ize");
+	    else if (doublec(k)) {
+		k--;
+		char ch = b[k];
+		if (ch == 'l' || ch == 's' || ch == 'z')
+		    k++;
+	    } else if (m() == 1 && cvc(k))
+		setTo("e");
+	}
+    }
+
+    /* turns terminal y to i when there is another vowel in the stem */
+    private void step2() {
+	if (ends("y") && vowelInStem())
+	    b[k] = 'i';
+    }
+
+    /* maps double suffices to single ones */
+    private void step3() {
+	if (k == 0)
+	    return;
+	switch (b[k - 1]) {
+	case 'a':
+	    if (ends("ational")) {
+		r("ate");
+		break;
+	    }
+	    if (ends("tional")) {
+		r("tion");
+		break;
+	    }
+	    break;
+	case 'c':
+	    if (ends("enci")) {
+		r("ence");
+		break;
+	    }
+	    if (ends("anci")) {
+		r("ance");
+		break;
+	    }
+	    break;
+	case 'e':
+	    if (ends("izer")) {
+		r("ize");
+		break;
+	    }
+	    break;
+	case 'l':
+	    if (ends("bli")) {
+		r("ble");
+		break;
+	    }
+	    if (ends("alli")) {
+		r("al");
+		break;
+	    }
+	    if (ends("entli")) {
+		r("ent");
+		break;
+	    }
+	    if (ends("eli")) {
+		r("e");
+		break;
+	    }
+	    if (ends("ousli")) {
+		r("ous");
+		break;
+	    }
+	    break;
+	case 'o':
+	    if (ends("ization")) {
+		r("ize");
+		break;
+	    }
+	    if (ends("ation")) {
+		r("ate");
+		break;
+	    }
+	    if (ends("ator")) {
+		r("ate");
+		break;
+	    }
+	    break;
+	case 's':
+	    if (ends("alism")) {
+		r("al");
+		break;
+	    }
+	    if (ends("iveness")) {
+		r("ive");
+		break;
+	    }
+	    if (ends("fulness")) {
+		r("ful");
+		break;
+	    }
+	    if (ends("ousness")) {
+		r("ous");
+		break;
+	    }
+	    break;
+	case 't':
+	    if (ends("aliti")) {
+		r("al");
+		break;
+	    }
+	    if (ends("iviti")) {
+		r("ive");
+		break;
+	    }
+	    if (ends("biliti")) {
+		r("ble");
+		break;
+	    }
+	    break;
+	case 'g':
+	    if (ends("logi")) {
+		r("log");
+		break;
+	    }
+	    break;
+	default:
+	    break;
+	}
+    }
+
+    /* deals with -ic-, -full, -ness etc. */
+    private void step4() {
+	switch (b[k]) {
+	case 'e':
+	    if (ends("icate")) {
+		r("ic");
+		break;
+	    }
+	    if (ends("ative")) {
+		r("");
+		break;
+	    }
+	    if (ends("alize")) {
+		r("al");
+		break;
+	    }
+	    break;
+	case 'i':
+	    if (ends("iciti")) {
+		r("ic");
+		break;
+	    }
+	    break;
+	case 'l':
+	    if (ends("ical")) {
+		r("ic");
+		break;
+	    }
+	    if (ends("ful")) {
+		r("");
+		break;
+	    }
+	    break;
+	case 's':
+	    if (ends("ness")) {
+		r("");
+		break;
+	    }
+	    break;
+	default:
+	    break;
+	}
+    }
+
+    /* takes off -ant, -ence etc., in context <c>vcvc<v> */
+    private void step5() {
+	if (k == 0)
+	    return;
+	switch (b[k - 1]) {
+	case 'a':
+	    if (ends("al"))
+		break;
+	    return;
+	case 'c':
+	    if (ends("ance"))
+		break;
+	    if (ends("ence"))
+		break;
+	    return;
+	case 'e':
+	    if (ends("er"))
+		break;
+	    return;
+	case 'i':
+	    if (ends("ic"))
+		break;
+	    return;
+	case 'l':
+	    if (ends("able"))
+		break;
+	    if (ends("ible"))
+		break;
+	    return;
+	case 'n':
+	    if (ends("ant"))
+		break;
+	    if (ends("ement"))
+		break;
+	    if (ends("ment"))
+		break;
+	    if (ends("ent"))
+		break;
+	    return;
+	case 'o':
+	    if (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't'))
+		break;
+	    if (ends("ou"))
+		break;
+	    return;
+	case 's':
+	    if (ends("ism"))
+		break;
+	    return;
+	case 't':
+	    if (ends("ate"))
+		break;
+	    if (ends("iti"))
+		break;
+	    return;
+	case 'u':
+	    if (ends("ous"))
+		break;
+	    return;
+	case 'v':
+	    if (ends("ive"))
+		break;
+	    return;
+	case 'z':
+	    if (ends("ize"))
+		break;
+	    return;
+	default:
+	    return;
+	}
+	if (m() > 1)
+	    k = j;
+    }
+
+    /* removes a final -e if m() > 1, and changes -ll to -l if m() > 1 */
+    private void step6() {
+	j = k;
+	if (b[k] == 'e') {
+	    int a = m();
+	    if (a > 1 || a == 1 && !cvc(k - 1))
+		k--;
+	}
+	if (b[k] == 'l' && doublec(k) && m() > 1)
+	    k--;
+    }
+}
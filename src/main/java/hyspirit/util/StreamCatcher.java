@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -34,6 +35,7 @@ import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import hyspirit.engines.EngineMetrics;
 import hyspirit.engines.HyInferenceEngine;
 import hyspirit.engines.HyInferenceEngine.Query;
 
@@ -44,6 +46,18 @@ import hyspirit.engines.HyInferenceEngine.Query;
  * read later by then calling thread. Instances of this class should thus be
  * running in their own thread. Reading if the input stream is finished when a
  * delimiter is read or the end of stream is reached.
+ * <p>
+ * By default, all lines are buffered and hasNext() and next() wait until the
+ * whole stream is read. In streaming mode (see
+ * {@link #StreamCatcher(BufferedReader, String, int)}), lines are handed over
+ * through a bounded queue as soon as they are read. The reading thread blocks
+ * when the queue is full, so memory is bounded by the queue capacity and the
+ * consumer gets the first lines while the producer is still writing. Use
+ * {@link #discard()} if you are not going to read all remaining lines.
+ * <p>
+ * A catcher can be started as a thread of its own or, as the engines do,
+ * run with {@link StreamPumps#start(Runnable)}. Use
+ * {@link #waitTillFinished()} rather than join() to wait for it.
  *
  * @author Ingo Frommholz &lt;ingo@is.informatik.uni-duisburg.de&gt;
  *         <p>
@@ -54,9 +68,14 @@ public class StreamCatcher extends Thread {
 
     private BufferedReader in = null;
     private String delimiter = null;
-    private boolean finished = false;
+    private volatile boolean finished = false;
     private Vector<String> contentvec = null;
     private int cursor = 0;
+    private BlockingQueue<String> lineQueue = null;
+    private String lookahead = null;
+    private boolean endOfQueue = false;
+    private volatile boolean discard = false;
+    private EngineMetrics metrics = null;
     Logger LOG = LogManager.getLogger(StreamCatcher.class);
 
     /** The query queue. */
@@ -65,6 +84,17 @@ public class StreamCatcher extends Thread {
     /** Stores the result per query. Query ID is the key. */
     private Map<String, List<String>> resultContent = null;
 
+    /** Stores when the result of a query was read (System.nanoTime()). */
+    private Map<String, Long> resultTimes = null;
+
+    /**
+     * Marks the end of the stream in the line queue (compared by reference)
+     */
+    private static final String END_OF_STREAM = new String("END_OF_STREAM");
+
+    /** The default capacity of the line queue in streaming mode */
+    public static final int DEFAULT_STREAM_CAPACITY = 1024;
+
     /**
      * Constructor of class
      *
@@ -96,7 +126,73 @@ public class StreamCatcher extends Thread {
     }
 
     /**
-     * Waits until the the underlying stream is read.
+     * Constructor of class for streaming mode. Lines are delivered by hasNext()
+     * and next() as soon as they are read from the stream; at most capacity
+     * lines are buffered.
+     *
+     * @param in
+     *            a buffered reader, e.g. the STDOUT or STDERR from another
+     *            executable.
+     * @param delimiter
+     *            the string nofifying this thread to stop reading
+     * @param capacity
+     *            the maximum number of buffered lines
+     * @since 1.3.0
+     */
+    public StreamCatcher(BufferedReader in, String delimiter, int capacity) {
+	this.in = in;
+	this.delimiter = delimiter;
+	this.lineQueue = new ArrayBlockingQueue<String>(capacity);
+    }
+
+    /**
+     * Returns true if this catcher is in streaming mode
+     *
+     * @return true in streaming mode, false if all lines are buffered
+     * @since 1.3.0
+     */
+    public boolean isStreaming() {
+	return lineQueue != null;
+    }
+
+    /**
+     * Sets the metrics to be updated with the number of lines and bytes read,
+     * the time to the first line and, unless a query queue is read, the
+     * response time. Times are measured from the start of this catcher, so
+     * it should be started right before the input is sent. Must be invoked
+     * before the catcher is started.
+     *
+     * @param metrics
+     *            the metrics, or null for none
+     * @since 1.3.0
+     */
+    public void setMetrics(EngineMetrics metrics) {
+	this.metrics = metrics;
+    }
+
+    /**
+     * Drops all lines not read yet and waits until the underlying stream is
+     * read. In streaming mode, this must be invoked if the remaining lines are
+     * not consumed, since otherwise the reading thread blocks forever.
+     *
+     * @since 1.3.0
+     */
+    public void discard() {
+	discard = true;
+	if (lineQueue != null) {
+	    while (!waitTillFinished(10))
+		lineQueue.clear();
+	    lineQueue.clear();
+	} else
+	    waitTillFinished();
+	lookahead = null;
+	endOfQueue = true;
+	cursor = contentvec == null ? 0 : contentvec.size();
+    }
+
+    /**
+     * Waits until the the underlying stream is read. In streaming mode, this
+     * returns only after all lines were consumed or discarded.
      */
     public synchronized void waitTillFinished() {
 	while (!finished) {
@@ -107,6 +203,30 @@ public class StreamCatcher extends Thread {
 	}
     }
 
+    /**
+     * Waits until the the underlying stream is read, but at most the given
+     * number of milliseconds.
+     *
+     * @param timeout
+     *            the maximum time to wait in milliseconds
+     * @return true if the stream was read completely, false if the timeout
+     *         elapsed before
+     */
+    public synchronized boolean waitTillFinished(long timeout) {
+	long deadline = System.currentTimeMillis() + timeout;
+	long remaining = timeout;
+	while (!finished && remaining > 0) {
+	    try {
+		wait(remaining);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		break;
+	    }
+	    remaining = deadline - System.currentTimeMillis();
+	}
+	return finished;
+    }
+
     /**
      * Returns true when everyhing is read from the stream, false otherwise.
      *
@@ -119,7 +239,7 @@ public class StreamCatcher extends Thread {
     /**
      * Gets the content after all read/write operations are finished. Each line
      * of the content is stored in a vector element. This method blocks until
-     * the delimiter is read.
+     * the delimiter is read. In streaming mode, the vector stays empty.
      *
      * @return the content vector
      */
@@ -138,6 +258,8 @@ public class StreamCatcher extends Thread {
      * @return whether there is another element to read or not.
      */
     public boolean hasNext() {
+	if (lineQueue != null)
+	    return hasNextStreamed();
 	boolean hasNext = false;
 	waitTillFinished();
 	// waits when not started yet or
@@ -164,6 +286,18 @@ public class StreamCatcher extends Thread {
 	return this.resultContent;
     }
 
+    /**
+     * For query queues, this returns when the result of each query was read
+     * completely, as given by System.nanoTime(). Key is the query ID.
+     *
+     * @return the result times for query queues
+     * @since 1.3.0
+     */
+    public Map<String, Long> getQueryQueueResultTimes() {
+	waitTillFinished();
+	return this.resultTimes;
+    }
+
     /**
      * Gets the next line of the stream or null if the stream is finished. If we
      * did not receive a delimiter yet but already delivered the last recent
@@ -174,6 +308,14 @@ public class StreamCatcher extends Thread {
      *         everything was already delivered
      */
     public String next() {
+	if (lineQueue != null) {
+	    String nextLine = null;
+	    if (hasNextStreamed()) {
+		nextLine = lookahead;
+		lookahead = null;
+	    }
+	    return nextLine;
+	}
 	String nextLine = null;
 	waitTillFinished();
 	// waits when not started yet or
@@ -193,6 +335,28 @@ public class StreamCatcher extends Thread {
 	return nextLine;
     }
 
+    /*
+     * hasNext() in streaming mode: blocks until the next line or the end of the
+     * stream is available.
+     */
+    private boolean hasNextStreamed() {
+	if (lookahead != null)
+	    return true;
+	if (endOfQueue)
+	    return false;
+	try {
+	    String line = lineQueue.take();
+	    if (line == END_OF_STREAM)
+		endOfQueue = true;
+	    else
+		lookahead = line;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return false;
+	}
+	return lookahead != null;
+    }
+
     /**
      * This tells the stream catcher that a queue of queries needs to be read,
      * as it can happen with inference engines (like hyp_pra or hyp_pd). The
@@ -208,31 +372,40 @@ public class StreamCatcher extends Thread {
 
     /**
      * Read the input stream until the end of the stream is reached or the
-     * delimiter is read. This method is synchronised since no other thread is
-     * allowed to read the in stream unless the current thread has finished
-     * reading it.
+     * delimiter is read. Only the completion is synchronised, so threads
+     * waiting for this catcher (possibly with a timeout) are not blocked while
+     * the stream is read.
      */
     @Override
-    public synchronized void run() {
+    public void run() {
 	if (in != null) {
 	    finished = false;
 
 	    contentvec = new Vector<String>();
 	    String line = null;
+	    Pattern p = delimiter == null ? null : Pattern.compile(delimiter);
 	    HyInferenceEngine.Query currentQuery = null;
+	    long started = metrics == null ? 0 : System.nanoTime();
+	    long lines = 0;
+	    long bytes = 0;
 	    if (this.queryQueue != null) {
 		resultContent = new HashMap<String, List<String>>();
+		resultTimes = new HashMap<String, Long>();
 		currentQuery = queryQueue.poll();
 	    }
 	    try {
 		while ((line = in.readLine()) != null) {
 		    LOG.trace(line);
+		    if (metrics != null) {
+			if (lines++ == 0)
+			    metrics.recordFirstLine(System.nanoTime() - started);
+			bytes += EngineMetrics.lineBytes(line);
+		    }
 		    // Changed how the end of line delimiter was handled. The
 		    // entire line does not necessarily need to match the
 		    // delimiter.
 
-		    if (delimiter != null) {
-			Pattern p = Pattern.compile(delimiter);
+		    if (p != null) {
 			Matcher m = p.matcher(line);
 			if (m.find()) {
 			    /*
@@ -249,6 +422,8 @@ public class StreamCatcher extends Thread {
 				if (currentQuery != null) {
 				    resultContent.put(currentQuery.getId(),
 					    contentvec);
+				    resultTimes.put(currentQuery.getId(),
+					    System.nanoTime());
 				}
 
 				// check if we expect another query, if so,
@@ -261,7 +436,11 @@ public class StreamCatcher extends Thread {
 			    }
 			}
 		    }
-		    contentvec.add(line);
+		    if (lineQueue != null) {
+			if (!discard)
+			    lineQueue.put(line);
+		    } else
+			contentvec.add(line);
 		    /*  } else {
 		    if ((delimiter != null) && (line.equals(delimiter))) {
 		        break;
@@ -274,10 +453,26 @@ public class StreamCatcher extends Thread {
 		// IOExceptions can happen if the stream is closed and
 		// doesn't know. Hence we only send a debug message.
 		LOG.debug("IOException in StreamCatcher", io);
+	    } catch (InterruptedException ie) {
+		LOG.debug("StreamCatcher interrupted", ie);
+	    }
+	    if (metrics != null) {
+		metrics.recordOutput(lines, bytes);
+		if (queryQueue == null)
+		    metrics.recordResponse(System.nanoTime() - started);
+	    }
+	    if (lineQueue != null && !discard) {
+		try {
+		    lineQueue.put(END_OF_STREAM);
+		} catch (InterruptedException ie) {
+		    LOG.debug("StreamCatcher interrupted", ie);
+		}
 	    }
 	    LOG.trace("StreamCatcher finished.");
-	    finished = true;
-	    notifyAll();
+	    synchronized (this) {
+		finished = true;
+		notifyAll();
+	    }
 	}
     }
 }
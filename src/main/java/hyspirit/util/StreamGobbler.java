@@ -38,6 +38,8 @@ import java.io.PrintStream; // e.g. System.err
  * A stream gobbler is started for each engine to pipe the error
  * output of the engine either into a stream that is read by the
  * search/classification application, or directly so System.err.
+ * Instead of starting it as a thread, it can be run with
+ * {@link StreamPumps#start(Runnable)}.
  * 
  * @author Ingo Frommholz &lt;ingo@is.informatik.uni-duisburg.de&gt;
  * <p>
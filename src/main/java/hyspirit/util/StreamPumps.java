@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the tasks pumping the output streams of engine processes, like
+ * {@link StreamCatcher}, {@link StreamGobbler} and the STDERR handlers of
+ * engines. Such a task blocks in a read most of the time, so each running
+ * engine needs one or two of them. The executor is chosen with the system
+ * property "hyspirit.streams":
+ * <ul>
+ * <li>"virtual": a virtual thread per task; the default on JDKs supporting
+ * virtual threads,</li>
+ * <li>"pool": a shared pool of daemon threads, reusing idle threads; the
+ * default on older JDKs. The pool keeps at most "hyspirit.streams.pool"
+ * (default 256) threads; further tasks get a thread of their own, as a
+ * queued pump could block the engine it should read from,</li>
+ * <li>"thread": a new thread per task, as before.</li>
+ * </ul>
+ * Any other executor can be set with {@link #setExecutor(Executor)}; it must
+ * not queue tasks indefinitely, for the reason given above.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ * @since 1.3.0
+ */
+public final class StreamPumps {
+
+    private static Logger LOG = LogManager.getLogger(StreamPumps.class);
+
+    /** The system property choosing the executor */
+    public static final String MODE_PROPERTY = "hyspirit.streams";
+
+    /** The system property limiting the number of pooled threads */
+    public static final String POOL_SIZE_PROPERTY = "hyspirit.streams.pool";
+
+    /** The default number of pooled threads */
+    public static final int DEFAULT_POOL_SIZE = 256;
+
+    private static Executor executor = null;
+
+    private StreamPumps() {
+    }
+
+    /**
+     * Runs a stream pumping task asynchronously
+     *
+     * @param pump
+     *            the task, e.g. a {@link StreamCatcher}
+     */
+    public static void start(Runnable pump) {
+	getExecutor().execute(pump);
+    }
+
+    /**
+     * Returns the executor running the stream pumping tasks, creating the
+     * default one if none was set
+     *
+     * @return the executor
+     */
+    public static synchronized Executor getExecutor() {
+	if (executor == null)
+	    executor = createExecutor(System.getProperty(MODE_PROPERTY,
+		    virtualThreadsAvailable() ? "virtual" : "pool"));
+	return executor;
+    }
+
+    /**
+     * Sets the executor running the stream pumping tasks started from now on
+     *
+     * @param executor
+     *            the executor, or null for the default executor
+     */
+    public static synchronized void setExecutor(Executor executor) {
+	StreamPumps.executor = executor;
+    }
+
+    /**
+     * Returns true if the JDK supports virtual threads
+     *
+     * @return whether virtual threads are available
+     */
+    public static boolean virtualThreadsAvailable() {
+	try {
+	    Executors.class
+		    .getMethod("newVirtualThreadPerTaskExecutor");
+	    return true;
+	} catch (NoSuchMethodException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Creates an executor for the given mode ("virtual", "pool" or
+     * "thread")
+     *
+     * @param mode
+     *            the mode
+     * @return the executor
+     */
+    static Executor createExecutor(String mode) {
+	if ("virtual".equals(mode)) {
+	    Executor virtual = virtualThreadExecutor();
+	    if (virtual != null)
+		return virtual;
+	    LOG.warn("Virtual threads are not available, using a pool");
+	    mode = "pool";
+	}
+	if ("thread".equals(mode))
+	    return new Executor() {
+		public void execute(Runnable task) {
+		    new Thread(task).start();
+		}
+	    };
+	if (!"pool".equals(mode))
+	    LOG.warn("Unknown " + MODE_PROPERTY + " " + mode
+		    + ", using a pool");
+	return pool(Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE));
+    }
+
+    /*
+     * A pool of daemon threads which starts a thread of its own for tasks
+     * exceeding its size
+     */
+    private static Executor pool(int size) {
+	final ThreadFactory factory = new ThreadFactory() {
+	    private final AtomicInteger count = new AtomicInteger();
+
+	    public Thread newThread(Runnable task) {
+		Thread t = new Thread(task, "hyspirit-stream-"
+			+ count.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	    }
+	};
+	return new ThreadPoolExecutor(0, Math.max(1, size), 60,
+		TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), factory,
+		new RejectedExecutionHandler() {
+		    public void rejectedExecution(Runnable task,
+			    ThreadPoolExecutor pool) {
+			factory.newThread(task).start();
+		    }
+		});
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() if available; looked up by
+     * reflection, as we compile for Java 8
+     */
+    private static Executor virtualThreadExecutor() {
+	try {
+	    Method m = Executors.class
+		    .getMethod("newVirtualThreadPerTaskExecutor");
+	    return (Executor) m.invoke(null);
+	} catch (Exception e) {
+	    return null;
+	}
+    }
+}
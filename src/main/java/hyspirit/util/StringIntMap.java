@@ -0,0 +1,292 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from strings to primitive ints using open addressing with
+ * linear probing, so no Integer or entry objects are created. Each key gets a
+ * dense index (0, 1, 2, ...) in the order of insertion, which stays valid
+ * as long as the map is not cleared; so the map can also be used as a
+ * dictionary assigning ids to terms. Keys cannot be removed, and null keys
+ * are not allowed. Iteration follows the insertion order. Instances are not
+ * thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class StringIntMap implements Serializable {
+
+    private static final long serialVersionUID = -3202573868152201178L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] keys;
+    private int[] hashes;
+    private int[] values;
+    // index + 1 of the key in the slot, 0 for a free slot
+    private int[] table;
+    private int size = 0;
+
+    /**
+     * Constructor of class.
+     */
+    public StringIntMap() {
+	this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructor of class.
+     *
+     * @param expectedSize
+     *            the expected number of keys
+     */
+    public StringIntMap(int expectedSize) {
+	int capacity = Math.max(MIN_CAPACITY, expectedSize);
+	keys = new String[capacity];
+	hashes = new int[capacity];
+	values = new int[capacity];
+	table = new int[tableSize(capacity)];
+    }
+
+    /**
+     * Returns the index of the key
+     *
+     * @param key
+     *            the key
+     * @return the index, or -1 if the key is not in the map
+     */
+    public int indexOf(String key) {
+	int hash = hash(key);
+	int mask = table.length - 1;
+	for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+	    int entry = table[slot] - 1;
+	    if (entry < 0)
+		return -1;
+	    if (hashes[entry] == hash && keys[entry].equals(key))
+		return entry;
+	}
+    }
+
+    /**
+     * Returns the index of the key, adding it with value 0 if it is not in
+     * the map
+     *
+     * @param key
+     *            the key
+     * @return the index
+     */
+    public int add(String key) {
+	int hash = hash(key);
+	int mask = table.length - 1;
+	int slot = hash & mask;
+	for (;; slot = (slot + 1) & mask) {
+	    int entry = table[slot] - 1;
+	    if (entry < 0)
+		break;
+	    if (hashes[entry] == hash && keys[entry].equals(key))
+		return entry;
+	}
+	if (size == keys.length) {
+	    int capacity = size + (size >> 1);
+	    keys = Arrays.copyOf(keys, capacity);
+	    hashes = Arrays.copyOf(hashes, capacity);
+	    values = Arrays.copyOf(values, capacity);
+	}
+	int entry = size++;
+	keys[entry] = key;
+	hashes[entry] = hash;
+	values[entry] = 0;
+	if (2 * size > table.length)
+	    rehash(2 * table.length);
+	else
+	    table[slot] = entry + 1;
+	return entry;
+    }
+
+    /**
+     * Returns the value of the key
+     *
+     * @param key
+     *            the key
+     * @return the value, or 0 if the key is not in the map
+     */
+    public int get(String key) {
+	int entry = indexOf(key);
+	return entry < 0 ? 0 : values[entry];
+    }
+
+    /**
+     * Checks if the key is in the map
+     *
+     * @param key
+     *            the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(String key) {
+	return indexOf(key) >= 0;
+    }
+
+    /**
+     * Sets the value of the key
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @return the index of the key
+     */
+    public int put(String key, int value) {
+	int entry = add(key);
+	values[entry] = value;
+	return entry;
+    }
+
+    /**
+     * Adds delta to the value of the key (which is 0 for a new key)
+     *
+     * @param key
+     *            the key
+     * @param delta
+     *            the increment
+     * @return the new value
+     */
+    public int increment(String key, int delta) {
+	int entry = add(key);
+	return values[entry] += delta;
+    }
+
+    /**
+     * Returns the key with the given index
+     *
+     * @param index
+     *            the index
+     * @return the key
+     */
+    public String keyAt(int index) {
+	checkIndex(index);
+	return keys[index];
+    }
+
+    /**
+     * Returns the value of the key with the given index
+     *
+     * @param index
+     *            the index
+     * @return the value
+     */
+    public int valueAt(int index) {
+	checkIndex(index);
+	return values[index];
+    }
+
+    /**
+     * Sets the value of the key with the given index
+     *
+     * @param index
+     *            the index
+     * @param value
+     *            the value
+     */
+    public void setValueAt(int index, int value) {
+	checkIndex(index);
+	values[index] = value;
+    }
+
+    /**
+     * Returns the number of keys
+     *
+     * @return the size of the map
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Removes all keys
+     */
+    public void clear() {
+	Arrays.fill(keys, 0, size, null);
+	Arrays.fill(table, 0);
+	size = 0;
+    }
+
+    /**
+     * Returns the keys in the order of insertion
+     *
+     * @return an iterator over the keys
+     */
+    public Iterator<String> keys() {
+	return new Iterator<String>() {
+	    private int next = 0;
+
+	    @Override
+	    public boolean hasNext() {
+		return next < size;
+	    }
+
+	    @Override
+	    public String next() {
+		if (next >= size)
+		    throw new NoSuchElementException();
+		return keys[next++];
+	    }
+
+	    @Override
+	    public void remove() {
+		throw new UnsupportedOperationException();
+	    }
+	};
+    }
+
+    private void checkIndex(int index) {
+	if (index < 0 || index >= size)
+	    throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+		    + size);
+    }
+
+    private void rehash(int length) {
+	table = new int[length];
+	int mask = length - 1;
+	for (int entry = 0; entry < size; entry++) {
+	    int slot = hashes[entry] & mask;
+	    while (table[slot] != 0)
+		slot = (slot + 1) & mask;
+	    table[slot] = entry + 1;
+	}
+    }
+
+    /*
+     * Spreads the bits of the string hash code, as the table index only uses
+     * the lower bits
+     */
+    private static int hash(String key) {
+	int h = key.hashCode() * 0x9E3779B9;
+	return h ^ (h >>> 16);
+    }
+
+    /*
+     * The smallest power of two which is at least twice the capacity
+     */
+    private static int tableSize(int capacity) {
+	return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+}
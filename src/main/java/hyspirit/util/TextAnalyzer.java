@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A pure Java text analysis chain resembling the hy_text2pool configuration
+ * used by {@link HyText2PoolFilter}: the text is lower-cased, umlauts are
+ * translated (&auml; becomes ae, &szlig; becomes ss etc.), it is split into
+ * words at every character which is neither a letter nor a digit, stop words
+ * are removed and the remaining words are Porter stemmed, unless they are
+ * morphemes. Stop word and morpheme files contain one word per line.
+ * <p>
+ * An analyzer can be shared between threads.
+ *
+ * @since 1.3.0
+ */
+public class TextAnalyzer {
+    /** Name of the stop word list resource shipped with JaySpirit */
+    public static final String STOPWORD_RESOURCE = "/stopword-list.txt";
+    /** Name of the morpheme list resource shipped with JaySpirit */
+    public static final String MORPHEME_RESOURCE = "/morphemes-list.txt";
+
+    private final boolean stemming;
+    private final Set<String> stopwords;
+    private final Set<String> morphemes;
+
+    private final ThreadLocal<PorterStemmer> stemmer =
+	    new ThreadLocal<PorterStemmer>() {
+		@Override
+		protected PorterStemmer initialValue() {
+		    return new PorterStemmer();
+		}
+	    };
+
+    /**
+     * Constructor of class.
+     *
+     * @param stemming
+     *            whether stemming should be applied
+     * @param stopwords
+     *            the stop words (lower case); null if no stop word
+     *            elimination should take place
+     * @param morphemes
+     *            the morphemes (lower case), which are not stemmed; null if
+     *            there are none
+     */
+    public TextAnalyzer(boolean stemming, Set<String> stopwords,
+	    Set<String> morphemes) {
+	this.stemming = stemming;
+	this.stopwords = stopwords == null ? Collections.<String> emptySet()
+		: new HashSet<String>(stopwords);
+	this.morphemes = morphemes == null ? Collections.<String> emptySet()
+		: new HashSet<String>(morphemes);
+    }
+
+    /**
+     * Creates an analyzer from the same files hy_text2pool would use.
+     *
+     * @param stemming
+     *            whether stemming should be applied
+     * @param stopwordFile
+     *            absolute name of a stop word file; null if no stop word
+     *            elimination should take place
+     * @param morphemeFile
+     *            absolute name of a morpheme file; null if there are none.
+     * @return the analyzer
+     * @throws HySpiritException
+     *             if a file cannot be read
+     */
+    public static TextAnalyzer fromFiles(boolean stemming,
+	    String stopwordFile, String morphemeFile) throws HySpiritException {
+	try {
+	    return new TextAnalyzer(stemming, readWordFile(stopwordFile),
+		    readWordFile(morphemeFile));
+	} catch (IOException io) {
+	    throw new HySpiritException("Cannot read word list: "
+		    + io.getMessage());
+	}
+    }
+
+    /**
+     * Creates an analyzer with the stop word and morpheme lists shipped with
+     * JaySpirit ({@link #STOPWORD_RESOURCE}, {@link #MORPHEME_RESOURCE}).
+     *
+     * @param stemming
+     *            whether stemming should be applied
+     * @return the analyzer
+     * @throws HySpiritException
+     *             if a resource cannot be read
+     */
+    public static TextAnalyzer withDefaultLists(boolean stemming)
+	    throws HySpiritException {
+	try {
+	    return new TextAnalyzer(stemming,
+		    readWordResource(STOPWORD_RESOURCE),
+		    readWordResource(MORPHEME_RESOURCE));
+	} catch (IOException io) {
+	    throw new HySpiritException("Cannot read word list: "
+		    + io.getMessage());
+	}
+    }
+
+    /**
+     * Analyses the given text
+     *
+     * @param text
+     *            the text
+     * @return the resulting terms in text order (maybe empty)
+     */
+    public List<String> analyze(String text) {
+	List<String> terms = new ArrayList<String>();
+	if (text == null)
+	    return terms;
+	StringBuilder word = new StringBuilder();
+	int length = text.length();
+	for (int i = 0; i <= length; i++) {
+	    char c = i < length ? text.charAt(i) : ' ';
+	    if (Character.isLetterOrDigit(c)) {
+		c = Character.toLowerCase(c);
+		switch (c) {
+		case '\u00e4':
+		    word.append("ae");
+		    break;
+		case '\u00f6':
+		    word.append("oe");
+		    break;
+		case '\u00fc':
+		    word.append("ue");
+		    break;
+		case '\u00df':
+		    word.append("ss");
+		    break;
+		default:
+		    word.append(c);
+		}
+	    } else if (word.length() > 0) {
+		String term = term(word.toString());
+		if (term != null)
+		    terms.add(term);
+		word.setLength(0);
+	    }
+	}
+	return terms;
+    }
+
+    /**
+     * Analyses the given text
+     *
+     * @param text
+     *            the text
+     * @return the resulting terms separated by blanks, or null if nothing is
+     *         left after filtering
+     */
+    public String filter(String text) {
+	List<String> terms = analyze(text);
+	if (terms.isEmpty())
+	    return null;
+	StringBuilder strbuf = new StringBuilder();
+	for (String term : terms) {
+	    if (strbuf.length() > 0)
+		strbuf.append(' ');
+	    strbuf.append(term);
+	}
+	return strbuf.toString();
+    }
+
+    /*
+     * Applies stop word elimination and stemming to a single word
+     */
+    private String term(String word) {
+	if (stopwords.contains(word))
+	    return null;
+	if (!stemming || morphemes.contains(word))
+	    return word;
+	return stemmer.get().stem(word);
+    }
+
+    private static Set<String> readWordFile(String fileName)
+	    throws IOException {
+	if (fileName == null)
+	    return null;
+	return readWords(new FileInputStream(fileName));
+    }
+
+    private static Set<String> readWordResource(String name)
+	    throws IOException {
+	InputStream in = TextAnalyzer.class.getResourceAsStream(name);
+	if (in == null)
+	    throw new IOException("resource " + name + " not found");
+	return readWords(in);
+    }
+
+    private static Set<String> readWords(InputStream in) throws IOException {
+	Set<String> words = new HashSet<String>();
+	BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+		StandardCharsets.UTF_8));
+	try {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		line = line.trim().toLowerCase(Locale.ROOT);
+		if (!line.equals(""))
+		    words.add(line);
+	    }
+	} finally {
+	    reader.close();
+	}
+	return words;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+/**
+ * A bounded min-heap of primitive scores which keeps the k best of a stream
+ * of scored entries in O(k) memory. Each accepted entry gets a slot (0..k-1);
+ * callers keep the payload of an entry (e.g. a URI or a document id) in an
+ * array indexed by the slot, which is reused when the entry is pushed out.
+ * Of entries with the same score, the ones offered first are kept, so the
+ * result equals the first k entries of a stable sort in descending order.
+ * Instances are not thread-safe.
+ *
+ * @since 1.3.0
+ */
+public class TopKHeap {
+
+    private final int k;
+
+    // score and insertion number per slot
+    private final double[] scores;
+    private final long[] seqs;
+
+    // the heap of slots; heap[0] is the worst entry
+    private final int[] heap;
+    private int size = 0;
+    private long seq = 0;
+
+    /**
+     * Constructor of class.
+     *
+     * @param k
+     *            the number of entries to keep (&gt; 0)
+     */
+    public TopKHeap(int k) {
+	if (k <= 0)
+	    throw new IllegalArgumentException("k must be > 0: " + k);
+	this.k = k;
+	this.scores = new double[k];
+	this.seqs = new long[k];
+	this.heap = new int[k];
+    }
+
+    /**
+     * Offers an entry.
+     *
+     * @param score
+     *            the score of the entry
+     * @return the slot of the entry, or -1 if the entry is not among the k
+     *         best entries
+     */
+    public int offer(double score) {
+	long s = seq++;
+	int slot;
+	if (size < k) {
+	    slot = size;
+	    heap[size++] = slot;
+	    scores[slot] = score;
+	    seqs[slot] = s;
+	    up(size - 1);
+	} else {
+	    // ties are rejected, as the entry is newer than the root
+	    if (!(score > scores[heap[0]]))
+		return -1;
+	    slot = heap[0];
+	    scores[slot] = score;
+	    seqs[slot] = s;
+	    down(heap, size, 0);
+	}
+	return slot;
+    }
+
+    /**
+     * Returns the score an entry has to exceed to be accepted once the heap
+     * is full, or negative infinity if it is not full yet.
+     *
+     * @return the threshold
+     */
+    public double threshold() {
+	return size < k ? Double.NEGATIVE_INFINITY : scores[heap[0]];
+    }
+
+    /**
+     * Returns the score of the entry in the given slot
+     *
+     * @param slot
+     *            the slot
+     * @return the score
+     */
+    public double score(int slot) {
+	return scores[slot];
+    }
+
+    /**
+     * Returns the slots of all entries, best entry first
+     *
+     * @return the slots in ranking order
+     */
+    public int[] slots() {
+	int[] h = new int[size];
+	System.arraycopy(heap, 0, h, 0, size);
+	int[] sorted = new int[size];
+	// take the worst entry from a copy of the heap until it is empty
+	for (int n = size; n > 0;) {
+	    sorted[n - 1] = h[0];
+	    h[0] = h[--n];
+	    down(h, n, 0);
+	}
+	return sorted;
+    }
+
+    /**
+     * Returns the number of entries
+     *
+     * @return the number of entries
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the maximum number of entries
+     *
+     * @return k
+     */
+    public int capacity() {
+	return k;
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+	size = 0;
+	seq = 0;
+    }
+
+    /*
+     * Whether the entry in slot a ranks below the one in slot b
+     */
+    private boolean worse(int a, int b) {
+	return scores[a] < scores[b]
+		|| (scores[a] == scores[b] && seqs[a] > seqs[b]);
+    }
+
+    private void up(int i) {
+	int slot = heap[i];
+	while (i > 0) {
+	    int parent = (i - 1) >>> 1;
+	    if (!worse(slot, heap[parent]))
+		break;
+	    heap[i] = heap[parent];
+	    i = parent;
+	}
+	heap[i] = slot;
+    }
+
+    private void down(int[] h, int n, int i) {
+	int slot = h[i];
+	int half = n >>> 1;
+	while (i < half) {
+	    int child = 2 * i + 1;
+	    if (child + 1 < n && worse(h[child + 1], h[child]))
+		child++;
+	    if (!worse(h[child], slot))
+		break;
+	    h[i] = h[child];
+	    i = child;
+	}
+	h[i] = slot;
+    }
+}
@@ -0,0 +1,136 @@
+package hyspirit.application.indexing;
+
+import static hyspirit.application.indexing.MDS2FreqTest.golden;
+import static hyspirit.application.indexing.MDS2FreqTest.goldenString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import hyspirit.engines.EnginePipeline;
+import hyspirit.engines.HyFreq2MDSEngine;
+import hyspirit.knowledgeBase.HyTupleParser;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Tests for {@link Freq2MDS} against the golden files in the resources and,
+ * if the HYSPIRIT environment variable points to an installation, against
+ * hy_freq2mds
+ */
+public class Freq2MDSTest {
+
+    /**
+     * Normalised idf values from document frequencies
+     */
+    @Test
+    public final void testMaxIDF() throws Exception {
+	Freq2MDS idf = new Freq2MDS();
+	idf.useMaxIDFNorm();
+	StringWriter out = new StringWriter();
+	assertEquals(3, idf.run(golden("term_df.freq"), out));
+	assertEquals(goldenString("idf.mds"), out.toString());
+
+	// the same values as the Java IDF calculation
+	DocFreqList dfList = new DocFreqList();
+	String[][] termDocs = { { "a", "d1" }, { "b", "d1" }, { "a", "d2" },
+		{ "c", "d2" }, { "a", "d3" }, { "b", "d3" } };
+	for (String[] termDoc : termDocs)
+	    dfList.addTermDoc(termDoc[0], termDoc[1]);
+	HyTupleParser parser = new HyTupleParser();
+	for (String line : out.toString().split("\n")) {
+	    parser.parse(line);
+	    assertEquals(dfList.maxIDF(parser.valueAt(0).replace("\"", "")),
+		    parser.probability(), 1e-6);
+	}
+    }
+
+    /**
+     * APoisson tf weights with the average of each document, streamed and
+     * not
+     */
+    @Test
+    public final void testAPoissonAverage() throws Exception {
+	for (boolean stream : new boolean[] { true, false }) {
+	    Freq2MDS tf = new Freq2MDS();
+	    tf.assumeApoissonDistribution();
+	    tf.setAvg(true);
+	    tf.setStream(stream);
+	    StringWriter out = new StringWriter();
+	    tf.run(golden("term_tf.freq"), out);
+	    assertEquals(goldenString("tf_apoisson.mds"), out.toString());
+	}
+    }
+
+    /**
+     * Distributions, key columns and exponent without prefix
+     */
+    @Test
+    public final void testDistributions() throws Exception {
+	String freqs = "1 (a, x)\n3 (b, y)\n";
+	Freq2MDS disjoint = new Freq2MDS();
+	disjoint.addColumn(2);
+	disjoint.setExponent(2);
+	StringWriter out = new StringWriter();
+	disjoint.run(new StringReader(freqs), out);
+	assertEquals("0.0625 (x)\n0.5625 (y)\n", out.toString());
+
+	Freq2MDS poisson = new Freq2MDS();
+	poisson.assumePoissonDistribution();
+	poisson.addLambda(1);
+	poisson.addLambda(3);
+	out = new StringWriter();
+	poisson.run(new StringReader(freqs), out);
+	// (1-e^-1 + 1-e^-1/3)/2 and (1-e^-3 + 1-e^-1)/2
+	assertEquals("0.457795 (a,x)\n0.791167 (b,y)\n", out.toString());
+    }
+
+    /**
+     * hy_freq2mds and Freq2MDS agree on the golden files
+     */
+    @Test
+    public final void testAgainstHySpirit() throws Exception {
+	String path = System.getenv("HYSPIRIT");
+	assumeTrue(path != null
+		&& new File(path, "bin" + File.separator + "hy_freq2mds")
+			.canExecute());
+	// reads $HYSPIRIT like the engines do
+	HySpiritProperties hyspirit = new HySpiritProperties(
+		System.getProperty("java.io.tmpdir"));
+	File dfFile = File.createTempFile("term_df", ".freq");
+	File idfFile = File.createTempFile("idf", ".mds");
+	dfFile.deleteOnExit();
+	idfFile.deleteOnExit();
+	Files.write(dfFile.toPath(), goldenString("term_df.freq").getBytes(
+		StandardCharsets.UTF_8));
+	HyFreq2MDSEngine engine = new HyFreq2MDSEngine(hyspirit);
+	engine.useMaxIDFNorm();
+	engine.addMDSFile(dfFile.getPath());
+	EnginePipeline pipeline = new EnginePipeline.Builder().add(engine)
+		.redirectOutput(idfFile).build();
+	pipeline.start();
+	pipeline.waitFor();
+	List<String> expected = Files.readAllLines(idfFile.toPath(),
+		StandardCharsets.UTF_8);
+	Freq2MDS idf = new Freq2MDS();
+	idf.useMaxIDFNorm();
+	StringWriter out = new StringWriter();
+	idf.run(golden("term_df.freq"), out);
+	String[] actual = out.toString().split("\n");
+	assertEquals(expected.size(), actual.length);
+	HyTupleParser hy = new HyTupleParser();
+	HyTupleParser java = new HyTupleParser();
+	for (int i = 0; i < actual.length; i++) {
+	    hy.parse(expected.get(i));
+	    java.parse(actual[i]);
+	    assertEquals(hy.valueAt(0), java.valueAt(0));
+	    assertEquals(hy.probability(), java.probability(), 1e-5);
+	}
+    }
+}
@@ -0,0 +1,75 @@
+package hyspirit.application.indexing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link MDS2Freq} against the golden files in the resources
+ */
+public class MDS2FreqTest {
+
+    static Reader golden(String name) {
+	return new InputStreamReader(
+		MDS2FreqTest.class.getResourceAsStream(name),
+		StandardCharsets.UTF_8);
+    }
+
+    static String goldenString(String name) {
+	Scanner scanner = new Scanner(golden(name)).useDelimiter("\\A");
+	String content = scanner.next();
+	scanner.close();
+	return content;
+    }
+
+    /**
+     * Term frequencies per document with averages, streamed and not
+     */
+    @Test
+    public final void testTermFrequencies() throws Exception {
+	for (boolean stream : new boolean[] { true, false }) {
+	    MDS2Freq tf = new MDS2Freq();
+	    tf.addColumn(1);
+	    tf.setGroup(2);
+	    tf.setAvg(true);
+	    tf.setStream(stream);
+	    StringWriter out = new StringWriter();
+	    assertEquals(6, tf.run(golden("term_doc.mds"), out));
+	    assertEquals(goldenString("term_tf.freq"), out.toString());
+	}
+    }
+
+    /**
+     * Document frequencies by counting values
+     */
+    @Test
+    public final void testDocumentFrequencies() throws Exception {
+	MDS2Freq df = new MDS2Freq();
+	df.addColumn(1);
+	df.countValues();
+	df.setAvg(true);
+	StringWriter out = new StringWriter();
+	assertEquals(3, df.run(golden("term_doc.mds"), out));
+	assertEquals(goldenString("term_df.freq"), out.toString());
+    }
+
+    /**
+     * Summing up probabilities instead of counting tuples
+     */
+    @Test
+    public final void testProbabilistic() throws Exception {
+	MDS2Freq freq = new MDS2Freq();
+	freq.addColumn(1);
+	freq.setProbabilistic(true);
+	StringWriter out = new StringWriter();
+	freq.run(new StringReader("0.5 (a, x)\n0.25 (a, y)\n(b, x)\n"), out);
+	assertEquals("0.75 (a)\n1 (b)\n", out.toString());
+    }
+}
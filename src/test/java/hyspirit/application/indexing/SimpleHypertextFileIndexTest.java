@@ -0,0 +1,242 @@
+package hyspirit.application.indexing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import hyspirit.engines.QueryCache;
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Tests for {@link SimpleHypertextFileIndex} with the Java analyzer and
+ * converters and fake HySpirit engines for the index directories
+ */
+public class SimpleHypertextFileIndexTest {
+
+    private static final String[] WORDS = { "information", "retrieval",
+	    "probabilistic", "logic", "hypertext", "index", "query", "document",
+	    "relevance", "model", "term", "weight" };
+
+    private static final String[] KB_FILES = {
+	    SimpleHypertextFileIndex.TF_MDS, SimpleHypertextFileIndex.IDF_MDS,
+	    SimpleHypertextFileIndex.TERM_MDS,
+	    SimpleHypertextFileIndex.TERM_FREQ,
+	    SimpleHypertextFileIndex.DOC_FREQ,
+	    SimpleHypertextFileIndex.INSTANCE_OF,
+	    SimpleHypertextFileIndex.ATTRIBUTE, SimpleHypertextFileIndex.LINK };
+
+    static IndexingObject document(int d, Random random) {
+	IndexingObject idx = new IndexingObject("doc" + d, "article");
+	StringBuilder text = new StringBuilder();
+	for (int w = 5 + random.nextInt(30); w > 0; w--)
+	    text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+	idx.setFulltext(text.toString());
+	idx.addAttribute("author", "a" + random.nextInt(5));
+	return idx;
+    }
+
+    static SimpleHypertextFileIndex newIndex(HySpiritProperties hyspirit,
+	    File dir) {
+	SimpleHypertextFileIndex index = new SimpleHypertextFileIndex(
+		hyspirit, dir.getAbsolutePath());
+	index.useTextAnalyzer(true);
+	index.useJavaConverters(true);
+	return index;
+    }
+
+    static String kbFile(File dir, String name) throws Exception {
+	return new String(Files.readAllBytes(new File(new File(dir,
+		SimpleHypertextFileIndex.KB_DIR), name).toPath()),
+		StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parallel ingestion yields the same statistics as serial ingestion
+     */
+    @Test
+    public final void testParallelIngestion() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File base = Files.createTempDirectory("shfi_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		new File(base, "hyspirit"), new Properties());
+	File serialDir = new File(base, "serial");
+	File parallelDir = new File(base, "parallel");
+	SimpleHypertextFileIndex serial = newIndex(hyspirit, serialDir);
+	SimpleHypertextFileIndex parallel = newIndex(hyspirit, parallelDir);
+	parallel.useParallelIngestion(4);
+
+	Random random = new Random(42);
+	for (int d = 0; d < 300; d++) {
+	    IndexingObject idx = document(d, random);
+	    serial.addIndexingObject(idx);
+	    parallel.addIndexingObject(idx);
+	    if (d % 10 == 0) {
+		serial.addHyperlink("doc" + d, "doc" + (d + 1), "cites");
+		parallel.addHyperlink("doc" + d, "doc" + (d + 1), "cites");
+	    }
+	}
+	serial.index();
+	parallel.index();
+	for (String name : KB_FILES) {
+	    String expected = kbFile(serialDir, name);
+	    assertFalse(name, expected.isEmpty());
+	    assertEquals(name, expected, kbFile(parallelDir, name));
+	}
+    }
+
+    /**
+     * A second index() writes the documents of the first one together with
+     * those added in between
+     */
+    @Test
+    public final void testIndexTwice() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File base = Files.createTempDirectory("shfi_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		new File(base, "hyspirit"), new Properties());
+	File twiceDir = new File(base, "twice");
+	File onceDir = new File(base, "once");
+	SimpleHypertextFileIndex twice = newIndex(hyspirit, twiceDir);
+	SimpleHypertextFileIndex once = newIndex(hyspirit, onceDir);
+
+	Random random = new Random(42);
+	for (int d = 0; d < 40; d++) {
+	    IndexingObject idx = document(d, random);
+	    twice.addIndexingObject(idx);
+	    once.addIndexingObject(idx);
+	    if (d == 20)
+		twice.index();
+	}
+	twice.addHyperlink("doc0", "doc30", "cites");
+	once.addHyperlink("doc0", "doc30", "cites");
+	twice.index();
+	once.index();
+
+	for (String name : KB_FILES) {
+	    // the knowledge base files are appended, so compare distinct lines
+	    TreeSet<String> expected = new TreeSet<String>(
+		    Arrays.asList(kbFile(onceDir, name).split("\n")));
+	    TreeSet<String> actual = new TreeSet<String>(
+		    Arrays.asList(kbFile(twiceDir, name).split("\n")));
+	    assertEquals(name, expected, actual);
+	}
+	assertTrue(twice.isIndexed("doc3"));
+	assertTrue(twice.isIndexed("doc39"));
+    }
+
+    /**
+     * Adding and replacing documents incrementally yields the same knowledge
+     * base as indexing the resulting corpus at once
+     */
+    @Test
+    public final void testIndexIncrementally() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File base = Files.createTempDirectory("shfi_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		new File(base, "hyspirit"), new Properties());
+	File incrementalDir = new File(base, "incremental");
+	File fullDir = new File(base, "full");
+	SimpleHypertextFileIndex incremental = newIndex(hyspirit,
+		incrementalDir);
+	SimpleHypertextFileIndex full = newIndex(hyspirit, fullDir);
+
+	Random random = new Random(42);
+	IndexingObject[] corpus = new IndexingObject[60];
+	for (int d = 0; d < 50; d++) {
+	    corpus[d] = document(d, random);
+	    incremental.addIndexingObject(corpus[d]);
+	}
+	for (int d = 0; d < 50; d += 5)
+	    incremental.addHyperlink("doc" + d, "doc" + (d + 1), "cites");
+	incremental.index();
+
+	// replace doc5 and doc10 (dropping their links), add doc50 to doc59
+	for (int d : new int[] { 5, 10 }) {
+	    corpus[d] = document(d, random);
+	    incremental.addIndexingObject(corpus[d]);
+	}
+	for (int d = 50; d < 60; d++) {
+	    corpus[d] = document(d, random);
+	    incremental.addIndexingObject(corpus[d]);
+	}
+	incremental.addHyperlink("doc10", "doc2", "cites");
+	incremental.addHyperlink("doc55", "doc0", "cites");
+	QueryCache cache = new QueryCache(100, 100000);
+	cache.put("q", Arrays.asList("0.5 (\"doc5\")"));
+	incremental.setQueryCache(cache);
+	incremental.indexIncrementally();
+	assertEquals(0, cache.size());
+
+	for (IndexingObject idx : corpus)
+	    full.addIndexingObject(idx);
+	for (int d = 0; d < 50; d += 5)
+	    if (d != 5 && d != 10)
+		full.addHyperlink("doc" + d, "doc" + (d + 1), "cites");
+	full.addHyperlink("doc10", "doc2", "cites");
+	full.addHyperlink("doc55", "doc0", "cites");
+	full.index();
+
+	for (String name : KB_FILES) {
+	    String[] expected = kbFile(fullDir, name).split("\n");
+	    String[] actual = kbFile(incrementalDir, name).split("\n");
+	    Arrays.sort(expected);
+	    Arrays.sort(actual);
+	    assertEquals(name, Arrays.asList(expected), Arrays.asList(actual));
+	}
+	assertTrue(incremental.isIndexed("doc59"));
+	assertTrue(incremental.isIndexed("doc10", "doc2", "cites"));
+	assertFalse(incremental.isIndexed("doc10", "doc11", "cites"));
+    }
+
+    /**
+     * If the replaced documents cannot be removed from the knowledge base,
+     * indexIncrementally() leaves the index unchanged
+     */
+    @Test
+    public final void testIndexIncrementallyFormatError() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File base = Files.createTempDirectory("shfi_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		new File(base, "hyspirit"), new Properties());
+	File dir = new File(base, "index");
+	SimpleHypertextFileIndex index = newIndex(hyspirit, dir);
+	Random random = new Random(42);
+	for (int d = 0; d < 10; d++)
+	    index.addIndexingObject(document(d, random));
+	index.index();
+
+	File kb = new File(dir, SimpleHypertextFileIndex.KB_DIR);
+	File attributes = new File(kb, SimpleHypertextFileIndex.ATTRIBUTE);
+	Files.write(attributes.toPath(), "(author,\"doc3\n".getBytes(
+		StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	String instances = kbFile(dir, SimpleHypertextFileIndex.INSTANCE_OF);
+	String tf = kbFile(dir, SimpleHypertextFileIndex.TF_MDS);
+	// the index directories would be erased
+	File marker = new File(new File(dir, SimpleHypertextFileIndex.IDX_DIR),
+		"marker");
+	marker.getParentFile().mkdirs();
+	assertTrue(marker.createNewFile());
+
+	index.addIndexingObject(document(3, random));
+	index.indexIncrementally();
+	assertEquals(instances,
+		kbFile(dir, SimpleHypertextFileIndex.INSTANCE_OF));
+	assertEquals(tf, kbFile(dir, SimpleHypertextFileIndex.TF_MDS));
+	assertTrue(marker.exists());
+	for (String name : kb.list())
+	    assertFalse(name, name.endsWith(".tmp"));
+    }
+}
@@ -0,0 +1,138 @@
+package hyspirit.application.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link InvertedIndex}
+ */
+public class InvertedIndexTest {
+
+    private static File write(String prefix, String content)
+	    throws IOException {
+	File file = File.createTempFile(prefix, ".mds");
+	file.deleteOnExit();
+	Writer writer = new FileWriter(file);
+	writer.write(content);
+	writer.close();
+	return file;
+    }
+
+    private static Map<String, Double> scores(RankedList list) {
+	Map<String, Double> scores = new HashMap<String, Double>();
+	for (ResultItem item : list.getList())
+	    scores.put(item.getURI(), item.getRSV());
+	return scores;
+    }
+
+    /**
+     * Tests the tf-idf scores of a small index
+     */
+    @Test
+    public final void testTFIDF() throws IOException {
+	File tf = write("tf_", "# tf\n"
+		+ "0.5 (\"apple\", \"d1\")\n"
+		+ "0.25 (\"apple\", \"d2\")\n"
+		+ "1 (\"pear\", \"d2\")\n"
+		+ "0.75 (\"plum\", \"d3\")\n"
+		+ "0.5 (\"grape\", \"d3\")\n");
+	File idf = write("idf_", "0.4 (\"apple\")\n0.8 (\"pear\")\n"
+		+ "0.2 (\"plum\")\n");
+	InvertedIndex index = InvertedIndex.fromMDS(tf, idf);
+	assertEquals(3, index.documentCount());
+	assertEquals(3, index.termCount());
+	assertEquals(2, index.documentFrequency("apple"));
+	assertEquals(0, index.documentFrequency("grape"));
+
+	Map<String, Double> scores = scores(index.search(
+		Arrays.asList("apple", "pear", "grape", "kiwi"), 0));
+	assertEquals(2, scores.size());
+	assertEquals(0.4 * 0.5, scores.get("d1"), 1e-6);
+	assertEquals(0.4 * 0.25 + 0.8 * 1, scores.get("d2"), 1e-6);
+
+	// like the disjoint UNITE of the PRA program
+	scores = scores(index.search(Arrays.asList("plum", "plum"), 0));
+	assertEquals(4 * 0.2 * 0.75, scores.get("d3"), 1e-6);
+
+	RankedList top = index.search(Arrays.asList("apple", "pear"), 1);
+	assertEquals(1, top.size());
+	assertEquals("d2", top.getNextElement().getURI());
+    }
+
+    /**
+     * Tests that the top k documents are the same with and without skipping
+     */
+    @Test
+    public final void testTopK() throws IOException {
+	Random random = new Random(42);
+	int docs = 2000;
+	String[] terms = { "a", "b", "c", "d", "e" };
+	double[] density = { 0.6, 0.3, 0.1, 0.02, 0.005 };
+	StringBuilder tfs = new StringBuilder();
+	StringBuilder idfs = new StringBuilder();
+	for (int t = 0; t < terms.length; t++) {
+	    idfs.append((t + 1) * 0.1f).append(" (\"").append(terms[t])
+		    .append("\")\n");
+	    for (int d = 0; d < docs; d++)
+		if (random.nextDouble() < density[t])
+		    tfs.append(random.nextFloat()).append(" (\"")
+			    .append(terms[t]).append("\", \"doc").append(d)
+			    .append("\")\n");
+	}
+	InvertedIndex index = InvertedIndex.fromMDS(write("tf_",
+		tfs.toString()), write("idf_", idfs.toString()));
+
+	List<String> query = Arrays.asList("a", "b", "c", "d", "e", "e");
+	List<Double> all = new ArrayList<Double>(scores(
+		index.search(query, 0)).values());
+	Collections.sort(all, Collections.reverseOrder());
+	for (int k : new int[] { 1, 10, 100 }) {
+	    RankedList top = index.search(query, k);
+	    assertEquals(k, top.size());
+	    List<ResultItem> items = top.getList();
+	    for (int i = 0; i < k; i++)
+		assertEquals(all.get(i), items.get(i).getRSV(), 1e-9);
+	}
+    }
+
+    /**
+     * Tests BM25 scores from a frequency file
+     */
+    @Test
+    public final void testBM25() throws IOException {
+	File freq = write("freq_", "#! number of keys: 2\n"
+		+ "2 (\"apple\",\"d1\")\n"
+		+ "1 (\"pear\",\"d1\")\n"
+		+ "1 (\"apple\",\"d2\")\n"
+		+ "3 (\"kiwi\",\"d3\")\n");
+	InvertedIndex index = InvertedIndex.fromFrequencies(freq,
+		InvertedIndex.DEFAULT_K1, InvertedIndex.DEFAULT_B);
+	assertTrue(index.isBM25());
+	assertEquals(3, index.documentCount());
+
+	double k1 = InvertedIndex.DEFAULT_K1;
+	double b = InvertedIndex.DEFAULT_B;
+	double avgdl = 7.0 / 3;
+	double idf = Math.log(1 + (3 - 2 + 0.5) / (2 + 0.5));
+	Map<String, Double> scores = scores(index.search(
+		Arrays.asList("apple"), 0));
+	assertEquals(idf * 2 * (k1 + 1)
+		/ (2 + k1 * (1 - b + b * 3 / avgdl)), scores.get("d1"), 1e-6);
+	assertEquals(idf * 1 * (k1 + 1)
+		/ (1 + k1 * (1 - b + b * 1 / avgdl)), scores.get("d2"), 1e-6);
+    }
+}
@@ -0,0 +1,69 @@
+package hyspirit.application.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import hyspirit.knowledgeBase.TupleBatch;
+
+/**
+ * Tests for the top-k mode of {@link RankedList}
+ */
+public class RankedListTest {
+
+    /**
+     * A bounded ranking equals the beginning of the full ranking, including
+     * the order of items with the same weight
+     */
+    @Test
+    public final void testTopK() {
+	Random random = new Random(42);
+	RankedList full = new RankedList();
+	RankedList top = new RankedList(10);
+	RankedList topOfBatch = new RankedList(10);
+	TupleBatch batch = new TupleBatch();
+	for (int i = 0; i < 1000; i++) {
+	    // few distinct weights, so there are many ties
+	    double rsv = random.nextInt(50) / 50.0;
+	    full.add(new ResultItem(rsv, "d" + i));
+	    top.add(new ResultItem(rsv, "d" + i));
+	    batch.add(rsv, "d" + i);
+	}
+	topOfBatch.add(batch);
+	full.sort();
+
+	assertEquals(10, top.size());
+	assertEquals(10, top.getMaxSize());
+	assertEquals(0, full.getMaxSize());
+	String expected = full.getFirstElements(10).toString();
+	assertEquals(expected, top.getList().toString());
+	assertEquals(expected, topOfBatch.getList().toString());
+    }
+
+    /**
+     * Paging over a bounded ranking
+     */
+    @Test
+    public final void testPaging() {
+	RankedList ranking = new RankedList(3);
+	ranking.add(new ResultItem(0.35, "d1"));
+	ranking.add(new ResultItem(0.45, "d2"));
+	ranking.add(new ResultItem(0.03, "d3"));
+	ranking.add(new ResultItem(0.134, "d4"));
+	ranking.add(new ResultItem(0.35, "d5"));
+
+	assertEquals("[0.45 d2, 0.35 d1]",
+		ranking.getNextElements(2).toString());
+	assertEquals(1, ranking.elementsLeft());
+	assertEquals("[0.35 d5]", ranking.getNextElements(2).toString());
+	assertNull(ranking.getNextElements(2));
+	assertEquals("[0.35 d1, 0.35 d5]", ranking.getRange(2, 3).toString());
+	assertNull(ranking.getRange(4, 7));
+
+	ranking.add(new ResultItem(0.5, "d6"));
+	assertEquals("0.5 d6", ranking.getNextElement().toString());
+    }
+}
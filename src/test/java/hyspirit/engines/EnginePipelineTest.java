@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Tests for {@link EnginePipeline} with fake engines
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class EnginePipelineTest {
+
+    private static final int LINES = 5000;
+
+    private static File writeInput(File dir) throws IOException {
+	File input = new File(dir, "term_df.freq");
+	FileWriter writer = new FileWriter(input);
+	for (int i = 0; i < LINES; i++)
+	    writer.write((i % 7 + 1) + " (\"term" + i + "\")\n");
+	writer.close();
+	return input;
+    }
+
+    private static EnginePipeline idfPipeline(HySpiritProperties hyspirit,
+	    File input, File output) throws Exception {
+	HyFreq2MDSEngine freq2mds = new HyFreq2MDSEngine(hyspirit);
+	freq2mds.addMDSFile(input.getPath());
+	HyMDS2MDSEngine mds2mds = new HyMDS2MDSEngine(hyspirit);
+	mds2mds.useMaxIDFNorm();
+	mds2mds.readFromSTDIN();
+	return new EnginePipeline.Builder().add(freq2mds).add(mds2mds)
+		.redirectOutput(output).build();
+    }
+
+    /**
+     * Files through two stages, connected natively and by pumps
+     */
+    @Test
+    public final void testFileToFile() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(dir,
+		new Properties());
+	File input = writeInput(dir);
+	for (boolean connected : new boolean[] { true, false }) {
+	    if (connected && !EnginePipeline.nativePipelines())
+		continue;
+	    File output = new File(dir, "idf" + connected + ".mds");
+	    EnginePipeline pipeline = idfPipeline(hyspirit, input, output);
+	    assertEquals("hy_freq2mds | hy_mds2mds", pipeline.toString());
+	    pipeline.start(connected);
+	    pipeline.waitFor();
+	    List<String> lines = Files.readAllLines(output.toPath());
+	    assertEquals(Files.readAllLines(input.toPath()), lines);
+	}
+    }
+
+    /**
+     * Streams in and out of a single stage
+     */
+    @Test
+    public final void testStreams() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(dir,
+		new Properties());
+	HyMDS2MDSEngine mds2mds = new HyMDS2MDSEngine(hyspirit);
+	mds2mds.readFromSTDIN();
+	EnginePipeline pipeline = new EnginePipeline.Builder().add(mds2mds)
+		.build();
+	pipeline.start();
+	OutputStream in = pipeline.getInput();
+	in.write("0.5 (a)\n0.25 (b)\n".getBytes(StandardCharsets.UTF_8));
+	in.close();
+	BufferedReader out = new BufferedReader(new InputStreamReader(
+		pipeline.getOutput(), StandardCharsets.UTF_8));
+	assertEquals("0.5 (a)", out.readLine());
+	assertEquals("0.25 (b)", out.readLine());
+	pipeline.waitFor();
+    }
+
+    /**
+     * A failing stage is reported by waitFor()
+     */
+    @Test
+    public final void testFailure() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	Properties config = new Properties();
+	config.setProperty("hy_mds2mds.failure.after", "10");
+	HySpiritProperties hyspirit = FakeHySpirit.install(dir, config);
+	File input = writeInput(dir);
+	for (boolean connected : new boolean[] { true, false }) {
+	    if (connected && !EnginePipeline.nativePipelines())
+		continue;
+	    EnginePipeline pipeline = idfPipeline(hyspirit, input, new File(
+		    dir, "idf.mds"));
+	    pipeline.start(connected);
+	    try {
+		pipeline.waitFor();
+		fail("Expected an IOException");
+	    } catch (IOException io) {
+		assertTrue(io.getMessage(),
+			io.getMessage().contains("hy_mds2mds exited with 1"));
+	    }
+	}
+    }
+}
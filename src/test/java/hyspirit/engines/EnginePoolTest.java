@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import hyspirit.application.indexing.SimpleHypertextFileIndex;
+import hyspirit.application.retrieval.RankedList;
+import hyspirit.application.retrieval.SimpleFullTextQueryImpl;
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.HySpiritException;
+import hyspirit.util.HySpiritProperties;
+import hyspirit.util.HyText2PoolFilter;
+
+/**
+ * Tests for {@link EnginePool} and its users with fake engines
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class EnginePoolTest {
+
+    private static EngineFactory<HyPRAEngine> praFactory(
+	    final HySpiritProperties hyspirit) {
+	return new EngineFactory<HyPRAEngine>() {
+	    @Override
+	    public HyPRAEngine createEngine() throws HySpiritException {
+		return new HyPRAEngine(hyspirit);
+	    }
+	};
+    }
+
+    private static void waitForIdleEngines(EnginePool<?> pool, int engines)
+	    throws InterruptedException {
+	long deadline = System.currentTimeMillis() + 30000;
+	while (pool.idleEngines() < engines
+		&& System.currentTimeMillis() < deadline)
+	    Thread.sleep(10);
+	assertEquals(engines, pool.idleEngines());
+    }
+
+    /**
+     * Engines are leased, answer queries and are given back
+     */
+    @Test
+    public final void testLeaseAndGiveBack() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("results", "3");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(), config);
+	EnginePool<HyPRAEngine> pool = new EnginePool<HyPRAEngine>(
+		praFactory(hyspirit), 2);
+	try {
+	    assertEquals(2, pool.idleEngines());
+	    HyPRAEngine first = pool.lease();
+	    HyPRAEngine second = pool.lease();
+	    assertNotSame(first, second);
+	    assertNull(pool.lease(10, TimeUnit.MILLISECONDS));
+	    first.eval("?- retrieve;");
+	    int tuples = 0;
+	    while (first.nextTuple() != null)
+		tuples++;
+	    assertEquals(3, tuples);
+	    pool.giveBack(first);
+	    pool.giveBack(second);
+	    assertEquals(2, pool.idleEngines());
+	    pool.checkIdleEngines();
+	    assertEquals(2, pool.idleEngines());
+	    try {
+		pool.giveBack(first);
+		fail("Engine given back twice");
+	    } catch (IllegalArgumentException e) {
+		// expected
+	    }
+	} finally {
+	    pool.close();
+	}
+	assertEquals(0, pool.idleEngines());
+    }
+
+    /**
+     * Engines which died are replaced when they are given back
+     */
+    @Test
+    public final void testReplace() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("hyp_pra.failure.after", "1");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(), config);
+	EnginePool<HyPRAEngine> pool = new EnginePool<HyPRAEngine>(
+		praFactory(hyspirit), 1);
+	try {
+	    HyPRAEngine engine = pool.lease();
+	    engine.eval("?- retrieve;");
+	    while (engine.nextTuple() != null)
+		;
+	    engine.eval("?- retrieve;");
+	    while (engine.nextTuple() != null)
+		;
+	    assertEquals(1, engine.waitFor());
+	    assertFalse(engine.isAlive());
+	    pool.giveBack(engine);
+	    waitForIdleEngines(pool, 1);
+	    HyPRAEngine fresh = pool.lease();
+	    assertNotSame(engine, fresh);
+	    assertTrue(fresh.isAlive());
+	    pool.giveBack(fresh);
+	    assertSame(fresh, pool.lease());
+	    pool.giveBack(fresh);
+	} finally {
+	    pool.close();
+	}
+    }
+
+    /**
+     * A filter with pooled hy_text2pool engines
+     */
+    @Test
+    public final void testText2PoolFilter() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(),
+		new Properties());
+	EnginePool<HyText2POOLEngine> pool = new EnginePool<HyText2POOLEngine>(
+		HyText2PoolFilter.engineFactory(hyspirit, false, null, null), 2);
+	try {
+	    HyText2PoolFilter filter = new HyText2PoolFilter(pool);
+	    assertEquals("hello world", filter.filter("Hello World"));
+	    assertEquals("second text", filter.filter("Second text"));
+	    assertNull(filter.filter("  "));
+	    filter.close();
+	    assertEquals(2, pool.idleEngines());
+	} finally {
+	    pool.close();
+	}
+    }
+
+    /**
+     * Queries executed by pooled hy_pra engines
+     */
+    @Test
+    public final void testPooledQuery() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("results", "5");
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(dir, config);
+	SimpleHypertextFileIndex index = new SimpleHypertextFileIndex(hyspirit,
+		dir.getAbsolutePath());
+	EnginePool<HyPRAEngine> pool = new EnginePool<HyPRAEngine>(
+		SimpleFullTextQueryImpl.engineFactory(index), 2);
+	EnginePool<HyText2POOLEngine> filterPool = null;
+	try {
+	    for (int i = 0; i < 2; i++) {
+		SimpleFullTextQueryImpl query = new SimpleFullTextQueryImpl(
+			index, false, null, null, pool);
+		assertEquals(5,
+			query.executeQuery("information retrieval").size());
+		RankedList result = query.executeQuery("retrieval");
+		assertEquals(5, result.size());
+		query.close();
+		assertEquals(2, pool.idleEngines());
+	    }
+	    // both query objects used the shared hy_text2pool pool
+	    filterPool = EnginePool.getPool(HyText2PoolFilter.engineFactory(
+		    hyspirit, false, null, null), 1);
+	    assertEquals(2, filterPool.size());
+	    assertEquals(2, filterPool.idleEngines());
+	} finally {
+	    pool.close();
+	    if (filterPool != null)
+		filterPool.close();
+	}
+    }
+}
@@ -0,0 +1,145 @@
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import hyspirit.application.retrieval.SimpleFullTextQueryImpl;
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.util.HySpiritException;
+
+/**
+ * Tests for {@link PRAEvaluator} and {@link JavaPRAEngine}
+ */
+public class JavaPRAEngineTest {
+
+    private static final String PROGRAM = "term(database, d1). "
+	    + "0.35 term(ir, d2). " + "qterm(ir). \n" + "retrieve = "
+	    + "UNITE(retrieve,PROJECT[$3]" + "(JOIN[$1=$1](qterm,term))).\n";
+
+    /**
+     * The query queue example of {@link HyPRAEngine}
+     */
+    @Test
+    public final void testQueryQueue() throws HySpiritException, IOException {
+	JavaPRAEngine pra = new JavaPRAEngine();
+	pra.start();
+	pra.addQueryToQueue("retrieve",
+		PROGRAM + "?- PROJECT[$1](retrieve).");
+	pra.addQueryToQueue("qterm", "?- PROJECT[$1](qterm).");
+	pra.executeQueryQueue();
+	assertEquals("[0.35 (d2)]",
+		pra.getResultForQuery("retrieve").toString());
+	assertEquals("[(ir)]", pra.getResultForQuery("qterm").toString());
+	pra.destroy();
+    }
+
+    /**
+     * The assumptions of PROJECT, UNITE, JOIN and SUBTRACT
+     */
+    @Test
+    public final void testAssumptions() {
+	PRAEvaluator pra = new PRAEvaluator();
+	pra.eval("0.5 a(x). 0.5 a(x). 0.4 b(x). 0.8 b(y).");
+	assertEquals("[0.75 (x)]",
+		pra.query("PROJECT independent[$1](a)").toString());
+	assertEquals("[(x)]", pra.query("PROJECT disjoint[$1](a)").toString());
+	assertEquals("[0.5 (x)]", pra.query("PROJECT subsumed(a)").toString());
+	assertEquals("[0.5 (x), 0.8 (y)]",
+		pra.query("UNITE subsumed(a,b)").toString());
+	assertEquals("[0.2 (x, x), 0.2 (x, x)]",
+		pra.query("JOIN[$1=$1](a,b)").toString());
+	assertEquals("[0.4 (x, x)]",
+		pra.query("JOIN subsumed[$1=$1](PROJECT[$1](a),b)")
+			.toString());
+	assertEquals("[0.1 (x)]",
+		pra.query("SUBTRACT subsumed(PROJECT subsumed(a),b)")
+			.toString());
+	assertEquals("[0.3 (x)]",
+		pra.query("SUBTRACT(PROJECT subsumed(a),b)").toString());
+    }
+
+    /**
+     * Statements, specials and comments
+     */
+    @Test
+    public final void testStatements() {
+	PRAEvaluator pra = new PRAEvaluator();
+	List<String> output = pra.eval("# a comment\n"
+		+ "_SQL_connect(tf, \"hy_dir_connect -socket tf\")\n"
+		+ "_echo(\"sailing\");\n" + "term(sailing,d1);\n"
+		+ "0.5 term(\"new york\", d1.html).\n" + "unknown := PROJECT[$3](term).\n"
+		+ "?- term;\n" + "?- SELECT[$1=\"sailing\"](term).");
+	assertEquals(Arrays.asList("sailing", "(sailing, d1)",
+		"0.5 (\"new york\", d1.html)", "(sailing, d1)"), output);
+    }
+
+    /**
+     * An OR query over MDS files as written by the index
+     */
+    @Test
+    public final void testORQuery() throws HySpiritException, IOException {
+	File tf = File.createTempFile("tf_", ".mds");
+	File idf = File.createTempFile("idf", ".mds");
+	tf.deleteOnExit();
+	idf.deleteOnExit();
+	FileWriter writer = new FileWriter(tf);
+	writer.write("0.5 (\"sailing\",\"d1\")\n1.0 (\"boat\",\"d1\")\n"
+		+ "0.25 (\"sailing\",\"d2\")\n");
+	writer.close();
+	writer = new FileWriter(idf);
+	writer.write("# idf\n0.4 (\"sailing\")\n0.8 (\"boat\")\n");
+	writer.close();
+
+	JavaPRAEngine pra = new JavaPRAEngine();
+	pra.connect("tf", tf.getAbsolutePath());
+	pra.connect("idf", idf.getAbsolutePath());
+	pra.start();
+	pra.waitTillRunning();
+	pra.eval(SimpleFullTextQueryImpl.orQueryToPRA(
+		Arrays.asList("sailing", "boat").iterator()));
+	assertEquals("(d1)", pra.nextTuple().toString());
+	assertEquals("0.1 (d2)", pra.nextTuple().toString());
+	assertNull(pra.nextTuple());
+
+	List<HyTuple> result = pra.submit("q",
+		"?- PROJECT[$2](SELECT[$1=\"boat\"](tf)).").join();
+	assertEquals("[(d1)]", result.toString());
+	pra.destroy();
+    }
+
+    /**
+     * Results keep the precision of the evaluator in all output paths
+     */
+    @Test
+    public final void testPrecision() throws HySpiritException, IOException {
+	String facts = "0.0000001 a(\"new york\"). 0.123456789 a(x).\n";
+	String query = "?- a;";
+	JavaPRAEngine pra = new JavaPRAEngine();
+	pra.start();
+	pra.eval(facts + query);
+	assertEquals(1e-7, pra.nextTuple().probability(), 0);
+	assertEquals(0.123456789, pra.nextTuple().probability(), 0);
+	assertNull(pra.nextTuple());
+
+	List<HyTuple> result = pra.submit("q", query).join();
+	assertEquals(1e-7, result.get(0).probability(), 0);
+	assertEquals("\"new york\"", result.get(0).valueAt(0));
+	assertEquals(0.123456789, result.get(1).probability(), 0);
+
+	pra.addQueryToQueue("q", query);
+	pra.executeQueryQueue();
+	result = pra.getResultForQuery("q");
+	assertEquals(1e-7, result.get(0).probability(), 0);
+	assertEquals("\"new york\"", result.get(0).valueAt(0));
+	assertEquals(0.123456789, result.get(1).probability(), 0);
+	pra.destroy();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.LatencyHistogram;
+
+/**
+ * Tests the engine metrics with a fake hyp_pra.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class MetricsRegistryTest {
+
+    @After
+    public void disable() {
+	MetricsRegistry.setEnabled(false);
+    }
+
+    /**
+     * Metrics of a query queue, also through JMX
+     */
+    @Test
+    public final void testQueryQueue() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	Properties config = new Properties();
+	config.setProperty("results", "2");
+	config.setProperty("latency", "20");
+
+	HyPRAEngine pra = new HyPRAEngine(FakeHySpirit.install(dir, config));
+	pra.start();
+	assertNull(pra.metrics);
+	pra.destroy();
+
+	MetricsRegistry.setEnabled(true);
+	MetricsRegistry.registerMBeans();
+	EngineMetrics metrics = MetricsRegistry
+		.getMetrics(HyPRAEngine.class.getName());
+	metrics.reset();
+	pra.start();
+	pra.addQueryToQueue("q1", "?- retrieve;");
+	pra.addQueryToQueue("q2", "?- retrieve;");
+	pra.executeQueryQueue();
+	pra.destroy();
+
+	assertTrue(pra.getQueryTime("q1") >= 20);
+	assertTrue(pra.getQueryTime("q2") >= 20);
+	assertEquals(-1, pra.getQueryTime("q3"), 0);
+	assertEquals(1, metrics.getStarts());
+	assertEquals(2, metrics.getQueries());
+	// two tuples and a delimiter per query
+	assertEquals(6, metrics.getLinesRead());
+	assertTrue(metrics.getResponseTimeMean() >= 20);
+	ObjectName name = new ObjectName(
+		MetricsRegistry.MBEAN_PREFIX + HyPRAEngine.class.getName());
+	assertEquals(2L, ManagementFactory.getPlatformMBeanServer()
+		.getAttribute(name, "Queries"));
+    }
+
+    /**
+     * Percentiles are upper bounds within a factor of two
+     */
+    @Test
+    public final void testHistogram() {
+	LatencyHistogram h = new LatencyHistogram();
+	assertEquals(0, h.getPercentile(99), 0);
+	for (int i = 1; i <= 100; i++)
+	    h.record(i * 1000000L);
+	assertEquals(100, h.getCount());
+	assertEquals(50.5, h.getMean(), 1e-9);
+	assertEquals(100, h.getMax(), 0);
+	assertTrue(h.getPercentile(50) >= 50 && h.getPercentile(50) <= 100);
+	assertEquals(100, h.getPercentile(100), 0);
+    }
+
+    /**
+     * Output lines are counted in UTF-8 bytes
+     */
+    @Test
+    public final void testLineBytes() {
+	for (String line : new String[] { "", "0.5 (d1)", "\u00e4\u00f6\u00fc",
+		"\u20ac 1", "\ud83d\ude00 (smile)" })
+	    assertEquals(line, line.getBytes(StandardCharsets.UTF_8).length + 1,
+		    EngineMetrics.lineBytes(line));
+    }
+}
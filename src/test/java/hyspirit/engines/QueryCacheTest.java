@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import hyspirit.application.indexing.SimpleHypertextFileIndex;
+import hyspirit.application.retrieval.SimpleFullTextQueryImpl;
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Tests for {@link QueryCache}
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class QueryCacheTest {
+
+    /**
+     * Eviction of the least recently used entries
+     */
+    @Test
+    public final void testEviction() {
+	QueryCache cache = new QueryCache(2, 1000);
+	cache.put("a", Arrays.asList("1"));
+	cache.put("b", Arrays.asList("2"));
+	cache.get("a");
+	cache.put("c", Arrays.asList("3"));
+	assertEquals(2, cache.size());
+	assertNull(cache.get("b"));
+	assertEquals(Arrays.asList("1"), cache.get("a"));
+	assertEquals(1, cache.getEvictions());
+
+	// by weight
+	char[] line = new char[400];
+	Arrays.fill(line, 'x');
+	cache.put("d", Arrays.asList(new String(line)));
+	cache.put("e", Arrays.asList(new String(line)));
+	assertTrue(cache.weight() <= 1000);
+	assertNull(cache.get("a"));
+	assertEquals(1, cache.get("e").size());
+	cache.put("f", Arrays.asList(new String(line), new String(line),
+		new String(line)));
+	assertNull(cache.get("f"));
+
+	assertEquals(3, cache.getHits());
+	assertEquals(3, cache.getMisses());
+	cache.invalidateAll();
+	assertEquals(0, cache.size());
+	assertEquals(0, cache.weight());
+	assertEquals(1, cache.getInvalidations());
+    }
+
+    /**
+     * Queries differing in whitespace outside quotes only share an entry
+     */
+    @Test
+    public final void testKey() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	HyPRAEngine pra = new HyPRAEngine(FakeHySpirit.install(dir,
+		new Properties()));
+	HyPDatalogEngine pd = new HyPDatalogEngine(FakeHySpirit.install(dir,
+		new Properties()));
+	String key = QueryCache.key(pra, " ?-  t(\"a  b\");\n");
+	assertEquals(key, QueryCache.key(pra, "?- t(\"a  b\");"));
+	assertTrue(!key.equals(QueryCache.key(pra, "?- t(\"a b\");")));
+	assertTrue(!key.equals(QueryCache.key(pd, "?- t(\"a  b\");")));
+	assertEquals(key, QueryCache.key(pra, null, "?- t(\"a  b\");"));
+	assertTrue(!key.equals(QueryCache.key(pra, "kb", "?- t(\"a  b\");")));
+    }
+
+    /**
+     * Query objects of different indexes sharing a cache do not share
+     * results
+     */
+    @Test
+    public final void testKnowledgeBases() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	Properties config = new Properties();
+	config.setProperty("results", "3");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		new File(dir, "hyspirit"), config);
+	QueryCache cache = new QueryCache(10, 10000);
+	SimpleHypertextFileIndex[] indexes = {
+		new SimpleHypertextFileIndex(hyspirit,
+			new File(dir, "index1").getAbsolutePath()),
+		new SimpleHypertextFileIndex(hyspirit,
+			new File(dir, "index2").getAbsolutePath()) };
+	for (int i = 0; i < 3; i++) {
+	    SimpleHypertextFileIndex index = indexes[i % 2];
+	    index.setQueryCache(cache);
+	    SimpleFullTextQueryImpl query = new SimpleFullTextQueryImpl(index,
+		    false, null, null);
+	    assertEquals(3, query.executeQuery("retrieval").size());
+	    query.close();
+	}
+	assertEquals(2, cache.getMisses());
+	assertEquals(1, cache.getHits());
+	assertEquals(2, cache.size());
+    }
+
+    /**
+     * Cached results of eval() and query queues
+     */
+    @Test
+    public final void testEngine() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	Properties config = new Properties();
+	config.setProperty("results", "3");
+	HyPRAEngine pra = new HyPRAEngine(FakeHySpirit.install(dir, config));
+	QueryCache cache = new QueryCache(10, 10000);
+	pra.setQueryCache(cache);
+	pra.start();
+	pra.waitTillRunning();
+
+	for (int i = 0; i < 2; i++) {
+	    pra.eval("?- retrieve;");
+	    int tuples = 0;
+	    while (pra.nextTuple() != null)
+		tuples++;
+	    assertEquals(3, tuples);
+	}
+	assertEquals(1, cache.getHits());
+	assertEquals(1, cache.getMisses());
+
+	pra.addQueryToQueue("q1", "?- retrieve;");
+	pra.addQueryToQueue("q2", "?- other;");
+	pra.executeQueryQueue();
+	pra.destroy();
+	List<HyTuple> q1 = pra.getResultForQuery("q1");
+	assertEquals(3, q1.size());
+	assertEquals(3, pra.getResultForQuery("q2").size());
+	assertEquals(2, cache.getHits());
+	assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.HySpiritException;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Tests for {@link QueryDispatcher} with fake engines
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class QueryDispatcherTest {
+
+    private static EngineFactory<HyPRAEngine> praFactory(
+	    final HySpiritProperties hyspirit) {
+	return new EngineFactory<HyPRAEngine>() {
+	    @Override
+	    public HyPRAEngine createEngine() throws HySpiritException {
+		return new HyPRAEngine(hyspirit);
+	    }
+	};
+    }
+
+    /**
+     * Queries are spread over all engines
+     */
+    @Test
+    public final void testLoadSpreading() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("results", "2");
+	config.setProperty("latency", "20");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(), config);
+	QueryDispatcher<HyPRAEngine> dispatcher = new QueryDispatcher<HyPRAEngine>(
+		praFactory(hyspirit), 3);
+	try {
+	    Map<String, String> queries = new LinkedHashMap<String, String>();
+	    for (int i = 0; i < 30; i++)
+		queries.put("q" + i, "?- retrieve;");
+	    Map<String, CompletableFuture<List<HyTuple>>> results = dispatcher
+		    .submitAll(queries);
+	    assertEquals(queries.keySet(), results.keySet());
+	    for (CompletableFuture<List<HyTuple>> result : results.values())
+		assertEquals(2, result.get(30, TimeUnit.SECONDS).size());
+	    assertEquals(0, dispatcher.pendingQueries());
+	    long submitted = 0;
+	    for (QueryDispatcher.EngineStats stats : dispatcher.getStats()) {
+		// all queries were pending at once, so the engines share them
+		assertTrue(stats.toString(), stats.getSubmitted() >= 5);
+		assertEquals(0, stats.getFailed());
+		submitted += stats.getSubmitted();
+	    }
+	    assertEquals(30, submitted);
+	} finally {
+	    dispatcher.close();
+	}
+    }
+
+    /**
+     * An engine which died is replaced by the next submission
+     */
+    @Test
+    public final void testReplaceEngine() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("results", "2");
+	config.setProperty("hyp_pra.failure.after", "2");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(), config);
+	QueryDispatcher<HyPRAEngine> dispatcher = new QueryDispatcher<HyPRAEngine>(
+		praFactory(hyspirit), 1);
+	try {
+	    assertEquals(2, dispatcher.submit("q1", "?- retrieve;")
+		    .get(30, TimeUnit.SECONDS).size());
+	    assertEquals(2, dispatcher.submit("q2", "?- retrieve;")
+		    .get(30, TimeUnit.SECONDS).size());
+	    try {
+		dispatcher.submit("q3", "?- retrieve;").get(30,
+			TimeUnit.SECONDS);
+		fail("Engine did not die");
+	    } catch (ExecutionException e) {
+		// expected, the engine died
+	    }
+	    // the process may take a moment to exit after closing its output
+	    List<HyTuple> result = null;
+	    for (int i = 0; i < 50 && result == null; i++) {
+		try {
+		    result = dispatcher.submit("q4", "?- retrieve;")
+			    .get(30, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+		    Thread.sleep(100);
+		}
+	    }
+	    assertEquals(2, result.size());
+	    // the counters are updated after the futures completed
+	    QueryDispatcher.EngineStats stats = dispatcher.getStats().get(0);
+	    for (int i = 0; i < 50 && stats.getCompleted() < 3; i++) {
+		Thread.sleep(10);
+		stats = dispatcher.getStats().get(0);
+	    }
+	    assertEquals(3, stats.getCompleted());
+	    assertTrue(stats.getFailed() >= 1);
+	} finally {
+	    dispatcher.close();
+	}
+    }
+}
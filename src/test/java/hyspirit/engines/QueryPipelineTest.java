@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.engines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import hyspirit.knowledgeBase.HyTuple;
+import hyspirit.util.FakeHySpirit;
+import hyspirit.util.HySpiritProperties;
+
+/**
+ * Tests for {@link HyInferenceEngine#submit(String, String)} and its
+ * {@link QueryPipeline} with fake engines
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class QueryPipelineTest {
+
+    private static final int QUERIES = 20;
+
+    private static void assertFails(CompletableFuture<List<HyTuple>> future)
+	    throws Exception {
+	try {
+	    future.get(30, TimeUnit.SECONDS);
+	    fail("Query did not fail");
+	} catch (ExecutionException e) {
+	    assertTrue(e.getCause() instanceof IOException);
+	}
+    }
+
+    /**
+     * Submitted queries get the results a query queue gets, in order
+     */
+    @Test
+    public final void testResultsInOrder() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("results", "4");
+	config.setProperty("latency", "2");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(), config);
+
+	// the fake engines answer deterministically
+	HyPRAEngine queued = new HyPRAEngine(hyspirit);
+	queued.start();
+	for (int i = 0; i < QUERIES; i++)
+	    queued.addQueryToQueue("q" + i, "?- retrieve;");
+	queued.executeQueryQueue();
+
+	HyPRAEngine pra = new HyPRAEngine(hyspirit);
+	pra.start();
+	pra.waitTillRunning();
+	List<CompletableFuture<List<HyTuple>>> results = new ArrayList<CompletableFuture<List<HyTuple>>>();
+	for (int i = 0; i < QUERIES; i++)
+	    results.add(pra.submit("q" + i, "?- retrieve;"));
+	for (int i = 0; i < QUERIES; i++) {
+	    List<HyTuple> result = results.get(i).get(30, TimeUnit.SECONDS);
+	    assertEquals(4, result.size());
+	    assertEquals(queued.getResultForQuery("q" + i).toString(),
+		    result.toString());
+	}
+	assertEquals(0, pra.pendingQueries());
+	assertTrue(pra.isAlive());
+	pra.destroy();
+	queued.destroy();
+    }
+
+    /**
+     * Pending queries fail when the engine dies, later ones are rejected
+     */
+    @Test
+    public final void testEngineDies() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	Properties config = new Properties();
+	config.setProperty("results", "2");
+	config.setProperty("hyp_pra.failure.after", "3");
+	HySpiritProperties hyspirit = FakeHySpirit.install(
+		Files.createTempDirectory("fakehs_").toFile(), config);
+	HyPRAEngine pra = new HyPRAEngine(hyspirit);
+	pra.start();
+	pra.waitTillRunning();
+	List<CompletableFuture<List<HyTuple>>> results = new ArrayList<CompletableFuture<List<HyTuple>>>();
+	for (int i = 0; i < 6; i++)
+	    results.add(pra.submit("q" + i, "?- retrieve;"));
+	for (int i = 0; i < 3; i++)
+	    assertEquals(2, results.get(i).get(30, TimeUnit.SECONDS).size());
+	for (int i = 3; i < 6; i++)
+	    assertFails(results.get(i));
+	assertEquals(1, pra.waitFor());
+	assertEquals(0, pra.pendingQueries());
+
+	// the engine is dead, so further queries are rejected
+	assertFails(pra.submit("late", "?- retrieve;"));
+	assertEquals(0, pra.pendingQueries());
+	pra.destroy();
+    }
+}
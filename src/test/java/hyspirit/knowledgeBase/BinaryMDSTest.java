@@ -0,0 +1,118 @@
+package hyspirit.knowledgeBase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link BinaryMDS}, {@link BinaryMDSWriter} and
+ * {@link BinaryMDSReader}
+ */
+public class BinaryMDSTest {
+
+    private static final int TUPLES = 10000;
+
+    private File createTextFile() throws IOException {
+	File text = File.createTempFile("mds_", ".mds");
+	text.deleteOnExit();
+	Writer writer = new OutputStreamWriter(new FileOutputStream(text),
+		StandardCharsets.UTF_8);
+	writer.write("# tf values\n");
+	for (int i = 0; i < TUPLES; i++)
+	    writer.write(new HyTuple(i % 10 == 0 ? 1 : 0.25,
+		    "\"term" + i % 100 + "\"", "\"doc" + i + "\"") + "\n");
+	writer.write("0.5 (\"a, b\", x, \"M\u00fcller\")\n");
+	writer.close();
+	return text;
+    }
+
+    private File createBinaryFile(File text) throws IOException {
+	File binary = File.createTempFile("mds_", ".bmds");
+	binary.deleteOnExit();
+	assertEquals(TUPLES + 1, BinaryMDS.toBinary(text, binary));
+	return binary;
+    }
+
+    /**
+     * Converting text to binary and back yields the same tuples
+     */
+    @Test
+    public final void testRoundTrip() throws IOException {
+	File text = createTextFile();
+	File binary = createBinaryFile(text);
+	StringWriter back = new StringWriter();
+	assertEquals(TUPLES + 1, BinaryMDS.toText(binary, back));
+
+	StringBuilder expected = new StringBuilder();
+	MdsFile mds = new MdsFile(text);
+	MdsFile.Scanner tuples = mds.scanner();
+	while (tuples.next())
+	    expected.append(tuples.tuple()).append('\n');
+	mds.close();
+	assertEquals(expected.toString(), back.toString());
+	assertTrue(binary.length() < text.length());
+    }
+
+    /**
+     * Reading, seeking and comparing values
+     */
+    @Test
+    public final void testReader() throws IOException {
+	BinaryMDSReader reader = new BinaryMDSReader(
+		createBinaryFile(createTextFile()));
+	assertEquals(TUPLES + 1, reader.tupleCount());
+	assertEquals(3, reader.blockCount());
+	assertEquals(TUPLES + 100 + 3, reader.getDictionary().size());
+	reader.seek(5001);
+	assertTrue(reader.next());
+	assertEquals(0.25, reader.probability(), 0);
+	assertEquals("\"doc5001\"", reader.valueAt(1));
+	assertTrue(reader.valueEquals(0, "\"term1\""));
+	assertFalse(reader.valueEquals(0, "\"term2\""));
+	reader.seek(TUPLES);
+	assertTrue(reader.next());
+	assertEquals(new HyTuple(0.5, "\"a, b\"", "x", "\"M\u00fcller\""),
+		reader.tuple());
+	assertFalse(reader.next());
+	reader.seek(0);
+	assertTrue(reader.next());
+	assertEquals(1, reader.probability(), 0);
+	reader.close();
+    }
+
+    /**
+     * Corrupt blocks are detected
+     */
+    @Test
+    public final void testChecksum() throws IOException {
+	File binary = createBinaryFile(createTextFile());
+	RandomAccessFile raf = new RandomAccessFile(binary, "rw");
+	raf.seek(100);
+	int b = raf.read();
+	raf.seek(100);
+	raf.write(b ^ 1);
+	raf.close();
+	BinaryMDSReader reader = new BinaryMDSReader(binary);
+	try {
+	    while (reader.next()) {
+	    }
+	    fail("Corrupt block not detected");
+	} catch (IOException io) {
+	    assertTrue(io.getMessage().startsWith("Checksum error in block 0"));
+	} finally {
+	    reader.close();
+	}
+    }
+}
@@ -0,0 +1,176 @@
+package hyspirit.knowledgeBase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link HyTupleParser} yields the same results as the regular
+ * expressions formerly used by HyTuple and HyFreqTuple
+ */
+public class HyTupleParserTest {
+
+    private static final String[] LINES = { "0.3 (123, e1, \"e1test1\")",
+	    "1 (345, e1, \"e1test3\")", "(789, e3, \"e3test2\")",
+	    "  (678, e3, \"e3test1\")", "0.45 (a,\"b, c\", d)",
+	    "0.123456789 (x)", "1. (x)", "0 ()", "0.5 ( )", "0.5 (a,,b)",
+	    "0.5 (a, )", "0.5 ( \"a,b\")", "0.5 (\"a\"b, c)",
+	    "0.5 (ab\"c\", d)", "0.5 (a) (b)", "0.5 (a(b)c)", "123 (a)",
+	    "0.000000001 (tiny)", "0.99999999999 (big)", "1.0000 (one)",
+	    "0.2 sel(a, b)", "0.7 (a\n(b))" };
+
+    private static final String[] MALFORMED = { "", " 0.1 (567, e2)",
+	    "0.5 a, b", "0.5 (a", "a (b)", ".5 (a)",
+	    "0.7 (a\nb)" };
+
+    /**
+     * Known lines are parsed like before
+     */
+    @Test
+    public final void testKnownLines() throws HyTupleFormatException {
+	for (String line : LINES)
+	    assertSame(line);
+    }
+
+    /**
+     * Malformed lines are rejected like before
+     */
+    @Test
+    public final void testMalformedLines() {
+	for (String line : MALFORMED) {
+	    try {
+		new HyTuple(line);
+		fail("Not rejected: " + line);
+	    } catch (HyTupleFormatException e) {
+	    }
+	}
+    }
+
+    /**
+     * Random lines are parsed like before
+     */
+    @Test
+    public final void testRandomLines() throws HyTupleFormatException {
+	Random random = new Random(42);
+	char[] alphabet = { 'a', 'b', '1', '0', '.', ',', ' ', '"', '(', ')',
+		'\t' };
+	for (int n = 0; n < 20000; n++) {
+	    StringBuilder line = new StringBuilder();
+	    if (random.nextBoolean())
+		line.append(random.nextBoolean() ? "0." : "1")
+			.append(random.nextInt(100000)).append(' ');
+	    int length = random.nextInt(20);
+	    for (int i = 0; i < length; i++)
+		line.append(alphabet[random.nextInt(alphabet.length)]);
+	    String[] expected;
+	    try {
+		expected = legacyAttributes(line.toString());
+	    } catch (HyTupleFormatException | IllegalStateException e) {
+		try {
+		    new HyTuple(line.toString());
+		    fail("Not rejected: " + line);
+		} catch (HyTupleFormatException e2) {
+		}
+		continue;
+	    }
+	    HyTuple tuple = new HyTuple(line.toString());
+	    assertArrayEquals(line.toString(), expected,
+		    tuple.attributeValues());
+	    assertEquals(line.toString(), legacyProbability(line.toString()),
+		    tuple.probability(), 0);
+	}
+    }
+
+    /**
+     * Windows of a char array are parsed like lines
+     */
+    @Test
+    public final void testWindow() throws HyTupleFormatException {
+	String buffer = "0.3 (a, b)\n0.25 (\"c, d\", e)\n";
+	char[] chars = buffer.toCharArray();
+	HyTupleParser parser = new HyTupleParser();
+	parser.parse(chars, 11, buffer.length() - 1);
+	assertEquals(0.25f, parser.probability(), 0);
+	assertEquals(2, parser.size());
+	assertEquals("\"c, d\"", parser.valueAt(0));
+	assertTrue(parser.valueEquals(1, "e"));
+	parser.parse(buffer, 0, 10);
+	assertArrayEquals(new String[] { "a", "b" }, parser.attributeValues());
+    }
+
+    /**
+     * Frequency tuples are parsed like before
+     */
+    @Test
+    public final void testFrequencyTuples() throws HyTupleFormatException {
+	HyFreqTuple tuple = new HyFreqTuple("42 (term, \"doc, 1\")");
+	assertEquals(42, tuple.frequency());
+	assertArrayEquals(new String[] { "term", "\"doc, 1\"", null },
+		tuple.attributeValues());
+	try {
+	    new HyFreqTuple("(term)");
+	    fail("Missing frequency not rejected");
+	} catch (NumberFormatException e) {
+	}
+    }
+
+    private void assertSame(String line) throws HyTupleFormatException {
+	HyTuple tuple = new HyTuple(line);
+	assertEquals(line, legacyProbability(line), tuple.probability(), 0);
+	assertArrayEquals(line, legacyAttributes(line),
+		tuple.attributeValues());
+    }
+
+    /*
+     * The former probability matching of HyTuple
+     */
+    private static double legacyProbability(String line)
+	    throws HyTupleFormatException {
+	Matcher m = Pattern.compile("^([10](\\.[0-9]*)?)").matcher(line);
+	if (m.find())
+	    return Float.parseFloat(m.group());
+	m = Pattern.compile("^\\s*\\((.*)\\)").matcher(line);
+	if (m.find())
+	    return 1;
+	throw new HyTupleFormatException("Malformed probability in tuple!");
+    }
+
+    /*
+     * The former attribute matching of HyTuple. Throws an
+     * IllegalStateException where it would not terminate.
+     */
+    private static String[] legacyAttributes(String line)
+	    throws HyTupleFormatException {
+	legacyProbability(line);
+	Matcher m = Pattern.compile("\\((.*)\\)").matcher(line);
+	if (!m.find())
+	    throw new HyTupleFormatException("Malformed attributes in tuple!");
+	String attributeString = m.group().substring(1,
+		m.group().length() - 1);
+	m = Pattern.compile("^(\".*?\"|[^,\"]*),?").matcher(attributeString);
+	Vector<String> attValues = new Vector<String>();
+	while (m.find() && !attributeString.equals("")) {
+	    String attributeValue = m.group();
+	    String rest = attributeString
+		    .substring(m.end(), attributeString.length()).trim();
+	    if (rest.equals(attributeString))
+		throw new IllegalStateException("Endless loop");
+	    attributeString = rest;
+	    if (attributeValue.endsWith(","))
+		attributeValue = attributeValue.substring(0,
+			attributeValue.length() - 1);
+	    attValues.add(attributeValue.trim());
+	    m = Pattern.compile("^(\".*?\"|[^,\"]*),?")
+		    .matcher(attributeString);
+	}
+	return attValues.toArray(new String[attValues.size()]);
+    }
+}
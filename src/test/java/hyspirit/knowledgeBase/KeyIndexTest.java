@@ -0,0 +1,97 @@
+package hyspirit.knowledgeBase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link KeyIndex} and {@link KeyIndexWriter}
+ */
+public class KeyIndexTest {
+
+    private static final int KEYS = 20000;
+
+    private static File tempFile() throws IOException {
+	File file = File.createTempFile("keys_", ".keys");
+	file.deleteOnExit();
+	return file;
+    }
+
+    /**
+     * Tests membership of added and absent keys
+     */
+    @Test
+    public final void testContains() throws IOException {
+	File file = tempFile();
+	KeyIndexWriter writer = new KeyIndexWriter(file);
+	for (int i = 0; i < KEYS; i++)
+	    writer.add("http://example.org/doc" + i);
+	// duplicates are stored once
+	for (int i = 0; i < KEYS; i += 10)
+	    writer.add("http://example.org/doc" + i);
+	writer.add("M\u00fcller");
+	writer.add("");
+	writer.close();
+	assertFalse(new File(file.getPath() + ".spool").exists());
+
+	KeyIndex index = new KeyIndex(file);
+	assertEquals(KEYS + 2, index.size());
+	for (int i = 0; i < KEYS; i++)
+	    assertTrue(index.contains("http://example.org/doc" + i));
+	assertTrue(index.contains("M\u00fcller"));
+	assertTrue(index.contains(""));
+	int falsePositives = 0;
+	for (int i = KEYS; i < 2 * KEYS; i++) {
+	    assertFalse(index.contains("http://example.org/doc" + i));
+	    if (index.mightContain("http://example.org/doc" + i))
+		falsePositives++;
+	}
+	assertTrue(falsePositives < KEYS / 20);
+	index.close();
+    }
+
+    /**
+     * Tests an empty index and replacing an index
+     */
+    @Test
+    public final void testEmptyAndReplace() throws IOException {
+	File file = tempFile();
+	new KeyIndexWriter(file).close();
+	KeyIndex empty = new KeyIndex(file);
+	assertEquals(0, empty.size());
+	assertFalse(empty.contains("a"));
+
+	KeyIndexWriter writer = new KeyIndexWriter(file);
+	writer.add("a");
+	writer.close();
+	KeyIndex index = new KeyIndex(file);
+	assertTrue(index.contains("a"));
+	// the old mapping is still usable
+	assertFalse(empty.contains("a"));
+	empty.close();
+	index.close();
+    }
+
+    /**
+     * Tests that other files are rejected
+     */
+    @Test
+    public final void testNoKeyIndex() throws IOException {
+	File file = tempFile();
+	FileWriter writer = new FileWriter(file);
+	writer.write("0.5 (\"a\", \"b\")\n0.5 (\"c\", \"d\")\n");
+	writer.close();
+	try {
+	    new KeyIndex(file);
+	    fail("Expected an IOException");
+	} catch (IOException io) {
+	}
+    }
+}
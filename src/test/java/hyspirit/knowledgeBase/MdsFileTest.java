@@ -0,0 +1,82 @@
+package hyspirit.knowledgeBase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link MdsFile}
+ */
+public class MdsFileTest {
+
+    private File createFile(String content) throws IOException {
+	File file = File.createTempFile("mds_", ".mds");
+	file.deleteOnExit();
+	OutputStream os = new FileOutputStream(file);
+	os.write(content.getBytes(StandardCharsets.UTF_8));
+	os.close();
+	return file;
+    }
+
+    /**
+     * Tuples, comments, malformed lines and UTF-8 values
+     */
+    @Test
+    public final void testScanner() throws IOException {
+	File file = createFile("0.78 (\"test\",\"doc1\")\r\n# comment\n\n"
+		+ "no tuple\n(\"M\u00fcller\", doc2)\n0.5 (x)");
+	MdsFile mds = new MdsFile(file);
+	MdsFile.Scanner tuples = mds.scanner();
+	assertTrue(tuples.next());
+	assertEquals(0.78, tuples.probability(), 1e-6);
+	assertEquals("\"doc1\"", tuples.valueAt(1));
+	assertTrue(tuples.valueEquals(0, "\"test\""));
+	assertEquals("0.78", StandardCharsets.US_ASCII
+		.decode(tuples.probabilityBytes()).toString());
+	assertEquals(new HyTuple("0.78 (\"test\",\"doc1\")"), tuples.tuple());
+	assertTrue(tuples.next());
+	assertEquals(1, tuples.probability(), 0);
+	assertEquals(0, tuples.probabilityBytes().remaining());
+	assertEquals("\"M\u00fcller\"", tuples.valueAt(0));
+	assertTrue(tuples.valueEquals(0, "\"M\u00fcller\""));
+	assertFalse(tuples.valueEquals(0, "\"Muller\""));
+	assertEquals(4, tuples.value(1).remaining());
+	assertTrue(tuples.next());
+	assertEquals("x", tuples.valueAt(0));
+	assertFalse(tuples.next());
+	assertEquals(1, tuples.malformedLines());
+	mds.close();
+    }
+
+    /**
+     * Splits and small windows return every tuple once
+     */
+    @Test
+    public final void testSplit() throws IOException {
+	StringBuilder content = new StringBuilder();
+	for (int i = 0; i < 1000; i++)
+	    content.append("0.5 (\"term" + i + "\",\"doc" + i % 7 + "\")\n");
+	File file = createFile(content.toString());
+	MdsFile mds = new MdsFile(file, 100);
+	for (int n : new int[] { 1, 3, 8 }) {
+	    List<String> terms = new ArrayList<String>();
+	    for (MdsFile.Scanner tuples : mds.split(n))
+		while (tuples.next())
+		    terms.add(tuples.valueAt(0));
+	    assertEquals(1000, terms.size());
+	    for (int i = 0; i < 1000; i++)
+		assertEquals("\"term" + i + "\"", terms.get(i));
+	}
+	mds.close();
+    }
+}
@@ -0,0 +1,71 @@
+package hyspirit.knowledgeBase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import hyspirit.application.indexing.MDSTools;
+
+/**
+ * Tests for {@link TupleBatch} and its HyTuple views
+ */
+public class TupleBatchTest {
+
+    private TupleBatch createBatch() throws HyTupleFormatException {
+	TupleBatch batch = new TupleBatch();
+	batch.addLine("0.5 (doc1, \"a, b\")");
+	batch.addLine("(doc2, x)");
+	batch.addLine("0.25 (doc1)");
+	return batch;
+    }
+
+    /**
+     * Views behave like tuples parsed from the same lines
+     */
+    @Test
+    public final void testViews() throws HyTupleFormatException {
+	TupleBatch batch = createBatch();
+	assertEquals(3, batch.size());
+	assertEquals(4, batch.getDictionary().size());
+	assertEquals(batch.valueId(0, 0), batch.valueId(2, 0));
+	List<HyTuple> tuples = batch.asList();
+	assertEquals(new HyTuple("0.5 (doc1, \"a, b\")"), tuples.get(0));
+	assertEquals(tuples.get(1), new HyTuple("(doc2, x)"));
+	assertEquals("0.25 (doc1)", tuples.get(2).toString());
+	assertEquals(1, tuples.get(2).size());
+	assertEquals("x", new HyTuple(tuples.get(1)).valueAt(1));
+    }
+
+    /**
+     * Relations can be backed by batches
+     */
+    @Test
+    public final void testRelationHandler() throws HyTupleFormatException {
+	RelationHandler relations = new RelationHandler();
+	relations.addBatchToRelation("r", createBatch());
+	relations.addTupleToRelation("r", new HyTuple(0.1, "doc3"));
+	assertEquals(4, relations.get("r").size());
+	assertEquals("0.1 r(doc3)\n",
+		relations.relationToString("r", true).split("(?<=\n)")[3]);
+    }
+
+    /**
+     * Filtering and writing batches
+     */
+    @Test
+    public final void testFilterAndWrite() throws Exception {
+	TupleBatch filtered = MDSTools.filterByColumn(0,
+		Collections.singleton("doc1"), createBatch());
+	assertEquals(1, filtered.size());
+	StringWriter out = new StringWriter();
+	MDSTools.writeMDS(filtered, out);
+	assertEquals("(doc2, x)\n", out.toString());
+	assertTrue(MDSTools.filterByColumn(0, Collections.singleton("none"),
+		filtered).size() == 1);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import hyspirit.engines.HyPRAEngine;
+import hyspirit.knowledgeBase.HyTuple;
+
+/**
+ * Tests the fake HySpirit engines with the real engine classes.
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class FakeHySpiritTest {
+
+    /**
+     * Queries, echoes and failures of a fake hyp_pra
+     */
+    @Test
+    public final void testPRA() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	Properties config = new Properties();
+	config.setProperty("results", "3");
+	config.setProperty("documents", "10");
+	HyPRAEngine pra = new HyPRAEngine(FakeHySpirit.install(dir, config));
+	pra.start();
+	pra.addQueryToQueue("q1", "?- retrieve;");
+	pra.addQueryToQueue("q2", "?- retrieve;");
+	pra.executeQueryQueue();
+	List<HyTuple> result = pra.getResultForQuery("q1");
+	assertNotNull(result);
+	assertEquals(3, result.size());
+	assertEquals(3, pra.getResultForQuery("q2").size());
+	pra.destroy();
+
+	pra = new HyPRAEngine(FakeHySpirit.install(dir, config));
+	pra.start();
+	assertEquals("hello\n", pra.sendAndReceive("_echo(\"hello\");"));
+	pra.destroy();
+
+	config.setProperty("hyp_pra.failure.after", "1");
+	FakeHySpirit.configure(dir, config);
+	pra.start();
+	pra.eval("?- retrieve;");
+	pra.eval("?- retrieve;");
+	pra.closeSTDIN();
+	assertEquals(1, pra.waitFor());
+	assertFalse(pra.isAlive());
+    }
+}
@@ -1,11 +1,21 @@
 package hyspirit.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
@@ -14,8 +24,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import hyspirit.application.indexing.DocFreqList;
 import hyspirit.application.indexing.MDSTools;
+import hyspirit.engines.HyMDS2DirEngine;
 import hyspirit.knowledgeBase.HyTupleFormatException;
+import hyspirit.knowledgeBase.HyTupleParser;
 
 /**
  * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
@@ -203,6 +216,174 @@ public class MDSToolsTest {
 	executeTest(column, filterValues, expected, false);
     }
 
+    /**
+     * Test method for
+     * {@link hyspirit.application.indexing.MDSTools#convertDoctermToIDF(String, String, String, int, long)}
+     * with a memory small enough for many runs per partition.
+     */
+    @Test
+    public final void testConvertDoctermToIDFExternal() throws Exception {
+	File docterm = File.createTempFile("docterm", ".mds");
+	File idf = File.createTempFile("idf", ".mds");
+	docterm.deleteOnExit();
+	idf.deleteOnExit();
+	DocFreqList dfList = new DocFreqList();
+	Random random = new Random(42);
+	Writer writer = new FileWriter(docterm);
+	writer.write("# not optimised\n");
+	for (int i = 0; i < 20000; i++) {
+	    String term = "t" + random.nextInt(300);
+	    String doc = "d" + random.nextInt(500);
+	    dfList.addTermDoc(term, doc);
+	    writer.write("0.5 (\"" + term + "\", \"" + doc + "\")\n");
+	}
+	writer.close();
+
+	for (String norm : new String[] { "max_idf", "sum_idf" }) {
+	    MDSTools.convertDoctermToIDF(docterm.getPath(), idf.getPath(),
+		    norm, 3, 65536);
+	    HyTupleParser parser = new HyTupleParser();
+	    List<String> lines = Files.readAllLines(idf.toPath());
+	    assertEquals(300, lines.size());
+	    String last = "";
+	    for (String line : lines) {
+		parser.parse(line);
+		String term = parser.valueAt(0).replace("\"", "");
+		assertTrue(term.compareTo(last) > 0);
+		last = term;
+		float expected = norm.equals("max_idf") ? dfList.maxIDF(term)
+			: dfList.sumIDF(term);
+		assertEquals(expected, parser.probability(), 1e-5);
+	    }
+	}
+	// the runs are deleted
+	for (File f : idf.getAbsoluteFile().getParentFile().listFiles())
+	    assertTrue(f.getName(), !f.getName().startsWith(idf.getName()
+		    + ".runs"));
+    }
+
+    /**
+     * Test method for
+     * {@link hyspirit.application.indexing.MDSTools#filterByColumn(int, Set, File, File, boolean, int)}
+     * with several chunks, compared to the sequential filter.
+     */
+    @Test
+    public final void testFilterByColumnParallel() throws Exception {
+	StringBuilder content = new StringBuilder();
+	for (int i = 0; content.length() < 3 << 20; i++)
+	    content.append(mdsString.replace("e2", "e" + (i % 5)));
+	File input = File.createTempFile("filter", ".mds");
+	File output = File.createTempFile("filtered", ".mds");
+	input.deleteOnExit();
+	output.deleteOnExit();
+	Files.write(input.toPath(), content.toString().getBytes("UTF-8"));
+	Set<String> filterValues = new HashSet<String>();
+	filterValues.add("e1");
+	filterValues.add("e3");
+	for (boolean delete : new boolean[] { true, false }) {
+	    StringWriter expected = new StringWriter();
+	    int modified = MDSTools.filterByColumn(1, filterValues,
+		    new StringReader(content.toString()), expected, delete);
+	    assertEquals(modified, MDSTools.filterByColumn(1, filterValues,
+		    input, output, delete, 4));
+	    assertEquals(expected.toString(), new String(
+		    Files.readAllBytes(output.toPath()), "UTF-8"));
+	}
+    }
+
+    /**
+     * Test method for
+     * {@link hyspirit.application.indexing.MDSTools#compact(File, File[], hyspirit.engines.HyEngine...)}
+     * regenerating an index directory with a fake hy_mds2dir.
+     */
+    @Test
+    public final void testCompact() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(dir,
+		new Properties());
+	File mds = new File(dir, "test.mds");
+	Files.write(mds.toPath(), mdsString.getBytes("UTF-8"));
+	Set<String> filterValues = new HashSet<String>();
+	filterValues.add("e1");
+	File marked = new File(dir, "marked.mds");
+	assertEquals(3, MDSTools.filterByColumn(1, filterValues, mds, marked,
+		false, 2));
+
+	// an index of the marked file, which becomes stale
+	File indexDir = new File(dir, "test.dir");
+	File stale = new File(new File(indexDir, "e1"), "tuples");
+	assertTrue(stale.getParentFile().mkdirs());
+	assertTrue(stale.createNewFile());
+	HyMDS2DirEngine mds2dir = new HyMDS2DirEngine(hyspirit);
+	mds2dir.addMDSFile(marked.getPath());
+	mds2dir.addColumn(2);
+	mds2dir.indexDir(indexDir.getPath());
+	File[] indexes = { indexDir };
+	assertEquals(3, MDSTools.compact(marked, indexes, mds2dir));
+	assertTrue(indexDir.isDirectory());
+	assertTrue(!stale.exists());
+	StringWriter expected = new StringWriter();
+	MDSTools.filterByColumn(1, filterValues, new StringReader(mdsString),
+		expected, true);
+	assertEquals(expected.toString(), new String(
+		Files.readAllBytes(marked.toPath()), "UTF-8"));
+
+	// nothing left to remove, so the index is not touched
+	indexDir.delete();
+	assertEquals(0, MDSTools.compact(marked, indexes, mds2dir));
+	assertTrue(!indexDir.exists());
+    }
+
+    /**
+     * Test method for
+     * {@link hyspirit.application.indexing.MDSTools#compact(File, File[], hyspirit.engines.HyEngine...)}
+     * keeping comments which are no marked tuples, and not following symbolic
+     * links in index directories.
+     */
+    @Test
+    public final void testCompactComments() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	HySpiritProperties hyspirit = FakeHySpirit.install(dir,
+		new Properties());
+	String comments = "#! number of keys: 3 (approx)\n"
+		+ "# e1 finished (x)\n"
+		+ "# see (e1, e2) and (e3)\n";
+	File marked = new File(dir, "marked.mds");
+	Set<String> filterValues = new HashSet<String>();
+	filterValues.add("e1");
+	Writer out = new FileWriter(marked);
+	out.write(comments);
+	MDSTools.filterByColumn(1, filterValues, new StringReader(mdsString),
+		out, false);
+	out.close();
+
+	// an index directory linking to a directory outside of it
+	File outside = new File(dir, "outside");
+	File kept = new File(outside, "tuples");
+	assertTrue(outside.mkdir());
+	assertTrue(kept.createNewFile());
+	File indexDir = new File(dir, "test.dir");
+	assertTrue(indexDir.mkdir());
+	Files.createSymbolicLink(new File(indexDir, "e1").toPath(),
+		outside.toPath());
+	HyMDS2DirEngine mds2dir = new HyMDS2DirEngine(hyspirit);
+	mds2dir.addMDSFile(marked.getPath());
+	mds2dir.addColumn(2);
+	mds2dir.indexDir(indexDir.getPath());
+
+	assertEquals(3, MDSTools.compact(marked, new File[] { indexDir },
+		mds2dir));
+	StringWriter expected = new StringWriter();
+	expected.write(comments);
+	MDSTools.filterByColumn(1, filterValues, new StringReader(mdsString),
+		expected, true);
+	assertEquals(expected.toString(), new String(
+		Files.readAllBytes(marked.toPath()), "UTF-8"));
+	assertTrue(kept.exists());
+    }
+
     /**
      * @param column
      * @param filterValues
@@ -0,0 +1,98 @@
+package hyspirit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.StringReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * Tests for the buffered and streaming modes of {@link StreamCatcher}
+ */
+public class StreamCatcherTest {
+    private static Logger LOG = LogManager.getLogger(StreamCatcherTest.class);
+
+    private static final String OUTPUT = "0.5 (a)\n0.4 (b)\nEND\n0.3 (c)\n";
+
+    /**
+     * Buffered mode stops at the delimiter
+     */
+    @Test
+    public final void testBuffered() {
+	LOG.info("StreamCatcher: testBuffered");
+	StreamCatcher sc = new StreamCatcher(
+		new BufferedReader(new StringReader(OUTPUT)), "END");
+	sc.start();
+	assertEquals("0.5 (a)", sc.next());
+	assertEquals("0.4 (b)", sc.next());
+	assertFalse(sc.hasNext());
+	assertNull(sc.next());
+    }
+
+    /**
+     * Streaming mode delivers the same lines, with a queue smaller than the
+     * output
+     */
+    @Test
+    public final void testStreamed() {
+	LOG.info("StreamCatcher: testStreamed");
+	StreamCatcher sc = new StreamCatcher(
+		new BufferedReader(new StringReader(OUTPUT)), "END", 1);
+	sc.start();
+	assertTrue(sc.isStreaming());
+	assertTrue(sc.hasNext());
+	assertEquals("0.5 (a)", sc.next());
+	assertEquals("0.4 (b)", sc.next());
+	assertFalse(sc.hasNext());
+	assertNull(sc.next());
+	assertTrue(sc.waitTillFinished(1000));
+    }
+
+    /**
+     * Lines are delivered before the stream is finished
+     */
+    @Test(timeout = 5000)
+    public final void testFirstLineBeforeEnd() throws IOException {
+	LOG.info("StreamCatcher: testFirstLineBeforeEnd");
+	PipedWriter writer = new PipedWriter();
+	PipedReader reader = new PipedReader(writer);
+	StreamCatcher sc = new StreamCatcher(new BufferedReader(reader),
+		"END", StreamCatcher.DEFAULT_STREAM_CAPACITY);
+	sc.start();
+	writer.write("0.5 (a)\n");
+	writer.flush();
+	assertEquals("0.5 (a)", sc.next());
+	assertFalse(sc.finished());
+	writer.write("END\n");
+	writer.close();
+	assertFalse(sc.hasNext());
+    }
+
+    /**
+     * Discarding unblocks a reader waiting on a full queue
+     */
+    @Test(timeout = 5000)
+    public final void testDiscard() {
+	LOG.info("StreamCatcher: testDiscard");
+	StringBuilder output = new StringBuilder();
+	for (int i = 0; i < 100; i++)
+	    output.append("0.1 (t" + i + ")\n");
+	StreamCatcher sc = new StreamCatcher(
+		new BufferedReader(new StringReader(output.toString())), "END",
+		2);
+	sc.start();
+	assertEquals("0.1 (t0)", sc.next());
+	sc.discard();
+	assertTrue(sc.finished());
+	assertFalse(sc.hasNext());
+    }
+}
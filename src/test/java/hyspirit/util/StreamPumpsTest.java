@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Ingo Frommholz
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Created on 17-Oct-2026
+ */
+package hyspirit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import hyspirit.engines.HyPRAEngine;
+
+/**
+ * Tests for {@link StreamPumps}
+ *
+ * @author Ingo Frommholz &lt;ingo@frommholz.org&gt;
+ */
+public class StreamPumpsTest {
+
+    @After
+    public void resetExecutor() {
+	StreamPumps.setExecutor(null);
+	System.clearProperty(StreamPumps.POOL_SIZE_PROPERTY);
+    }
+
+    private static void runBlockingTasks(Executor executor, int tasks)
+	    throws InterruptedException {
+	final CountDownLatch started = new CountDownLatch(tasks);
+	final CountDownLatch release = new CountDownLatch(1);
+	for (int i = 0; i < tasks; i++)
+	    executor.execute(new Runnable() {
+		public void run() {
+		    started.countDown();
+		    try {
+			release.await();
+		    } catch (InterruptedException e) {
+		    }
+		}
+	    });
+	try {
+	    assertTrue(started.await(10, TimeUnit.SECONDS));
+	} finally {
+	    release.countDown();
+	}
+    }
+
+    /**
+     * Blocking tasks beyond the pool size still run
+     */
+    @Test
+    public final void testPool() throws InterruptedException {
+	System.setProperty(StreamPumps.POOL_SIZE_PROPERTY, "2");
+	runBlockingTasks(StreamPumps.createExecutor("pool"), 5);
+    }
+
+    /**
+     * All modes run their tasks, unknown ones fall back to the pool
+     */
+    @Test
+    public final void testModes() throws InterruptedException {
+	runBlockingTasks(StreamPumps.createExecutor("thread"), 3);
+	runBlockingTasks(StreamPumps.createExecutor("virtual"), 3);
+	runBlockingTasks(StreamPumps.createExecutor("unknown"), 3);
+    }
+
+    /**
+     * Engines pump their streams with the executor set
+     */
+    @Test
+    public final void testEngine() throws Exception {
+	assumeTrue(File.separatorChar == '/');
+	final AtomicInteger pumps = new AtomicInteger();
+	final Executor pool = StreamPumps.createExecutor("pool");
+	StreamPumps.setExecutor(new Executor() {
+	    public void execute(Runnable task) {
+		pumps.incrementAndGet();
+		pool.execute(task);
+	    }
+	});
+	File dir = Files.createTempDirectory("fakehs_").toFile();
+	Properties config = new Properties();
+	config.setProperty("results", "2");
+	HyPRAEngine pra = new HyPRAEngine(FakeHySpirit.install(dir, config));
+	pra.start();
+	pra.waitTillRunning();
+	for (int i = 0; i < 3; i++) {
+	    pra.eval("?- retrieve;");
+	    int tuples = 0;
+	    while (pra.nextTuple() != null)
+		tuples++;
+	    assertEquals(2, tuples);
+	}
+	pra.destroy();
+	// one STDERR handler and a catcher per query
+	assertEquals(4, pumps.get());
+    }
+}
@@ -0,0 +1,101 @@
+package hyspirit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StringIntMap} and {@link LongHashSet}
+ */
+public class StringIntMapTest {
+    private static Logger LOG = LogManager.getLogger(StringIntMapTest.class);
+
+    /**
+     * Indexes follow the insertion order
+     */
+    @Test
+    public final void testIndexes() {
+	LOG.info("StringIntMap: testIndexes");
+	StringIntMap map = new StringIntMap();
+	assertEquals(0, map.add("b"));
+	assertEquals(1, map.put("a", 7));
+	assertEquals(0, map.add("b"));
+	assertEquals(3, map.increment("b", 3));
+	assertEquals(8, map.increment("a", 1));
+	assertEquals(-1, map.indexOf("c"));
+	assertEquals(0, map.get("c"));
+	assertFalse(map.containsKey("c"));
+	assertEquals("a", map.keyAt(1));
+	assertEquals(3, map.valueAt(0));
+	Iterator<String> keys = map.keys();
+	assertEquals("b", keys.next());
+	assertEquals("a", keys.next());
+	assertFalse(keys.hasNext());
+	map.clear();
+	assertEquals(0, map.size());
+	assertEquals(-1, map.indexOf("a"));
+    }
+
+    /**
+     * Compares random increments with a HashMap, growing the map several
+     * times
+     */
+    @Test
+    public final void testAgainstHashMap() {
+	LOG.info("StringIntMap: testAgainstHashMap");
+	Random random = new Random(4711);
+	StringIntMap map = new StringIntMap();
+	Map<String, Integer> expected = new HashMap<String, Integer>();
+	List<String> order = new ArrayList<String>();
+	for (int i = 0; i < 100000; i++) {
+	    String key = "t" + random.nextInt(20000);
+	    int delta = random.nextInt(5);
+	    Integer old = expected.get(key);
+	    if (old == null) {
+		old = 0;
+		order.add(key);
+	    }
+	    expected.put(key, old + delta);
+	    assertEquals(old + delta, map.increment(key, delta));
+	}
+	assertEquals(expected.size(), map.size());
+	for (int i = 0; i < order.size(); i++) {
+	    assertEquals(order.get(i), map.keyAt(i));
+	    assertEquals(i, map.indexOf(order.get(i)));
+	    assertEquals((int) expected.get(order.get(i)), map.valueAt(i));
+	}
+    }
+
+    /**
+     * Long pairs, including 0 and negative ints
+     */
+    @Test
+    public final void testLongHashSet() {
+	LOG.info("StringIntMap: testLongHashSet");
+	LongHashSet set = new LongHashSet();
+	assertTrue(set.add(LongHashSet.pair(0, 0)));
+	assertFalse(set.add(0));
+	assertTrue(set.add(LongHashSet.pair(1, -1)));
+	assertTrue(set.add(LongHashSet.pair(-1, 1)));
+	assertTrue(set.contains(LongHashSet.pair(1, -1)));
+	assertFalse(set.contains(LongHashSet.pair(1, 1)));
+	for (int t = 0; t < 300; t++)
+	    for (int d = 0; d < 300; d++)
+		set.add(LongHashSet.pair(t, d));
+	assertEquals(90002, set.size());
+	for (int t = 0; t < 300; t++)
+	    assertTrue(set.contains(LongHashSet.pair(t, 299 - t)));
+	assertFalse(set.contains(LongHashSet.pair(300, 0)));
+    }
+}
@@ -0,0 +1,64 @@
+package hyspirit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TextAnalyzer} and {@link PorterStemmer}
+ */
+public class TextAnalyzerTest {
+    private static Logger LOG = LogManager.getLogger(TextAnalyzerTest.class);
+
+    /**
+     * Stems from the examples of Porter's paper
+     */
+    @Test
+    public final void testPorterStemmer() {
+	LOG.info("TextAnalyzer: testPorterStemmer");
+	String[][] stems = { { "caresses", "caress" }, { "ponies", "poni" },
+		{ "cats", "cat" }, { "agreed", "agre" }, { "plastered", "plaster" },
+		{ "motoring", "motor" }, { "hopping", "hop" }, { "falling", "fall" },
+		{ "filing", "file" }, { "happy", "happi" },
+		{ "relational", "relat" }, { "conditional", "condit" },
+		{ "generalization", "gener" }, { "hopefulness", "hope" },
+		{ "electrical", "electr" }, { "adjustment", "adjust" },
+		{ "controlling", "control" }, { "sky", "sky" }, { "is", "is" } };
+	PorterStemmer stemmer = new PorterStemmer();
+	for (String[] stem : stems)
+	    assertEquals(stem[0], stem[1], stemmer.stem(stem[0]));
+    }
+
+    /**
+     * Lower-casing, splitting, umlauts, stop words and morphemes
+     */
+    @Test
+    public final void testAnalyze() throws HySpiritException {
+	LOG.info("TextAnalyzer: testAnalyze");
+	TextAnalyzer analyzer = TextAnalyzer.withDefaultLists(true);
+	assertEquals(Arrays.asList("freak", "cool", "hutzliputz", "terminator",
+		"muenchen", "strass", "42"), analyzer.analyze(
+			"This is FREAKING cool! Hutzliputz, the Terminator; "
+			+ "M\u00fcnchen-Stra\u00dfe 42"));
+	assertEquals("freak cool", analyzer.filter("freaking cool"));
+	assertNull(analyzer.filter("this is the"));
+	assertNull(analyzer.filter(""));
+
+	TextAnalyzer plain = new TextAnalyzer(false, null, null);
+	assertEquals("the hopping cats", plain.filter("The hopping, cats."));
+	HyText2PoolFilter filter = new HyText2PoolFilter(analyzer);
+	List<Object> terms = new ArrayList<Object>();
+	for (Iterator it = filter.filterIt("The hopping cats"); it.hasNext();)
+	    terms.add(it.next());
+	assertEquals(Arrays.asList("hop", "cat"), terms);
+	filter.close();
+    }
+}